@@ -0,0 +1,43 @@
+package xiaozhi.common.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 缓存GET接口的响应体
+ * <p>
+ * 按路由、查询参数、语言以及可选的用户缓存序列化后的响应，返回ETag，请求携带的If-None-Match一致时返回304；
+ * 写操作通过ResponseCacheManager按区域失效
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ResponseCache {
+    /**
+     * 响应依赖的缓存区域，任一区域失效时缓存失效
+     */
+    String[] regions();
+
+    /**
+     * 服务端缓存时长，单位：秒
+     */
+    long ttl() default 300;
+
+    /**
+     * 客户端缓存时长，单位：秒，为0时客户端每次都要带ETag重新验证
+     */
+    long maxAge() default 0;
+
+    /**
+     * 是否按用户分别缓存
+     */
+    boolean perUser() default false;
+
+    /**
+     * 是否允许代理等共享缓存，只用于匿名接口
+     */
+    boolean shared() default false;
+}
@@ -0,0 +1,34 @@
+package xiaozhi.common.cache;
+
+/**
+ * 响应缓存区域
+ */
+public final class CacheRegion {
+    /**
+     * 系统参数
+     */
+    public static final String SYS_PARAMS = "sysParams";
+    /**
+     * 字典
+     */
+    public static final String DICT = "dict";
+    /**
+     * 模型供应器、插件
+     */
+    public static final String MODEL_PROVIDER = "modelProvider";
+    /**
+     * 音色
+     */
+    public static final String TIMBRE = "timbre";
+    /**
+     * 智能体模板
+     */
+    public static final String AGENT_TEMPLATE = "agentTemplate";
+    /**
+     * 用户，新增和删除用户时失效（没有用户时允许注册）
+     */
+    public static final String SYS_USER = "sysUser";
+
+    private CacheRegion() {
+    }
+}
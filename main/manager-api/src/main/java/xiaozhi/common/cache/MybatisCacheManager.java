@@ -0,0 +1,295 @@
+package xiaozhi.common.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.common.redis.RedisUtils;
+
+/**
+ * MyBatis二级缓存的存储，供{@link MybatisRedisCache}使用
+ * <p>
+ * 本地缓存在前，redis在后，两级都按mapper命名空间存放，只保存序列化后的字节，每次命中都反序列化出新的对象。
+ * 命名空间清空时删除redis中的hash并递增版本（各实例定时同步，版本变化时清空本地缓存）。
+ * 未命中时记录当时的版本，事务提交写入缓存时版本已变化说明查询期间命名空间被清空过，查到的可能是旧数据，放弃写入
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(MybatisCacheProperties.class)
+public class MybatisCacheManager {
+    private static final String METRIC = "xiaozhi.mybatis.cache";
+    /**
+     * 每个线程最多记录的未命中条数，超过时清空，丢失记录的结果不写入缓存
+     */
+    private static final int MAX_PENDING_MISSES = 1024;
+
+    private static final Set<String> NAMESPACES = ConcurrentHashMap.newKeySet();
+
+    private static volatile MybatisCacheManager instance;
+
+    private final MybatisCacheProperties properties;
+    private final RedisUtils redisUtils;
+    private final MeterRegistry meterRegistry;
+    private final RedisSerializer<Object> serializer = RedisSerializer.json();
+    private final Map<String, Cache<String, byte[]>> localCaches = new ConcurrentHashMap<>();
+    private final Map<String, Long> namespaceVersions = new ConcurrentHashMap<>();
+    /**
+     * 本实例清空各命名空间的次数，redis不可用时也能发现本实例的清空
+     */
+    private final Map<String, AtomicLong> localClears = new ConcurrentHashMap<>();
+    /**
+     * 未命中时的命名空间版本；MyBatis在同一线程内未命中、查询数据库并在事务提交时写入缓存
+     */
+    private final ThreadLocal<Map<String, String>> missVersions = ThreadLocal.withInitial(HashMap::new);
+
+    public MybatisCacheManager(MybatisCacheProperties properties, RedisUtils redisUtils,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.redisUtils = redisUtils;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * MyBatis自行创建缓存实例，无法注入，只能通过静态方法获取；容器启动完成前返回null
+     */
+    public static MybatisCacheManager getInstance() {
+        return instance;
+    }
+
+    @PostConstruct
+    public void init() {
+        instance = this;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (instance == this) {
+            instance = null;
+        }
+    }
+
+    /**
+     * 记录启用了二级缓存的命名空间，由MyBatis创建缓存实例时调用
+     */
+    public static void register(String namespace) {
+        NAMESPACES.add(namespace);
+    }
+
+    /**
+     * 启动时清空redis中的缓存，避免读到数据库迁移之前的数据
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        NAMESPACES.forEach(this::clearNow);
+        log.info("MyBatis二级缓存已启用，命名空间：{}", NAMESPACES);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public Object get(String namespace, Object key) {
+        String field = field(key);
+        Cache<String, byte[]> localCache = localCache(namespace);
+        byte[] bytes = localCache.getIfPresent(field);
+        String result = "localHit";
+        if (bytes == null) {
+            bytes = getRemote(namespace, field);
+            result = "redisHit";
+            if (bytes != null) {
+                localCache.put(field, bytes);
+            }
+        }
+        if (bytes == null) {
+            recordMiss(namespace, field);
+            record(namespace, "miss");
+            return null;
+        }
+
+        try {
+            Object value = serializer.deserialize(bytes);
+            record(namespace, result);
+            return value;
+        } catch (Exception e) {
+            log.warn("MyBatis二级缓存反序列化失败，namespace={}", namespace, e);
+            remove(namespace, key);
+            recordMiss(namespace, field);
+            record(namespace, "miss");
+            return null;
+        }
+    }
+
+    public void put(String namespace, Object key, Object value) {
+        String field = field(key);
+        String missVersion = missVersions.get().remove(namespace + ":" + field);
+        if (missVersion == null || !missVersion.equals(version(namespace))) {
+            record(namespace, "stale");
+            return;
+        }
+
+        byte[] bytes;
+        try {
+            bytes = serializer.serialize(value);
+        } catch (Exception e) {
+            log.debug("MyBatis二级缓存序列化失败，不缓存该结果，namespace={}", namespace, e);
+            return;
+        }
+        if (bytes == null) {
+            return;
+        }
+        localCache(namespace).put(field, bytes);
+        try {
+            redisUtils.hSetBytes(RedisKeys.getMybatisCacheKey(namespace), field, bytes, properties.getRedisTtl());
+        } catch (Exception e) {
+            log.warn("MyBatis二级缓存写入redis失败，namespace={}", namespace, e);
+        }
+        record(namespace, "put");
+    }
+
+    public void remove(String namespace, Object key) {
+        String field = field(key);
+        localCache(namespace).invalidate(field);
+        try {
+            redisUtils.hDel(RedisKeys.getMybatisCacheKey(namespace), field);
+        } catch (Exception e) {
+            log.warn("MyBatis二级缓存删除失败，namespace={}", namespace, e);
+        }
+    }
+
+    /**
+     * 清空命名空间
+     * <p>
+     * MyBatis在事务提交前清空缓存，此时其他请求仍可能读到旧数据并写回缓存，存在事务时在提交后再清空一次
+     */
+    public void clear(String namespace) {
+        clearNow(namespace);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clearNow(namespace);
+                }
+            });
+        }
+    }
+
+    private void clearNow(String namespace) {
+        localClears.computeIfAbsent(namespace, ns -> new AtomicLong()).incrementAndGet();
+        localCache(namespace).invalidateAll();
+        Long version = null;
+        try {
+            redisUtils.delete(RedisKeys.getMybatisCacheKey(namespace));
+            version = redisUtils.hIncrement(RedisKeys.getMybatisCacheVersionKey(), namespace, 1);
+        } catch (Exception e) {
+            log.warn("MyBatis二级缓存清空redis失败，仅在本实例生效，namespace={}", namespace, e);
+        }
+        if (version != null) {
+            namespaceVersions.put(namespace, version);
+        }
+        record(namespace, "clear");
+    }
+
+    public int size(String namespace) {
+        return (int) localCache(namespace).size();
+    }
+
+    /**
+     * 定时从redis同步其他实例的清空记录，版本变化的命名空间清空本地缓存
+     */
+    @Scheduled(initialDelay = 5 * 1000L, fixedDelay = 5 * 1000L)
+    public void refreshVersions() {
+        Map<String, Object> versions;
+        try {
+            versions = redisUtils.hGetAll(RedisKeys.getMybatisCacheVersionKey());
+        } catch (Exception e) {
+            log.warn("同步MyBatis二级缓存版本失败", e);
+            return;
+        }
+        if (versions == null) {
+            return;
+        }
+        versions.forEach((namespace, value) -> {
+            Long version = Long.parseLong(String.valueOf(value));
+            Long previous = namespaceVersions.put(namespace, version);
+            if (!version.equals(previous)) {
+                localCache(namespace).invalidateAll();
+            }
+        });
+    }
+
+    private void recordMiss(String namespace, String field) {
+        Map<String, String> misses = missVersions.get();
+        if (misses.size() >= MAX_PENDING_MISSES) {
+            // 回滚的事务不会写入，记录会残留，超过上限时整体丢弃
+            misses.clear();
+        }
+        misses.put(namespace + ":" + field, version(namespace));
+    }
+
+    /**
+     * 命名空间当前版本：redis中的全局版本加本实例的清空次数
+     */
+    private String version(String namespace) {
+        Object remote = null;
+        try {
+            remote = redisUtils.hGet(RedisKeys.getMybatisCacheVersionKey(), namespace);
+        } catch (Exception e) {
+            log.debug("读取MyBatis二级缓存版本失败，namespace={}", namespace, e);
+        }
+        return remote + "/" + localClears.computeIfAbsent(namespace, ns -> new AtomicLong()).get();
+    }
+
+    private byte[] getRemote(String namespace, String field) {
+        try {
+            return redisUtils.hGetBytes(RedisKeys.getMybatisCacheKey(namespace), field);
+        } catch (Exception e) {
+            log.warn("MyBatis二级缓存读取redis失败，namespace={}", namespace, e);
+            return null;
+        }
+    }
+
+    private Cache<String, byte[]> localCache(String namespace) {
+        return localCaches.computeIfAbsent(namespace, ns -> CacheBuilder.newBuilder()
+                .maximumSize(properties.getLocalMaxEntries())
+                .expireAfterWrite(properties.getLocalTtl(), TimeUnit.SECONDS)
+                .build());
+    }
+
+    /**
+     * CacheKey包含语句ID、分页、SQL和参数值，取其摘要作为字段名
+     */
+    private static String field(Object key) {
+        return Hashing.sha256().hashUnencodedChars(String.valueOf(key)).toString();
+    }
+
+    private void record(String namespace, String result) {
+        Counter.builder(METRIC)
+                .description("MyBatis二级缓存命中情况")
+                .tag("namespace", namespace)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+}
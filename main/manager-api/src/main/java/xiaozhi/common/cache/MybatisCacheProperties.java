@@ -0,0 +1,29 @@
+package xiaozhi.common.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * MyBatis二级缓存配置项
+ */
+@Data
+@ConfigurationProperties(prefix = "renren.mybatis-cache")
+public class MybatisCacheProperties {
+    /**
+     * 是否开启二级缓存，关闭时标注了缓存的mapper直接查询数据库
+     */
+    private boolean enabled = true;
+    /**
+     * 每个命名空间本地缓存的最大条数
+     */
+    private long localMaxEntries = 1000;
+    /**
+     * 本地缓存时长，单位：秒，其他实例的写操作最迟在版本同步后失效
+     */
+    private long localTtl = 60;
+    /**
+     * redis缓存时长，单位：秒
+     */
+    private long redisTtl = 60 * 60;
+}
@@ -0,0 +1,87 @@
+package xiaozhi.common.cache;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * MyBatis二级缓存实现，本地缓存加redis两级
+ * <p>
+ * 按mapper启用：接口标注{@code @CacheNamespace(implementation = MybatisRedisCache.class)}，
+ * 有XML的mapper还需在XML中声明指向自身的{@code <cache-ref>}，使XML语句与接口共用缓存。
+ * 命名空间内任一写语句都会在提交时清空整个命名空间
+ */
+public class MybatisRedisCache implements Cache {
+    private final String id;
+    private MybatisCacheManager manager;
+
+    public MybatisRedisCache(String id) {
+        this(id, null);
+    }
+
+    public MybatisRedisCache(String id, MybatisCacheManager manager) {
+        this.id = id;
+        this.manager = manager;
+        MybatisCacheManager.register(id);
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        MybatisCacheManager manager = manager();
+        if (manager != null) {
+            manager.put(id, key, value);
+        }
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        MybatisCacheManager manager = manager();
+        return manager == null ? null : manager.get(id, key);
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        MybatisCacheManager manager = manager();
+        if (manager != null) {
+            manager.remove(id, key);
+        }
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        MybatisCacheManager manager = manager();
+        if (manager != null) {
+            manager.clear(id);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        MybatisCacheManager manager = manager();
+        return manager == null ? 0 : manager.size(id);
+    }
+
+    /**
+     * 容器启动完成前或缓存关闭时返回null，此时直接查询数据库
+     */
+    private MybatisCacheManager manager() {
+        if (manager == null) {
+            manager = MybatisCacheManager.getInstance();
+        }
+        return manager != null && manager.isEnabled() ? manager : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Cache cache && id.equals(cache.getId()));
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+}
@@ -0,0 +1,82 @@
+package xiaozhi.common.cache;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import xiaozhi.common.annotation.ResponseCache;
+import xiaozhi.common.cache.ResponseCacheManager.CachedResponse;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.utils.Result;
+
+/**
+ * 将成功的响应序列化后写入响应缓存，并直接输出序列化结果，避免二次序列化
+ */
+@RestControllerAdvice
+public class ResponseCacheAdvice implements ResponseBodyAdvice<Object> {
+    private final ResponseCacheManager responseCacheManager;
+    private final ObjectMapper objectMapper;
+
+    public ResponseCacheAdvice(ResponseCacheManager responseCacheManager,
+            MappingJackson2HttpMessageConverter jackson2HttpMessageConverter) {
+        this.responseCacheManager = responseCacheManager;
+        this.objectMapper = jackson2HttpMessageConverter.getObjectMapper();
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(ResponseCache.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+            ServerHttpResponse response) {
+        if (!(body instanceof Result<?> result) || result.getCode() != 0
+                || !(request instanceof ServletServerHttpRequest servletRequest)) {
+            return body;
+        }
+        HttpServletRequest httpRequest = servletRequest.getServletRequest();
+        String key = (String) httpRequest.getAttribute(ResponseCacheInterceptor.ATTR_KEY);
+        long[] versions = (long[]) httpRequest.getAttribute(ResponseCacheInterceptor.ATTR_VERSIONS);
+        if (key == null || versions == null) {
+            return body;
+        }
+
+        ResponseCache cache = returnType.getMethodAnnotation(ResponseCache.class);
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(body);
+            CachedResponse cached = responseCacheManager.put(key, cache, versions, bytes,
+                    selectedContentType.toString());
+            HttpHeaders headers = response.getHeaders();
+            headers.setETag(cached.etag());
+            headers.setCacheControl(responseCacheManager.cacheControl(cache));
+            headers.setVary(List.of(HttpHeaders.ACCEPT_LANGUAGE));
+            if (cached.matches(httpRequest.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+                response.setStatusCode(HttpStatus.NOT_MODIFIED);
+                response.flush();
+                return null;
+            }
+            headers.setContentType(selectedContentType);
+            headers.setContentLength(bytes.length);
+            response.getBody().write(bytes);
+            return null;
+        } catch (IOException e) {
+            throw new RenException("响应序列化失败", e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package xiaozhi.common.cache;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * 响应缓存配置，拦截器排在限流之后，命中缓存的请求同样受限流约束
+ */
+@Configuration
+@AllArgsConstructor
+public class ResponseCacheConfig implements WebMvcConfigurer {
+    private final ResponseCacheManager responseCacheManager;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ResponseCacheInterceptor(responseCacheManager)).addPathPatterns("/**").order(1);
+    }
+}
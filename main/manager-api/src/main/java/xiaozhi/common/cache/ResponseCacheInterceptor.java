@@ -0,0 +1,94 @@
+package xiaozhi.common.cache;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.authz.annotation.Logical;
+import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.apache.shiro.authz.annotation.RequiresRoles;
+import org.apache.shiro.subject.Subject;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import xiaozhi.common.annotation.ResponseCache;
+import xiaozhi.common.cache.ResponseCacheManager.CachedResponse;
+
+/**
+ * 命中响应缓存时直接返回缓存的响应体，ETag一致时返回304；未命中时记录缓存key，由ResponseCacheAdvice写入缓存
+ * <p>
+ * 命中时不再进入控制器，Shiro的授权注解需要在这里先行校验，校验不通过时交给控制器按原流程处理
+ */
+@AllArgsConstructor
+public class ResponseCacheInterceptor implements HandlerInterceptor {
+    static final String ATTR_KEY = ResponseCacheInterceptor.class.getName() + ".key";
+    static final String ATTR_VERSIONS = ResponseCacheInterceptor.class.getName() + ".versions";
+
+    private final ResponseCacheManager responseCacheManager;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!responseCacheManager.isEnabled() || !(handler instanceof HandlerMethod handlerMethod)
+                || !(HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod()))) {
+            return true;
+        }
+        ResponseCache cache = handlerMethod.getMethodAnnotation(ResponseCache.class);
+        if (cache == null) {
+            return true;
+        }
+
+        String key = responseCacheManager.key(request, cache);
+        request.setAttribute(ATTR_KEY, key);
+        request.setAttribute(ATTR_VERSIONS, responseCacheManager.versions(cache.regions()));
+        CachedResponse cached = responseCacheManager.get(key, cache);
+        if (cached == null || !isPermitted(handlerMethod)) {
+            return true;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, cached.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, responseCacheManager.cacheControl(cache));
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE);
+        if (cached.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            responseCacheManager.record(cache, "notModified");
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return false;
+        }
+        response.setContentType(cached.contentType());
+        response.setContentLength(cached.body().length);
+        response.getOutputStream().write(cached.body());
+        return false;
+    }
+
+    private boolean isPermitted(HandlerMethod handlerMethod) {
+        RequiresPermissions permissions = handlerMethod.getMethodAnnotation(RequiresPermissions.class);
+        if (permissions == null) {
+            permissions = handlerMethod.getBeanType().getAnnotation(RequiresPermissions.class);
+        }
+        RequiresRoles roles = handlerMethod.getMethodAnnotation(RequiresRoles.class);
+        if (roles == null) {
+            roles = handlerMethod.getBeanType().getAnnotation(RequiresRoles.class);
+        }
+        if (permissions == null && roles == null) {
+            return true;
+        }
+
+        Subject subject = SecurityUtils.getSubject();
+        if (permissions != null && !check(permissions.logical(), permissions.value(), subject::isPermitted)) {
+            return false;
+        }
+        return roles == null || check(roles.logical(), roles.value(), subject::hasRole);
+    }
+
+    private boolean check(Logical logical, String[] values, Predicate<String> predicate) {
+        return logical == Logical.OR ? Arrays.stream(values).anyMatch(predicate)
+                : Arrays.stream(values).allMatch(predicate);
+    }
+}
@@ -0,0 +1,193 @@
+package xiaozhi.common.cache;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.annotation.ResponseCache;
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.modules.security.user.SecurityUser;
+
+/**
+ * 响应缓存
+ * <p>
+ * 本实例内存中保存序列化后的响应体和ETag，每条缓存记录写入时所依赖区域的版本。
+ * 区域失效时递增版本（保存在redis，各实例定时同步到内存），版本不一致的缓存视为失效
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+public class ResponseCacheManager {
+    private static final String METRIC = "xiaozhi.response.cache";
+
+    private final ResponseCacheProperties properties;
+    private final RedisUtils redisUtils;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, CachedResponse> responses;
+    private final Map<String, Long> regionVersions = new ConcurrentHashMap<>();
+
+    public ResponseCacheManager(ResponseCacheProperties properties, RedisUtils redisUtils,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.redisUtils = redisUtils;
+        this.meterRegistry = meterRegistry;
+        this.responses = CacheBuilder.newBuilder().maximumSize(properties.getMaxEntries()).build();
+        refreshVersions();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 缓存key：路由、排序后的查询参数、用户范围和语言
+     */
+    public String key(HttpServletRequest request, ResponseCache cache) {
+        StringBuilder key = new StringBuilder(request.getRequestURI()).append('?');
+        new TreeMap<>(request.getParameterMap()).forEach((name, values) -> key.append(name).append('=')
+                .append(String.join(",", values)).append('&'));
+        key.append('|').append(cache.perUser() ? String.valueOf(SecurityUser.getUserId()) : "*");
+        key.append('|').append(request.getLocale().toLanguageTag());
+        return key.toString();
+    }
+
+    /**
+     * 依赖区域的当前版本，需在执行查询前获取，保证查询期间发生的失效不会被缓存覆盖
+     */
+    public long[] versions(String[] regions) {
+        long[] versions = new long[regions.length];
+        for (int i = 0; i < regions.length; i++) {
+            versions[i] = regionVersions.getOrDefault(regions[i], 0L);
+        }
+        return versions;
+    }
+
+    /**
+     * 获取未过期且依赖区域未失效的缓存，不存在时返回null
+     */
+    public CachedResponse get(String key, ResponseCache cache) {
+        CachedResponse response = responses.getIfPresent(key);
+        if (response != null && (response.expiresAt() < System.currentTimeMillis()
+                || !Arrays.equals(response.versions(), versions(cache.regions())))) {
+            responses.invalidate(key);
+            response = null;
+        }
+        record(cache, response == null ? "miss" : "hit");
+        return response;
+    }
+
+    public CachedResponse put(String key, ResponseCache cache, long[] versions, byte[] body, String contentType) {
+        String etag = "\"" + Hashing.sha256().hashBytes(body).toString().substring(0, 32) + "\"";
+        CachedResponse response = new CachedResponse(body, contentType, etag,
+                System.currentTimeMillis() + cache.ttl() * 1000, versions);
+        responses.put(key, response);
+        return response;
+    }
+
+    /**
+     * Cache-Control响应头，maxAge为0时客户端每次都需携带ETag重新验证
+     */
+    public String cacheControl(ResponseCache cache) {
+        String scope = cache.shared() ? "public" : "private";
+        return cache.maxAge() > 0 ? scope + ", max-age=" + cache.maxAge() : scope + ", no-cache";
+    }
+
+    public void record(ResponseCache cache, String result) {
+        Counter.builder(METRIC)
+                .description("响应缓存命中情况")
+                .tag("region", String.join(",", cache.regions()))
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 区域失效，存在事务时在事务提交后执行
+     */
+    public void evict(String... regions) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictNow(regions);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictNow(regions);
+            }
+        });
+    }
+
+    /**
+     * 区域立即失效，用于数据已提交的场景
+     */
+    public void evictNow(String... regions) {
+        for (String region : regions) {
+            Long version = null;
+            try {
+                version = redisUtils.hIncrement(RedisKeys.getResponseCacheVersionKey(), region, 1);
+            } catch (Exception e) {
+                log.warn("响应缓存版本写入redis失败，仅在本实例生效，region={}", region, e);
+            }
+            if (version == null) {
+                version = regionVersions.getOrDefault(region, 0L) + 1;
+            }
+            regionVersions.merge(region, version, Math::max);
+        }
+    }
+
+    /**
+     * 定时从redis同步其他实例的失效记录
+     */
+    @Scheduled(initialDelay = 5 * 1000L, fixedDelay = 5 * 1000L)
+    public void refreshVersions() {
+        Map<String, Object> versions;
+        try {
+            versions = redisUtils.hGetAll(RedisKeys.getResponseCacheVersionKey());
+        } catch (Exception e) {
+            log.warn("同步响应缓存版本失败", e);
+            return;
+        }
+        if (versions == null) {
+            return;
+        }
+        versions.forEach((region, version) -> regionVersions.merge(region,
+                Long.parseLong(String.valueOf(version)), Math::max));
+    }
+
+    public record CachedResponse(byte[] body, String contentType, String etag, long expiresAt, long[] versions) {
+        /**
+         * If-None-Match是否与ETag匹配，按弱比较处理
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if ("*".equals(tag) || etag.equals(tag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
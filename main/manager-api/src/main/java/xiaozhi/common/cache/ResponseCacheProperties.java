@@ -0,0 +1,21 @@
+package xiaozhi.common.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 响应缓存配置项
+ */
+@Data
+@ConfigurationProperties(prefix = "renren.response-cache")
+public class ResponseCacheProperties {
+    /**
+     * 是否开启响应缓存
+     */
+    private boolean enabled = true;
+    /**
+     * 本实例最多缓存的响应数
+     */
+    private long maxEntries = 2000;
+}
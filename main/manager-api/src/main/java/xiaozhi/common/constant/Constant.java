@@ -67,6 +67,10 @@ public interface Constant {
      * 每页显示记录数
      */
     String LIMIT = "limit";
+    /**
+     * 游标分页的游标，携带该参数（首页为空值）时按游标分页
+     */
+    String CURSOR = "cursor";
     /**
      * 排序字段
      */
@@ -86,6 +90,11 @@ public interface Constant {
      */
     String SERVER_SECRET = "server.secret";
 
+    /**
+     * 轮换中的服务器密钥，JSON数组，每项包含secret及可选的activeFrom、expiresAt
+     */
+    String SERVER_SECRETS = "server.secrets";
+
     /**
      * websocket地址
      */
@@ -0,0 +1,12 @@
+package xiaozhi.common.exception;
+
+/**
+ * 乐观锁冲突，数据已被他人修改，由异常处理器转为409响应
+ */
+public class ConflictException extends RenException {
+    private static final long serialVersionUID = 1L;
+
+    public ConflictException() {
+        super(ErrorCode.CONFLICT);
+    }
+}
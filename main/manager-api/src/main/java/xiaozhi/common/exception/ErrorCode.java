@@ -12,6 +12,8 @@ public interface ErrorCode {
     int INTERNAL_SERVER_ERROR = 500;
     int UNAUTHORIZED = 401;
     int FORBIDDEN = 403;
+    int CONFLICT = 409;
+    int TOO_MANY_REQUESTS = 429;
 
     int NOT_NULL = 10001;
     int DB_RECORD_EXISTS = 10002;
@@ -55,4 +57,6 @@ public interface ErrorCode {
 
     int OTA_DEVICE_NOT_FOUND = 10041;
     int OTA_DEVICE_NEED_BIND = 10042;
+    int PAGE_CURSOR_INVALID = 10043;
+    int CHAT_REPORT_PROCESSING = 10044;
 }
@@ -5,6 +5,9 @@ import java.util.Objects;
 
 import org.apache.shiro.authz.UnauthorizedException;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -13,6 +16,7 @@ import org.springframework.web.servlet.resource.NoResourceFoundException;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.ratelimit.RateLimitException;
 import xiaozhi.common.utils.Result;
 
 /**
@@ -36,6 +40,30 @@ public class RenExceptionHandler {
         return result;
     }
 
+    /**
+     * 处理限流异常，返回429及Retry-After
+     */
+    @ExceptionHandler(RateLimitException.class)
+    public ResponseEntity<Result<Void>> handleRateLimitException(RateLimitException ex) {
+        Result<Void> result = new Result<>();
+        result.error(ex.getCode(), ex.getMsg());
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter()))
+                .body(result);
+    }
+
+    /**
+     * 处理乐观锁冲突，返回409
+     */
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<Result<Void>> handleConflictException(ConflictException ex) {
+        Result<Void> result = new Result<>();
+        result.error(ex.getCode(), ex.getMsg());
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+    }
+
     @ExceptionHandler(DuplicateKeyException.class)
     public Result<Void> handleDuplicateKeyException(DuplicateKeyException ex) {
         Result<Void> result = new Result<>();
@@ -1,31 +1,60 @@
 package xiaozhi.common.interceptor;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 
+import com.baomidou.mybatisplus.core.toolkit.ExceptionUtils;
 import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
 import com.baomidou.mybatisplus.extension.plugins.inner.InnerInterceptor;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import cn.hutool.core.util.StrUtil;
 import net.sf.jsqlparser.JSQLParserException;
 import net.sf.jsqlparser.expression.Expression;
-import net.sf.jsqlparser.expression.StringValue;
+import net.sf.jsqlparser.expression.Parenthesis;
 import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
 import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.statement.Statement;
 import net.sf.jsqlparser.statement.select.PlainSelect;
 import net.sf.jsqlparser.statement.select.Select;
 
 /**
  * 数据过滤
+ * <p>
+ * 按(原SQL, 过滤条件模板)缓存改写结果，Mapper的SQL模板数量有限，命中后不再重复解析；
+ * 过滤条件中的?占位在改写后的SQL中按位置追加参数映射，取值通过附加参数绑定
  * Copyright (c) 人人开源 All rights reserved.
  * Website: https://www.renren.io
  */
 public class DataFilterInterceptor implements InnerInterceptor {
+    /**
+     * 改写结果缓存上限
+     */
+    private static final int REWRITE_CACHE_SIZE = 1024;
+    /**
+     * 附加参数名前缀
+     */
+    private static final String PARAM_PREFIX = "__dataScope_";
+    /**
+     * 定位过滤条件插入位置的占位列名
+     */
+    private static final String FILTER_MARKER = "__DATA_SCOPE_FILTER__";
+
+    private final Cache<RewriteKey, RewrittenSql> rewriteCache = CacheBuilder.newBuilder()
+            .maximumSize(REWRITE_CACHE_SIZE)
+            .build();
 
     @SuppressWarnings("rawtypes")
     @Override
@@ -37,11 +66,19 @@ public class DataFilterInterceptor implements InnerInterceptor {
             return;
         }
 
-        // 拼接新SQL
-        String buildSql = getSelect(boundSql.getSql(), scope);
+        // 取缓存的改写结果
+        RewrittenSql rewritten = getRewrittenSql(boundSql.getSql(), scope.getSqlFilter());
+        if (rewritten.paramCount() != scope.getParams().size()) {
+            throw ExceptionUtils.mpe("数据过滤条件占位数量(%s)与参数数量(%s)不一致：%s",
+                    rewritten.paramCount(), scope.getParams().size(), scope.getSqlFilter());
+        }
 
-        // 重写SQL
-        PluginUtils.mpBoundSql(boundSql).sql(buildSql);
+        // 重写SQL并绑定过滤参数
+        PluginUtils.MPBoundSql mpBoundSql = PluginUtils.mpBoundSql(boundSql);
+        mpBoundSql.sql(rewritten.sql());
+        if (rewritten.paramCount() > 0) {
+            bindParams(ms.getConfiguration(), boundSql, mpBoundSql, rewritten.paramIndex(), scope.getParams());
+        }
     }
 
     private DataScope getDataScope(Object parameter) {
@@ -64,22 +101,80 @@ public class DataFilterInterceptor implements InnerInterceptor {
         return null;
     }
 
-    private String getSelect(String buildSql, DataScope scope) {
+    private RewrittenSql getRewrittenSql(String sql, String sqlFilter) {
         try {
-            Select select = (Select) CCJSqlParserUtil.parse(buildSql);
-            PlainSelect plainSelect = (PlainSelect) select.getSelectBody();
-
-            Expression expression = plainSelect.getWhere();
-            if (expression == null) {
-                plainSelect.setWhere(new StringValue(scope.getSqlFilter()));
-            } else {
-                AndExpression andExpression = new AndExpression(expression, new StringValue(scope.getSqlFilter()));
-                plainSelect.setWhere(andExpression);
-            }
+            return rewriteCache.get(new RewriteKey(sql, sqlFilter), () -> rewrite(sql, sqlFilter));
+        } catch (ExecutionException e) {
+            throw ExceptionUtils.mpe("数据过滤SQL改写失败：%s", e.getCause(), sql);
+        }
+    }
 
-            return select.toString().replaceAll("'", "");
-        } catch (JSQLParserException e) {
-            return buildSql;
+    /**
+     * 把过滤条件以AND追加到WHERE末尾，并计算过滤条件前已有的占位数量
+     */
+    private RewrittenSql rewrite(String sql, String sqlFilter) throws JSQLParserException {
+        Expression filter = CCJSqlParserUtil.parseCondExpression(sqlFilter);
+        Statement statement = CCJSqlParserUtil.parse(sql);
+        if (!(statement instanceof Select select) || !(select.getSelectBody() instanceof PlainSelect plainSelect)) {
+            throw new JSQLParserException("数据过滤仅支持单个SELECT语句");
         }
+
+        Expression marker = new Column(FILTER_MARKER);
+        Expression where = plainSelect.getWhere();
+        plainSelect.setWhere(where == null ? marker : new AndExpression(new Parenthesis(where), marker));
+
+        String markedSql = select.toString();
+        int markerAt = markedSql.indexOf(FILTER_MARKER);
+        String prefix = markedSql.substring(0, markerAt);
+        String filterSql = new Parenthesis(filter).toString();
+        String rewrittenSql = prefix + filterSql + markedSql.substring(markerAt + FILTER_MARKER.length());
+
+        return new RewrittenSql(rewrittenSql, countPlaceholders(prefix), countPlaceholders(filterSql));
+    }
+
+    private void bindParams(Configuration configuration, BoundSql boundSql, PluginUtils.MPBoundSql mpBoundSql,
+            int paramIndex, List<Object> params) {
+        // 原参数映射可能由MappedStatement共享，复制后再插入
+        List<ParameterMapping> mappings = new ArrayList<>(mpBoundSql.parameterMappings());
+        for (int i = 0; i < params.size(); i++) {
+            Object value = params.get(i);
+            String property = PARAM_PREFIX + i;
+            boundSql.setAdditionalParameter(property, value);
+            Class<?> javaType = value == null ? Object.class : value.getClass();
+            mappings.add(paramIndex + i, new ParameterMapping.Builder(configuration, property, javaType).build());
+        }
+        mpBoundSql.parameterMappings(mappings);
+    }
+
+    /**
+     * 统计SQL中字符串和引用标识符之外的?占位数量
+     */
+    private static int countPlaceholders(String sql) {
+        int count = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private record RewriteKey(String sql, String sqlFilter) {
+    }
+
+    /**
+     * @param sql        改写后的SQL
+     * @param paramIndex 过滤条件第一个占位在全部占位中的下标
+     * @param paramCount 过滤条件中的占位数量
+     */
+    private record RewrittenSql(String sql, int paramIndex, int paramCount) {
     }
-}
\ No newline at end of file
+}
@@ -1,15 +1,23 @@
 package xiaozhi.common.interceptor;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * 数据范围
+ * <p>
+ * sqlFilter为过滤条件模板，取值使用?占位，按顺序绑定params，不要把取值直接拼接进模板
  * Copyright (c) 人人开源 All rights reserved.
  * Website: https://www.renren.io
  */
 public class DataScope {
     private String sqlFilter;
+    private List<Object> params;
 
-    public DataScope(String sqlFilter) {
+    public DataScope(String sqlFilter, Object... params) {
         this.sqlFilter = sqlFilter;
+        this.params = params == null ? Collections.emptyList() : Arrays.asList(params);
     }
 
     public String getSqlFilter() {
@@ -20,8 +28,16 @@ public class DataScope {
         this.sqlFilter = sqlFilter;
     }
 
+    public List<Object> getParams() {
+        return params;
+    }
+
+    public void setParams(List<Object> params) {
+        this.params = params == null ? Collections.emptyList() : params;
+    }
+
     @Override
     public String toString() {
         return this.sqlFilter;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package xiaozhi.common.page;
+
+import java.util.List;
+import java.util.function.Function;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.OrderItem;
+
+/**
+ * 游标分页的排序键
+ * <p>
+ * 排序列不唯一时需要再指定一个唯一列作为第二排序键，保证翻页不重复、不遗漏。
+ * 排序列允许为NULL，与MySQL一致：升序时NULL在最前，降序时NULL在最后
+ */
+public final class KeysetSort<T> {
+    private final String column;
+    private final Function<T, ?> getter;
+    private final String idColumn;
+    private final Function<T, ?> idGetter;
+    private final boolean asc;
+
+    private KeysetSort(String column, Function<T, ?> getter, String idColumn, Function<T, ?> idGetter,
+            boolean asc) {
+        this.column = column;
+        this.getter = getter;
+        this.idColumn = idColumn;
+        this.idGetter = idGetter;
+        this.asc = asc;
+    }
+
+    /**
+     * 按唯一且非空的列排序，如主键
+     */
+    public static <T> KeysetSort<T> of(String column, Function<T, ?> getter, boolean asc) {
+        return new KeysetSort<>(column, getter, null, null, asc);
+    }
+
+    /**
+     * 按普通列排序，相同值再按唯一列排序
+     */
+    public static <T> KeysetSort<T> of(String column, Function<T, ?> getter, String idColumn,
+            Function<T, ?> idGetter, boolean asc) {
+        return new KeysetSort<>(column, getter, idColumn, idGetter, asc);
+    }
+
+    /**
+     * 游标中保存的值个数
+     */
+    public int size() {
+        return idColumn == null ? 1 : 2;
+    }
+
+    public List<OrderItem> orders() {
+        if (idColumn == null) {
+            return List.of(asc ? OrderItem.asc(column) : OrderItem.desc(column));
+        }
+        return asc ? OrderItem.ascs(column, idColumn) : OrderItem.descs(column, idColumn);
+    }
+
+    /**
+     * 取出一行数据的排序键，用于生成下一页游标
+     */
+    public Object[] values(T row) {
+        if (idColumn == null) {
+            return new Object[] { getter.apply(row) };
+        }
+        return new Object[] { getter.apply(row), idGetter.apply(row) };
+    }
+
+    /**
+     * 追加“位于游标之后”的查询条件
+     */
+    public void apply(QueryWrapper<T> wrapper, Object[] values) {
+        Object value = values[0];
+        if (idColumn == null) {
+            if (asc) {
+                wrapper.gt(column, value);
+            } else {
+                wrapper.lt(column, value);
+            }
+            return;
+        }
+
+        Object id = values[1];
+        if (asc && value == null) {
+            wrapper.and(w -> w.and(n -> n.isNull(column).gt(idColumn, id)).or().isNotNull(column));
+        } else if (asc) {
+            wrapper.and(w -> w.gt(column, value).or(e -> e.eq(column, value).gt(idColumn, id)));
+        } else if (value == null) {
+            wrapper.and(w -> w.isNull(column).lt(idColumn, id));
+        } else {
+            wrapper.and(w -> w.lt(column, value).or(e -> e.eq(column, value).lt(idColumn, id)).or()
+                    .isNull(column));
+        }
+    }
+
+    /**
+     * 排序方式的描述，参与游标指纹计算，排序方式变化后旧游标失效
+     */
+    public String describe() {
+        return column + (asc ? " asc" : " desc") + (idColumn == null ? "" : "," + idColumn);
+    }
+}
@@ -0,0 +1,101 @@
+package xiaozhi.common.page;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import xiaozhi.common.exception.ErrorCode;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.utils.JsonUtils;
+
+/**
+ * 游标分页的游标
+ * <p>
+ * 内容为查询条件指纹和上一页最后一行的排序键，整体base64url编码，对调用方不透明。
+ * 指纹不一致（查询条件或排序方式已变化）的游标视为无效
+ */
+public final class PageCursor {
+    private static final String TYPE_NULL = "n";
+    private static final String TYPE_DATE = "d";
+    private static final String TYPE_LONG = "l";
+    private static final String TYPE_INT = "i";
+    private static final String TYPE_STRING = "s";
+
+    private PageCursor() {
+    }
+
+    public static String encode(String fingerprint, Object[] values) {
+        List<String> items = new ArrayList<>(values.length + 1);
+        items.add(fingerprint);
+        for (Object value : values) {
+            items.add(encodeValue(value));
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(JsonUtils.toJsonString(items).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，返回排序键
+     *
+     * @param cursor      游标
+     * @param fingerprint 当前查询条件的指纹
+     * @param size        排序键个数
+     */
+    public static Object[] decode(String cursor, String fingerprint, int size) {
+        List<String> items;
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            items = JsonUtils.parseArray(json, String.class);
+        } catch (Exception e) {
+            throw new RenException(ErrorCode.PAGE_CURSOR_INVALID);
+        }
+        if (items.size() != size + 1 || !fingerprint.equals(items.get(0))) {
+            throw new RenException(ErrorCode.PAGE_CURSOR_INVALID);
+        }
+
+        Object[] values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = decodeValue(items.get(i + 1));
+        }
+        return values;
+    }
+
+    private static String encodeValue(Object value) {
+        if (value == null) {
+            return TYPE_NULL + ":";
+        }
+        if (value instanceof Date date) {
+            return TYPE_DATE + ":" + date.getTime();
+        }
+        if (value instanceof Long) {
+            return TYPE_LONG + ":" + value;
+        }
+        if (value instanceof Integer) {
+            return TYPE_INT + ":" + value;
+        }
+        return TYPE_STRING + ":" + value;
+    }
+
+    private static Object decodeValue(String item) {
+        int index = item == null ? -1 : item.indexOf(':');
+        if (index < 0) {
+            throw new RenException(ErrorCode.PAGE_CURSOR_INVALID);
+        }
+        String type = item.substring(0, index);
+        String value = item.substring(index + 1);
+        try {
+            return switch (type) {
+                case TYPE_NULL -> null;
+                case TYPE_DATE -> new Date(Long.parseLong(value));
+                case TYPE_LONG -> Long.parseLong(value);
+                case TYPE_INT -> Integer.parseInt(value);
+                case TYPE_STRING -> value;
+                default -> throw new RenException(ErrorCode.PAGE_CURSOR_INVALID);
+            };
+        } catch (NumberFormatException e) {
+            throw new RenException(ErrorCode.PAGE_CURSOR_INVALID);
+        }
+    }
+}
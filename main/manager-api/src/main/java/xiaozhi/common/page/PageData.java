@@ -2,6 +2,7 @@ package xiaozhi.common.page;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.function.Function;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
@@ -20,6 +21,12 @@ public class PageData<T> implements Serializable {
     @Schema(description = "列表数据")
     private List<T> list;
 
+    @Schema(description = "下一页游标，游标分页时返回，为空表示没有下一页")
+    private String nextCursor;
+
+    @Schema(description = "总记录数是否取自缓存（可能与实时数据略有出入）")
+    private boolean approximate;
+
     /**
      * 分页
      *
@@ -30,4 +37,14 @@ public class PageData<T> implements Serializable {
         this.list = list;
         this.total = (int) total;
     }
-}
\ No newline at end of file
+
+    /**
+     * 转换列表数据，保留总数、游标等分页信息
+     */
+    public <R> PageData<R> map(Function<? super T, ? extends R> mapper) {
+        PageData<R> page = new PageData<>(list.stream().<R>map(mapper).toList(), total);
+        page.setNextCursor(nextCursor);
+        page.setApproximate(approximate);
+        return page;
+    }
+}
@@ -0,0 +1,17 @@
+package xiaozhi.common.page;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 分页配置项
+ */
+@Data
+@ConfigurationProperties(prefix = "renren.page")
+public class PageProperties {
+    /**
+     * 总记录数缓存时间（秒），按查询条件缓存，0表示每次都查询总数
+     */
+    private long totalCacheTtl = 30;
+}
@@ -0,0 +1,174 @@
+package xiaozhi.common.page;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.metadata.OrderItem;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.google.common.hash.Hashing;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.constant.Constant;
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.common.redis.RedisUtils;
+
+/**
+ * 大列表分页
+ * <p>
+ * 请求携带cursor参数时按游标分页：按排序键定位，不使用OFFSET，翻页代价与页码无关；否则按页码分页。
+ * 两种方式的总记录数都按查询条件在redis中缓存一小段时间，取自缓存时返回approximate=true
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@EnableConfigurationProperties(PageProperties.class)
+public class Paginator {
+    private final PageProperties properties;
+    private final RedisUtils redisUtils;
+
+    /**
+     * 分页查询
+     *
+     * @param listName 列表名称，用于区分总数缓存
+     * @param mapper   mapper
+     * @param filter   查询条件，每次调用需返回新的对象，且不能包含排序
+     * @param params   分页参数：page、limit、cursor，页码分页时支持orderField、order
+     * @param sort     默认排序，游标分页只按该排序
+     */
+    public <T> PageData<T> page(String listName, BaseMapper<T> mapper, Supplier<QueryWrapper<T>> filter,
+            Map<String, Object> params, KeysetSort<T> sort) {
+        String fingerprint = fingerprint(listName, filter.get(), sort);
+        if (params.containsKey(Constant.CURSOR)) {
+            return keysetPage(listName, mapper, filter, params, sort, fingerprint);
+        }
+        return offsetPage(listName, mapper, filter, params, sort, fingerprint);
+    }
+
+    private <T> PageData<T> offsetPage(String listName, BaseMapper<T> mapper, Supplier<QueryWrapper<T>> filter,
+            Map<String, Object> params, KeysetSort<T> sort, String fingerprint) {
+        Page<T> page = new Page<>(getLong(params, Constant.PAGE, 1), limit(params));
+        page.addOrder(orders(params, sort));
+
+        Long cachedTotal = getCachedTotal(listName, fingerprint);
+        if (cachedTotal != null) {
+            page.setSearchCount(false);
+        }
+        List<T> list = mapper.selectPage(page, filter.get()).getRecords();
+
+        PageData<T> data = new PageData<>(list, cachedTotal != null ? cachedTotal : page.getTotal());
+        if (cachedTotal != null) {
+            data.setApproximate(true);
+        } else {
+            cacheTotal(listName, fingerprint, page.getTotal());
+        }
+        return data;
+    }
+
+    private <T> PageData<T> keysetPage(String listName, BaseMapper<T> mapper, Supplier<QueryWrapper<T>> filter,
+            Map<String, Object> params, KeysetSort<T> sort, String fingerprint) {
+        long limit = limit(params);
+        String cursor = (String) params.get(Constant.CURSOR);
+
+        QueryWrapper<T> wrapper = filter.get();
+        if (StringUtils.isNotBlank(cursor)) {
+            sort.apply(wrapper, PageCursor.decode(cursor, fingerprint, sort.size()));
+        }
+        // 多取一条判断是否还有下一页
+        Page<T> page = new Page<>(1, limit + 1, false);
+        page.addOrder(sort.orders());
+        List<T> list = mapper.selectPage(page, wrapper).getRecords();
+
+        String nextCursor = null;
+        if (list.size() > limit) {
+            list = new ArrayList<>(list.subList(0, (int) limit));
+            nextCursor = PageCursor.encode(fingerprint, sort.values(list.get(list.size() - 1)));
+        }
+
+        Long total = getCachedTotal(listName, fingerprint);
+        boolean approximate = total != null;
+        if (total == null) {
+            total = mapper.selectCount(filter.get());
+            cacheTotal(listName, fingerprint, total);
+        }
+
+        PageData<T> data = new PageData<>(list, total);
+        data.setNextCursor(nextCursor);
+        data.setApproximate(approximate);
+        return data;
+    }
+
+    private static <T> List<OrderItem> orders(Map<String, Object> params, KeysetSort<T> sort) {
+        Object orderField = params.get(Constant.ORDER_FIELD);
+        List<String> orderFields = new ArrayList<>();
+        if (orderField instanceof String field && StringUtils.isNotBlank(field)) {
+            orderFields.add(field);
+        } else if (orderField instanceof List<?> fields) {
+            fields.forEach(field -> orderFields.add(String.valueOf(field)));
+        }
+        if (orderFields.isEmpty()) {
+            return sort.orders();
+        }
+
+        String[] columns = orderFields.toArray(new String[0]);
+        return Constant.ASC.equalsIgnoreCase((String) params.get(Constant.ORDER)) ? OrderItem.ascs(columns)
+                : OrderItem.descs(columns);
+    }
+
+    private static long limit(Map<String, Object> params) {
+        return Math.max(1, getLong(params, Constant.LIMIT, 10));
+    }
+
+    private static long getLong(Map<String, Object> params, String name, long defaultValue) {
+        Object value = params.get(name);
+        if (value == null || StringUtils.isBlank(value.toString())) {
+            return defaultValue;
+        }
+        return Long.parseLong(value.toString());
+    }
+
+    /**
+     * 查询条件指纹：列表名称、排序方式、条件SQL和参数值
+     */
+    private static String fingerprint(String listName, QueryWrapper<?> wrapper, KeysetSort<?> sort) {
+        StringBuilder text = new StringBuilder(listName).append('|').append(sort.describe()).append('|')
+                .append(wrapper.getCustomSqlSegment());
+        new TreeMap<>(wrapper.getParamNameValuePairs())
+                .forEach((name, value) -> text.append('|').append(name).append('=').append(value));
+        return Hashing.sha256().hashString(text, StandardCharsets.UTF_8).toString().substring(0, 32);
+    }
+
+    private Long getCachedTotal(String listName, String fingerprint) {
+        if (properties.getTotalCacheTtl() <= 0) {
+            return null;
+        }
+        try {
+            Object total = redisUtils.get(RedisKeys.getPageTotalKey(listName, fingerprint));
+            return total == null ? null : Long.valueOf(total.toString());
+        } catch (Exception e) {
+            log.warn("读取分页总数缓存失败，list={}", listName, e);
+            return null;
+        }
+    }
+
+    private void cacheTotal(String listName, String fingerprint, long total) {
+        if (properties.getTotalCacheTtl() <= 0) {
+            return;
+        }
+        try {
+            redisUtils.set(RedisKeys.getPageTotalKey(listName, fingerprint), total, properties.getTotalCacheTtl());
+        } catch (Exception e) {
+            log.warn("写入分页总数缓存失败，list={}", listName, e);
+        }
+    }
+}
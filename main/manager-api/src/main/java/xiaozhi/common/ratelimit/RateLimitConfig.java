@@ -0,0 +1,22 @@
+package xiaozhi.common.ratelimit;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * 限流配置，拦截器在Shiro认证之后执行，可按登录用户限流
+ */
+@Configuration
+@AllArgsConstructor
+public class RateLimitConfig implements WebMvcConfigurer {
+    private final RateLimiter rateLimiter;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RateLimitInterceptor(rateLimiter, new AntPathMatcher())).addPathPatterns("/**");
+    }
+}
@@ -0,0 +1,25 @@
+package xiaozhi.common.ratelimit;
+
+import xiaozhi.common.exception.ErrorCode;
+import xiaozhi.common.exception.RenException;
+
+/**
+ * 触发限流，由异常处理器转为429响应
+ */
+public class RateLimitException extends RenException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 建议的重试等待时间，单位：秒
+     */
+    private final long retryAfter;
+
+    public RateLimitException(long retryAfter) {
+        super(ErrorCode.TOO_MANY_REQUESTS);
+        this.retryAfter = retryAfter;
+    }
+
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
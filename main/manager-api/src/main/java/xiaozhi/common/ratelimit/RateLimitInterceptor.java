@@ -0,0 +1,55 @@
+package xiaozhi.common.ratelimit;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import xiaozhi.common.exception.ErrorCode;
+import xiaozhi.common.utils.JsonUtils;
+import xiaozhi.common.utils.Result;
+
+/**
+ * 按URL匹配限流规则，超出时返回429及Retry-After
+ */
+@AllArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private final RateLimiter rateLimiter;
+    private final PathMatcher pathMatcher;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!rateLimiter.isEnabled()) {
+            return true;
+        }
+        String path = request.getServletPath();
+        for (RateLimitRule rule : rateLimiter.getRules()) {
+            if (!matches(rule, path)) {
+                continue;
+            }
+            long waitMillis = rateLimiter.tryAcquire(rule, rule.getKey().resolve(request));
+            if (waitMillis > 0) {
+                sendTooManyRequests(response, Math.max(1, (waitMillis + 999) / 1000));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(RateLimitRule rule, String path) {
+        return rule.getPatterns().stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    private void sendTooManyRequests(HttpServletResponse response, long retryAfter) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType("application/json;charset=utf-8");
+        response.getWriter().print(JsonUtils.toJsonString(new Result<Void>().error(ErrorCode.TOO_MANY_REQUESTS)));
+    }
+}
@@ -0,0 +1,47 @@
+package xiaozhi.common.ratelimit;
+
+import org.apache.commons.lang3.StringUtils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import xiaozhi.common.utils.IpUtils;
+import xiaozhi.modules.security.user.SecurityUser;
+
+/**
+ * 限流维度
+ */
+public enum RateLimitKeyType {
+    /**
+     * 设备MAC，取自Device-Id请求头
+     */
+    MAC {
+        @Override
+        public String resolve(HttpServletRequest request) {
+            String deviceId = request.getHeader("Device-Id");
+            return StringUtils.isBlank(deviceId) ? null : deviceId.trim().toLowerCase();
+        }
+    },
+    /**
+     * 客户端IP
+     */
+    IP {
+        @Override
+        public String resolve(HttpServletRequest request) {
+            return IpUtils.getIpAddr(request);
+        }
+    },
+    /**
+     * 登录用户ID
+     */
+    USER {
+        @Override
+        public String resolve(HttpServletRequest request) {
+            Long userId = SecurityUser.getUserId();
+            return userId == null ? null : String.valueOf(userId);
+        }
+    };
+
+    /**
+     * 从请求中解析限流key，无法解析时返回null，此时不限流
+     */
+    public abstract String resolve(HttpServletRequest request);
+}
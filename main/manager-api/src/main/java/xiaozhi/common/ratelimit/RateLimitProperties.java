@@ -0,0 +1,24 @@
+package xiaozhi.common.ratelimit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 限流配置项
+ */
+@Data
+@ConfigurationProperties(prefix = "renren.rate-limit")
+public class RateLimitProperties {
+    /**
+     * 是否开启限流
+     */
+    private boolean enabled;
+    /**
+     * 限流规则，可通过管理接口在运行时调整
+     */
+    private List<RateLimitRule> rules = new ArrayList<>();
+}
@@ -0,0 +1,47 @@
+package xiaozhi.common.ratelimit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 限流规则，令牌桶算法
+ */
+@Data
+@Schema(description = "限流规则")
+public class RateLimitRule {
+    @Schema(description = "规则名称")
+    private String name;
+
+    @Schema(description = "匹配的URL，为空时只能在代码中按名称调用")
+    private List<String> patterns = new ArrayList<>();
+
+    @Schema(description = "限流维度：MAC、IP、USER")
+    private RateLimitKeyType key = RateLimitKeyType.IP;
+
+    @Schema(description = "桶容量，即允许的突发请求数")
+    private int capacity = 10;
+
+    @Schema(description = "每秒补充的令牌数")
+    private double refillPerSecond = 1;
+
+    @Schema(description = "是否在redis中集群共享计数")
+    private boolean cluster;
+
+    @Schema(description = "是否启用")
+    private boolean enabled = true;
+
+    public RateLimitRule copy() {
+        RateLimitRule rule = new RateLimitRule();
+        rule.setName(name);
+        rule.setPatterns(new ArrayList<>(patterns));
+        rule.setKey(key);
+        rule.setCapacity(capacity);
+        rule.setRefillPerSecond(refillPerSecond);
+        rule.setCluster(cluster);
+        rule.setEnabled(enabled);
+        return rule;
+    }
+}
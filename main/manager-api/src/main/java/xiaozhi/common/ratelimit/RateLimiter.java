@@ -0,0 +1,241 @@
+package xiaozhi.common.ratelimit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.common.utils.JsonUtils;
+import xiaozhi.common.utils.ResourcesUtils;
+
+/**
+ * 令牌桶限流
+ * <p>
+ * 本地桶在内存中计数，单实例内即时拒绝；集群规则在本地桶放行后再到redis中用Lua脚本原子扣减，
+ * redis不可用时退化为只用本地桶。规则来自配置文件，运行时调整的规则保存在redis中，各实例定时同步
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimiter {
+    private static final String METRIC_NAME = "xiaozhi.ratelimit.requests";
+
+    private final RateLimitProperties properties;
+    private final RedisUtils redisUtils;
+    private final ResourcesUtils resourcesUtils;
+    private final MeterRegistry meterRegistry;
+
+    private final Cache<String, LocalBucket> localBuckets = CacheBuilder.newBuilder()
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .maximumSize(100000)
+            .build();
+
+    private DefaultRedisScript<Long> script;
+    private volatile Map<String, RateLimitRule> rules = Map.of();
+
+    @PostConstruct
+    public void init() {
+        script = new DefaultRedisScript<>(resourcesUtils.loadString("lua/rateLimit.lua"), Long.class);
+        refreshRules();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 当前生效的规则
+     */
+    public List<RateLimitRule> getRules() {
+        return new ArrayList<>(rules.values());
+    }
+
+    public RateLimitRule getRule(String name) {
+        return rules.get(name);
+    }
+
+    /**
+     * 按规则名称限流，超出时抛出{@link RateLimitException}
+     *
+     * @param ruleName 规则名称，不存在或未启用时不限流
+     * @param key      限流key，为空时不限流
+     */
+    public void check(String ruleName, String key) {
+        RateLimitRule rule = rules.get(ruleName);
+        if (rule == null) {
+            return;
+        }
+        long waitMillis = tryAcquire(rule, key);
+        if (waitMillis > 0) {
+            throw new RateLimitException(toRetryAfter(waitMillis));
+        }
+    }
+
+    /**
+     * 尝试获取一个令牌
+     *
+     * @return 0表示放行，否则为距下一个令牌可用的毫秒数
+     */
+    public long tryAcquire(RateLimitRule rule, String key) {
+        if (!properties.isEnabled() || !rule.isEnabled() || StringUtils.isBlank(key)) {
+            return 0;
+        }
+        String bucketKey = rule.getName() + ":" + key;
+        long waitMillis;
+        try {
+            waitMillis = localBuckets.get(bucketKey, LocalBucket::new)
+                    .tryAcquire(rule.getCapacity(), rule.getRefillPerSecond());
+        } catch (Exception e) {
+            waitMillis = 0;
+        }
+        if (waitMillis == 0 && rule.isCluster()) {
+            waitMillis = tryAcquireCluster(rule, key);
+        }
+        meterRegistry.counter(METRIC_NAME, "rule", rule.getName(), "result", waitMillis == 0 ? "allowed" : "rejected")
+                .increment();
+        return waitMillis;
+    }
+
+    private long tryAcquireCluster(RateLimitRule rule, String key) {
+        try {
+            Long waitMillis = redisUtils.execute(script,
+                    Collections.singletonList(RedisKeys.getRateLimitKey(rule.getName(), key)),
+                    rule.getCapacity(), rule.getRefillPerSecond());
+            return waitMillis == null ? 0 : waitMillis;
+        } catch (RenException e) {
+            // redis异常时只按本地桶限流，不影响正常请求
+            return 0;
+        }
+    }
+
+    /**
+     * 运行时调整规则，保存到redis后其他实例在下次同步时生效
+     */
+    public RateLimitRule updateRule(RateLimitRule update) {
+        RateLimitRule current = rules.get(update.getName());
+        if (current == null) {
+            throw new RenException("限流规则不存在：" + update.getName());
+        }
+        if (update.getCapacity() < 1 || update.getRefillPerSecond() <= 0) {
+            throw new RenException("桶容量不能小于1，补充速率必须大于0");
+        }
+        RateLimitRule rule = current.copy();
+        rule.setCapacity(update.getCapacity());
+        rule.setRefillPerSecond(update.getRefillPerSecond());
+        rule.setEnabled(update.isEnabled());
+        redisUtils.hSet(RedisKeys.getRateLimitRulesKey(), rule.getName(), JsonUtils.toJsonString(rule),
+                RedisUtils.NOT_EXPIRE);
+        applyRule(rule);
+        return rule;
+    }
+
+    /**
+     * 恢复为配置文件中的规则
+     */
+    public void resetRule(String name) {
+        redisUtils.hDel(RedisKeys.getRateLimitRulesKey(), name);
+        refreshRules();
+    }
+
+    /**
+     * 清空指定key的计数，用于解除误封
+     */
+    public void resetKey(String ruleName, String key) {
+        localBuckets.invalidate(ruleName + ":" + key);
+        redisUtils.delete(RedisKeys.getRateLimitKey(ruleName, key));
+    }
+
+    /**
+     * 规则的放行、拒绝次数
+     */
+    public double count(String ruleName, String result) {
+        return meterRegistry.counter(METRIC_NAME, "rule", ruleName, "result", result).count();
+    }
+
+    /**
+     * 本实例中该规则正在计数的key数量
+     */
+    public long localKeyCount(String ruleName) {
+        String prefix = ruleName + ":";
+        return localBuckets.asMap().keySet().stream().filter(k -> k.startsWith(prefix)).count();
+    }
+
+    @Scheduled(initialDelay = 30 * 1000L, fixedDelay = 30 * 1000L)
+    public void refreshRules() {
+        Map<String, RateLimitRule> loaded = new LinkedHashMap<>();
+        for (RateLimitRule rule : properties.getRules()) {
+            if (StringUtils.isNotBlank(rule.getName())) {
+                loaded.put(rule.getName(), rule.copy());
+            }
+        }
+        try {
+            Map<String, Object> overrides = redisUtils.hGetAll(RedisKeys.getRateLimitRulesKey());
+            if (overrides != null) {
+                overrides.forEach((name, json) -> {
+                    RateLimitRule base = loaded.get(name);
+                    if (base != null) {
+                        RateLimitRule override = JsonUtils.parseObject(String.valueOf(json), RateLimitRule.class);
+                        base.setCapacity(override.getCapacity());
+                        base.setRefillPerSecond(override.getRefillPerSecond());
+                        base.setEnabled(override.isEnabled());
+                    }
+                });
+            }
+        } catch (Exception e) {
+            log.warn("同步限流规则失败，使用配置文件中的规则", e);
+        }
+        rules = Collections.unmodifiableMap(loaded);
+    }
+
+    private void applyRule(RateLimitRule rule) {
+        Map<String, RateLimitRule> copy = new LinkedHashMap<>(rules);
+        copy.put(rule.getName(), rule);
+        rules = Collections.unmodifiableMap(copy);
+    }
+
+    private long toRetryAfter(long waitMillis) {
+        return Math.max(1, (waitMillis + 999) / 1000);
+    }
+
+    /**
+     * 本地令牌桶
+     */
+    private static class LocalBucket {
+        private double tokens = -1;
+        private long timestamp;
+
+        synchronized long tryAcquire(int capacity, double refillPerSecond) {
+            long now = System.currentTimeMillis();
+            if (tokens < 0) {
+                tokens = capacity;
+                timestamp = now;
+            }
+            tokens = Math.min(capacity, tokens + (now - timestamp) * refillPerSecond / 1000);
+            timestamp = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) * 1000 / refillPerSecond);
+        }
+    }
+}
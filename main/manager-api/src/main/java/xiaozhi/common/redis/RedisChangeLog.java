@@ -0,0 +1,69 @@
+package xiaozhi.common.redis;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+
+/**
+ * 保存在redis有序集合中的变更记录，各实例定时读取上次读取以来的变更，同步本地状态
+ * <p>
+ * 成员为变更对象的ID，分数为最近一次变更的时间（毫秒）。写入时删除超过保留时间的记录，没有变更时key自动过期，
+ * 记录数只与保留时间内变更的对象数有关。保留时间不短于读取方本地数据的有效期，被删除的变更对应的本地数据已经过期
+ */
+public class RedisChangeLog {
+    /**
+     * 读取时向前多取的时间，覆盖实例之间的时钟偏差和写入延迟，单位：毫秒
+     */
+    private static final long OVERLAP_MILLIS = 60 * 1000L;
+
+    private final RedisUtils redisUtils;
+    private final String key;
+    private final long retentionSeconds;
+    /**
+     * 上次成功读取的时间，0表示尚未读取
+     */
+    private volatile long polledAt;
+
+    public RedisChangeLog(RedisUtils redisUtils, String key, long retentionSeconds) {
+        this.redisUtils = redisUtils;
+        this.key = key;
+        this.retentionSeconds = retentionSeconds;
+    }
+
+    /**
+     * 记录一次变更
+     *
+     * @param id 变更对象的ID
+     * @return 变更时间（毫秒）
+     */
+    public long record(String id) {
+        long now = System.currentTimeMillis();
+        redisUtils.zAdd(key, id, now, retentionSeconds);
+        redisUtils.zRemoveRangeByScore(key, Double.NEGATIVE_INFINITY, now - retentionSeconds * 1000);
+        return now;
+    }
+
+    /**
+     * 读取上次读取以来的变更，首次读取时返回保留时间内的全部变更
+     *
+     * @return 变更对象的ID和最近一次变更时间（毫秒），redis未开启时为null
+     */
+    public Map<String, Long> poll() {
+        long now = System.currentTimeMillis();
+        long since = polledAt == 0 ? now - retentionSeconds * 1000 : polledAt - OVERLAP_MILLIS;
+        Set<TypedTuple<Object>> tuples = redisUtils.zRangeByScoreWithScores(key, since, Double.POSITIVE_INFINITY);
+        if (tuples == null) {
+            return null;
+        }
+        Map<String, Long> changes = new HashMap<>();
+        for (TypedTuple<Object> tuple : tuples) {
+            if (tuple.getValue() != null && tuple.getScore() != null) {
+                changes.put(String.valueOf(tuple.getValue()), tuple.getScore().longValue());
+            }
+        }
+        polledAt = now;
+        return changes;
+    }
+}
@@ -7,10 +7,10 @@ package xiaozhi.common.redis;
  */
 public class RedisKeys {
     /**
-     * 系统参数Key
+     * 系统参数版本Key，参数变更时递增
      */
-    public static String getSysParamsKey() {
-        return "sys:params";
+    public static String getSysParamsVersionKey() {
+        return "sys:params:version";
     }
 
     /**
@@ -118,6 +118,27 @@ public class RedisKeys {
         return "agent:audio:id:" + uuid;
     }
 
+    /**
+     * 音频当前使用的播放ID，同一音频在有效期内复用同一播放地址
+     */
+    public static String getAgentAudioPlayIdKey(String audioId) {
+        return "agent:audio:play:" + audioId;
+    }
+
+    /**
+     * 会话汇总修复任务的租约，同一时间段内只有一个实例执行
+     */
+    public static String getChatSessionRepairLeaseKey() {
+        return "agent:chat:session:repair:lease";
+    }
+
+    /**
+     * 音频长度和文件头的缓存key
+     */
+    public static String getAgentAudioMetaKey(String audioId) {
+        return "agent:audio:meta:" + audioId;
+    }
+
     /**
      * 获取短信验证码的缓存key
      */
@@ -139,4 +160,108 @@ public class RedisKeys {
         return "sms:Validate:Code:" + phone + ":today_count";
     }
 
+    /**
+     * 聊天上报幂等去重的缓存key
+     */
+    public static String getChatReportDedupKey(String reportKey) {
+        return "agent:chat:report:dedup:" + reportKey;
+    }
+
+    /**
+     * 用户token认证信息的缓存key
+     */
+    public static String getUserTokenKey(String token) {
+        return "sys:user:token:" + token;
+    }
+
+    /**
+     * 用户认证主体信息的缓存key
+     */
+    public static String getUserPrincipalKey(Long userId) {
+        return "sys:user:principal:" + userId;
+    }
+
+    /**
+     * 权限缓存清除记录，有序集合，成员为用户ID，分数为清除时间
+     */
+    public static String getUserAuthorizationChangeKey() {
+        return "sys:user:authorization:changes";
+    }
+
+    /**
+     * 签名token吊销记录，有序集合，成员为用户ID，分数为吊销时间，之前签发的token无效
+     */
+    public static String getTokenRevocationKey() {
+        return "sys:token:revocation";
+    }
+
+    /**
+     * 签名token起始时间，签发时间早于此值的token无效
+     */
+    public static String getTokenEpochKey() {
+        return "sys:token:epoch";
+    }
+
+    /**
+     * 限流令牌桶
+     */
+    public static String getRateLimitKey(String rule, String key) {
+        return "sys:ratelimit:bucket:" + rule + ":" + key;
+    }
+
+    /**
+     * 运行时调整的限流规则
+     */
+    public static String getRateLimitRulesKey() {
+        return "sys:ratelimit:rules";
+    }
+
+    /**
+     * 响应缓存各区域的版本，区域失效时递增
+     */
+    public static String getResponseCacheVersionKey() {
+        return "sys:response:cache:version";
+    }
+
+    /**
+     * MyBatis二级缓存，每个mapper命名空间一个hash
+     */
+    public static String getMybatisCacheKey(String namespace) {
+        return "sys:mybatis:cache:" + namespace;
+    }
+
+    /**
+     * MyBatis二级缓存各命名空间的版本，命名空间清空时递增
+     */
+    public static String getMybatisCacheVersionKey() {
+        return "sys:mybatis:cache:version";
+    }
+
+    /**
+     * 分页总记录数缓存，按列表名称和查询条件指纹区分
+     */
+    public static String getPageTotalKey(String listName, String fingerprint) {
+        return "sys:page:total:" + listName + ":" + fingerprint;
+    }
+
+    /**
+     * 批量操作任务的进度
+     */
+    public static String getBulkJobKey(String jobId) {
+        return "sys:bulk:job:" + jobId;
+    }
+
+    /**
+     * 设备激活数据，设备上报OTA时生成，按设备ID（MAC地址）区分
+     */
+    public static String getDeviceActivationDataKey(String deviceId) {
+        return "ota:activation:data:" + deviceId.replace(":", "_").toLowerCase();
+    }
+
+    /**
+     * 已删除的智能体及删除时间，各实例定时同步，删除本地的聊天记录索引
+     */
+    public static String getChatSearchDeletedAgentsKey() {
+        return "sys:chat:search:deleted";
+    }
 }
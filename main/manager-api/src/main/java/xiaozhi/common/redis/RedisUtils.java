@@ -1,15 +1,23 @@
 package xiaozhi.common.redis;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.Resource;
@@ -61,6 +69,17 @@ public class RedisUtils {
         return redisTemplate.opsForValue().decrement(key, 1L);
     }
 
+    /**
+     * 计数减1，已为0或key不存在时不变，不会出现负数
+     * @param key redis的key
+     * @return 减后的值
+     */
+    public Long decrementIfPositive(String key) {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>(
+                resourceUtils.loadString("lua/decrementIfPositive.lua"), Long.class);
+        return redisTemplate.execute(redisScript, Collections.singletonList(key));
+    }
+
 
 
     public void set(String key, Object value, long expire) {
@@ -70,6 +89,24 @@ public class RedisUtils {
         }
     }
 
+    /**
+     * key不存在时设置值
+     *
+     * @return 是否设置成功，redis未开启时为null
+     */
+    public Boolean setIfAbsent(String key, Object value, long expire) {
+        return redisTemplate.opsForValue().setIfAbsent(key, value, expire, TimeUnit.SECONDS);
+    }
+
+    /**
+     * key不存在时设置值，不设置过期时间
+     *
+     * @return 是否设置成功，redis未开启时为null
+     */
+    public Boolean setIfAbsent(String key, Object value) {
+        return redisTemplate.opsForValue().setIfAbsent(key, value);
+    }
+
     public void set(String key, Object value) {
         set(key, value, DEFAULT_EXPIRE);
     }
@@ -86,6 +123,38 @@ public class RedisUtils {
         return get(key, NOT_EXPIRE);
     }
 
+    /**
+     * 批量获取，返回值与keys顺序一致，不存在的key对应null
+     */
+    public List<Object> multiGet(Collection<String> keys) {
+        return redisTemplate.opsForValue().multiGet(keys);
+    }
+
+    /**
+     * 批量设置，使用管道一次往返完成
+     */
+    public void multiSet(Map<String, Object> map, long expire) {
+        if (map.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                ValueOperations<String, Object> valueOps = ((RedisOperations<String, Object>) operations)
+                        .opsForValue();
+                map.forEach((key, value) -> {
+                    if (expire == NOT_EXPIRE) {
+                        valueOps.set(key, value);
+                    } else {
+                        valueOps.set(key, value, expire, TimeUnit.SECONDS);
+                    }
+                });
+                return null;
+            }
+        });
+    }
+
     public void delete(String key) {
         redisTemplate.delete(key);
     }
@@ -127,6 +196,14 @@ public class RedisUtils {
         }
     }
 
+    public Boolean hSetIfAbsent(String key, String field, Object value) {
+        return redisTemplate.opsForHash().putIfAbsent(key, field, value);
+    }
+
+    public Long hIncrement(String key, String field, long delta) {
+        return redisTemplate.opsForHash().increment(key, field, delta);
+    }
+
     public void expire(String key, long expire) {
         redisTemplate.expire(key, expire, TimeUnit.SECONDS);
     }
@@ -135,6 +212,51 @@ public class RedisUtils {
         redisTemplate.opsForHash().delete(key, fields);
     }
 
+    public void zAdd(String key, Object member, double score, long expire) {
+        redisTemplate.opsForZSet().add(key, member, score);
+        if (expire != NOT_EXPIRE) {
+            expire(key, expire);
+        }
+    }
+
+    public void zRemoveRangeByScore(String key, double min, double max) {
+        redisTemplate.opsForZSet().removeRangeByScore(key, min, max);
+    }
+
+    /**
+     * 按分数范围读取有序集合的成员和分数
+     *
+     * @return 成员和分数，key不存在时为空集合，redis未开启时为null
+     */
+    public Set<TypedTuple<Object>> zRangeByScoreWithScores(String key, double min, double max) {
+        return redisTemplate.opsForZSet().rangeByScoreWithScores(key, min, max);
+    }
+
+    /**
+     * 读取哈希字段的原始字节，不经过值序列化
+     */
+    public byte[] hGetBytes(String key, String field) {
+        return redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.hashCommands()
+                .hGet(toBytes(key), toBytes(field)));
+    }
+
+    /**
+     * 写入哈希字段的原始字节，不经过值序列化
+     */
+    public void hSetBytes(String key, String field, byte[] value, long expire) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.hashCommands().hSet(toBytes(key), toBytes(field), value);
+            if (expire != NOT_EXPIRE) {
+                connection.keyCommands().expire(toBytes(key), expire);
+            }
+            return null;
+        });
+    }
+
+    private static byte[] toBytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
     public void leftPush(String key, Object value) {
         leftPush(key, value, DEFAULT_EXPIRE);
     }
@@ -190,6 +312,14 @@ public class RedisUtils {
         return redisTemplate.execute(redisScript, keys, defaultValue,expiresInSecond);
     }
 
-
-
-}
\ No newline at end of file
+    /**
+     * 执行Lua脚本
+     * @param script 脚本，调用方负责缓存
+     * @param keys 脚本使用的key
+     * @param args 脚本参数
+     * @return 脚本返回值
+     */
+    public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+        return redisTemplate.execute(script, keys, args);
+    }
+}
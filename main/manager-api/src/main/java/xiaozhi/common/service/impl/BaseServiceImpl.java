@@ -28,6 +28,7 @@ import com.baomidou.mybatisplus.extension.toolkit.SqlHelper;
 
 import xiaozhi.common.constant.Constant;
 import xiaozhi.common.page.PageData;
+import xiaozhi.common.page.Paginator;
 import xiaozhi.common.service.BaseService;
 import xiaozhi.common.utils.ConvertUtils;
 
@@ -39,6 +40,8 @@ import xiaozhi.common.utils.ConvertUtils;
 public abstract class BaseServiceImpl<M extends BaseMapper<T>, T> implements BaseService<T> {
     @Autowired
     protected M baseDao;
+    @Autowired
+    protected Paginator paginator;
     protected Log log = LogFactory.getLog(getClass());
 
     /**
@@ -0,0 +1,166 @@
+package xiaozhi.common.xss;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * JSON请求体XSS过滤
+ * <p>
+ * 边读边过滤：读取方取数据时才从原始请求体解析下一批token并写出，不在内存中保存整个请求体。
+ * 只对字符串值做过滤，字段名、数字、结构保持不变；白名单路径的值（包括其中嵌套的对象、数组）原样保留。
+ * 路径从根对象开始以.分隔字段名，数组层级不计，如systemPrompt、config.headers
+ */
+public class JsonXssSanitizer {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    /**
+     * 每次填充缓冲区时处理的token数
+     */
+    private static final int TOKENS_PER_FILL = 64;
+
+    private JsonXssSanitizer() {
+    }
+
+    /**
+     * @param body         原始请求体
+     * @param allowedPaths 不过滤的字段路径
+     * @return 过滤后的请求体，读取时遇到不合法的JSON抛出IOException
+     */
+    public static InputStream sanitize(InputStream body, Set<String> allowedPaths) throws IOException {
+        return new SanitizingInputStream(JSON_FACTORY.createParser(body), allowedPaths);
+    }
+
+    /**
+     * 当前token所在的字段路径，根层级的值返回空字符串
+     */
+    static String path(JsonStreamContext context) {
+        String path = "";
+        for (JsonStreamContext c = context; c != null && !c.inRoot(); c = c.getParent()) {
+            // 对象、数组开始时所在的新层级还没有字段名，字段名在上一层
+            if (c.inObject() && c.getCurrentName() != null) {
+                path = path.isEmpty() ? c.getCurrentName() : c.getCurrentName() + "." + path;
+            }
+        }
+        return path;
+    }
+
+    private static class SanitizingInputStream extends InputStream {
+        private final JsonParser parser;
+        private final Set<String> allowedPaths;
+        private final Buffer buffer = new Buffer();
+        private final JsonGenerator generator;
+        private int position;
+        private boolean finished;
+        /**
+         * 位于白名单字段内部时的嵌套深度，0表示不在白名单字段内
+         */
+        private int allowedDepth;
+
+        SanitizingInputStream(JsonParser parser, Set<String> allowedPaths) throws IOException {
+            this.parser = parser;
+            this.allowedPaths = allowedPaths;
+            this.generator = JSON_FACTORY.createGenerator(buffer);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return buffer.bytes()[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.size() - position);
+            System.arraycopy(buffer.bytes(), position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.size() - position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+
+        /**
+         * 缓冲区读完时继续解析下一批token
+         *
+         * @return 是否还有数据可读
+         */
+        private boolean fill() throws IOException {
+            while (available() == 0) {
+                if (finished) {
+                    return false;
+                }
+                buffer.reset();
+                position = 0;
+                for (int i = 0; i < TOKENS_PER_FILL; i++) {
+                    JsonToken token = parser.nextToken();
+                    if (token == null) {
+                        finished = true;
+                        break;
+                    }
+                    copy(token);
+                }
+                if (finished) {
+                    generator.close();
+                } else {
+                    generator.flush();
+                }
+            }
+            return true;
+        }
+
+        private void copy(JsonToken token) throws IOException {
+            if (allowedDepth > 0) {
+                if (token.isStructStart()) {
+                    allowedDepth++;
+                } else if (token.isStructEnd()) {
+                    allowedDepth--;
+                }
+                generator.copyCurrentEventExact(parser);
+                return;
+            }
+
+            boolean value = token.isScalarValue() || token.isStructStart();
+            boolean allowed = value && !allowedPaths.isEmpty()
+                    && allowedPaths.contains(path(parser.getParsingContext()));
+            if (allowed && token.isStructStart()) {
+                allowedDepth = 1;
+                generator.copyCurrentEventExact(parser);
+            } else if (token == JsonToken.VALUE_STRING && !allowed) {
+                generator.writeString(XssUtils.filterText(parser.getText()));
+            } else {
+                generator.copyCurrentEventExact(parser);
+            }
+        }
+    }
+
+    /**
+     * 可直接访问内部数组的缓冲区，避免每次读取复制
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
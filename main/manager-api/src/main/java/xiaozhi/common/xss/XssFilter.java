@@ -1,6 +1,8 @@
 package xiaozhi.common.xss;
 
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.springframework.util.PathMatcher;
 
@@ -39,13 +41,26 @@ public class XssFilter implements Filter {
             return;
         }
 
-        chain.doFilter(new XssHttpServletRequestWrapper(httpServletRequest), response);
+        chain.doFilter(new XssHttpServletRequestWrapper(httpServletRequest, getAllowedPaths(httpServletRequest)),
+                response);
     }
 
     private boolean shouldNotFilter(HttpServletRequest request) {
-        // 放行不过滤的URL
-        return properties.getExcludeUrls().stream()
-                .anyMatch(excludeUrl -> pathMatcher.match(excludeUrl, request.getServletPath()));
+        String path = request.getServletPath();
+        // 放行不过滤的URL，以及服务端密钥认证的机器接口
+        return properties.getExcludeUrls().stream().anyMatch(url -> pathMatcher.match(url, path))
+                || properties.getMachineUrls().stream().anyMatch(url -> pathMatcher.match(url, path));
+    }
+
+    private Set<String> getAllowedPaths(HttpServletRequest request) {
+        String path = request.getServletPath();
+        Set<String> fields = new HashSet<>();
+        for (XssProperties.FieldAllowlist allowlist : properties.getFieldAllowlist()) {
+            if (pathMatcher.match(allowlist.getUrl(), path)) {
+                fields.addAll(allowlist.getFields());
+            }
+        }
+        return fields;
     }
 
     @Override
@@ -1,16 +1,17 @@
 package xiaozhi.common.xss;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 
-import cn.hutool.core.io.IoUtil;
 import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,30 +24,42 @@ import jakarta.servlet.http.HttpServletRequestWrapper;
  */
 public class XssHttpServletRequestWrapper extends HttpServletRequestWrapper {
 
+    /**
+     * 请求体中不过滤的JSON字段路径
+     */
+    private final Set<String> allowedPaths;
+    private ServletInputStream sanitizedInputStream;
+
     public XssHttpServletRequestWrapper(HttpServletRequest request) {
+        this(request, Collections.emptySet());
+    }
+
+    public XssHttpServletRequestWrapper(HttpServletRequest request, Set<String> allowedPaths) {
         super(request);
+        this.allowedPaths = allowedPaths;
     }
 
     @Override
     public ServletInputStream getInputStream() throws IOException {
         // 非json类型，直接返回
-        if (!MediaType.APPLICATION_JSON_VALUE.equalsIgnoreCase(super.getHeader(HttpHeaders.CONTENT_TYPE))) {
+        if (!isJson(super.getHeader(HttpHeaders.CONTENT_TYPE))) {
             return super.getInputStream();
         }
 
-        // 为空，直接返回
-        String json = IoUtil.readUtf8(super.getInputStream());
-        if (StringUtils.isBlank(json)) {
-            return super.getInputStream();
+        // xss过滤，只处理字符串值，边读边过滤；不是合法JSON时读取抛出异常，由后续解析报错
+        if (sanitizedInputStream == null) {
+            sanitizedInputStream = wrap(JsonXssSanitizer.sanitize(super.getInputStream(), allowedPaths));
         }
+        return sanitizedInputStream;
+    }
 
-        // xss过滤
-        json = xssEncode(json);
-        final ByteArrayInputStream bis = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    private static ServletInputStream wrap(InputStream in) {
         return new ServletInputStream() {
+            private boolean finished;
+
             @Override
             public boolean isFinished() {
-                return true;
+                return finished;
             }
 
             @Override
@@ -60,12 +73,37 @@ public class XssHttpServletRequestWrapper extends HttpServletRequestWrapper {
             }
 
             @Override
-            public int read() {
-                return bis.read();
+            public int read() throws IOException {
+                int b = in.read();
+                finished = b == -1;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = in.read(b, off, len);
+                finished = n == -1;
+                return n;
+            }
+
+            @Override
+            public void close() throws IOException {
+                in.close();
             }
         };
     }
 
+    private boolean isJson(String contentType) {
+        if (StringUtils.isBlank(contentType)) {
+            return false;
+        }
+        try {
+            return MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
     @Override
     public String getParameter(String name) {
         String value = super.getParameter(xssEncode(name));
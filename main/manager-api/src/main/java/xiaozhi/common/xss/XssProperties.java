@@ -23,4 +23,24 @@ public class XssProperties {
      * 排除的URL列表
      */
     private List<String> excludeUrls = Collections.emptyList();
+    /**
+     * 服务端密钥认证的机器接口（xiaozhi-server调用），请求体不是用户输入，不做过滤
+     */
+    private List<String> machineUrls = Collections.emptyList();
+    /**
+     * 按URL配置不过滤的JSON字段路径，字段值为对象或数组时其中的内容也不过滤
+     */
+    private List<FieldAllowlist> fieldAllowlist = Collections.emptyList();
+
+    @Data
+    public static class FieldAllowlist {
+        /**
+         * URL，支持Ant风格通配符
+         */
+        private String url;
+        /**
+         * 字段路径，从根对象开始以.分隔，数组层级不计，如systemPrompt、config.headers
+         */
+        private List<String> fields = Collections.emptyList();
+    }
 }
@@ -1,6 +1,9 @@
 package xiaozhi.common.xss;
 
+import java.util.regex.Pattern;
+
 import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
 import org.jsoup.safety.Safelist;
 
 /**
@@ -9,6 +12,12 @@ import org.jsoup.safety.Safelist;
  * Website: https://www.renren.io
  */
 public class XssUtils extends Safelist {
+    /**
+     * 疑似HTML标签、注释或实体
+     */
+    private static final Pattern MARKUP = Pattern.compile("<[a-zA-Z!/?]|&#?[a-zA-Z0-9]+;");
+    private static final Safelist SAFELIST = xssWhitelist();
+    private static final Document.OutputSettings TEXT_OUTPUT = new Document.OutputSettings().prettyPrint(false);
 
     /**
      * XSS过滤
@@ -17,6 +26,16 @@ public class XssUtils extends Safelist {
         return Jsoup.clean(html, xssWhitelist());
     }
 
+    /**
+     * 过滤文本值：不含标签的文本原样返回，避免普通文本中的&lt;、&amp;被转义或换行被重排
+     */
+    public static String filterText(String text) {
+        if (text == null || !MARKUP.matcher(text).find()) {
+            return text;
+        }
+        return Jsoup.clean(text, "", SAFELIST, TEXT_OUTPUT);
+    }
+
     /**
      * XSS过滤白名单
      */
@@ -0,0 +1,62 @@
+package xiaozhi.modules.agent.Enums;
+
+import lombok.Getter;
+
+/**
+ * 聊天音频格式，根据文件头识别
+ */
+@Getter
+public enum AgentChatAudioFormat {
+
+    WAV("audio/wav", "wav"),
+    OGG("audio/ogg", "ogg"),
+    MP3("audio/mpeg", "mp3"),
+    UNKNOWN("application/octet-stream", "bin");
+
+    /**
+     * 识别格式所需的文件头长度
+     */
+    public static final int HEADER_LENGTH = 12;
+
+    private final String contentType;
+    private final String extension;
+
+    AgentChatAudioFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    /**
+     * 根据文件头识别音频格式
+     *
+     * @param header 音频开头的字节，至少{@link #HEADER_LENGTH}字节才能完整识别
+     */
+    public static AgentChatAudioFormat detect(byte[] header) {
+        if (header == null) {
+            return UNKNOWN;
+        }
+        if (startsWith(header, 0, "RIFF") && startsWith(header, 8, "WAVE")) {
+            return WAV;
+        }
+        if (startsWith(header, 0, "OggS")) {
+            return OGG;
+        }
+        if (startsWith(header, 0, "ID3")
+                || (header.length >= 2 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xE0) == 0xE0)) {
+            return MP3;
+        }
+        return UNKNOWN;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, String magic) {
+        if (data.length < offset + magic.length()) {
+            return false;
+        }
+        for (int i = 0; i < magic.length(); i++) {
+            if (data[offset + i] != (byte) magic.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
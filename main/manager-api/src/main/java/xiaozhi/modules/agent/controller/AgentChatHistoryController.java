@@ -1,5 +1,6 @@
 package xiaozhi.modules.agent.controller;
 
+import org.apache.shiro.authz.annotation.RequiresPermissions;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -9,9 +10,14 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import xiaozhi.common.page.PageData;
+import xiaozhi.common.ratelimit.RateLimiter;
 import xiaozhi.common.utils.Result;
 import xiaozhi.modules.agent.dto.AgentChatHistoryReportDTO;
+import xiaozhi.modules.agent.dto.AgentChatHistorySearchDTO;
+import xiaozhi.modules.agent.service.AgentChatHistorySearchService;
 import xiaozhi.modules.agent.service.biz.AgentChatHistoryBizService;
+import xiaozhi.modules.agent.vo.AgentChatHistorySearchVO;
 
 @Tag(name = "智能体聊天历史管理")
 @RequiredArgsConstructor
@@ -19,6 +25,8 @@ import xiaozhi.modules.agent.service.biz.AgentChatHistoryBizService;
 @RequestMapping("/agent/chat-history")
 public class AgentChatHistoryController {
     private final AgentChatHistoryBizService agentChatHistoryBizService;
+    private final AgentChatHistorySearchService agentChatHistorySearchService;
+    private final RateLimiter rateLimiter;
 
     /**
      * 小智服务聊天上报请求
@@ -30,7 +38,25 @@ public class AgentChatHistoryController {
     @Operation(summary = "小智服务聊天上报请求")
     @PostMapping("/report")
     public Result<Boolean> uploadFile(@Valid @RequestBody AgentChatHistoryReportDTO request) {
+        // MAC在请求体中，按设备限流
+        rateLimiter.check("chat-report", request.getMacAddress());
         Boolean result = agentChatHistoryBizService.report(request);
         return new Result<Boolean>().ok(result);
     }
+
+    @Operation(summary = "全文检索聊天记录")
+    @PostMapping("/search")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<PageData<AgentChatHistorySearchVO>> search(@RequestBody AgentChatHistorySearchDTO dto) {
+        PageData<AgentChatHistorySearchVO> page = agentChatHistorySearchService.search(dto);
+        return new Result<PageData<AgentChatHistorySearchVO>>().ok(page);
+    }
+
+    @Operation(summary = "重建聊天记录全文索引")
+    @PostMapping("/search/rebuild")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<Void> rebuildSearchIndex() {
+        agentChatHistorySearchService.rebuild();
+        return new Result<>();
+    }
 }
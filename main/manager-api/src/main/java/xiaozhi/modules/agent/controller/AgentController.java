@@ -1,5 +1,7 @@
 package xiaozhi.modules.agent.controller;
 
+import java.io.IOException;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -7,8 +9,7 @@ import java.util.UUID;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpRange;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -25,16 +26,25 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Parameters;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import xiaozhi.common.annotation.ResponseCache;
+import xiaozhi.common.cache.CacheRegion;
 import xiaozhi.common.constant.Constant;
+import xiaozhi.common.exception.RenException;
 import xiaozhi.common.page.PageData;
 import xiaozhi.common.redis.RedisKeys;
 import xiaozhi.common.redis.RedisUtils;
 import xiaozhi.common.user.UserDetail;
+import xiaozhi.common.utils.DateUtils;
 import xiaozhi.common.utils.Result;
 import xiaozhi.common.utils.ResultUtils;
+import xiaozhi.modules.agent.Enums.AgentChatAudioFormat;
+import xiaozhi.modules.agent.dto.AgentChatAudioMetaDTO;
 import xiaozhi.modules.agent.dto.AgentChatHistoryDTO;
+import xiaozhi.modules.agent.dto.AgentChatHistoryExportDTO;
 import xiaozhi.modules.agent.dto.AgentChatSessionDTO;
 import xiaozhi.modules.agent.dto.AgentCreateDTO;
 import xiaozhi.modules.agent.dto.AgentDTO;
@@ -43,8 +53,8 @@ import xiaozhi.modules.agent.dto.AgentUpdateDTO;
 import xiaozhi.modules.agent.entity.AgentEntity;
 import xiaozhi.modules.agent.entity.AgentTemplateEntity;
 import xiaozhi.modules.agent.service.AgentChatAudioService;
+import xiaozhi.modules.agent.service.AgentChatHistoryExportService;
 import xiaozhi.modules.agent.service.AgentChatHistoryService;
-import xiaozhi.modules.agent.service.AgentPluginMappingService;
 import xiaozhi.modules.agent.service.AgentService;
 import xiaozhi.modules.agent.service.AgentTemplateService;
 import xiaozhi.modules.agent.vo.AgentChatHistoryUserVO;
@@ -52,19 +62,31 @@ import xiaozhi.modules.agent.vo.AgentInfoVO;
 import xiaozhi.modules.device.entity.DeviceEntity;
 import xiaozhi.modules.device.service.DeviceService;
 import xiaozhi.modules.security.user.SecurityUser;
+import xiaozhi.modules.sys.service.DeletionJobService;
+import xiaozhi.modules.sys.vo.DeletionJobVO;
 
 @Tag(name = "智能体管理")
 @AllArgsConstructor
 @RestController
 @RequestMapping("/agent")
 public class AgentController {
+    /**
+     * 音频播放ID有效期，单位：秒
+     */
+    private static final long AUDIO_PLAY_EXPIRE = 2 * 60 * 60L;
+    /**
+     * 同一音频复用播放ID的时长，单位：秒，小于有效期，保证返回的播放ID至少还能使用一小时
+     */
+    private static final long AUDIO_PLAY_REUSE = 60 * 60L;
+
     private final AgentService agentService;
     private final AgentTemplateService agentTemplateService;
     private final DeviceService deviceService;
     private final AgentChatHistoryService agentChatHistoryService;
+    private final AgentChatHistoryExportService agentChatHistoryExportService;
     private final AgentChatAudioService agentChatAudioService;
-    private final AgentPluginMappingService agentPluginMappingService;
     private final RedisUtils redisUtils;
+    private final DeletionJobService deletionJobService;
 
     @GetMapping("/list")
     @Operation(summary = "获取用户智能体列表")
@@ -81,6 +103,7 @@ public class AgentController {
     @Parameters({
             @Parameter(name = Constant.PAGE, description = "当前页码，从1开始", required = true),
             @Parameter(name = Constant.LIMIT, description = "每页显示记录数", required = true),
+            @Parameter(name = Constant.CURSOR, description = "游标分页：首页传空值，之后传上一页返回的nextCursor；不传则按页码分页", required = false),
     })
     public Result<PageData<AgentEntity>> adminAgentList(
             @Parameter(hidden = true) @RequestParam Map<String, Object> params) {
@@ -111,14 +134,12 @@ public class AgentController {
         if (device == null) {
             return new Result<>();
         }
-        AgentUpdateDTO agentUpdateDTO = new AgentUpdateDTO();
-        agentUpdateDTO.setSummaryMemory(dto.getSummaryMemory());
-        agentService.updateAgentById(device.getAgentId(), agentUpdateDTO);
+        agentService.updateSummaryMemory(device.getAgentId(), dto.getSummaryMemory());
         return new Result<>();
     }
 
     @PutMapping("/{id}")
-    @Operation(summary = "更新智能体")
+    @Operation(summary = "更新智能体", description = "只写入有变化的字段，传入version时版本号不一致返回409")
     @RequiresPermissions("sys:role:normal")
     public Result<Void> update(@PathVariable String id, @RequestBody @Valid AgentUpdateDTO dto) {
         agentService.updateAgentById(id, dto);
@@ -128,19 +149,20 @@ public class AgentController {
     @DeleteMapping("/{id}")
     @Operation(summary = "删除智能体")
     @RequiresPermissions("sys:role:normal")
-    public Result<Void> delete(@PathVariable String id) {
-        // 先删除关联的设备
-        deviceService.deleteByAgentId(id);
-        // 删除关联的聊天记录
-        agentChatHistoryService.deleteByAgentId(id, true, true);
-        // 删除关联的插件
-        agentPluginMappingService.deleteByAgentId(id);
-        // 再删除智能体
-        agentService.deleteById(id);
-        return new Result<>();
+    public Result<Long> delete(@PathVariable String id) {
+        // 智能体立即标记删除，设备、聊天记录、插件等关联数据由后台任务分批清理，返回任务ID
+        return new Result<Long>().ok(deletionJobService.deleteAgent(id));
+    }
+
+    @GetMapping("/deletion-job/{jobId}")
+    @Operation(summary = "查询智能体删除进度")
+    @RequiresPermissions("sys:role:normal")
+    public Result<DeletionJobVO> getDeletionJob(@PathVariable Long jobId) {
+        return new Result<DeletionJobVO>().ok(deletionJobService.getJob(jobId));
     }
 
     @GetMapping("/template")
+    @ResponseCache(regions = CacheRegion.AGENT_TEMPLATE)
     @Operation(summary = "智能体模板模板列表")
     @RequiresPermissions("sys:role:normal")
     public Result<List<AgentTemplateEntity>> templateList() {
@@ -155,6 +177,7 @@ public class AgentController {
     @Parameters({
             @Parameter(name = Constant.PAGE, description = "当前页码，从1开始", required = true),
             @Parameter(name = Constant.LIMIT, description = "每页显示记录数", required = true),
+            @Parameter(name = Constant.CURSOR, description = "游标分页：首页传空值，之后传上一页返回的nextCursor；不传则按页码分页", required = false),
     })
     public Result<PageData<AgentChatSessionDTO>> getAgentSessions(
             @PathVariable("id") String id,
@@ -200,6 +223,96 @@ public class AgentController {
         return new Result<List<AgentChatHistoryUserVO>>().ok(data);
     }
 
+    @GetMapping("/{id}/chat-history/export")
+    @Operation(summary = "流式导出智能体聊天记录")
+    @RequiresPermissions("sys:role:normal")
+    @Parameters({
+            @Parameter(name = "format", description = "导出格式：ndjson或csv，默认ndjson"),
+            @Parameter(name = "gzip", description = "是否gzip压缩，默认否"),
+            @Parameter(name = "macAddress", description = "设备MAC地址"),
+            @Parameter(name = "sessionId", description = "会话ID"),
+            @Parameter(name = "startTime", description = "开始时间，格式yyyy-MM-dd HH:mm:ss"),
+            @Parameter(name = "endTime", description = "结束时间，格式yyyy-MM-dd HH:mm:ss"),
+            @Parameter(name = "afterTime", description = "断点续导：上次最后一条记录的timestamp"),
+            @Parameter(name = "afterId", description = "断点续导：上次最后一条记录的id"),
+            @Parameter(name = "limit", description = "最多导出条数")
+    })
+    public void exportChatHistory(@PathVariable("id") String id,
+            @RequestParam(defaultValue = AgentChatHistoryExportService.FORMAT_NDJSON) String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @Parameter(hidden = true) @RequestParam Map<String, String> params,
+            HttpServletResponse response) throws IOException {
+        AgentChatHistoryExportDTO query = buildExportQuery(id, params);
+        if (!AgentChatHistoryExportService.FORMAT_NDJSON.equalsIgnoreCase(format)
+                && !AgentChatHistoryExportService.FORMAT_CSV.equalsIgnoreCase(format)) {
+            throw new RenException("不支持的导出格式：" + format);
+        }
+        String fileName = "chat-history-" + id + "." + format.toLowerCase();
+        if (gzip) {
+            fileName += ".gz";
+            response.setContentType("application/gzip");
+        } else if (AgentChatHistoryExportService.FORMAT_CSV.equalsIgnoreCase(format)) {
+            response.setContentType("text/csv;charset=UTF-8");
+        } else {
+            response.setContentType("application/x-ndjson;charset=UTF-8");
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        agentChatHistoryExportService.exportText(query, format, gzip, response.getOutputStream());
+    }
+
+    @GetMapping("/{id}/chat-history/export/audio")
+    @Operation(summary = "以zip格式流式导出智能体聊天音频")
+    @RequiresPermissions("sys:role:normal")
+    public void exportChatAudio(@PathVariable("id") String id,
+            @Parameter(hidden = true) @RequestParam Map<String, String> params,
+            HttpServletResponse response) throws IOException {
+        AgentChatHistoryExportDTO query = buildExportQuery(id, params);
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"chat-audio-" + id + ".zip\"");
+        agentChatHistoryExportService.exportAudio(query, response.getOutputStream());
+    }
+
+    /**
+     * 校验权限并组装导出条件，需在写出响应前调用，保证异常能以正常JSON返回
+     */
+    private AgentChatHistoryExportDTO buildExportQuery(String agentId, Map<String, String> params) {
+        UserDetail user = SecurityUser.getUser();
+        if (!agentService.checkAgentPermission(agentId, user.getId())) {
+            throw new RenException("没有权限查看该智能体的聊天记录");
+        }
+
+        AgentChatHistoryExportDTO query = new AgentChatHistoryExportDTO();
+        query.setAgentId(agentId);
+        query.setMacAddress(StringUtils.trimToNull(params.get("macAddress")));
+        query.setSessionId(StringUtils.trimToNull(params.get("sessionId")));
+        query.setStartTime(parseExportTime(params.get("startTime")));
+        query.setEndTime(parseExportTime(params.get("endTime")));
+        try {
+            if (StringUtils.isNotBlank(params.get("afterTime")) && StringUtils.isNotBlank(params.get("afterId"))) {
+                query.setAfterTime(new Date(Long.parseLong(params.get("afterTime"))));
+                query.setAfterId(Long.parseLong(params.get("afterId")));
+            }
+            if (StringUtils.isNotBlank(params.get("limit"))) {
+                query.setLimit(Integer.parseInt(params.get("limit")));
+            }
+        } catch (NumberFormatException e) {
+            throw new RenException("导出参数格式错误");
+        }
+        return query;
+    }
+
+    private Date parseExportTime(String value) {
+        if (StringUtils.isBlank(value)) {
+            return null;
+        }
+        Date date = DateUtils.parse(value, DateUtils.DATE_TIME_PATTERN);
+        if (date == null) {
+            throw new RenException("时间格式错误，应为yyyy-MM-dd HH:mm:ss");
+        }
+        return date;
+    }
+
     @GetMapping("/{id}/chat-history/audio")
     @Operation(summary = "获取音频内容")
     @RequiresPermissions("sys:role:normal")
@@ -214,33 +327,95 @@ public class AgentController {
     @Operation(summary = "获取音频下载ID")
     @RequiresPermissions("sys:role:normal")
     public Result<String> getAudioId(@PathVariable("audioId") String audioId) {
-        byte[] audioData = agentChatAudioService.getAudio(audioId);
-        if (audioData == null) {
+        if (agentChatAudioService.getAudioMeta(audioId) == null) {
             return new Result<String>().error("音频不存在");
         }
+        // 同一音频复用播放ID，播放地址不变，再次播放时命中浏览器缓存
+        String playIdKey = RedisKeys.getAgentAudioPlayIdKey(audioId);
+        String existing = (String) redisUtils.get(playIdKey);
+        if (StringUtils.isNotBlank(existing)) {
+            return new Result<String>().ok(existing);
+        }
         String uuid = UUID.randomUUID().toString();
-        redisUtils.set(RedisKeys.getAgentAudioIdKey(uuid), audioId);
+        // 播放时浏览器会发起多次Range请求，播放ID在有效期内可重复使用；先写入播放ID再对外公布
+        redisUtils.set(RedisKeys.getAgentAudioIdKey(uuid), audioId, AUDIO_PLAY_EXPIRE);
+        if (!Boolean.TRUE.equals(redisUtils.setIfAbsent(playIdKey, uuid, AUDIO_PLAY_REUSE))) {
+            existing = (String) redisUtils.get(playIdKey);
+            if (StringUtils.isNotBlank(existing)) {
+                return new Result<String>().ok(existing);
+            }
+        }
         return new Result<String>().ok(uuid);
     }
 
     @GetMapping("/play/{uuid}")
-    @Operation(summary = "播放音频")
-    public ResponseEntity<byte[]> playAudio(@PathVariable("uuid") String uuid) {
-
+    @Operation(summary = "播放音频，支持Range分段请求")
+    public void playAudio(@PathVariable("uuid") String uuid, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
         String audioId = (String) redisUtils.get(RedisKeys.getAgentAudioIdKey(uuid));
         if (StringUtils.isBlank(audioId)) {
-            return ResponseEntity.notFound().build();
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // 音频内容写入后不再变化，以音频ID作为ETag
+        String etag = "\"" + audioId + "\"";
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        // 长度和格式按音频ID缓存，每个Range请求只在写出内容时读取一次BLOB
+        AgentChatAudioMetaDTO meta = agentChatAudioService.getAudioMeta(audioId);
+        if (meta == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long length = meta.getLength();
+        AgentChatAudioFormat format = AgentChatAudioFormat.detect(meta.getHeader());
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        // 音频内容不变，缓存到播放ID失效为止
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=" + AUDIO_PLAY_EXPIRE + ", immutable");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "inline; filename=\"" + audioId + "." + format.getExtension() + "\"");
+        response.setContentType(format.getContentType());
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (StringUtils.isNotBlank(rangeHeader) && (ifRange == null || etag.equals(ifRange))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // 只支持单段Range，多段时按完整内容返回
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                try {
+                    start = range.getRangeStart(length);
+                    end = range.getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
         }
 
-        byte[] audioData = agentChatAudioService.getAudio(audioId);
-        if (audioData == null) {
-            return ResponseEntity.notFound().build();
+        long contentLength = length == 0 ? 0 : end - start + 1;
+        response.setContentLengthLong(contentLength);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || contentLength == 0) {
+            return;
         }
-        redisUtils.delete(RedisKeys.getAgentAudioIdKey(uuid));
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"play.wav\"")
-                .body(audioData);
+        agentChatAudioService.writeAudio(audioId, start, contentLength, response.getOutputStream());
     }
 
 }
\ No newline at end of file
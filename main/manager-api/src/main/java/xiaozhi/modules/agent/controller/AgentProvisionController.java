@@ -0,0 +1,34 @@
+package xiaozhi.modules.agent.controller;
+
+import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import xiaozhi.common.utils.Result;
+import xiaozhi.modules.agent.dto.AgentProvisionDTO;
+import xiaozhi.modules.agent.service.AgentProvisionService;
+import xiaozhi.modules.agent.vo.AgentProvisionVO;
+
+/**
+ * 批量开通智能体，用于给一批用户或设备统一配置智能体
+ */
+@AllArgsConstructor
+@RestController
+@RequestMapping("/agent/provision")
+@Tag(name = "批量开通智能体")
+public class AgentProvisionController {
+    private final AgentProvisionService agentProvisionService;
+
+    @PostMapping
+    @Operation(summary = "复制智能体或按模板批量创建", description = "dryRun=true时只校验；有校验错误时不创建任何智能体")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<AgentProvisionVO> provision(@RequestBody @Valid AgentProvisionDTO dto) {
+        return new Result<AgentProvisionVO>().ok(agentProvisionService.provision(dto));
+    }
+}
@@ -25,7 +25,7 @@ public interface AgentDao extends BaseDao<AgentEntity> {
      * @return 默认智能体信息
      */
     @Select(" SELECT a.* FROM ai_device d " +
-            " LEFT JOIN ai_agent a ON d.agent_id = a.id " +
+            " LEFT JOIN ai_agent a ON d.agent_id = a.id AND a.deleted = 0 " +
             " WHERE d.mac_address = #{macAddress} " +
             " ORDER BY d.id DESC LIMIT 1")
     AgentEntity getDefaultAgentByMacAddress(@Param("macAddress") String macAddress);
@@ -1,7 +1,9 @@
 package xiaozhi.modules.agent.dao;
 
+import org.apache.ibatis.annotations.CacheNamespace;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import xiaozhi.common.cache.MybatisRedisCache;
 import xiaozhi.modules.agent.entity.AgentPluginMapping;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 
@@ -13,6 +15,7 @@ import java.util.List;
 * @Entity xiaozhi.modules.agent.entity.AgentPluginMapping
 */
 @Mapper
+@CacheNamespace(implementation = MybatisRedisCache.class)
 public interface AgentPluginMappingMapper extends BaseMapper<AgentPluginMapping> {
     List<AgentPluginMapping> selectPluginsByAgentId(@Param("agentId") String agentId);
 }
@@ -1,9 +1,11 @@
 package xiaozhi.modules.agent.dao;
 
+import org.apache.ibatis.annotations.CacheNamespace;
 import org.apache.ibatis.annotations.Mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 
+import xiaozhi.common.cache.MybatisRedisCache;
 import xiaozhi.modules.agent.entity.AgentTemplateEntity;
 
 /**
@@ -12,6 +14,7 @@ import xiaozhi.modules.agent.entity.AgentTemplateEntity;
  * @createDate 2025-03-22 11:48:18
  */
 @Mapper
+@CacheNamespace(implementation = MybatisRedisCache.class)
 public interface AgentTemplateDao extends BaseMapper<AgentTemplateEntity> {
 
 }
@@ -1,9 +1,11 @@
 package xiaozhi.modules.agent.dao;
 
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 
+import xiaozhi.modules.agent.dto.AgentChatAudioMetaDTO;
 import xiaozhi.modules.agent.entity.AgentChatAudioEntity;
 
 /**
@@ -15,4 +17,22 @@ import xiaozhi.modules.agent.entity.AgentChatAudioEntity;
  */
 @Mapper
 public interface AiAgentChatAudioDao extends BaseMapper<AgentChatAudioEntity> {
+    /**
+     * 获取音频字节长度和文件头，不加载音频内容
+     *
+     * @param id           音频ID
+     * @param headerLength 文件头长度
+     * @return 长度和文件头，音频不存在时为null
+     */
+    AgentChatAudioMetaDTO getAudioMeta(@Param("id") String id, @Param("headerLength") int headerLength);
+
+    /**
+     * 读取音频的一段字节
+     *
+     * @param id     音频ID
+     * @param offset 起始偏移（从0开始）
+     * @param length 读取长度
+     * @return 音频片段
+     */
+    byte[] getAudioRange(@Param("id") String id, @Param("offset") long offset, @Param("length") long length);
 }
\ No newline at end of file
@@ -1,9 +1,14 @@
 package xiaozhi.modules.agent.dao;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 
+import xiaozhi.modules.agent.dto.AgentChatHistoryExportDTO;
 import xiaozhi.modules.agent.entity.AgentChatHistoryEntity;
 
 /**
@@ -35,4 +40,64 @@ public interface AiAgentChatHistoryDao extends BaseMapper<AgentChatHistoryEntity
      * @param agentId 智能体ID
      */
     void deleteAudioIdByAgentId(String agentId);
+
+    /**
+     * 按(created_at, id)键集分页读取导出的聊天记录
+     *
+     * @param query 导出条件，afterTime与afterId为上一批最后一条
+     * @param size  批大小
+     * @return 聊天记录
+     */
+    List<AgentChatHistoryEntity> listExportAfter(@Param("query") AgentChatHistoryExportDTO query,
+            @Param("size") int size);
+
+    /**
+     * 按(created_at, id)键集分页读取带音频的聊天记录，只返回定位音频所需字段
+     *
+     * @param query 导出条件，afterTime与afterId为上一批最后一条
+     * @param size  批大小
+     * @return 聊天记录
+     */
+    List<AgentChatHistoryEntity> listAudioAfter(@Param("query") AgentChatHistoryExportDTO query,
+            @Param("size") int size);
+
+    /**
+     * 按ID升序读取指定ID之后的聊天记录，用于追平全文索引
+     *
+     * @param afterId 起始ID（不包含）
+     * @param size    条数
+     * @return 聊天记录
+     */
+    List<AgentChatHistoryEntity> listForIndexAfterId(@Param("afterId") long afterId, @Param("size") int size);
+
+    /**
+     * 按ID升序读取最近写入的聊天记录ID，用于回扫提交晚于更大ID的记录
+     *
+     * @param seconds 回扫最近多少秒内写入的记录，按数据库时间计算
+     * @param afterId 起始ID（不包含）
+     * @param maxId   最大ID（包含）
+     * @param size    条数
+     * @return 聊天记录ID
+     */
+    List<Long> listIdsUpdatedSince(@Param("seconds") int seconds, @Param("afterId") long afterId,
+            @Param("maxId") long maxId, @Param("size") int size);
+
+    /**
+     * 按ID读取聊天记录，用于写入全文索引
+     *
+     * @param ids 聊天记录ID
+     * @return 聊天记录
+     */
+    List<AgentChatHistoryEntity> listForIndexByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 按ID升序读取智能体指定ID之后的聊天记录，只返回ID和音频ID，用于分批清理
+     *
+     * @param agentId 智能体ID
+     * @param afterId 起始ID（不包含）
+     * @param size    条数
+     * @return 聊天记录
+     */
+    List<AgentChatHistoryEntity> listForPurge(@Param("agentId") String agentId, @Param("afterId") long afterId,
+            @Param("size") int size);
 }
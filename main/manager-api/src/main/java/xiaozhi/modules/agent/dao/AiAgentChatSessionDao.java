@@ -0,0 +1,55 @@
+package xiaozhi.modules.agent.dao;
+
+import java.util.Date;
+import java.util.List;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+
+import xiaozhi.modules.agent.entity.AgentChatSessionEntity;
+
+/**
+ * {@link AgentChatSessionEntity} 智能体会话汇总Dao对象
+ */
+@Mapper
+public interface AiAgentChatSessionDao extends BaseMapper<AgentChatSessionEntity> {
+    /**
+     * 上报一条聊天记录时增量更新会话汇总，不存在则新建
+     *
+     * @param entity 本次上报对应的会话数据，chatCount为本次新增条数
+     */
+    void upsertOnReport(@Param("entity") AgentChatSessionEntity entity);
+
+    /**
+     * 根据聊天记录重新计算指定智能体的全部会话汇总
+     *
+     * @param agentId 智能体ID
+     * @return 会话汇总，lastContent为最后一条消息的原始内容
+     */
+    List<AgentChatSessionEntity> selectRebuildByAgentId(@Param("agentId") String agentId);
+
+    /**
+     * 根据聊天记录重新计算指定时间之后有消息的会话汇总
+     *
+     * @param since 起始时间
+     * @return 会话汇总，lastContent为最后一条消息的原始内容
+     */
+    List<AgentChatSessionEntity> selectRebuildActiveSince(@Param("since") Date since);
+
+    /**
+     * 批量写入重算后的会话汇总，已存在则覆盖
+     *
+     * @param list 会话汇总
+     * @return 影响行数
+     */
+    int upsertRebuilt(@Param("list") List<AgentChatSessionEntity> list);
+
+    /**
+     * 根据智能体ID删除会话汇总
+     *
+     * @param agentId 智能体ID
+     */
+    void deleteByAgentId(@Param("agentId") String agentId);
+}
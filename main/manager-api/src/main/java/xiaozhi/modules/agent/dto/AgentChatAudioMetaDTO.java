@@ -0,0 +1,19 @@
+package xiaozhi.modules.agent.dto;
+
+import lombok.Data;
+
+/**
+ * 聊天音频的长度和文件头，一次查询得到，播放时的每个Range请求复用
+ */
+@Data
+public class AgentChatAudioMetaDTO {
+    /**
+     * 音频字节长度
+     */
+    private Long length;
+
+    /**
+     * 音频开头的字节，用于识别格式
+     */
+    private byte[] header;
+}
@@ -0,0 +1,53 @@
+package xiaozhi.modules.agent.dto;
+
+import java.util.Date;
+
+import lombok.Data;
+
+/**
+ * 聊天记录导出查询条件
+ * <p>
+ * 按(created_at, id)升序输出，afterTime与afterId为上次导出的最后一条记录，用于断点续导
+ */
+@Data
+public class AgentChatHistoryExportDTO {
+    /**
+     * 智能体ID
+     */
+    private String agentId;
+
+    /**
+     * 设备MAC地址
+     */
+    private String macAddress;
+
+    /**
+     * 会话ID
+     */
+    private String sessionId;
+
+    /**
+     * 开始时间（包含）
+     */
+    private Date startTime;
+
+    /**
+     * 结束时间（不包含）
+     */
+    private Date endTime;
+
+    /**
+     * 上次导出最后一条记录的创建时间
+     */
+    private Date afterTime;
+
+    /**
+     * 上次导出最后一条记录的ID
+     */
+    private Long afterId;
+
+    /**
+     * 最多导出条数，为空不限制
+     */
+    private Integer limit;
+}
@@ -3,6 +3,7 @@ package xiaozhi.modules.agent.dto;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 /**
@@ -30,4 +31,7 @@ public class AgentChatHistoryReportDTO {
     private String audioBase64;
     @Schema(description = "上报时间，十位时间戳，空时默认使用当前时间", example = "1745657732")
     private Long reportTime;
+    @Schema(description = "幂等键，重试上报时保持不变；为空时根据MAC、会话、类型、上报时间和内容生成", example = "")
+    @Size(max = 128)
+    private String idempotencyKey;
 }
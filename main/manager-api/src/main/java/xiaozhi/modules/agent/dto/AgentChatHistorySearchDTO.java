@@ -0,0 +1,42 @@
+package xiaozhi.modules.agent.dto;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import xiaozhi.common.utils.DateUtils;
+
+/**
+ * 聊天记录全文检索条件
+ */
+@Data
+@Schema(description = "聊天记录全文检索条件")
+public class AgentChatHistorySearchDTO {
+    @Schema(description = "检索关键词，按短语匹配")
+    private String keyword;
+
+    @Schema(description = "智能体ID")
+    private String agentId;
+
+    @Schema(description = "设备MAC地址")
+    private String macAddress;
+
+    @Schema(description = "会话ID")
+    private String sessionId;
+
+    @Schema(description = "开始时间（包含）")
+    @JsonFormat(pattern = DateUtils.DATE_TIME_PATTERN)
+    private Date startTime;
+
+    @Schema(description = "结束时间（不包含）")
+    @JsonFormat(pattern = DateUtils.DATE_TIME_PATTERN)
+    private Date endTime;
+
+    @Schema(description = "当前页码，从1开始")
+    private Integer page;
+
+    @Schema(description = "每页显示记录数")
+    private Integer limit;
+}
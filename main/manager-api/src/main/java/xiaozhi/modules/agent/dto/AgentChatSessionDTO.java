@@ -15,10 +15,25 @@ public class AgentChatSessionDTO {
     private String sessionId;
 
     /**
-     * 会话时间
+     * 会话时间（最后一条消息时间）
      */
     private LocalDateTime createdAt;
 
+    /**
+     * 会话开始时间
+     */
+    private LocalDateTime firstChatAt;
+
+    /**
+     * MAC地址
+     */
+    private String macAddress;
+
+    /**
+     * 最后一条消息摘要
+     */
+    private String lastContent;
+
     /**
      * 聊天条数
      */
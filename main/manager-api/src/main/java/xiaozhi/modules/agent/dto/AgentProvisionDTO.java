@@ -0,0 +1,51 @@
+package xiaozhi.modules.agent.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+/**
+ * 批量开通智能体参数
+ * 复制一个已有智能体，或按模板创建，每个目标生成一个新智能体
+ */
+@Data
+@Schema(description = "批量开通智能体参数")
+public class AgentProvisionDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "源智能体ID，复制已有智能体时填写，与templateId二选一")
+    private String sourceAgentId;
+
+    @Schema(description = "模板ID，按模板创建时填写，与sourceAgentId二选一")
+    private String templateId;
+
+    @Schema(description = "新智能体名称，目标未单独指定时使用，不填则沿用源智能体或模板的名称")
+    private String agentName;
+
+    @Schema(description = "开通目标，每个目标创建一个智能体")
+    @NotEmpty(message = "请填写开通目标")
+    @Valid
+    private List<Target> targets;
+
+    @Schema(description = "仅校验不创建")
+    private boolean dryRun;
+
+    @Data
+    @Schema(description = "开通目标")
+    public static class Target implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Schema(description = "所属用户ID，只填设备时取设备当前的用户")
+        private Long userId;
+
+        @Schema(description = "设备ID，填写后设备绑定到新智能体")
+        private String deviceId;
+
+        @Schema(description = "新智能体名称")
+        private String agentName;
+    }
+}
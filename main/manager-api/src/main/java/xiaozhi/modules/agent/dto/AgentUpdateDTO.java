@@ -10,7 +10,7 @@ import lombok.Data;
 /**
  * 智能体更新DTO
  * 专用于更新智能体，id字段是必需的，用于标识要更新的智能体
- * 其他字段均为非必填，只更新提供的字段
+ * 其他字段均为非必填，只更新提供且有变化的字段
  */
 @Data
 @Schema(description = "智能体更新对象")
@@ -69,6 +69,9 @@ public class AgentUpdateDTO implements Serializable {
     @Schema(description = "排序", example = "1", nullable = true)
     private Integer sort;
 
+    @Schema(description = "读取智能体时的版本号，传入时只有版本号未变才会更新，否则返回409；不传则不检测", example = "3", nullable = true)
+    private Integer version;
+
     @Data
     @Schema(description = "插件函数信息")
     public static class FunctionInfo implements Serializable {
@@ -67,6 +67,12 @@ public class AgentChatHistoryEntity {
     @TableField(value = "audio_id")
     private String audioId;
 
+    /**
+     * 上报幂等键
+     */
+    @TableField(value = "report_key")
+    private String reportKey;
+
     /**
      * 创建时间
      */
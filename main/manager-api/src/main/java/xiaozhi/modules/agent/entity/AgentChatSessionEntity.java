@@ -0,0 +1,65 @@
+package xiaozhi.modules.agent.entity;
+
+import java.util.Date;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+
+import lombok.Data;
+
+/**
+ * 智能体会话汇总表
+ * <p>
+ * 以(agent_id, session_id)为主键，由聊天上报增量维护，会话列表直接按索引范围扫描本表
+ */
+@Data
+@TableName(value = "ai_agent_chat_session")
+public class AgentChatSessionEntity {
+    /**
+     * 智能体id
+     */
+    @TableField(value = "agent_id")
+    private String agentId;
+
+    /**
+     * 会话ID
+     */
+    @TableField(value = "session_id")
+    private String sessionId;
+
+    /**
+     * MAC地址
+     */
+    @TableField(value = "mac_address")
+    private String macAddress;
+
+    /**
+     * 会话第一条消息时间
+     */
+    @TableField(value = "first_chat_at")
+    private Date firstChatAt;
+
+    /**
+     * 会话最后一条消息时间
+     */
+    @TableField(value = "last_chat_at")
+    private Date lastChatAt;
+
+    /**
+     * 聊天条数
+     */
+    @TableField(value = "chat_count")
+    private Integer chatCount;
+
+    /**
+     * 最后一条消息摘要
+     */
+    @TableField(value = "last_content")
+    private String lastContent;
+
+    /**
+     * 更新时间
+     */
+    @TableField(value = "updated_at")
+    private Date updatedAt;
+}
@@ -4,6 +4,7 @@ import java.util.Date;
 
 import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableLogic;
 import com.baomidou.mybatisplus.annotation.TableName;
 
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -81,4 +82,11 @@ public class AgentEntity {
 
     @Schema(description = "更新时间")
     private Date updatedAt;
+
+    @Schema(description = "版本号，每次修改加1，更新时传回用于检测并发修改")
+    private Integer version;
+
+    @TableLogic
+    @Schema(description = "删除标记：0正常 1已删除，待后台清理")
+    private Integer deleted;
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package xiaozhi.modules.agent.entity;
 
 import java.io.Serializable;
+import java.util.List;
 
 import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableField;
@@ -19,6 +20,12 @@ import lombok.Data;
 @TableName(value = "ai_agent_plugin_mapping")
 @Schema(description = "Agent与插件的唯一映射表")
 public class AgentPluginMapping implements Serializable {
+    /**
+     * 新建智能体默认启用的插件：播放音乐、查天气、查新闻
+     */
+    public static final List<String> DEFAULT_PLUGIN_IDS = List.of("SYSTEM_PLUGIN_MUSIC", "SYSTEM_PLUGIN_WEATHER",
+            "SYSTEM_PLUGIN_NEWS_NEWSNOW");
+
     /**
      * 主键
      */
@@ -0,0 +1,319 @@
+package xiaozhi.modules.agent.search;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.cjk.CJKAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.highlight.Highlighter;
+import org.apache.lucene.search.highlight.InvalidTokenOffsetsException;
+import org.apache.lucene.search.highlight.QueryScorer;
+import org.apache.lucene.search.highlight.SimpleFragmenter;
+import org.apache.lucene.search.highlight.SimpleHTMLEncoder;
+import org.apache.lucene.search.highlight.SimpleHTMLFormatter;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.QueryBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.page.PageData;
+import xiaozhi.modules.agent.dto.AgentChatHistorySearchDTO;
+import xiaozhi.modules.agent.entity.AgentChatHistoryEntity;
+import xiaozhi.modules.agent.vo.AgentChatHistorySearchVO;
+
+/**
+ * 聊天记录本地倒排索引
+ * <p>
+ * 基于Lucene，content使用CJK二元分词，智能体、设备、会话、时间可作为过滤条件。
+ * 提交点中记录已从聊天记录表追平到的最大ID和同步智能体删除记录的时间，重启后从该位置继续
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@EnableConfigurationProperties(ChatHistorySearchProperties.class)
+public class ChatHistoryIndex {
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_AGENT_ID = "agentId";
+    private static final String FIELD_MAC_ADDRESS = "macAddress";
+    private static final String FIELD_SESSION_ID = "sessionId";
+    private static final String FIELD_CHAT_TYPE = "chatType";
+    private static final String FIELD_CONTENT = "content";
+    private static final String FIELD_CREATED_AT = "createdAt";
+    private static final String COMMIT_LAST_ID = "lastIndexedId";
+    private static final String COMMIT_DELETIONS_SYNCED_AT = "deletionsSyncedAt";
+    private static final int SNIPPET_FRAGMENT_SIZE = 100;
+
+    private final ChatHistorySearchProperties properties;
+
+    private Analyzer analyzer;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private volatile long lastIndexedId;
+    private volatile long deletionsSyncedAt;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Path path = Paths.get(properties.getIndexPath());
+        Files.createDirectories(path);
+
+        analyzer = new CJKAnalyzer();
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        writer = new IndexWriter(FSDirectory.open(path), config);
+        searcherManager = new SearcherManager(writer, null);
+
+        lastIndexedId = 0;
+        deletionsSyncedAt = 0;
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData != null) {
+            for (Map.Entry<String, String> entry : commitData) {
+                if (COMMIT_LAST_ID.equals(entry.getKey())) {
+                    lastIndexedId = Long.parseLong(entry.getValue());
+                } else if (COMMIT_DELETIONS_SYNCED_AT.equals(entry.getKey())) {
+                    deletionsSyncedAt = Long.parseLong(entry.getValue());
+                }
+            }
+        }
+        log.info("聊天记录索引已打开，目录={}，已追平ID={}，删除记录同步时间={}", path.toAbsolutePath(), lastIndexedId,
+                deletionsSyncedAt);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (writer == null) {
+            return;
+        }
+        commit(lastIndexedId);
+        searcherManager.close();
+        writer.close();
+        analyzer.close();
+    }
+
+    public boolean isEnabled() {
+        return writer != null;
+    }
+
+    /**
+     * 已从聊天记录表追平到的最大ID
+     */
+    public long getLastIndexedId() {
+        return lastIndexedId;
+    }
+
+    /**
+     * 最近一次同步其他实例智能体删除记录的时间，0表示尚未同步过
+     */
+    public long getDeletionsSyncedAt() {
+        return deletionsSyncedAt;
+    }
+
+    /**
+     * 记录同步智能体删除记录的时间，随下次提交持久化
+     */
+    public void setDeletionsSyncedAt(long deletionsSyncedAt) {
+        this.deletionsSyncedAt = deletionsSyncedAt;
+    }
+
+    /**
+     * 返回给定ID中已写入索引的部分，包含尚未提交的写入
+     */
+    public Set<Long> findIndexed(Collection<Long> ids) throws IOException {
+        Set<Long> indexed = new HashSet<>();
+        if (!isEnabled() || ids.isEmpty()) {
+            return indexed;
+        }
+        searcherManager.maybeRefreshBlocking();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            for (Long id : ids) {
+                if (searcher.count(new TermQuery(new Term(FIELD_ID, String.valueOf(id)))) > 0) {
+                    indexed.add(id);
+                }
+            }
+            return indexed;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * 写入或覆盖一条聊天记录，按ID幂等，content需为已提取的纯文本
+     */
+    public void upsert(AgentChatHistoryEntity doc) throws IOException {
+        if (!isEnabled() || StringUtils.isBlank(doc.getContent())) {
+            return;
+        }
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, String.valueOf(doc.getId()), Field.Store.YES));
+        document.add(new StringField(FIELD_AGENT_ID, StringUtils.defaultString(doc.getAgentId()), Field.Store.YES));
+        document.add(new StringField(FIELD_MAC_ADDRESS, StringUtils.defaultString(doc.getMacAddress()),
+                Field.Store.YES));
+        document.add(new StringField(FIELD_SESSION_ID, StringUtils.defaultString(doc.getSessionId()),
+                Field.Store.YES));
+        if (doc.getChatType() != null) {
+            document.add(new StoredField(FIELD_CHAT_TYPE, doc.getChatType()));
+        }
+        document.add(new TextField(FIELD_CONTENT, doc.getContent(), Field.Store.YES));
+        long createdAt = doc.getCreatedAt() != null ? doc.getCreatedAt().getTime() : 0L;
+        document.add(new LongPoint(FIELD_CREATED_AT, createdAt));
+        document.add(new NumericDocValuesField(FIELD_CREATED_AT, createdAt));
+        document.add(new StoredField(FIELD_CREATED_AT, createdAt));
+
+        writer.updateDocument(new Term(FIELD_ID, String.valueOf(doc.getId())), document);
+    }
+
+    /**
+     * 删除指定智能体的全部索引
+     */
+    public void deleteByAgentId(String agentId) throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        writer.deleteDocuments(new Term(FIELD_AGENT_ID, agentId));
+    }
+
+    /**
+     * 清空索引并将追平位置归零
+     */
+    public void clear() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        writer.deleteAll();
+        commit(0);
+    }
+
+    /**
+     * 提交索引，并记录已追平到的最大ID和删除记录同步时间
+     */
+    public void commit(long lastIndexedId) throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        this.lastIndexedId = lastIndexedId;
+        writer.setLiveCommitData(Map.of(COMMIT_LAST_ID, String.valueOf(lastIndexedId),
+                COMMIT_DELETIONS_SYNCED_AT, String.valueOf(deletionsSyncedAt)).entrySet());
+        writer.commit();
+        searcherManager.maybeRefresh();
+    }
+
+    /**
+     * 短语检索，结果按时间倒序
+     */
+    public PageData<AgentChatHistorySearchVO> search(AgentChatHistorySearchDTO dto, int page, int limit)
+            throws IOException {
+        if (!isEnabled()) {
+            throw new RenException("聊天记录全文检索未开启");
+        }
+        Query keywordQuery = new QueryBuilder(analyzer).createPhraseQuery(FIELD_CONTENT, dto.getKeyword());
+        if (keywordQuery == null) {
+            return new PageData<>(new ArrayList<>(), 0);
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder().add(keywordQuery, BooleanClause.Occur.MUST);
+        addTermFilter(builder, FIELD_AGENT_ID, dto.getAgentId());
+        addTermFilter(builder, FIELD_MAC_ADDRESS, dto.getMacAddress());
+        addTermFilter(builder, FIELD_SESSION_ID, dto.getSessionId());
+        if (dto.getStartTime() != null || dto.getEndTime() != null) {
+            long from = dto.getStartTime() != null ? dto.getStartTime().getTime() : Long.MIN_VALUE;
+            long to = dto.getEndTime() != null ? dto.getEndTime().getTime() - 1 : Long.MAX_VALUE;
+            builder.add(LongPoint.newRangeQuery(FIELD_CREATED_AT, from, to), BooleanClause.Occur.FILTER);
+        }
+        Query query = builder.build();
+
+        int offset = (page - 1) * limit;
+        int top = Math.min(offset + limit, properties.getMaxResultWindow());
+
+        searcherManager.maybeRefresh();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            long total = searcher.count(query);
+            List<AgentChatHistorySearchVO> list = new ArrayList<>();
+            if (top <= offset) {
+                return new PageData<>(list, total);
+            }
+
+            TopDocs topDocs = searcher.search(query, top,
+                    new Sort(new SortField(FIELD_CREATED_AT, SortField.Type.LONG, true)));
+            Highlighter highlighter = new Highlighter(new SimpleHTMLFormatter("<em>", "</em>"),
+                    new SimpleHTMLEncoder(), new QueryScorer(keywordQuery, FIELD_CONTENT));
+            highlighter.setTextFragmenter(new SimpleFragmenter(SNIPPET_FRAGMENT_SIZE));
+
+            StoredFields storedFields = searcher.storedFields();
+            ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+            for (int i = offset; i < scoreDocs.length; i++) {
+                list.add(toVO(storedFields.document(scoreDocs[i].doc), highlighter));
+            }
+            return new PageData<>(list, total);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private void addTermFilter(BooleanQuery.Builder builder, String field, String value) {
+        if (StringUtils.isNotBlank(value)) {
+            builder.add(new TermQuery(new Term(field, value)), BooleanClause.Occur.FILTER);
+        }
+    }
+
+    private AgentChatHistorySearchVO toVO(Document document, Highlighter highlighter) throws IOException {
+        AgentChatHistorySearchVO vo = new AgentChatHistorySearchVO();
+        vo.setId(Long.parseLong(document.get(FIELD_ID)));
+        vo.setAgentId(document.get(FIELD_AGENT_ID));
+        vo.setMacAddress(document.get(FIELD_MAC_ADDRESS));
+        vo.setSessionId(document.get(FIELD_SESSION_ID));
+        if (document.getField(FIELD_CHAT_TYPE) != null) {
+            vo.setChatType(document.getField(FIELD_CHAT_TYPE).numericValue().byteValue());
+        }
+        vo.setCreatedAt(new Date(document.getField(FIELD_CREATED_AT).numericValue().longValue()));
+
+        String content = document.get(FIELD_CONTENT);
+        String snippet = null;
+        try {
+            snippet = highlighter.getBestFragment(analyzer, FIELD_CONTENT, content);
+        } catch (InvalidTokenOffsetsException e) {
+            log.warn("生成检索片段失败，id={}", vo.getId(), e);
+        }
+        vo.setSnippet(snippet != null ? snippet
+                : new SimpleHTMLEncoder().encodeText(StringUtils.abbreviate(content, SNIPPET_FRAGMENT_SIZE)));
+        return vo;
+    }
+}
@@ -0,0 +1,34 @@
+package xiaozhi.modules.agent.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 聊天记录全文检索配置项
+ */
+@Data
+@ConfigurationProperties(prefix = "renren.chat-search")
+public class ChatHistorySearchProperties {
+    /**
+     * 是否开启全文检索
+     */
+    private boolean enabled = true;
+    /**
+     * 索引目录，多实例部署时每个实例各自维护一份
+     */
+    private String indexPath = "data/chat-search-index";
+    /**
+     * 从聊天记录表追平索引时每批读取的条数
+     */
+    private int batchSize = 1000;
+    /**
+     * 追平时回扫最近多少秒内写入的聊天记录，单位：秒。
+     * 自增ID不按提交顺序可见，晚提交的较小ID会被按ID追平跳过，需大于上报事务的最长耗时
+     */
+    private int catchUpLookback = 300;
+    /**
+     * 单次检索最多可翻到的记录数
+     */
+    private int maxResultWindow = 1000;
+}
@@ -1,7 +1,11 @@
 package xiaozhi.modules.agent.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 import com.baomidou.mybatisplus.extension.service.IService;
 
+import xiaozhi.modules.agent.dto.AgentChatAudioMetaDTO;
 import xiaozhi.modules.agent.entity.AgentChatAudioEntity;
 
 /**
@@ -27,4 +31,22 @@ public interface AgentChatAudioService extends IService<AgentChatAudioEntity> {
      * @return 音频数据
      */
     byte[] getAudio(String audioId);
+
+    /**
+     * 获取音频字节长度和文件头，音频内容不变，结果按音频ID缓存
+     *
+     * @param audioId 音频ID
+     * @return 长度和文件头，音频不存在时为null
+     */
+    AgentChatAudioMetaDTO getAudioMeta(String audioId);
+
+    /**
+     * 读取音频的指定范围并写入输出流
+     *
+     * @param audioId 音频ID
+     * @param start   起始偏移（从0开始）
+     * @param length  写出长度
+     * @param out     输出流
+     */
+    void writeAudio(String audioId, long start, long length, OutputStream out) throws IOException;
 }
@@ -0,0 +1,42 @@
+package xiaozhi.modules.agent.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import xiaozhi.modules.agent.dto.AgentChatHistoryExportDTO;
+
+/**
+ * 聊天记录导出service
+ * <p>
+ * 导出内容直接写入输出流，内存占用与记录总量无关
+ */
+public interface AgentChatHistoryExportService {
+    /**
+     * 导出格式：每行一个JSON对象
+     */
+    String FORMAT_NDJSON = "ndjson";
+
+    /**
+     * 导出格式：CSV
+     */
+    String FORMAT_CSV = "csv";
+
+    /**
+     * 导出聊天文本记录
+     *
+     * @param query  导出条件
+     * @param format 导出格式，ndjson或csv
+     * @param gzip   是否gzip压缩
+     * @param out    输出流
+     */
+    void exportText(AgentChatHistoryExportDTO query, String format, boolean gzip, OutputStream out)
+            throws IOException;
+
+    /**
+     * 以zip格式导出聊天音频，每条音频一个文件，按会话分目录
+     *
+     * @param query 导出条件
+     * @param out   输出流
+     */
+    void exportAudio(AgentChatHistoryExportDTO query, OutputStream out) throws IOException;
+}
@@ -0,0 +1,43 @@
+package xiaozhi.modules.agent.service;
+
+import xiaozhi.common.page.PageData;
+import xiaozhi.modules.agent.dto.AgentChatHistorySearchDTO;
+import xiaozhi.modules.agent.entity.AgentChatHistoryEntity;
+import xiaozhi.modules.agent.vo.AgentChatHistorySearchVO;
+
+/**
+ * 聊天记录全文检索service
+ */
+public interface AgentChatHistorySearchService {
+    /**
+     * 全文检索聊天记录
+     *
+     * @param dto 检索条件
+     * @return 分页结果
+     */
+    PageData<AgentChatHistorySearchVO> search(AgentChatHistorySearchDTO dto);
+
+    /**
+     * 聊天记录上报事务提交后写入索引
+     *
+     * @param entity 已保存的聊天记录
+     */
+    void indexAfterCommit(AgentChatHistoryEntity entity);
+
+    /**
+     * 从聊天记录表追平索引，补上其他实例上报或写入失败的记录，并同步其他实例删除的智能体
+     */
+    void catchUp();
+
+    /**
+     * 清空并从聊天记录表异步重建索引
+     */
+    void rebuild();
+
+    /**
+     * 事务提交后删除智能体的索引，并登记删除记录供其他实例同步
+     *
+     * @param agentId 智能体ID
+     */
+    void deleteByAgentId(String agentId);
+}
@@ -0,0 +1,54 @@
+package xiaozhi.modules.agent.service;
+
+import java.util.Date;
+import java.util.Map;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+
+import xiaozhi.common.page.PageData;
+import xiaozhi.modules.agent.dto.AgentChatSessionDTO;
+import xiaozhi.modules.agent.entity.AgentChatHistoryEntity;
+import xiaozhi.modules.agent.entity.AgentChatSessionEntity;
+
+/**
+ * 智能体会话汇总表处理service
+ */
+public interface AgentChatSessionService extends IService<AgentChatSessionEntity> {
+
+    /**
+     * 根据智能体ID分页获取会话列表，按最后消息时间倒序
+     *
+     * @param params 查询参数，包含agentId、page、limit
+     * @return 分页的会话列表
+     */
+    PageData<AgentChatSessionDTO> page(Map<String, Object> params);
+
+    /**
+     * 聊天记录保存后增量更新所属会话的汇总
+     *
+     * @param history 刚保存的聊天记录
+     */
+    void recordReport(AgentChatHistoryEntity history);
+
+    /**
+     * 根据聊天记录重建指定智能体的会话汇总
+     *
+     * @param agentId 智能体ID
+     */
+    void rebuildByAgentId(String agentId);
+
+    /**
+     * 根据聊天记录修复指定时间之后有消息的会话汇总
+     *
+     * @param since 起始时间
+     * @return 修复的会话数
+     */
+    int repairActiveSince(Date since);
+
+    /**
+     * 根据智能体ID删除会话汇总
+     *
+     * @param agentId 智能体ID
+     */
+    void deleteByAgentId(String agentId);
+}
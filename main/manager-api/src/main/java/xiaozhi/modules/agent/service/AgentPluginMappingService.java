@@ -24,6 +24,14 @@ public interface AgentPluginMappingService extends IService<AgentPluginMapping>
      * 根据智能体id删除插件参数
      * 
      * @param agentId
+     * @return 删除行数
      */
-    void deleteByAgentId(String agentId);
+    int deleteByAgentId(String agentId);
+
+    /**
+     * 新建智能体的默认插件，参数取插件字段的默认值，未设置智能体id
+     * 
+     * @return 默认插件映射，插件不存在时跳过
+     */
+    List<AgentPluginMapping> defaultMappings();
 }
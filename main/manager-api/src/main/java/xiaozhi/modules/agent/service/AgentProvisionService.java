@@ -0,0 +1,20 @@
+package xiaozhi.modules.agent.service;
+
+import xiaozhi.modules.agent.dto.AgentProvisionDTO;
+import xiaozhi.modules.agent.vo.AgentProvisionVO;
+
+/**
+ * 批量开通智能体
+ */
+public interface AgentProvisionService {
+
+    /**
+     * 复制智能体或按模板批量创建智能体
+     * <p>
+     * 先校验全部目标，有任一错误时不创建；校验通过且非仅校验时，在一个事务内批量写入智能体、插件、模型引用和设备绑定
+     *
+     * @param dto 开通参数
+     * @return 新智能体ID或校验错误
+     */
+    AgentProvisionVO provision(AgentProvisionDTO dto);
+}
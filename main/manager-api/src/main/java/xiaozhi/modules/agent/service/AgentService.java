@@ -87,10 +87,18 @@ public interface AgentService extends BaseService<AgentEntity> {
      * 更新智能体
      *
      * @param agentId 智能体ID
-     * @param dto     更新智能体所需的信息
+     * @param dto     更新智能体所需的信息，只写入有变化的字段；版本号与当前不一致时抛出ConflictException
      */
     void updateAgentById(String agentId, AgentUpdateDTO dto);
 
+    /**
+     * 只更新智能体的总结记忆，智能体未启用记忆时不写入
+     *
+     * @param agentId       智能体ID
+     * @param summaryMemory 总结记忆
+     */
+    void updateSummaryMemory(String agentId, String summaryMemory);
+
     /**
      * 创建智能体
      *
@@ -3,20 +3,36 @@ package xiaozhi.modules.agent.service.biz.impl;
 import java.util.Base64;
 import java.util.Date;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import xiaozhi.common.constant.Constant;
+import xiaozhi.common.exception.ErrorCode;
+import xiaozhi.common.exception.RenException;
 import xiaozhi.common.redis.RedisKeys;
 import xiaozhi.common.redis.RedisUtils;
 import xiaozhi.modules.agent.dto.AgentChatHistoryReportDTO;
 import xiaozhi.modules.agent.entity.AgentChatHistoryEntity;
 import xiaozhi.modules.agent.entity.AgentEntity;
 import xiaozhi.modules.agent.service.AgentChatAudioService;
+import xiaozhi.modules.agent.service.AgentChatHistorySearchService;
 import xiaozhi.modules.agent.service.AgentChatHistoryService;
+import xiaozhi.modules.agent.service.AgentChatSessionService;
 import xiaozhi.modules.agent.service.AgentService;
 import xiaozhi.modules.agent.service.biz.AgentChatHistoryBizService;
 import xiaozhi.modules.device.entity.DeviceEntity;
@@ -33,11 +49,33 @@ import xiaozhi.modules.device.service.DeviceService;
 @Slf4j
 @RequiredArgsConstructor
 public class AgentChatHistoryBizServiceImpl implements AgentChatHistoryBizService {
+    /**
+     * 去重窗口，单位：秒
+     */
+    private static final long DEDUP_WINDOW = 10 * 60L;
+    /**
+     * 处理中标记的有效期，单位：秒，进程异常退出时不至于长时间吞掉重试
+     */
+    private static final long DEDUP_PENDING_EXPIRE = 30L;
+    private static final String DEDUP_PENDING = "PENDING";
+    private static final String DUPLICATE_METRIC = "xiaozhi.chat.report.duplicate";
+
+    /**
+     * redis未开启或不可用时的本地去重窗口
+     */
+    private final Cache<String, Object> localDedupWindow = CacheBuilder.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(DEDUP_WINDOW, TimeUnit.SECONDS)
+            .build();
+
     private final AgentService agentService;
     private final AgentChatHistoryService agentChatHistoryService;
     private final AgentChatAudioService agentChatAudioService;
+    private final AgentChatSessionService agentChatSessionService;
+    private final AgentChatHistorySearchService agentChatHistorySearchService;
     private final RedisUtils redisUtils;
     private final DeviceService deviceService;
+    private final MeterRegistry meterRegistry;
 
     /**
      * 处理聊天记录上报，包括文件上传和相关信息记录
@@ -48,6 +86,54 @@ public class AgentChatHistoryBizServiceImpl implements AgentChatHistoryBizServic
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Boolean report(AgentChatHistoryReportDTO report) {
+        String reportKey = buildReportKey(report);
+        Boolean previous = acquireReportKey(reportKey);
+        if (previous != null) {
+            duplicateCounter("window").increment();
+            log.info("重复的聊天上报，返回首次结果: macAddress={}, reportKey={}", report.getMacAddress(), reportKey);
+            return previous;
+        }
+
+        // 未提供幂等键也没有上报时间时，相同内容可能是真实的重复发言，只在去重窗口内去重，不落库唯一键
+        boolean persistKey = StringUtils.isNotBlank(report.getIdempotencyKey()) || report.getReportTime() != null;
+        Boolean result;
+        boolean duplicated = false;
+        try {
+            result = doReport(report, persistKey ? reportKey : null);
+        } catch (DuplicateKeyException e) {
+            // 去重窗口已过期时由唯一索引兜底，回滚本次已写入的音频
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            duplicateCounter("db").increment();
+            log.info("重复的聊天上报，已由唯一索引拦截: macAddress={}, reportKey={}", report.getMacAddress(), reportKey);
+            result = Boolean.TRUE;
+            duplicated = true;
+        } catch (RuntimeException e) {
+            releaseReportKey(reportKey);
+            throw e;
+        }
+
+        // 事务提交后再记录结果，回滚时释放以便重试
+        Boolean finalResult = result;
+        boolean finalDuplicated = duplicated;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED || finalDuplicated) {
+                    completeReportKey(reportKey, finalResult);
+                } else {
+                    releaseReportKey(reportKey);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 执行上报
+     *
+     * @param reportKey 需落库的幂等键，为空时不写入
+     */
+    private Boolean doReport(AgentChatHistoryReportDTO report, String reportKey) {
         String macAddress = report.getMacAddress();
         Byte chatType = report.getChatType();
         Long reportTimeMillis = null != report.getReportTime() ? report.getReportTime() * 1000 : System.currentTimeMillis();
@@ -63,10 +149,10 @@ public class AgentChatHistoryBizServiceImpl implements AgentChatHistoryBizServic
         String agentId = agentEntity.getId();
 
         if (Objects.equals(chatHistoryConf, Constant.ChatHistoryConfEnum.RECORD_TEXT.getCode())) {
-            saveChatText(report, agentId, macAddress, null, reportTimeMillis);
+            saveChatText(report, agentId, macAddress, null, reportTimeMillis, reportKey);
         } else if (Objects.equals(chatHistoryConf, Constant.ChatHistoryConfEnum.RECORD_TEXT_AUDIO.getCode())) {
             String audioId = saveChatAudio(report);
-            saveChatText(report, agentId, macAddress, audioId, reportTimeMillis);
+            saveChatText(report, agentId, macAddress, audioId, reportTimeMillis, reportKey);
         }
 
         // 更新设备最后对话时间
@@ -105,7 +191,8 @@ public class AgentChatHistoryBizServiceImpl implements AgentChatHistoryBizServic
     /**
      * 组装上报数据
      */
-    private void saveChatText(AgentChatHistoryReportDTO report, String agentId, String macAddress, String audioId, Long reportTime) {
+    private void saveChatText(AgentChatHistoryReportDTO report, String agentId, String macAddress, String audioId,
+            Long reportTime, String reportKey) {
         // 构建聊天记录实体
         AgentChatHistoryEntity entity = AgentChatHistoryEntity.builder()
                 .macAddress(macAddress)
@@ -114,13 +201,92 @@ public class AgentChatHistoryBizServiceImpl implements AgentChatHistoryBizServic
                 .chatType(report.getChatType())
                 .content(report.getContent())
                 .audioId(audioId)
+                .reportKey(reportKey)
                 .createdAt(new Date(reportTime))
                 // NOTE(haotian): 2025/5/26 updateAt可以不设置，重点是createAt，而且这样可以看到上报延迟
                 .build();
 
         // 保存数据
         agentChatHistoryService.save(entity);
+        // 同一事务内增量更新会话汇总
+        agentChatSessionService.recordReport(entity);
+        // 事务提交后写入全文索引
+        agentChatHistorySearchService.indexAfterCommit(entity);
 
         log.info("设备 {} 对应智能体 {} 上报成功", macAddress, agentId);
     }
+
+    /**
+     * 生成上报幂等键，客户端提供时按设备隔离，否则根据上报内容生成
+     */
+    private String buildReportKey(AgentChatHistoryReportDTO report) {
+        String raw;
+        if (StringUtils.isNotBlank(report.getIdempotencyKey())) {
+            raw = report.getMacAddress() + "|" + report.getIdempotencyKey();
+        } else {
+            raw = String.join("|", report.getMacAddress(), report.getSessionId(),
+                    String.valueOf(report.getChatType()), String.valueOf(report.getReportTime()),
+                    report.getContent());
+        }
+        return DigestUtil.sha256Hex(raw);
+    }
+
+    /**
+     * 占用幂等键
+     *
+     * @return 占用成功返回null，否则返回首次上报已提交的结果
+     */
+    private Boolean acquireReportKey(String reportKey) {
+        Object previous = null;
+        boolean redisAvailable = false;
+        try {
+            String redisKey = RedisKeys.getChatReportDedupKey(reportKey);
+            Boolean acquired = redisUtils.setIfAbsent(redisKey, DEDUP_PENDING, DEDUP_PENDING_EXPIRE);
+            if (acquired != null) {
+                redisAvailable = true;
+                previous = acquired ? null : redisUtils.get(redisKey);
+            }
+        } catch (Exception e) {
+            log.warn("聊天上报去重使用redis失败，改用本地去重窗口", e);
+        }
+        if (!redisAvailable) {
+            previous = localDedupWindow.asMap().putIfAbsent(reportKey, DEDUP_PENDING);
+        }
+        return previous == null ? null : toPreviousResult(previous);
+    }
+
+    /**
+     * 首次上报仍在处理中时尚不知道能否提交，返回可重试的错误，回滚后幂等键释放，重试即可重新上报
+     */
+    private Boolean toPreviousResult(Object value) {
+        if (value instanceof Boolean result) {
+            return result;
+        }
+        throw new RenException(ErrorCode.CHAT_REPORT_PROCESSING);
+    }
+
+    private void completeReportKey(String reportKey, Boolean result) {
+        localDedupWindow.put(reportKey, result);
+        try {
+            redisUtils.set(RedisKeys.getChatReportDedupKey(reportKey), result, DEDUP_WINDOW);
+        } catch (Exception e) {
+            log.warn("聊天上报去重结果写入redis失败", e);
+        }
+    }
+
+    private void releaseReportKey(String reportKey) {
+        localDedupWindow.invalidate(reportKey);
+        try {
+            redisUtils.delete(RedisKeys.getChatReportDedupKey(reportKey));
+        } catch (Exception e) {
+            log.warn("聊天上报去重标记释放失败", e);
+        }
+    }
+
+    private Counter duplicateCounter(String source) {
+        return Counter.builder(DUPLICATE_METRIC)
+                .description("重复的聊天上报次数")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
 }
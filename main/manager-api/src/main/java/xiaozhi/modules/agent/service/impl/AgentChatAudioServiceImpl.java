@@ -1,10 +1,18 @@
 package xiaozhi.modules.agent.service.impl;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 import org.springframework.stereotype.Service;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 
+import lombok.RequiredArgsConstructor;
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.modules.agent.Enums.AgentChatAudioFormat;
 import xiaozhi.modules.agent.dao.AiAgentChatAudioDao;
+import xiaozhi.modules.agent.dto.AgentChatAudioMetaDTO;
 import xiaozhi.modules.agent.entity.AgentChatAudioEntity;
 import xiaozhi.modules.agent.service.AgentChatAudioService;
 
@@ -16,8 +24,16 @@ import xiaozhi.modules.agent.service.AgentChatAudioService;
  * @since 1.0.0
  */
 @Service
+@RequiredArgsConstructor
 public class AgentChatAudioServiceImpl extends ServiceImpl<AiAgentChatAudioDao, AgentChatAudioEntity>
         implements AgentChatAudioService {
+    /**
+     * 长度和文件头的缓存时间（秒），覆盖一次播放期间的所有Range请求
+     */
+    private static final long AUDIO_META_EXPIRE = 2 * 60 * 60L;
+
+    private final RedisUtils redisUtils;
+
     @Override
     public String saveAudio(byte[] audioData) {
         AgentChatAudioEntity entity = new AgentChatAudioEntity();
@@ -31,4 +47,30 @@ public class AgentChatAudioServiceImpl extends ServiceImpl<AiAgentChatAudioDao,
         AgentChatAudioEntity entity = getById(audioId);
         return entity != null ? entity.getAudio() : null;
     }
+
+    @Override
+    public AgentChatAudioMetaDTO getAudioMeta(String audioId) {
+        String key = RedisKeys.getAgentAudioMetaKey(audioId);
+        AgentChatAudioMetaDTO meta = (AgentChatAudioMetaDTO) redisUtils.get(key);
+        if (meta != null) {
+            return meta;
+        }
+        meta = baseMapper.getAudioMeta(audioId, AgentChatAudioFormat.HEADER_LENGTH);
+        if (meta != null && meta.getLength() != null) {
+            // 音频写入后不再变化，缓存不需要失效
+            redisUtils.set(key, meta, AUDIO_META_EXPIRE);
+            return meta;
+        }
+        return null;
+    }
+
+    @Override
+    public void writeAudio(String audioId, long start, long length, OutputStream out) throws IOException {
+        // MySQL驱动即使逐行返回也会把整行读入内存，分块查询只会让数据库重复读取整个BLOB
+        byte[] data = baseMapper.getAudioRange(audioId, start, length);
+        if (data != null) {
+            out.write(data);
+        }
+        out.flush();
+    }
 }
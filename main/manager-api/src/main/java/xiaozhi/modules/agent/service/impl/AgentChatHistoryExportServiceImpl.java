@@ -0,0 +1,232 @@
+package xiaozhi.modules.agent.service.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.utils.ConvertUtils;
+import xiaozhi.common.utils.DateUtils;
+import xiaozhi.modules.agent.Enums.AgentChatAudioFormat;
+import xiaozhi.modules.agent.dao.AiAgentChatHistoryDao;
+import xiaozhi.modules.agent.dto.AgentChatHistoryExportDTO;
+import xiaozhi.modules.agent.entity.AgentChatHistoryEntity;
+import xiaozhi.modules.agent.service.AgentChatAudioService;
+import xiaozhi.modules.agent.service.AgentChatHistoryExportService;
+
+/**
+ * 聊天记录导出service {@link AgentChatHistoryExportService} impl
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AgentChatHistoryExportServiceImpl implements AgentChatHistoryExportService {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * 文本导出每批读取的记录数
+     */
+    private static final int TEXT_BATCH_SIZE = 1000;
+    /**
+     * 音频导出每批读取的记录数
+     */
+    private static final int AUDIO_BATCH_SIZE = 200;
+    private static final String[] CSV_HEADER = { "id", "macAddress", "agentId", "sessionId", "chatType",
+            "content", "audioId", "createdAt", "timestamp" };
+
+    private final AiAgentChatHistoryDao agentChatHistoryDao;
+    private final AgentChatAudioService agentChatAudioService;
+
+    @Override
+    public void exportText(AgentChatHistoryExportDTO query, String format, boolean gzip, OutputStream out)
+            throws IOException {
+        boolean csv = FORMAT_CSV.equalsIgnoreCase(format);
+        if (!csv && !FORMAT_NDJSON.equalsIgnoreCase(format)) {
+            throw new RenException("不支持的导出格式：" + format);
+        }
+
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(gzipOut != null ? gzipOut : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        long count;
+        if (csv) {
+            // 写入BOM，便于Excel正确识别UTF-8中文
+            writer.write('\uFEFF');
+            writeCsvRow(writer, CSV_HEADER);
+            count = forEachBatch(query, TEXT_BATCH_SIZE, agentChatHistoryDao::listExportAfter, batch -> {
+                for (AgentChatHistoryEntity entity : batch) {
+                    writeCsvRow(writer, toRow(entity));
+                }
+                // 每批刷新一次输出流，让客户端尽早收到数据
+                writer.flush();
+            });
+        } else {
+            JsonGenerator generator = JSON_FACTORY.createGenerator(writer);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            count = forEachBatch(query, TEXT_BATCH_SIZE, agentChatHistoryDao::listExportAfter, batch -> {
+                for (AgentChatHistoryEntity entity : batch) {
+                    writeJson(generator, entity);
+                }
+                generator.flush();
+            });
+            if (count > 0) {
+                writer.write('\n');
+            }
+        }
+
+        writer.flush();
+        if (gzipOut != null) {
+            gzipOut.finish();
+        }
+        log.info("聊天记录导出完成，agentId={}，格式={}，条数={}", query.getAgentId(), format, count);
+    }
+
+    @Override
+    public void exportAudio(AgentChatHistoryExportDTO query, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        zip.setLevel(Deflater.BEST_SPEED);
+
+        AtomicLong count = new AtomicLong();
+        forEachBatch(query, AUDIO_BATCH_SIZE, agentChatHistoryDao::listAudioAfter, batch -> {
+            for (AgentChatHistoryEntity entity : batch) {
+                byte[] audio = agentChatAudioService.getAudio(entity.getAudioId());
+                if (audio == null) {
+                    continue;
+                }
+                // 扩展名按音频文件头识别，不同来源上报的音频格式不同
+                zip.putNextEntry(new ZipEntry(entity.getSessionId() + "/"
+                        + DateUtils.format(entity.getCreatedAt(), "yyyyMMddHHmmssSSS") + "_" + entity.getId()
+                        + "." + AgentChatAudioFormat.detect(audio).getExtension()));
+                zip.write(audio);
+                zip.closeEntry();
+                count.incrementAndGet();
+            }
+            zip.flush();
+        });
+
+        zip.finish();
+        log.info("聊天音频导出完成，agentId={}，条数={}", query.getAgentId(), count.get());
+    }
+
+    /**
+     * 按(created_at, id)键集分批读取并逐批写出，每批是一次独立的短查询，
+     * 导出期间不占用数据库连接和事务；导出过程中新写入的记录按其位置可能包含在结果中
+     *
+     * @return 读取的记录数，不超过导出条件中的limit
+     */
+    private long forEachBatch(AgentChatHistoryExportDTO query, int batchSize, BatchReader reader,
+            BatchWriter writer) throws IOException {
+        AgentChatHistoryExportDTO page = ConvertUtils.sourceToTarget(query, AgentChatHistoryExportDTO.class);
+        Integer limit = query.getLimit();
+
+        long count = 0;
+        while (limit == null || count < limit) {
+            int size = limit == null ? batchSize : (int) Math.min(batchSize, limit - count);
+            List<AgentChatHistoryEntity> batch = reader.read(page, size);
+            if (!batch.isEmpty()) {
+                writer.write(batch);
+                count += batch.size();
+            }
+            if (batch.size() < size) {
+                break;
+            }
+            AgentChatHistoryEntity last = batch.get(batch.size() - 1);
+            page.setAfterTime(last.getCreatedAt());
+            page.setAfterId(last.getId());
+        }
+        return count;
+    }
+
+    @FunctionalInterface
+    private interface BatchReader {
+        List<AgentChatHistoryEntity> read(AgentChatHistoryExportDTO query, int size);
+    }
+
+    @FunctionalInterface
+    private interface BatchWriter {
+        void write(List<AgentChatHistoryEntity> batch) throws IOException;
+    }
+
+    private String[] toRow(AgentChatHistoryEntity entity) {
+        return new String[] {
+                String.valueOf(entity.getId()),
+                entity.getMacAddress(),
+                entity.getAgentId(),
+                entity.getSessionId(),
+                entity.getChatType() == null ? null : String.valueOf(entity.getChatType()),
+                entity.getContent(),
+                entity.getAudioId(),
+                DateUtils.format(entity.getCreatedAt(), DateUtils.DATE_TIME_MILLIS_PATTERN),
+                entity.getCreatedAt() == null ? null : String.valueOf(entity.getCreatedAt().getTime())
+        };
+    }
+
+    private void writeJson(JsonGenerator generator, AgentChatHistoryEntity entity) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", entity.getId());
+        generator.writeStringField("macAddress", entity.getMacAddress());
+        generator.writeStringField("agentId", entity.getAgentId());
+        generator.writeStringField("sessionId", entity.getSessionId());
+        if (entity.getChatType() == null) {
+            generator.writeNullField("chatType");
+        } else {
+            generator.writeNumberField("chatType", entity.getChatType());
+        }
+        generator.writeStringField("content", entity.getContent());
+        generator.writeStringField("audioId", entity.getAudioId());
+        generator.writeStringField("createdAt",
+                DateUtils.format(entity.getCreatedAt(), DateUtils.DATE_TIME_MILLIS_PATTERN));
+        if (entity.getCreatedAt() == null) {
+            generator.writeNullField("timestamp");
+        } else {
+            generator.writeNumberField("timestamp", entity.getCreatedAt().getTime());
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeCsvRow(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvValue(writer, values[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeCsvValue(Writer writer, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
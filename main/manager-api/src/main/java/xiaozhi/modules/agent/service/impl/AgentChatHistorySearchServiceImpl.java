@@ -0,0 +1,275 @@
+package xiaozhi.modules.agent.service.impl;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.page.PageData;
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.modules.agent.dao.AiAgentChatHistoryDao;
+import xiaozhi.modules.agent.dto.AgentChatHistorySearchDTO;
+import xiaozhi.modules.agent.entity.AgentChatHistoryEntity;
+import xiaozhi.modules.agent.search.ChatHistoryIndex;
+import xiaozhi.modules.agent.search.ChatHistorySearchProperties;
+import xiaozhi.modules.agent.service.AgentChatHistorySearchService;
+import xiaozhi.modules.agent.vo.AgentChatHistorySearchVO;
+
+/**
+ * 聊天记录全文检索service {@link AgentChatHistorySearchService} impl
+ * <p>
+ * 每个实例各自维护一份索引：上报后写入本实例索引，其他实例由追平任务按ID读取并回扫最近写入的记录；
+ * 删除智能体时在事务提交后登记到redis，各实例追平时同步删除本地索引
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AgentChatHistorySearchServiceImpl implements AgentChatHistorySearchService {
+    /**
+     * 追平过程中每写入多少批提交一次，兼顾重启后的重复工作量与提交开销
+     */
+    private static final int COMMIT_EVERY_BATCHES = 20;
+    /**
+     * 删除记录在redis中的保留时间，实例超过该时间未同步时重建索引
+     */
+    private static final long DELETION_RETENTION_MILLIS = 7 * 24 * 60 * 60 * 1000L;
+    /**
+     * 同步删除记录时向前多取的时间，容忍实例间的时钟偏差，重复删除无副作用
+     */
+    private static final long DELETION_CLOCK_SKEW_MILLIS = 5 * 60 * 1000L;
+
+    private final ChatHistoryIndex chatHistoryIndex;
+    private final ChatHistorySearchProperties properties;
+    private final AiAgentChatHistoryDao agentChatHistoryDao;
+    private final RedisUtils redisUtils;
+    /**
+     * 追平与重建互斥，避免追平位置被并发改写
+     */
+    private final ReentrantLock catchUpLock = new ReentrantLock();
+
+    @Override
+    public PageData<AgentChatHistorySearchVO> search(AgentChatHistorySearchDTO dto) {
+        if (StringUtils.isBlank(dto.getKeyword())) {
+            throw new RenException("检索关键词不能为空");
+        }
+        int page = dto.getPage() == null || dto.getPage() < 1 ? 1 : dto.getPage();
+        int limit = dto.getLimit() == null || dto.getLimit() < 1 ? 10 : dto.getLimit();
+        try {
+            return chatHistoryIndex.search(dto, page, limit);
+        } catch (IOException e) {
+            throw new RenException("聊天记录检索失败", e);
+        }
+    }
+
+    @Override
+    public void indexAfterCommit(AgentChatHistoryEntity entity) {
+        if (!chatHistoryIndex.isEnabled()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            index(entity);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                index(entity);
+            }
+        });
+    }
+
+    @Override
+    public void catchUp() {
+        if (!chatHistoryIndex.isEnabled() || !catchUpLock.tryLock()) {
+            return;
+        }
+        try {
+            doCatchUp();
+        } catch (IOException e) {
+            log.error("聊天记录索引追平失败", e);
+        } finally {
+            catchUpLock.unlock();
+        }
+    }
+
+    @Override
+    @Async
+    public void rebuild() {
+        if (!chatHistoryIndex.isEnabled()) {
+            return;
+        }
+        catchUpLock.lock();
+        try {
+            log.info("开始重建聊天记录索引");
+            chatHistoryIndex.clear();
+            doCatchUp();
+            log.info("聊天记录索引重建完成");
+        } catch (IOException e) {
+            log.error("聊天记录索引重建失败", e);
+        } finally {
+            catchUpLock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteByAgentId(String agentId) {
+        // 事务提交后再删除，回滚时索引保持不变
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishDeletion(agentId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publishDeletion(agentId);
+            }
+        });
+    }
+
+    /**
+     * 登记删除记录供其他实例同步，并立即删除本实例的索引
+     */
+    private void publishDeletion(String agentId) {
+        try {
+            long now = System.currentTimeMillis();
+            String key = RedisKeys.getChatSearchDeletedAgentsKey();
+            redisUtils.hSet(key, agentId, now, DELETION_RETENTION_MILLIS / 1000);
+            Object[] expired = redisUtils.hGetAll(key).entrySet().stream()
+                    .filter(e -> now - ((Number) e.getValue()).longValue() > DELETION_RETENTION_MILLIS)
+                    .map(Map.Entry::getKey)
+                    .toArray();
+            if (expired.length > 0) {
+                redisUtils.hDel(key, expired);
+            }
+        } catch (Exception e) {
+            log.error("登记智能体 {} 的聊天记录索引删除失败，其他实例需重建索引", agentId, e);
+        }
+        try {
+            chatHistoryIndex.deleteByAgentId(agentId);
+        } catch (IOException e) {
+            // 索引可重建，不影响业务删除
+            log.error("删除智能体 {} 的聊天记录索引失败", agentId, e);
+        }
+    }
+
+    private void doCatchUp() throws IOException {
+        long syncStartedAt = System.currentTimeMillis();
+        long syncedAt = chatHistoryIndex.getDeletionsSyncedAt();
+        if (syncedAt > 0 && syncStartedAt - syncedAt > DELETION_RETENTION_MILLIS - DELETION_CLOCK_SKEW_MILLIS) {
+            // 删除记录可能已过期，无法确定哪些智能体已删除，只能从聊天记录表重建
+            log.warn("聊天记录索引超过{}天未同步删除记录，重建索引", DELETION_RETENTION_MILLIS / 86400000);
+            chatHistoryIndex.clear();
+        }
+
+        long lastId = chatHistoryIndex.getLastIndexedId();
+        int batches = 0;
+        while (true) {
+            List<AgentChatHistoryEntity> batch = agentChatHistoryDao.listForIndexAfterId(lastId,
+                    properties.getBatchSize());
+            for (AgentChatHistoryEntity entity : batch) {
+                chatHistoryIndex.upsert(toIndexed(entity));
+            }
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+            if (batch.size() < properties.getBatchSize()) {
+                break;
+            }
+            if (++batches % COMMIT_EVERY_BATCHES == 0) {
+                chatHistoryIndex.commit(lastId);
+            }
+        }
+        rescanRecent(lastId);
+        syncDeletions(syncStartedAt);
+        // 上报路径写入的文档也在此一并提交
+        chatHistoryIndex.commit(lastId);
+    }
+
+    /**
+     * 自增ID在事务开始时分配、提交后才可见，较小的ID可能晚于已追平的更大ID提交，按ID追平会跳过。
+     * 回扫最近写入的记录，补上索引中缺失的部分
+     */
+    private void rescanRecent(long maxId) throws IOException {
+        long afterId = 0;
+        int recovered = 0;
+        while (true) {
+            List<Long> ids = agentChatHistoryDao.listIdsUpdatedSince(properties.getCatchUpLookback(), afterId, maxId,
+                    properties.getBatchSize());
+            if (ids.isEmpty()) {
+                break;
+            }
+            Set<Long> indexed = chatHistoryIndex.findIndexed(ids);
+            List<Long> missing = ids.stream().filter(id -> !indexed.contains(id)).toList();
+            if (!missing.isEmpty()) {
+                for (AgentChatHistoryEntity entity : agentChatHistoryDao.listForIndexByIds(missing)) {
+                    if (StringUtils.isNotBlank(entity.getContent())) {
+                        chatHistoryIndex.upsert(toIndexed(entity));
+                        recovered++;
+                    }
+                }
+            }
+            if (ids.size() < properties.getBatchSize()) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        if (recovered > 0) {
+            log.info("回扫补充索引{}条提交晚于更大ID的聊天记录", recovered);
+        }
+    }
+
+    /**
+     * 删除其他实例登记的已删除智能体的索引
+     */
+    private void syncDeletions(long syncStartedAt) throws IOException {
+        long since = chatHistoryIndex.getDeletionsSyncedAt() - DELETION_CLOCK_SKEW_MILLIS;
+        Map<String, Object> deleted;
+        try {
+            deleted = redisUtils.hGetAll(RedisKeys.getChatSearchDeletedAgentsKey());
+        } catch (Exception e) {
+            log.warn("读取智能体删除记录失败，下次追平时重试", e);
+            return;
+        }
+        for (Map.Entry<String, Object> entry : deleted.entrySet()) {
+            if (((Number) entry.getValue()).longValue() >= since) {
+                chatHistoryIndex.deleteByAgentId(entry.getKey());
+            }
+        }
+        chatHistoryIndex.setDeletionsSyncedAt(syncStartedAt);
+    }
+
+    private void index(AgentChatHistoryEntity entity) {
+        try {
+            chatHistoryIndex.upsert(toIndexed(entity));
+        } catch (Exception e) {
+            // 写入失败的记录由追平任务补上
+            log.warn("聊天记录写入索引失败，id={}", entity.getId(), e);
+        }
+    }
+
+    /**
+     * 复制一份用于索引的记录，content只保留聊天文本
+     */
+    private AgentChatHistoryEntity toIndexed(AgentChatHistoryEntity entity) {
+        return AgentChatHistoryEntity.builder()
+                .id(entity.getId())
+                .macAddress(entity.getMacAddress())
+                .agentId(entity.getAgentId())
+                .sessionId(entity.getSessionId())
+                .chatType(entity.getChatType())
+                .content(AgentChatHistoryServiceImpl.extractContentFromString(entity.getContent()))
+                .createdAt(entity.getCreatedAt())
+                .build();
+    }
+}
@@ -1,9 +1,7 @@
 package xiaozhi.modules.agent.service.impl;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,7 +12,7 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 
-import xiaozhi.common.constant.Constant;
+import lombok.RequiredArgsConstructor;
 import xiaozhi.common.page.PageData;
 import xiaozhi.common.utils.ConvertUtils;
 import xiaozhi.common.utils.JsonUtils;
@@ -23,7 +21,9 @@ import xiaozhi.modules.agent.dao.AiAgentChatHistoryDao;
 import xiaozhi.modules.agent.dto.AgentChatHistoryDTO;
 import xiaozhi.modules.agent.dto.AgentChatSessionDTO;
 import xiaozhi.modules.agent.entity.AgentChatHistoryEntity;
+import xiaozhi.modules.agent.service.AgentChatHistorySearchService;
 import xiaozhi.modules.agent.service.AgentChatHistoryService;
+import xiaozhi.modules.agent.service.AgentChatSessionService;
 import xiaozhi.modules.agent.vo.AgentChatHistoryUserVO;
 
 /**
@@ -34,35 +34,16 @@ import xiaozhi.modules.agent.vo.AgentChatHistoryUserVO;
  * @since 1.0.0
  */
 @Service
+@RequiredArgsConstructor
 public class AgentChatHistoryServiceImpl extends ServiceImpl<AiAgentChatHistoryDao, AgentChatHistoryEntity>
         implements AgentChatHistoryService {
+    private final AgentChatSessionService agentChatSessionService;
+    private final AgentChatHistorySearchService agentChatHistorySearchService;
 
     @Override
     public PageData<AgentChatSessionDTO> getSessionListByAgentId(Map<String, Object> params) {
-        String agentId = (String) params.get("agentId");
-        int page = Integer.parseInt(params.get(Constant.PAGE).toString());
-        int limit = Integer.parseInt(params.get(Constant.LIMIT).toString());
-
-        // 构建查询条件
-        QueryWrapper<AgentChatHistoryEntity> wrapper = new QueryWrapper<>();
-        wrapper.select("session_id", "MAX(created_at) as created_at", "COUNT(*) as chat_count")
-                .eq("agent_id", agentId)
-                .groupBy("session_id")
-                .orderByDesc("created_at");
-
-        // 执行分页查询
-        Page<Map<String, Object>> pageParam = new Page<>(page, limit);
-        IPage<Map<String, Object>> result = this.baseMapper.selectMapsPage(pageParam, wrapper);
-
-        List<AgentChatSessionDTO> records = result.getRecords().stream().map(map -> {
-            AgentChatSessionDTO dto = new AgentChatSessionDTO();
-            dto.setSessionId((String) map.get("session_id"));
-            dto.setCreatedAt((LocalDateTime) map.get("created_at"));
-            dto.setChatCount(((Number) map.get("chat_count")).intValue());
-            return dto;
-        }).collect(Collectors.toList());
-
-        return new PageData<>(records, result.getTotal());
+        // 会话列表直接读取增量维护的会话汇总表
+        return agentChatSessionService.page(params);
     }
 
     @Override
@@ -91,6 +72,8 @@ public class AgentChatHistoryServiceImpl extends ServiceImpl<AiAgentChatHistoryD
         }
         if (deleteText) {
             baseMapper.deleteHistoryByAgentId(agentId);
+            agentChatSessionService.deleteByAgentId(agentId);
+            agentChatHistorySearchService.deleteByAgentId(agentId);
         }
 
     }
@@ -127,7 +110,7 @@ public class AgentChatHistoryServiceImpl extends ServiceImpl<AiAgentChatHistoryD
      * @param content 原始内容
      * @return 提取的聊天内容
      */
-    private String extractContentFromString(String content) {
+    static String extractContentFromString(String content) {
         if (content == null || content.trim().isEmpty()) {
             return content;
         }
@@ -0,0 +1,122 @@
+package xiaozhi.modules.agent.service.impl;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.google.common.collect.Lists;
+
+import lombok.AllArgsConstructor;
+import xiaozhi.common.page.KeysetSort;
+import xiaozhi.common.page.PageData;
+import xiaozhi.common.page.Paginator;
+import xiaozhi.modules.agent.dao.AiAgentChatSessionDao;
+import xiaozhi.modules.agent.dto.AgentChatSessionDTO;
+import xiaozhi.modules.agent.entity.AgentChatHistoryEntity;
+import xiaozhi.modules.agent.entity.AgentChatSessionEntity;
+import xiaozhi.modules.agent.service.AgentChatSessionService;
+
+/**
+ * 智能体会话汇总表处理service {@link AgentChatSessionService} impl
+ */
+@Service
+@AllArgsConstructor
+public class AgentChatSessionServiceImpl extends ServiceImpl<AiAgentChatSessionDao, AgentChatSessionEntity>
+        implements AgentChatSessionService {
+    /**
+     * 会话摘要最大长度，与表字段长度一致
+     */
+    private static final int SNIPPET_MAX_LENGTH = 255;
+    private static final int UPSERT_BATCH_SIZE = 500;
+
+    private final Paginator paginator;
+
+    @Override
+    public PageData<AgentChatSessionDTO> page(Map<String, Object> params) {
+        String agentId = (String) params.get("agentId");
+
+        // 走(agent_id, last_chat_at)索引范围扫描，不再对聊天记录做GROUP BY
+        PageData<AgentChatSessionEntity> result = paginator.page("agentSession", baseMapper,
+                () -> new QueryWrapper<AgentChatSessionEntity>().eq("agent_id", agentId), params,
+                KeysetSort.of("last_chat_at", AgentChatSessionEntity::getLastChatAt, "session_id",
+                        AgentChatSessionEntity::getSessionId, false));
+
+        return result.map(entity -> {
+            AgentChatSessionDTO dto = new AgentChatSessionDTO();
+            dto.setSessionId(entity.getSessionId());
+            dto.setCreatedAt(toLocalDateTime(entity.getLastChatAt()));
+            dto.setFirstChatAt(toLocalDateTime(entity.getFirstChatAt()));
+            dto.setChatCount(entity.getChatCount());
+            dto.setMacAddress(entity.getMacAddress());
+            dto.setLastContent(entity.getLastContent());
+            return dto;
+        });
+    }
+
+    @Override
+    public void recordReport(AgentChatHistoryEntity history) {
+        if (StringUtils.isAnyBlank(history.getAgentId(), history.getSessionId())) {
+            return;
+        }
+        Date chatAt = history.getCreatedAt() != null ? history.getCreatedAt() : new Date();
+
+        AgentChatSessionEntity entity = new AgentChatSessionEntity();
+        entity.setAgentId(history.getAgentId());
+        entity.setSessionId(history.getSessionId());
+        entity.setMacAddress(history.getMacAddress());
+        entity.setFirstChatAt(chatAt);
+        entity.setLastChatAt(chatAt);
+        entity.setChatCount(1);
+        entity.setLastContent(toSnippet(history.getContent()));
+        baseMapper.upsertOnReport(entity);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void rebuildByAgentId(String agentId) {
+        baseMapper.deleteByAgentId(agentId);
+        saveRebuilt(baseMapper.selectRebuildByAgentId(agentId));
+    }
+
+    @Override
+    public int repairActiveSince(Date since) {
+        return saveRebuilt(baseMapper.selectRebuildActiveSince(since));
+    }
+
+    @Override
+    public void deleteByAgentId(String agentId) {
+        baseMapper.deleteByAgentId(agentId);
+    }
+
+    /**
+     * 写入重算结果，摘要与上报路径使用相同的提取规则
+     */
+    private int saveRebuilt(List<AgentChatSessionEntity> sessions) {
+        sessions.forEach(session -> session.setLastContent(toSnippet(session.getLastContent())));
+        int rows = 0;
+        for (List<AgentChatSessionEntity> chunk : Lists.partition(sessions, UPSERT_BATCH_SIZE)) {
+            rows += baseMapper.upsertRebuilt(chunk);
+        }
+        return rows;
+    }
+
+    private LocalDateTime toLocalDateTime(Date date) {
+        return date == null ? null : LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+
+    /**
+     * 生成会话最后一条消息的摘要
+     */
+    private String toSnippet(String content) {
+        String text = AgentChatHistoryServiceImpl.extractContentFromString(content);
+        return StringUtils.abbreviate(text, SNIPPET_MAX_LENGTH);
+    }
+}
@@ -1,6 +1,8 @@
 package xiaozhi.modules.agent.service.impl;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.stereotype.Service;
 
@@ -8,9 +10,13 @@ import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 
 import lombok.RequiredArgsConstructor;
+import xiaozhi.common.utils.JsonUtils;
 import xiaozhi.modules.agent.dao.AgentPluginMappingMapper;
 import xiaozhi.modules.agent.entity.AgentPluginMapping;
 import xiaozhi.modules.agent.service.AgentPluginMappingService;
+import xiaozhi.modules.model.dto.ModelProviderDTO;
+import xiaozhi.modules.model.service.ModelProviderService;
+import xiaozhi.modules.model.service.ModelReferenceService;
 
 /**
  * @description 针对表【ai_agent_plugin_mapping(Agent与插件的唯一映射表)】的数据库操作Service实现
@@ -21,6 +27,8 @@ import xiaozhi.modules.agent.service.AgentPluginMappingService;
 public class AgentPluginMappingServiceImpl extends ServiceImpl<AgentPluginMappingMapper, AgentPluginMapping>
         implements AgentPluginMappingService {
     private final AgentPluginMappingMapper agentPluginMappingMapper;
+    private final ModelReferenceService modelReferenceService;
+    private final ModelProviderService modelProviderService;
 
     @Override
     public List<AgentPluginMapping> agentPluginParamsByAgentId(String agentId) {
@@ -28,10 +36,34 @@ public class AgentPluginMappingServiceImpl extends ServiceImpl<AgentPluginMappin
     }
 
     @Override
-    public void deleteByAgentId(String agentId) {
+    public int deleteByAgentId(String agentId) {
         UpdateWrapper<AgentPluginMapping> updateWrapper = new UpdateWrapper<>();
         updateWrapper.eq("agent_id", agentId);
-        agentPluginMappingMapper.delete(updateWrapper);
+        int rows = agentPluginMappingMapper.delete(updateWrapper);
+        modelReferenceService.deleteAgentPlugins(agentId);
+        return rows;
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<AgentPluginMapping> defaultMappings() {
+        // 一次查出全部默认插件，按默认插件的顺序输出
+        Map<String, ModelProviderDTO> providers = new HashMap<>();
+        modelProviderService.getPluginListByIds(AgentPluginMapping.DEFAULT_PLUGIN_IDS)
+                .forEach(provider -> providers.put(provider.getId(), provider));
+
+        return AgentPluginMapping.DEFAULT_PLUGIN_IDS.stream().filter(providers::containsKey).map(pluginId -> {
+            Map<String, Object> paramInfo = new HashMap<>();
+            List<Map<String, Object>> fields = JsonUtils.parseObject(providers.get(pluginId).getFields(), List.class);
+            if (fields != null) {
+                for (Map<String, Object> field : fields) {
+                    paramInfo.put((String) field.get("key"), field.get("default"));
+                }
+            }
+            AgentPluginMapping mapping = new AgentPluginMapping();
+            mapping.setPluginId(pluginId);
+            mapping.setParamInfo(JsonUtils.toJsonString(paramInfo));
+            return mapping;
+        }).toList();
+    }
 }
@@ -0,0 +1,302 @@
+package xiaozhi.modules.agent.service.impl;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.common.utils.ConvertUtils;
+import xiaozhi.modules.agent.dao.AgentDao;
+import xiaozhi.modules.agent.dao.AgentVoicePrintDao;
+import xiaozhi.modules.agent.dto.AgentProvisionDTO;
+import xiaozhi.modules.agent.entity.AgentEntity;
+import xiaozhi.modules.agent.entity.AgentPluginMapping;
+import xiaozhi.modules.agent.entity.AgentTemplateEntity;
+import xiaozhi.modules.agent.entity.AgentVoicePrintEntity;
+import xiaozhi.modules.agent.service.AgentPluginMappingService;
+import xiaozhi.modules.agent.service.AgentProvisionService;
+import xiaozhi.modules.agent.service.AgentService;
+import xiaozhi.modules.agent.service.AgentTemplateService;
+import xiaozhi.modules.agent.vo.AgentProvisionVO;
+import xiaozhi.modules.device.dao.DeviceDao;
+import xiaozhi.modules.device.entity.DeviceEntity;
+import xiaozhi.modules.model.service.ModelReferenceService;
+import xiaozhi.modules.security.user.SecurityUser;
+import xiaozhi.modules.sys.dao.SysUserDao;
+import xiaozhi.modules.sys.entity.SysUserEntity;
+
+/**
+ * 批量开通智能体
+ * <p>
+ * 源智能体或模板、插件及其参数只查询一次，按目标复制后批量插入
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class AgentProvisionServiceImpl implements AgentProvisionService {
+    private static final int INSERT_BATCH_SIZE = 200;
+    private static final int AGENT_NAME_MAX_LENGTH = 64;
+
+    private final AgentService agentService;
+    private final AgentDao agentDao;
+    private final AgentTemplateService agentTemplateService;
+    private final AgentPluginMappingService agentPluginMappingService;
+    private final AgentVoicePrintDao agentVoicePrintDao;
+    private final ModelReferenceService modelReferenceService;
+    private final SysUserDao sysUserDao;
+    private final DeviceDao deviceDao;
+    private final RedisUtils redisUtils;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public AgentProvisionVO provision(AgentProvisionDTO dto) {
+        List<AgentProvisionDTO.Target> targets = dto.getTargets();
+        if (targets.size() > AgentProvisionVO.MAX_TARGETS) {
+            throw new RenException("单次最多开通" + AgentProvisionVO.MAX_TARGETS + "个智能体");
+        }
+        AgentEntity prototype = loadPrototype(dto);
+        List<AgentPluginMapping> plugins = StringUtils.isNotBlank(dto.getSourceAgentId())
+                ? agentPluginMappingService.list(new QueryWrapper<AgentPluginMapping>()
+                        .eq("agent_id", dto.getSourceAgentId()))
+                : agentPluginMappingService.defaultMappings();
+
+        AgentProvisionVO result = new AgentProvisionVO();
+        result.setDryRun(dto.isDryRun());
+        result.setTotal(targets.size());
+        Map<String, DeviceEntity> devices = selectDevices(targets);
+        List<Long> owners = resolveOwners(targets, devices, result);
+        List<String> names = resolveNames(dto, prototype, result);
+        addVoicePrintWarning(dto, result);
+        if (dto.isDryRun() || !result.getErrors().isEmpty()) {
+            return result;
+        }
+
+        Long creator = SecurityUser.getUserId();
+        Date now = new Date();
+        // 同一批次在同一毫秒内生成，编码后加序号区分
+        String codePrefix = "AGT_" + now.getTime() + "_";
+        List<AgentEntity> agents = new ArrayList<>(targets.size());
+        for (int i = 0; i < targets.size(); i++) {
+            AgentEntity agent = ConvertUtils.sourceToTarget(prototype, AgentEntity.class);
+            agent.setId(UUID.randomUUID().toString().replace("-", ""));
+            agent.setAgentCode(codePrefix + (i + 1));
+            agent.setAgentName(names.get(i));
+            agent.setUserId(owners.get(i));
+            agent.setCreator(creator);
+            agent.setCreatedAt(now);
+            agents.add(agent);
+        }
+        List<AgentPluginMapping> mappings = new ArrayList<>(agents.size() * plugins.size());
+        for (AgentEntity agent : agents) {
+            for (AgentPluginMapping plugin : plugins) {
+                AgentPluginMapping mapping = new AgentPluginMapping();
+                mapping.setAgentId(agent.getId());
+                mapping.setPluginId(plugin.getPluginId());
+                mapping.setParamInfo(plugin.getParamInfo());
+                mappings.add(mapping);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            agentService.insertBatch(agents, INSERT_BATCH_SIZE);
+            if (!mappings.isEmpty()) {
+                agentPluginMappingService.saveBatch(mappings, INSERT_BATCH_SIZE);
+            }
+            modelReferenceService.addAgents(agents,
+                    plugins.stream().map(AgentPluginMapping::getPluginId).toList());
+            bindDevices(targets, agents);
+        });
+        evictDeviceStats(targets, devices, agents);
+
+        result.setAgentIds(agents.stream().map(AgentEntity::getId).toList());
+        log.info("批量开通智能体完成，source={}，template={}，数量{}", dto.getSourceAgentId(), dto.getTemplateId(),
+                agents.size());
+        return result;
+    }
+
+    /**
+     * 新智能体的公共配置：复制源智能体，或取模板配置
+     */
+    private AgentEntity loadPrototype(AgentProvisionDTO dto) {
+        boolean clone = StringUtils.isNotBlank(dto.getSourceAgentId());
+        if (clone == StringUtils.isNotBlank(dto.getTemplateId())) {
+            throw new RenException("源智能体和模板需且只能选择一个");
+        }
+
+        AgentEntity prototype;
+        if (clone) {
+            AgentEntity source = agentDao.selectById(dto.getSourceAgentId());
+            if (source == null) {
+                throw new RenException("智能体不存在");
+            }
+            prototype = ConvertUtils.sourceToTarget(source, AgentEntity.class);
+            // 总结记忆来自源智能体用户的对话，不复制给其他用户
+            prototype.setSummaryMemory(null);
+        } else {
+            AgentTemplateEntity template = agentTemplateService.getById(dto.getTemplateId());
+            if (template == null) {
+                throw new RenException("模板不存在");
+            }
+            prototype = ConvertUtils.sourceToTarget(template, AgentEntity.class);
+        }
+        prototype.setSort(0);
+        prototype.setUpdater(null);
+        prototype.setUpdatedAt(null);
+        prototype.setVersion(null);
+        prototype.setDeleted(null);
+        return prototype;
+    }
+
+    private Map<String, DeviceEntity> selectDevices(List<AgentProvisionDTO.Target> targets) {
+        Set<String> deviceIds = targets.stream().map(AgentProvisionDTO.Target::getDeviceId)
+                .filter(StringUtils::isNotBlank).collect(Collectors.toSet());
+        if (deviceIds.isEmpty()) {
+            return Map.of();
+        }
+        return deviceDao.selectList(new QueryWrapper<DeviceEntity>().select("id", "user_id", "agent_id")
+                .in("id", deviceIds)).stream().collect(Collectors.toMap(DeviceEntity::getId, Function.identity()));
+    }
+
+    /**
+     * 确定每个目标的所属用户，用户和设备一次查出
+     */
+    private List<Long> resolveOwners(List<AgentProvisionDTO.Target> targets, Map<String, DeviceEntity> devices,
+            AgentProvisionVO result) {
+        List<Long> owners = new ArrayList<>(targets.size());
+        Set<String> seenDevices = new HashSet<>();
+        for (int i = 0; i < targets.size(); i++) {
+            AgentProvisionDTO.Target target = targets.get(i);
+            Long owner = target.getUserId();
+            String error = null;
+            if (StringUtils.isNotBlank(target.getDeviceId())) {
+                DeviceEntity device = devices.get(target.getDeviceId());
+                if (device == null) {
+                    error = "设备不存在";
+                } else if (!seenDevices.add(device.getId())) {
+                    error = "设备重复";
+                } else if (owner != null && device.getUserId() != null && !owner.equals(device.getUserId())) {
+                    error = "设备不属于该用户";
+                } else if (owner == null) {
+                    owner = device.getUserId();
+                    if (owner == null) {
+                        error = "设备未绑定用户，请填写用户";
+                    }
+                }
+            } else if (owner == null) {
+                error = "请填写用户或设备";
+            }
+            if (error != null) {
+                result.getErrors().add(new AgentProvisionVO.Failure(i, error));
+                owner = null;
+            }
+            owners.add(owner);
+        }
+
+        Set<Long> userIds = owners.stream().filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Long, SysUserEntity> users = userIds.isEmpty() ? Map.of()
+                : sysUserDao.selectList(new QueryWrapper<SysUserEntity>().select("id", "status").in("id", userIds))
+                        .stream().collect(Collectors.toMap(SysUserEntity::getId, Function.identity()));
+        for (int i = 0; i < owners.size(); i++) {
+            Long owner = owners.get(i);
+            if (owner == null) {
+                continue;
+            }
+            SysUserEntity user = users.get(owner);
+            if (user == null) {
+                result.getErrors().add(new AgentProvisionVO.Failure(i, "用户不存在"));
+            } else if (Integer.valueOf(0).equals(user.getStatus())) {
+                result.getErrors().add(new AgentProvisionVO.Failure(i, "用户已停用"));
+            }
+        }
+        return owners;
+    }
+
+    private static List<String> resolveNames(AgentProvisionDTO dto, AgentEntity prototype, AgentProvisionVO result) {
+        List<String> names = new ArrayList<>(dto.getTargets().size());
+        for (int i = 0; i < dto.getTargets().size(); i++) {
+            String name = StringUtils.firstNonBlank(dto.getTargets().get(i).getAgentName(), dto.getAgentName(),
+                    prototype.getAgentName());
+            if (StringUtils.isBlank(name)) {
+                result.getErrors().add(new AgentProvisionVO.Failure(i, "智能体名称不能为空"));
+            } else if (name.length() > AGENT_NAME_MAX_LENGTH) {
+                result.getErrors().add(
+                        new AgentProvisionVO.Failure(i, "智能体名称不能超过" + AGENT_NAME_MAX_LENGTH + "个字符"));
+            }
+            names.add(name);
+        }
+        return names;
+    }
+
+    /**
+     * 声纹向量登记在声纹服务中，且录自源智能体用户的声音，不随智能体复制
+     */
+    private void addVoicePrintWarning(AgentProvisionDTO dto, AgentProvisionVO result) {
+        if (StringUtils.isBlank(dto.getSourceAgentId())) {
+            return;
+        }
+        Long count = agentVoicePrintDao.selectCount(new QueryWrapper<AgentVoicePrintEntity>()
+                .eq("agent_id", dto.getSourceAgentId()));
+        if (count != null && count > 0) {
+            result.getWarnings().add("源智能体的" + count + "条声纹不会复制，需在新智能体上重新注册");
+        }
+    }
+
+    private void bindDevices(List<AgentProvisionDTO.Target> targets, List<AgentEntity> agents) {
+        for (int i = 0; i < targets.size(); i++) {
+            String deviceId = targets.get(i).getDeviceId();
+            if (StringUtils.isBlank(deviceId)) {
+                continue;
+            }
+            AgentEntity agent = agents.get(i);
+            deviceDao.update(null, new UpdateWrapper<DeviceEntity>()
+                    .set("agent_id", agent.getId())
+                    .set("user_id", agent.getUserId())
+                    .eq("id", deviceId));
+        }
+    }
+
+    private void evictDeviceStats(List<AgentProvisionDTO.Target> targets, Map<String, DeviceEntity> devices,
+            List<AgentEntity> agents) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < targets.size(); i++) {
+            DeviceEntity device = devices.get(targets.get(i).getDeviceId());
+            if (device == null) {
+                continue;
+            }
+            for (String agentId : new String[] { device.getAgentId(), agents.get(i).getId() }) {
+                if (StringUtils.isNotBlank(agentId)) {
+                    keys.add(RedisKeys.getAgentDeviceCountById(agentId));
+                    keys.add(RedisKeys.getAgentDeviceLastConnectedAtById(agentId));
+                }
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            redisUtils.delete(keys);
+        } catch (Exception e) {
+            log.warn("批量开通智能体清除设备统计缓存失败", e);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package xiaozhi.modules.agent.service.impl;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -15,11 +19,12 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
-import com.baomidou.mybatisplus.core.metadata.IPage;
 
 import lombok.AllArgsConstructor;
 import xiaozhi.common.constant.Constant;
+import xiaozhi.common.exception.ConflictException;
 import xiaozhi.common.exception.RenException;
+import xiaozhi.common.page.KeysetSort;
 import xiaozhi.common.page.PageData;
 import xiaozhi.common.redis.RedisKeys;
 import xiaozhi.common.redis.RedisUtils;
@@ -40,9 +45,9 @@ import xiaozhi.modules.agent.service.AgentService;
 import xiaozhi.modules.agent.service.AgentTemplateService;
 import xiaozhi.modules.agent.vo.AgentInfoVO;
 import xiaozhi.modules.device.service.DeviceService;
-import xiaozhi.modules.model.dto.ModelProviderDTO;
+import xiaozhi.modules.device.vo.AgentDeviceStatsVO;
 import xiaozhi.modules.model.service.ModelConfigService;
-import xiaozhi.modules.model.service.ModelProviderService;
+import xiaozhi.modules.model.service.ModelReferenceService;
 import xiaozhi.modules.security.user.SecurityUser;
 import xiaozhi.modules.sys.enums.SuperAdminEnum;
 import xiaozhi.modules.timbre.service.TimbreService;
@@ -58,14 +63,12 @@ public class AgentServiceImpl extends BaseServiceImpl<AgentDao, AgentEntity> imp
     private final AgentPluginMappingService agentPluginMappingService;
     private final AgentChatHistoryService agentChatHistoryService;
     private final AgentTemplateService agentTemplateService;
-    private final ModelProviderService modelProviderService;
+    private final ModelReferenceService modelReferenceService;
 
     @Override
     public PageData<AgentEntity> adminAgentList(Map<String, Object> params) {
-        IPage<AgentEntity> page = agentDao.selectPage(
-                getPage(params, "agent_name", true),
-                new QueryWrapper<>());
-        return new PageData<>(page.getRecords(), page.getTotal());
+        return paginator.page("agent", agentDao, QueryWrapper::new, params,
+                KeysetSort.of("agent_name", AgentEntity::getAgentName, "id", AgentEntity::getId, true));
     }
 
     @Override
@@ -106,8 +109,16 @@ public class AgentServiceImpl extends BaseServiceImpl<AgentDao, AgentEntity> imp
         return super.insert(entity);
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean deleteById(Serializable id) {
+        modelReferenceService.deleteByAgentId(String.valueOf(id));
+        return super.deleteById(id);
+    }
+
     @Override
     public void deleteAgentByUserId(Long userId) {
+        modelReferenceService.deleteByAgentUserId(userId);
         UpdateWrapper<AgentEntity> wrapper = new UpdateWrapper<>();
         wrapper.eq("user_id", userId);
         baseDao.delete(wrapper);
@@ -118,6 +129,25 @@ public class AgentServiceImpl extends BaseServiceImpl<AgentDao, AgentEntity> imp
         QueryWrapper<AgentEntity> wrapper = new QueryWrapper<>();
         wrapper.eq("user_id", userId);
         List<AgentEntity> agents = agentDao.selectList(wrapper);
+        if (agents.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 先收集全部引用的模型、音色和智能体ID，批量解析后在内存中组装，查询次数与智能体数量无关
+        Set<String> modelIds = new HashSet<>();
+        Set<String> voiceIds = new HashSet<>();
+        Set<String> agentIds = new HashSet<>();
+        for (AgentEntity agent : agents) {
+            modelIds.add(agent.getTtsModelId());
+            modelIds.add(agent.getLlmModelId());
+            modelIds.add(agent.getVllmModelId());
+            voiceIds.add(agent.getTtsVoiceId());
+            agentIds.add(agent.getId());
+        }
+        Map<String, String> modelNames = modelConfigService.getModelNamesByIds(modelIds);
+        Map<String, String> voiceNames = timbreModelService.getTimbreNamesByIds(voiceIds);
+        Map<String, AgentDeviceStatsVO> deviceStats = deviceService.getAgentDeviceStats(agentIds);
+
         return agents.stream().map(agent -> {
             AgentDTO dto = new AgentDTO();
             dto.setId(agent.getId());
@@ -125,25 +155,24 @@ public class AgentServiceImpl extends BaseServiceImpl<AgentDao, AgentEntity> imp
             dto.setSystemPrompt(agent.getSystemPrompt());
 
             // 获取 TTS 模型名称
-            dto.setTtsModelName(modelConfigService.getModelNameById(agent.getTtsModelId()));
+            dto.setTtsModelName(modelNames.get(agent.getTtsModelId()));
 
             // 获取 LLM 模型名称
-            dto.setLlmModelName(modelConfigService.getModelNameById(agent.getLlmModelId()));
+            dto.setLlmModelName(modelNames.get(agent.getLlmModelId()));
 
             // 获取 VLLM 模型名称
-            dto.setVllmModelName(modelConfigService.getModelNameById(agent.getVllmModelId()));
+            dto.setVllmModelName(modelNames.get(agent.getVllmModelId()));
 
             // 获取记忆模型名称
             dto.setMemModelId(agent.getMemModelId());
 
             // 获取 TTS 音色名称
-            dto.setTtsVoiceName(timbreModelService.getTimbreNameById(agent.getTtsVoiceId()));
-
-            // 获取智能体最近的最后连接时长
-            dto.setLastConnectedAt(deviceService.getLatestLastConnectionTime(agent.getId()));
+            dto.setTtsVoiceName(voiceNames.get(agent.getTtsVoiceId()));
 
-            // 获取设备数量
-            dto.setDeviceCount(getDeviceCountByAgentId(agent.getId()));
+            // 获取智能体最近的最后连接时长和设备数量
+            AgentDeviceStatsVO stats = deviceStats.get(agent.getId());
+            dto.setLastConnectedAt(stats != null ? stats.getLastConnectedAt() : null);
+            dto.setDeviceCount(stats != null ? stats.getDeviceCount() : 0);
             return dto;
         }).collect(Collectors.toList());
     }
@@ -200,131 +229,172 @@ public class AgentServiceImpl extends BaseServiceImpl<AgentDao, AgentEntity> imp
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void updateAgentById(String agentId, AgentUpdateDTO dto) {
-        // 先查询现有实体
-        AgentEntity existingEntity = this.getAgentById(agentId);
+        AgentEntity existingEntity = agentDao.selectById(agentId);
         if (existingEntity == null) {
-            throw new RuntimeException("智能体不存在");
-        }
-
-        // 只更新提供的非空字段
-        if (dto.getAgentName() != null) {
-            existingEntity.setAgentName(dto.getAgentName());
-        }
-        if (dto.getAgentCode() != null) {
-            existingEntity.setAgentCode(dto.getAgentCode());
-        }
-        if (dto.getAsrModelId() != null) {
-            existingEntity.setAsrModelId(dto.getAsrModelId());
-        }
-        if (dto.getVadModelId() != null) {
-            existingEntity.setVadModelId(dto.getVadModelId());
-        }
-        if (dto.getLlmModelId() != null) {
-            existingEntity.setLlmModelId(dto.getLlmModelId());
-        }
-        if (dto.getVllmModelId() != null) {
-            existingEntity.setVllmModelId(dto.getVllmModelId());
-        }
-        if (dto.getTtsModelId() != null) {
-            existingEntity.setTtsModelId(dto.getTtsModelId());
-        }
-        if (dto.getTtsVoiceId() != null) {
-            existingEntity.setTtsVoiceId(dto.getTtsVoiceId());
-        }
-        if (dto.getMemModelId() != null) {
-            existingEntity.setMemModelId(dto.getMemModelId());
-        }
-        if (dto.getIntentModelId() != null) {
-            existingEntity.setIntentModelId(dto.getIntentModelId());
-        }
-        if (dto.getSystemPrompt() != null) {
-            existingEntity.setSystemPrompt(dto.getSystemPrompt());
-        }
-        if (dto.getSummaryMemory() != null) {
-            existingEntity.setSummaryMemory(dto.getSummaryMemory());
-        }
-        if (dto.getChatHistoryConf() != null) {
-            existingEntity.setChatHistoryConf(dto.getChatHistoryConf());
+            throw new RenException("智能体不存在");
         }
-        if (dto.getLangCode() != null) {
-            existingEntity.setLangCode(dto.getLangCode());
+        if (dto.getVersion() != null && !dto.getVersion().equals(existingEntity.getVersion())) {
+            throw new ConflictException();
         }
-        if (dto.getLanguage() != null) {
-            existingEntity.setLanguage(dto.getLanguage());
+        String oldMemModelId = existingEntity.getMemModelId();
+        Integer oldChatHistoryConf = existingEntity.getChatHistoryConf();
+
+        // 只写入提供且与当前值不同的字段，其他人同时修改的字段不会被覆盖
+        UpdateWrapper<AgentEntity> wrapper = new UpdateWrapper<>();
+        patch(wrapper, "agent_name", existingEntity.getAgentName(), dto.getAgentName(), existingEntity::setAgentName);
+        patch(wrapper, "agent_code", existingEntity.getAgentCode(), dto.getAgentCode(), existingEntity::setAgentCode);
+        patch(wrapper, "asr_model_id", existingEntity.getAsrModelId(), dto.getAsrModelId(),
+                existingEntity::setAsrModelId);
+        patch(wrapper, "vad_model_id", existingEntity.getVadModelId(), dto.getVadModelId(),
+                existingEntity::setVadModelId);
+        patch(wrapper, "llm_model_id", existingEntity.getLlmModelId(), dto.getLlmModelId(),
+                existingEntity::setLlmModelId);
+        patch(wrapper, "vllm_model_id", existingEntity.getVllmModelId(), dto.getVllmModelId(),
+                existingEntity::setVllmModelId);
+        patch(wrapper, "tts_model_id", existingEntity.getTtsModelId(), dto.getTtsModelId(),
+                existingEntity::setTtsModelId);
+        patch(wrapper, "tts_voice_id", existingEntity.getTtsVoiceId(), dto.getTtsVoiceId(),
+                existingEntity::setTtsVoiceId);
+        patch(wrapper, "mem_model_id", existingEntity.getMemModelId(), dto.getMemModelId(),
+                existingEntity::setMemModelId);
+        patch(wrapper, "intent_model_id", existingEntity.getIntentModelId(), dto.getIntentModelId(),
+                existingEntity::setIntentModelId);
+        patch(wrapper, "system_prompt", existingEntity.getSystemPrompt(), dto.getSystemPrompt(),
+                existingEntity::setSystemPrompt);
+        patch(wrapper, "summary_memory", existingEntity.getSummaryMemory(), dto.getSummaryMemory(),
+                existingEntity::setSummaryMemory);
+        patch(wrapper, "chat_history_conf", existingEntity.getChatHistoryConf(), dto.getChatHistoryConf(),
+                existingEntity::setChatHistoryConf);
+        patch(wrapper, "lang_code", existingEntity.getLangCode(), dto.getLangCode(), existingEntity::setLangCode);
+        patch(wrapper, "language", existingEntity.getLanguage(), dto.getLanguage(), existingEntity::setLanguage);
+        patch(wrapper, "sort", existingEntity.getSort(), dto.getSort(), existingEntity::setSort);
+
+        // 更新记忆策略，只在记忆模型或聊天记录配置变化时清理历史数据
+        boolean memoryChanged = !Objects.equals(oldMemModelId, existingEntity.getMemModelId());
+        boolean chatHistoryConfChanged = !Objects.equals(oldChatHistoryConf, existingEntity.getChatHistoryConf());
+        boolean memoryOff = existingEntity.getMemModelId() == null
+                || existingEntity.getMemModelId().equals(Constant.MEMORY_NO_MEM);
+        if (memoryOff && StringUtils.isNotEmpty(existingEntity.getSummaryMemory())) {
+            patch(wrapper, "summary_memory", existingEntity.getSummaryMemory(), "", existingEntity::setSummaryMemory);
+        }
+
+        boolean pluginsChanged = dto.getFunctions() != null && updatePlugins(agentId, dto.getFunctions());
+        if (wrapper.getSqlSet() == null && !pluginsChanged) {
+            return;
+        }
+
+        // 按读取时的版本号条件更新，期间被他人修改则回滚并返回409
+        wrapper.eq("id", agentId)
+                .eq("version", existingEntity.getVersion())
+                .set("updater", SecurityUser.getUserId())
+                .set("updated_at", new Date())
+                .setSql("version = version + 1");
+        if (baseDao.update(null, wrapper) == 0) {
+            throw new ConflictException();
+        }
+
+        if (memoryOff && memoryChanged) {
+            // 删除所有记录
+            agentChatHistoryService.deleteByAgentId(agentId, true, true);
+        } else if (!memoryOff && Integer.valueOf(1).equals(existingEntity.getChatHistoryConf())
+                && (memoryChanged || chatHistoryConfChanged)) {
+            // 删除音频数据
+            agentChatHistoryService.deleteByAgentId(agentId, true, false);
         }
-        if (dto.getSort() != null) {
-            existingEntity.setSort(dto.getSort());
+        modelReferenceService.syncAgentModels(existingEntity);
+    }
+
+    @Override
+    public void updateSummaryMemory(String agentId, String summaryMemory) {
+        // 只写记忆字段并递增版本号，基于旧版本的管理端修改会收到409，不会覆盖新记忆
+        baseDao.update(null, new UpdateWrapper<AgentEntity>()
+                .eq("id", agentId)
+                .isNotNull("mem_model_id")
+                .ne("mem_model_id", Constant.MEMORY_NO_MEM)
+                .set("summary_memory", summaryMemory)
+                .set("updated_at", new Date())
+                .setSql("version = version + 1"));
+    }
+
+    /**
+     * 提供了新值且与当前值不同时写入该列
+     */
+    private static <V> void patch(UpdateWrapper<AgentEntity> wrapper, String column, V current, V value,
+            Consumer<V> setter) {
+        if (value != null && !value.equals(current)) {
+            wrapper.set(column, value);
+            setter.accept(value);
         }
+    }
 
-        // 更新函数插件信息
-        List<AgentUpdateDTO.FunctionInfo> functions = dto.getFunctions();
-        if (functions != null) {
-            // 1. 收集本次提交的 pluginId
-            List<String> newPluginIds = functions.stream()
-                    .map(AgentUpdateDTO.FunctionInfo::getPluginId)
-                    .toList();
-
-            // 2. 查询当前agent现有的所有映射
-            List<AgentPluginMapping> existing = agentPluginMappingService.list(
-                    new QueryWrapper<AgentPluginMapping>()
-                            .eq("agent_id", agentId));
-            Map<String, AgentPluginMapping> existMap = existing.stream()
-                    .collect(Collectors.toMap(AgentPluginMapping::getPluginId, Function.identity()));
-
-            // 3. 构造所有要 保存或更新 的实体
-            List<AgentPluginMapping> allToPersist = functions.stream().map(info -> {
-                AgentPluginMapping m = new AgentPluginMapping();
-                m.setAgentId(agentId);
-                m.setPluginId(info.getPluginId());
-                m.setParamInfo(JsonUtils.toJsonString(info.getParamInfo()));
-                AgentPluginMapping old = existMap.get(info.getPluginId());
-                if (old != null) {
-                    // 已存在，设置id表示更新
-                    m.setId(old.getId());
-                }
-                return m;
-            }).toList();
-
-            // 4. 拆分：已有ID的走更新，无ID的走插入
-            List<AgentPluginMapping> toUpdate = allToPersist.stream()
-                    .filter(m -> m.getId() != null)
-                    .toList();
-            List<AgentPluginMapping> toInsert = allToPersist.stream()
-                    .filter(m -> m.getId() == null)
-                    .toList();
-
-            if (!toUpdate.isEmpty()) {
-                agentPluginMappingService.updateBatchById(toUpdate);
-            }
-            if (!toInsert.isEmpty()) {
-                agentPluginMappingService.saveBatch(toInsert);
-            }
+    /**
+     * 按JSON内容比较插件参数，库中JSON列返回的格式与序列化结果不同
+     */
+    private static boolean sameParamInfo(String current, String value) {
+        try {
+            return Objects.equals(JsonUtils.parseObject(current, Object.class),
+                    JsonUtils.parseObject(value, Object.class));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
 
-            // 5. 删除本次不在提交列表里的插件映射
-            List<Long> toDelete = existing.stream()
-                    .filter(old -> !newPluginIds.contains(old.getPluginId()))
-                    .map(AgentPluginMapping::getId)
-                    .toList();
-            if (!toDelete.isEmpty()) {
-                agentPluginMappingService.removeBatchByIds(toDelete);
+    /**
+     * 按提交的插件列表增删改映射，只写入有变化的映射
+     *
+     * @return 是否有变化
+     */
+    private boolean updatePlugins(String agentId, List<AgentUpdateDTO.FunctionInfo> functions) {
+        // 1. 收集本次提交的 pluginId
+        List<String> newPluginIds = functions.stream()
+                .map(AgentUpdateDTO.FunctionInfo::getPluginId)
+                .toList();
+
+        // 2. 查询当前agent现有的所有映射
+        List<AgentPluginMapping> existing = agentPluginMappingService.list(
+                new QueryWrapper<AgentPluginMapping>()
+                        .eq("agent_id", agentId));
+        Map<String, AgentPluginMapping> existMap = existing.stream()
+                .collect(Collectors.toMap(AgentPluginMapping::getPluginId, Function.identity()));
+
+        // 3. 拆分：已有且参数变化的走更新，不存在的走插入
+        List<AgentPluginMapping> toUpdate = new ArrayList<>();
+        List<AgentPluginMapping> toInsert = new ArrayList<>();
+        for (AgentUpdateDTO.FunctionInfo info : functions) {
+            AgentPluginMapping m = new AgentPluginMapping();
+            m.setAgentId(agentId);
+            m.setPluginId(info.getPluginId());
+            m.setParamInfo(JsonUtils.toJsonString(info.getParamInfo()));
+            AgentPluginMapping old = existMap.get(info.getPluginId());
+            if (old == null) {
+                toInsert.add(m);
+            } else if (!sameParamInfo(old.getParamInfo(), m.getParamInfo())) {
+                // 已存在，设置id表示更新
+                m.setId(old.getId());
+                toUpdate.add(m);
             }
         }
 
-        // 设置更新者信息
-        UserDetail user = SecurityUser.getUser();
-        existingEntity.setUpdater(user.getId());
-        existingEntity.setUpdatedAt(new Date());
+        if (!toUpdate.isEmpty()) {
+            agentPluginMappingService.updateBatchById(toUpdate);
+        }
+        if (!toInsert.isEmpty()) {
+            agentPluginMappingService.saveBatch(toInsert);
+        }
 
-        // 更新记忆策略
-        if (existingEntity.getMemModelId() == null || existingEntity.getMemModelId().equals(Constant.MEMORY_NO_MEM)) {
-            // 删除所有记录
-            agentChatHistoryService.deleteByAgentId(existingEntity.getId(), true, true);
-            existingEntity.setSummaryMemory("");
-        } else if (existingEntity.getChatHistoryConf() != null && existingEntity.getChatHistoryConf() == 1) {
-            // 删除音频数据
-            agentChatHistoryService.deleteByAgentId(existingEntity.getId(), true, false);
+        // 4. 删除本次不在提交列表里的插件映射
+        List<Long> toDelete = existing.stream()
+                .filter(old -> !newPluginIds.contains(old.getPluginId()))
+                .map(AgentPluginMapping::getId)
+                .toList();
+        if (!toDelete.isEmpty()) {
+            agentPluginMappingService.removeBatchByIds(toDelete);
         }
-        this.updateById(existingEntity);
+        if (toUpdate.isEmpty() && toInsert.isEmpty() && toDelete.isEmpty()) {
+            return false;
+        }
+        modelReferenceService.syncAgentPlugins(agentId, newPluginIds);
+        return true;
     }
 
     @Override
@@ -360,33 +430,15 @@ public class AgentServiceImpl extends BaseServiceImpl<AgentDao, AgentEntity> imp
 
         // 保存智能体
         insert(entity);
+        modelReferenceService.syncAgentModels(entity);
 
         // 设置默认插件
-        List<AgentPluginMapping> toInsert = new ArrayList<>();
-        // 播放音乐、查天气、查新闻
-        String[] pluginIds = new String[] { "SYSTEM_PLUGIN_MUSIC", "SYSTEM_PLUGIN_WEATHER",
-                "SYSTEM_PLUGIN_NEWS_NEWSNOW" };
-        for (String pluginId : pluginIds) {
-            ModelProviderDTO provider = modelProviderService.getById(pluginId);
-            if (provider == null) {
-                continue;
-            }
-            AgentPluginMapping mapping = new AgentPluginMapping();
-            mapping.setPluginId(pluginId);
-
-            Map<String, Object> paramInfo = new HashMap<>();
-            List<Map<String, Object>> fields = JsonUtils.parseObject(provider.getFields(), List.class);
-            if (fields != null) {
-                for (Map<String, Object> field : fields) {
-                    paramInfo.put((String) field.get("key"), field.get("default"));
-                }
-            }
-            mapping.setParamInfo(JsonUtils.toJsonString(paramInfo));
-            mapping.setAgentId(entity.getId());
-            toInsert.add(mapping);
-        }
+        List<AgentPluginMapping> toInsert = agentPluginMappingService.defaultMappings();
+        toInsert.forEach(mapping -> mapping.setAgentId(entity.getId()));
         // 保存默认插件
         agentPluginMappingService.saveBatch(toInsert);
+        modelReferenceService.syncAgentPlugins(entity.getId(),
+                toInsert.stream().map(AgentPluginMapping::getPluginId).toList());
         return entity.getId();
     }
 }
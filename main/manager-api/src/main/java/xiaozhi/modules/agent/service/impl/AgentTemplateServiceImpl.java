@@ -6,6 +6,9 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 
+import lombok.AllArgsConstructor;
+import xiaozhi.common.cache.CacheRegion;
+import xiaozhi.common.cache.ResponseCacheManager;
 import xiaozhi.modules.agent.dao.AgentTemplateDao;
 import xiaozhi.modules.agent.entity.AgentTemplateEntity;
 import xiaozhi.modules.agent.service.AgentTemplateService;
@@ -16,8 +19,10 @@ import xiaozhi.modules.agent.service.AgentTemplateService;
  * @createDate 2025-03-22 11:48:18
  */
 @Service
+@AllArgsConstructor
 public class AgentTemplateServiceImpl extends ServiceImpl<AgentTemplateDao, AgentTemplateEntity>
         implements AgentTemplateService {
+    private final ResponseCacheManager responseCacheManager;
 
     /**
      * 获取默认模板
@@ -68,5 +73,6 @@ public class AgentTemplateServiceImpl extends ServiceImpl<AgentTemplateDao, Agen
         }
         wrapper.ge("sort", 0);
         update(wrapper);
+        responseCacheManager.evict(CacheRegion.AGENT_TEMPLATE);
     }
 }
@@ -0,0 +1,23 @@
+package xiaozhi.modules.agent.task;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import xiaozhi.modules.agent.service.AgentChatHistorySearchService;
+
+/**
+ * 聊天记录索引追平任务
+ * <p>
+ * 按自增ID从聊天记录表增量读取并回扫最近写入的记录，补上其他实例上报的记录，同步删除的智能体，并定期提交索引
+ */
+@Component
+@RequiredArgsConstructor
+public class AgentChatHistoryIndexTask {
+    private final AgentChatHistorySearchService agentChatHistorySearchService;
+
+    @Scheduled(initialDelay = 30 * 1000L, fixedDelay = 60 * 1000L)
+    public void catchUp() {
+        agentChatHistorySearchService.catchUp();
+    }
+}
@@ -0,0 +1,60 @@
+package xiaozhi.modules.agent.task;
+
+import java.util.Date;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.common.utils.DateUtils;
+import xiaozhi.modules.agent.service.AgentChatSessionService;
+
+/**
+ * 会话汇总一致性修复任务
+ * <p>
+ * 会话汇总由上报增量维护，这里定期按聊天记录重算最近有消息的会话，修正并发上报或手工改数据造成的偏差。
+ * 多实例部署时先在redis中取得租约，每个执行间隔只由一个实例修复；redis未开启时各实例各自执行
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AgentChatSessionRepairTask {
+    /**
+     * 修复窗口，需大于执行间隔，保证相邻两次执行有重叠
+     */
+    private static final long REPAIR_WINDOW_MILLIS = 2 * 60 * 60 * 1000L;
+    /**
+     * 租约时长（秒），略短于执行间隔，执行完不释放，其他实例在本轮内直接跳过
+     */
+    private static final long LEASE_SECONDS = 25 * 60L;
+
+    private final AgentChatSessionService agentChatSessionService;
+    private final RedisUtils redisUtils;
+
+    @Scheduled(initialDelay = 5 * 60 * 1000L, fixedDelay = 30 * 60 * 1000L)
+    public void repair() {
+        Boolean acquired;
+        try {
+            acquired = redisUtils.setIfAbsent(RedisKeys.getChatSessionRepairLeaseKey(), System.currentTimeMillis(),
+                    LEASE_SECONDS);
+        } catch (Exception e) {
+            log.warn("获取会话汇总修复租约失败，跳过本次修复", e);
+            return;
+        }
+        if (Boolean.FALSE.equals(acquired)) {
+            log.debug("会话汇总修复已由其他实例执行，跳过");
+            return;
+        }
+
+        Date since = new Date(System.currentTimeMillis() - REPAIR_WINDOW_MILLIS);
+        try {
+            int rows = agentChatSessionService.repairActiveSince(since);
+            log.info("会话汇总修复完成，起始时间={}，影响行数={}", DateUtils.format(since, DateUtils.DATE_TIME_PATTERN), rows);
+        } catch (Exception e) {
+            log.error("会话汇总修复失败", e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package xiaozhi.modules.agent.vo;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import xiaozhi.common.utils.DateUtils;
+
+/**
+ * 聊天记录全文检索结果VO
+ */
+@Data
+public class AgentChatHistorySearchVO {
+    @Schema(description = "聊天记录ID")
+    private Long id;
+
+    @Schema(description = "智能体ID")
+    private String agentId;
+
+    @Schema(description = "设备MAC地址")
+    private String macAddress;
+
+    @Schema(description = "会话ID")
+    private String sessionId;
+
+    @Schema(description = "消息类型: 1-用户, 2-智能体")
+    private Byte chatType;
+
+    @Schema(description = "命中片段，关键词以<em>标记，其余内容已做HTML转义")
+    private String snippet;
+
+    @Schema(description = "创建时间")
+    @JsonFormat(pattern = DateUtils.DATE_TIME_MILLIS_PATTERN)
+    private Date createdAt;
+}
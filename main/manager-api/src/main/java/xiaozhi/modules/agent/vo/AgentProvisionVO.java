@@ -0,0 +1,52 @@
+package xiaozhi.modules.agent.vo;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量开通智能体结果
+ */
+@Data
+@Schema(description = "批量开通智能体结果")
+public class AgentProvisionVO implements Serializable {
+    /**
+     * 单次最多开通的智能体数量
+     */
+    public static final int MAX_TARGETS = 1000;
+
+    @Schema(description = "是否仅校验")
+    private boolean dryRun;
+
+    @Schema(description = "目标数量")
+    private int total;
+
+    @Schema(description = "新智能体ID，与目标顺序一致；仅校验或校验未通过时为空")
+    private List<String> agentIds = new ArrayList<>();
+
+    @Schema(description = "校验错误，有错误时不创建任何智能体")
+    private List<Failure> errors = new ArrayList<>();
+
+    @Schema(description = "提示信息，不影响创建")
+    private List<String> warnings = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @Schema(description = "校验错误")
+    public static class Failure implements Serializable {
+        @Schema(description = "目标序号，从0开始")
+        private int index;
+
+        @Schema(description = "错误原因")
+        private String reason;
+
+        public Failure(int index, String reason) {
+            this.index = index;
+            this.reason = reason;
+        }
+    }
+}
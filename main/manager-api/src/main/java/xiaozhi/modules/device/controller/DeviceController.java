@@ -1,5 +1,7 @@
 package xiaozhi.modules.device.controller;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
@@ -11,13 +13,16 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import xiaozhi.common.exception.ErrorCode;
+import xiaozhi.common.exception.RenException;
 import xiaozhi.common.redis.RedisKeys;
 import xiaozhi.common.redis.RedisUtils;
 import xiaozhi.common.user.UserDetail;
@@ -27,8 +32,10 @@ import xiaozhi.modules.device.dto.DeviceUnBindDTO;
 import xiaozhi.modules.device.dto.DeviceUpdateDTO;
 import xiaozhi.modules.device.dto.DeviceManualAddDTO;
 import xiaozhi.modules.device.entity.DeviceEntity;
+import xiaozhi.modules.device.service.DeviceImportService;
 import xiaozhi.modules.device.service.DeviceService;
 import xiaozhi.modules.security.user.SecurityUser;
+import xiaozhi.modules.sys.vo.BulkJobVO;
 
 @Tag(name = "设备管理")
 @AllArgsConstructor
@@ -37,6 +44,8 @@ import xiaozhi.modules.security.user.SecurityUser;
 public class DeviceController {
     private final DeviceService deviceService;
 
+    private final DeviceImportService deviceImportService;
+
     private final RedisUtils redisUtils;
 
     @PostMapping("/bind/{agentId}/{deviceCode}")
@@ -109,4 +118,27 @@ public class DeviceController {
         deviceService.manualAddDevice(user.getId(), dto);
         return new Result<>();
     }
-}
\ No newline at end of file
+
+    @PostMapping("/import")
+    @Operation(summary = "批量导入设备", description = "CSV每行依次为：MAC地址、设备型号、固件版本、智能体ID，首行可为表头；返回任务ID")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<String> importDevices(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return new Result<String>().error("上传文件不能为空");
+        }
+        String csv;
+        try {
+            csv = new String(file.getBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RenException("读取上传文件失败");
+        }
+        return new Result<String>().ok(deviceImportService.importDevices(csv));
+    }
+
+    @GetMapping("/import/{jobId}")
+    @Operation(summary = "查询设备导入进度", description = "失败明细中的数据ID为CSV行号")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<BulkJobVO> getImportJob(@PathVariable String jobId) {
+        return new Result<BulkJobVO>().ok(deviceImportService.getJob(jobId));
+    }
+}
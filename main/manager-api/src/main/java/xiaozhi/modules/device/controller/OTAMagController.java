@@ -58,7 +58,8 @@ public class OTAMagController {
     @Operation(summary = "分页查询 OTA 固件信息")
     @Parameters({
             @Parameter(name = Constant.PAGE, description = "当前页码，从1开始", required = true),
-            @Parameter(name = Constant.LIMIT, description = "每页显示记录数", required = true)
+            @Parameter(name = Constant.LIMIT, description = "每页显示记录数", required = true),
+            @Parameter(name = Constant.CURSOR, description = "游标分页：首页传空值，之后传上一页返回的nextCursor；不传则按页码分页", required = false)
     })
     @RequiresPermissions("sys:role:superAdmin")
     public Result<PageData<OtaEntity>> page(@Parameter(hidden = true) @RequestParam Map<String, Object> params) {
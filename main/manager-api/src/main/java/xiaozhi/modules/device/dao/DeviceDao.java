@@ -1,12 +1,16 @@
 package xiaozhi.modules.device.dao;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 
 import xiaozhi.modules.device.entity.DeviceEntity;
+import xiaozhi.modules.device.vo.AgentDeviceStatsVO;
 
 @Mapper
 public interface DeviceDao extends BaseMapper<DeviceEntity> {
@@ -18,4 +22,12 @@ public interface DeviceDao extends BaseMapper<DeviceEntity> {
      */
     Date getAllLastConnectedAtByAgentId(String agentId);
 
+    /**
+     * 按智能体分组统计设备数量和最后连接时间，没有设备的智能体不返回
+     * 
+     * @param agentIds 智能体id
+     * @return 各智能体的设备统计
+     */
+    List<AgentDeviceStatsVO> selectAgentDeviceStats(@Param("agentIds") Collection<String> agentIds);
+
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package xiaozhi.modules.device.service;
+
+import xiaozhi.modules.sys.vo.BulkJobVO;
+
+/**
+ * 批量导入设备，用于出厂前预先登记设备并绑定智能体
+ */
+public interface DeviceImportService {
+
+    /**
+     * 提交导入任务
+     * <p>
+     * CSV每行依次为：MAC地址、设备型号、固件版本、智能体ID，首行可以是表头。
+     * 已导入且绑定同一智能体的设备直接跳过，重复上传同一文件不会产生重复数据
+     *
+     * @param csv CSV内容
+     * @return 任务ID，进度中的数据ID为CSV行号
+     */
+    String importDevices(String csv);
+
+    /**
+     * 查询导入进度和逐行的失败原因
+     *
+     * @param jobId 任务ID
+     */
+    BulkJobVO getJob(String jobId);
+}
@@ -1,7 +1,9 @@
 package xiaozhi.modules.device.service;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import xiaozhi.common.page.PageData;
 import xiaozhi.common.service.BaseService;
@@ -10,6 +12,7 @@ import xiaozhi.modules.device.dto.DeviceReportReqDTO;
 import xiaozhi.modules.device.dto.DeviceReportRespDTO;
 import xiaozhi.modules.device.dto.DeviceManualAddDTO;
 import xiaozhi.modules.device.entity.DeviceEntity;
+import xiaozhi.modules.device.vo.AgentDeviceStatsVO;
 import xiaozhi.modules.device.vo.UserShowDeviceListVO;
 
 public interface DeviceService extends BaseService<DeviceEntity> {
@@ -88,6 +91,13 @@ public interface DeviceService extends BaseService<DeviceEntity> {
      */
     Date getLatestLastConnectionTime(String agentId);
 
+    /**
+     * 批量获取智能体的设备数量和最后连接时间，优先读缓存，未命中的智能体一次分组查询
+     * @param agentIds 智能体id
+     * @return 智能体id到设备统计的映射，每个传入的智能体都有对应项
+     */
+    Map<String, AgentDeviceStatsVO> getAgentDeviceStats(Collection<String> agentIds);
+
     /**
      * 手动添加设备
      */
@@ -0,0 +1,200 @@
+package xiaozhi.modules.device.service.impl;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+
+import cn.hutool.core.text.csv.CsvRow;
+import cn.hutool.core.text.csv.CsvUtil;
+import lombok.AllArgsConstructor;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.modules.agent.dao.AgentDao;
+import xiaozhi.modules.agent.entity.AgentEntity;
+import xiaozhi.modules.device.dao.DeviceDao;
+import xiaozhi.modules.device.entity.DeviceEntity;
+import xiaozhi.modules.device.service.DeviceImportService;
+import xiaozhi.modules.device.service.DeviceService;
+import xiaozhi.modules.security.user.SecurityUser;
+import xiaozhi.modules.sys.bulk.BulkChunkResult;
+import xiaozhi.modules.sys.bulk.BulkJobRunner;
+import xiaozhi.modules.sys.vo.BulkJobVO;
+
+/**
+ * 批量导入设备
+ * <p>
+ * 上传时一次解析并校验全部行，按行号提交批量任务；每个分块一次查出已有设备和智能体，再批量插入
+ */
+@Service
+@AllArgsConstructor
+public class DeviceImportServiceImpl implements DeviceImportService {
+    private static final String OPERATION = "DEVICE_IMPORT";
+    private static final Pattern MAC_PATTERN = Pattern.compile("^([0-9a-f]{2}[:-]){5}[0-9a-f]{2}$",
+            Pattern.CASE_INSENSITIVE);
+    private static final int BOARD_MAX_LENGTH = 50;
+    private static final int APP_VERSION_MAX_LENGTH = 20;
+
+    private final BulkJobRunner bulkJobRunner;
+    private final DeviceService deviceService;
+    private final DeviceDao deviceDao;
+    private final AgentDao agentDao;
+
+    @Override
+    public String importDevices(String csv) {
+        Map<String, Row> rows = new HashMap<>();
+        Map<String, String> errors = new HashMap<>();
+        List<String> lines = parse(csv, rows, errors);
+        if (lines.isEmpty()) {
+            throw new RenException("导入文件没有数据");
+        }
+
+        Long creator = SecurityUser.getUserId();
+        Set<String> agentIds = ConcurrentHashMap.newKeySet();
+        return bulkJobRunner.submit(OPERATION, lines,
+                (chunk, result) -> importChunk(chunk, rows, errors, creator, agentIds, result),
+                // 导入完成后重新统计涉及智能体的设备数并写入缓存
+                () -> deviceService.getAgentDeviceStats(agentIds));
+    }
+
+    @Override
+    public BulkJobVO getJob(String jobId) {
+        BulkJobVO job = bulkJobRunner.get(jobId);
+        if (!OPERATION.equals(job.getOperation())) {
+            throw new RenException("任务不存在或已过期");
+        }
+        return job;
+    }
+
+    /**
+     * 解析CSV，格式错误和文件内重复的MAC地址按行号记入errors
+     *
+     * @return 全部数据行的行号，按文件顺序
+     */
+    static List<String> parse(String csv, Map<String, Row> rows, Map<String, String> errors) {
+        List<String> lines = new ArrayList<>();
+        Map<String, String> macLines = new HashMap<>();
+        for (CsvRow csvRow : CsvUtil.getReader().read(new StringReader(StringUtils.removeStart(csv, "\uFEFF")))
+                .getRows()) {
+            String first = StringUtils.trimToEmpty(csvRow.get(0));
+            if (lines.isEmpty() && errors.isEmpty() && !MAC_PATTERN.matcher(first).matches()
+                    && first.toLowerCase().contains("mac")) {
+                // 表头
+                continue;
+            }
+            String line = String.valueOf(csvRow.getOriginalLineNumber() + 1);
+            lines.add(line);
+
+            String board = StringUtils.trimToNull(column(csvRow, 1));
+            String appVersion = StringUtils.trimToNull(column(csvRow, 2));
+            String agentId = StringUtils.trimToNull(column(csvRow, 3));
+            if (!MAC_PATTERN.matcher(first).matches()) {
+                errors.put(line, "MAC地址格式不正确");
+            } else if (board != null && board.length() > BOARD_MAX_LENGTH) {
+                errors.put(line, "设备型号不能超过" + BOARD_MAX_LENGTH + "个字符");
+            } else if (appVersion != null && appVersion.length() > APP_VERSION_MAX_LENGTH) {
+                errors.put(line, "固件版本不能超过" + APP_VERSION_MAX_LENGTH + "个字符");
+            } else if (agentId == null) {
+                errors.put(line, "智能体ID不能为空");
+            } else {
+                String mac = first.toLowerCase().replace('-', ':');
+                String firstLine = macLines.putIfAbsent(mac, line);
+                if (firstLine != null) {
+                    errors.put(line, "MAC地址与第" + firstLine + "行重复");
+                } else {
+                    rows.put(line, new Row(mac, board, appVersion, agentId));
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static String column(CsvRow row, int index) {
+        return index < row.size() ? row.get(index) : null;
+    }
+
+    private void importChunk(List<String> lines, Map<String, Row> rows, Map<String, String> errors, Long creator,
+            Set<String> agentIds, BulkChunkResult result) {
+        List<String> valid = new ArrayList<>();
+        for (String line : lines) {
+            if (errors.containsKey(line)) {
+                result.fail(line, errors.get(line));
+            } else {
+                valid.add(line);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        List<String> macs = valid.stream().map(line -> rows.get(line).mac()).toList();
+        Map<String, DeviceEntity> existing = deviceDao.selectList(new QueryWrapper<DeviceEntity>()
+                .select("id", "mac_address", "agent_id").in("mac_address", macs)).stream()
+                .collect(Collectors.toMap(device -> device.getMacAddress().toLowerCase(), Function.identity(),
+                        (a, b) -> a));
+        Set<String> rowAgentIds = valid.stream().map(line -> rows.get(line).agentId()).collect(Collectors.toSet());
+        Map<String, AgentEntity> agents = agentDao.selectList(new QueryWrapper<AgentEntity>()
+                .select("id", "user_id").in("id", rowAgentIds)).stream()
+                .collect(Collectors.toMap(AgentEntity::getId, Function.identity()));
+
+        Date now = new Date();
+        List<DeviceEntity> toInsert = new ArrayList<>();
+        for (String line : valid) {
+            Row row = rows.get(line);
+            DeviceEntity device = existing.get(row.mac());
+            if (device != null) {
+                // 重复上传时已导入的设备直接跳过
+                if (!Objects.equals(device.getAgentId(), row.agentId())) {
+                    result.fail(line, "设备已存在且绑定了其他智能体");
+                }
+                continue;
+            }
+            AgentEntity agent = agents.get(row.agentId());
+            if (agent == null) {
+                result.fail(line, "智能体不存在");
+                continue;
+            }
+
+            DeviceEntity entity = new DeviceEntity();
+            entity.setId(row.mac());
+            entity.setMacAddress(row.mac());
+            entity.setBoard(row.board());
+            entity.setAppVersion(row.appVersion());
+            entity.setAgentId(agent.getId());
+            entity.setUserId(agent.getUserId());
+            entity.setAutoUpdate(1);
+            entity.setCreator(creator);
+            entity.setCreateDate(now);
+            entity.setUpdater(creator);
+            entity.setUpdateDate(now);
+            toInsert.add(entity);
+            // 设备已登记，之前上报OTA生成的激活数据不再需要
+            result.evict(RedisKeys.getDeviceActivationDataKey(row.mac()));
+        }
+        if (toInsert.isEmpty()) {
+            return;
+        }
+
+        deviceService.insertBatch(toInsert);
+        toInsert.stream().map(DeviceEntity::getAgentId).distinct().forEach(agentId -> {
+            agentIds.add(agentId);
+            result.evict(RedisKeys.getAgentDeviceCountById(agentId));
+        });
+    }
+
+    record Row(String mac, String board, String appVersion, String agentId) {
+    }
+}
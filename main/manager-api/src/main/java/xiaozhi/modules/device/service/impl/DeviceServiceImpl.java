@@ -1,6 +1,8 @@
 package xiaozhi.modules.device.service.impl;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -17,7 +19,6 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
-import com.baomidou.mybatisplus.core.metadata.IPage;
 
 import cn.hutool.core.util.RandomUtil;
 import jakarta.servlet.http.HttpServletRequest;
@@ -25,6 +26,7 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import xiaozhi.common.constant.Constant;
 import xiaozhi.common.exception.RenException;
+import xiaozhi.common.page.KeysetSort;
 import xiaozhi.common.page.PageData;
 import xiaozhi.common.redis.RedisKeys;
 import xiaozhi.common.redis.RedisUtils;
@@ -40,6 +42,7 @@ import xiaozhi.modules.device.entity.DeviceEntity;
 import xiaozhi.modules.device.entity.OtaEntity;
 import xiaozhi.modules.device.service.DeviceService;
 import xiaozhi.modules.device.service.OtaService;
+import xiaozhi.modules.device.vo.AgentDeviceStatsVO;
 import xiaozhi.modules.device.vo.UserShowDeviceListVO;
 import xiaozhi.modules.security.user.SecurityUser;
 import xiaozhi.modules.sys.service.SysParamsService;
@@ -86,8 +89,7 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
             throw new RenException("激活码错误");
         }
         String deviceId = (String) cacheDeviceId;
-        String safeDeviceId = deviceId.replace(":", "_").toLowerCase();
-        String cacheDeviceKey = String.format("ota:activation:data:%s", safeDeviceId);
+        String cacheDeviceKey = RedisKeys.getDeviceActivationDataKey(deviceId);
         Map<String, Object> cacheMap = (Map<String, Object>) redisUtils.get(cacheDeviceKey);
         if (cacheMap == null) {
             throw new RenException("激活码错误");
@@ -234,14 +236,16 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
         Map<String, Object> params = new HashMap<String, Object>();
         params.put(Constant.PAGE, dto.getPage());
         params.put(Constant.LIMIT, dto.getLimit());
-        IPage<DeviceEntity> page = baseDao.selectPage(
-                getPage(params, "mac_address", true),
-                // 定义查询条件
-                new QueryWrapper<DeviceEntity>()
-                        // 必须设备关键词查找
-                        .like(StringUtils.isNotBlank(dto.getKeywords()), "alias", dto.getKeywords()));
+        if (dto.getCursor() != null) {
+            params.put(Constant.CURSOR, dto.getCursor());
+        }
+        PageData<DeviceEntity> page = paginator.page("device", baseDao,
+                // 定义查询条件，必须设备关键词查找
+                () -> new QueryWrapper<DeviceEntity>()
+                        .like(StringUtils.isNotBlank(dto.getKeywords()), "alias", dto.getKeywords()),
+                params, KeysetSort.of("mac_address", DeviceEntity::getMacAddress, "id", DeviceEntity::getId, true));
         // 循环处理page获取回来的数据，返回需要的字段
-        List<UserShowDeviceListVO> list = page.getRecords().stream().map(device -> {
+        return page.map(device -> {
             UserShowDeviceListVO vo = ConvertUtils.sourceToTarget(device, UserShowDeviceListVO.class);
             // 把最后修改的时间，改为简短描述的时间
             vo.setRecentChatTime(DateUtils.getShortTime(device.getUpdateDate()));
@@ -249,9 +253,7 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
                     vo::setBindUserName);
             vo.setDeviceType(device.getBoard());
             return vo;
-        }).toList();
-        // 计算页数
-        return new PageData<>(list, page.getTotal());
+        });
     }
 
     @Override
@@ -299,10 +301,56 @@ public class DeviceServiceImpl extends BaseServiceImpl<DeviceDao, DeviceEntity>
         return maxDate;
     }
 
+    @Override
+    public Map<String, AgentDeviceStatsVO> getAgentDeviceStats(Collection<String> agentIds) {
+        Map<String, AgentDeviceStatsVO> stats = new HashMap<>();
+        List<String> idList = agentIds.stream().filter(StringUtils::isNotBlank).distinct().toList();
+        if (idList.isEmpty()) {
+            return stats;
+        }
+
+        // 设备数量和最后连接时间的缓存交替排列，一次批量读取
+        List<String> keys = new ArrayList<>(idList.size() * 2);
+        for (String agentId : idList) {
+            keys.add(RedisKeys.getAgentDeviceCountById(agentId));
+            keys.add(RedisKeys.getAgentDeviceLastConnectedAtById(agentId));
+        }
+        List<Object> cached = redisUtils.multiGet(keys);
+        List<String> missingIds = new ArrayList<>();
+        for (int i = 0; i < idList.size(); i++) {
+            Object count = cached == null ? null : cached.get(i * 2);
+            Object lastConnectedAt = cached == null ? null : cached.get(i * 2 + 1);
+            if (count instanceof Number number && lastConnectedAt instanceof Date date) {
+                stats.put(idList.get(i), new AgentDeviceStatsVO(idList.get(i), number.intValue(), date));
+            } else {
+                missingIds.add(idList.get(i));
+            }
+        }
+        if (missingIds.isEmpty()) {
+            return stats;
+        }
+
+        Map<String, AgentDeviceStatsVO> loaded = new HashMap<>();
+        for (AgentDeviceStatsVO vo : deviceDao.selectAgentDeviceStats(missingIds)) {
+            loaded.put(vo.getAgentId(), vo);
+        }
+        Map<String, Object> countCache = new HashMap<>();
+        Map<String, Object> lastConnectedCache = new HashMap<>();
+        for (String agentId : missingIds) {
+            AgentDeviceStatsVO vo = loaded.getOrDefault(agentId, new AgentDeviceStatsVO(agentId, 0, null));
+            stats.put(agentId, vo);
+            countCache.put(RedisKeys.getAgentDeviceCountById(agentId), vo.getDeviceCount());
+            if (vo.getLastConnectedAt() != null) {
+                lastConnectedCache.put(RedisKeys.getAgentDeviceLastConnectedAtById(agentId), vo.getLastConnectedAt());
+            }
+        }
+        redisUtils.multiSet(countCache, 60);
+        redisUtils.multiSet(lastConnectedCache, RedisUtils.DEFAULT_EXPIRE);
+        return stats;
+    }
+
     private String getDeviceCacheKey(String deviceId) {
-        String safeDeviceId = deviceId.replace(":", "_").toLowerCase();
-        String dataKey = String.format("ota:activation:data:%s", safeDeviceId);
-        return dataKey;
+        return RedisKeys.getDeviceActivationDataKey(deviceId);
     }
 
     public DeviceReportRespDTO.Activation buildActivation(String deviceId, DeviceReportReqDTO deviceReport) {
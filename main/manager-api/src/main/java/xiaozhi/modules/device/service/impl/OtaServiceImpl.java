@@ -8,9 +8,9 @@ import java.util.Map;
 import org.springframework.stereotype.Service;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import com.baomidou.mybatisplus.core.metadata.IPage;
 
 import io.micrometer.common.util.StringUtils;
+import xiaozhi.common.page.KeysetSort;
 import xiaozhi.common.page.PageData;
 import xiaozhi.common.service.impl.BaseServiceImpl;
 import xiaozhi.modules.device.dao.OtaDao;
@@ -22,11 +22,8 @@ public class OtaServiceImpl extends BaseServiceImpl<OtaDao, OtaEntity> implement
 
     @Override
     public PageData<OtaEntity> page(Map<String, Object> params) {
-        IPage<OtaEntity> page = baseDao.selectPage(
-                getPage(params, "update_date", true),
-                getWrapper(params));
-
-        return new PageData<>(page.getRecords(), page.getTotal());
+        return paginator.page("ota", baseDao, () -> getWrapper(params), params,
+                KeysetSort.of("update_date", OtaEntity::getUpdateDate, "id", OtaEntity::getId, true));
     }
 
     private QueryWrapper<OtaEntity> getWrapper(Map<String, Object> params) {
@@ -0,0 +1,24 @@
+package xiaozhi.modules.device.vo;
+
+import java.util.Date;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "智能体设备统计VO")
+public class AgentDeviceStatsVO {
+
+    @Schema(description = "智能体ID")
+    private String agentId;
+
+    @Schema(description = "设备数量")
+    private Integer deviceCount;
+
+    @Schema(description = "设备最近的最后连接时间")
+    private Date lastConnectedAt;
+}
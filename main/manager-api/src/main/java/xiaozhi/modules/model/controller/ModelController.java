@@ -16,6 +16,8 @@ import org.springframework.web.bind.annotation.RestController;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.AllArgsConstructor;
+import xiaozhi.common.annotation.ResponseCache;
+import xiaozhi.common.cache.CacheRegion;
 import xiaozhi.common.page.PageData;
 import xiaozhi.common.utils.ConvertUtils;
 import xiaozhi.common.utils.Result;
@@ -27,8 +29,11 @@ import xiaozhi.modules.model.dto.ModelConfigDTO;
 import xiaozhi.modules.model.dto.ModelProviderDTO;
 import xiaozhi.modules.model.dto.VoiceDTO;
 import xiaozhi.modules.model.entity.ModelConfigEntity;
+import xiaozhi.modules.model.entity.ModelReferenceEntity;
 import xiaozhi.modules.model.service.ModelConfigService;
 import xiaozhi.modules.model.service.ModelProviderService;
+import xiaozhi.modules.model.service.ModelReferenceService;
+import xiaozhi.modules.model.vo.ModelReferenceVO;
 import xiaozhi.modules.timbre.service.TimbreService;
 
 @AllArgsConstructor
@@ -42,6 +47,7 @@ public class ModelController {
     private final ModelConfigService modelConfigService;
     private final ConfigService configService;
     private final AgentTemplateService agentTemplateService;
+    private final ModelReferenceService modelReferenceService;
 
     @GetMapping("/names")
     @Operation(summary = "获取所有模型名称")
@@ -53,6 +59,7 @@ public class ModelController {
     }
 
     @GetMapping("/{modelType}/provideTypes")
+    @ResponseCache(regions = CacheRegion.MODEL_PROVIDER)
     @Operation(summary = "获取模型供应器列表")
     @RequiresPermissions("sys:role:superAdmin")
     public Result<List<ModelProviderDTO>> getModelProviderList(@PathVariable String modelType) {
@@ -112,6 +119,14 @@ public class ModelController {
         return new Result<ModelConfigDTO>().ok(modelConfigDTO);
     }
 
+    @GetMapping("/{id}/references")
+    @Operation(summary = "获取引用该模型配置的智能体和配置")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<List<ModelReferenceVO>> getModelReferences(@PathVariable String id) {
+        List<ModelReferenceVO> references = modelReferenceService.getReferences(ModelReferenceEntity.REF_MODEL, id);
+        return new Result<List<ModelReferenceVO>>().ok(references);
+    }
+
     @PutMapping("/enable/{id}/{status}")
     @Operation(summary = "启用/关闭模型配置")
     @RequiresPermissions("sys:role:superAdmin")
@@ -147,6 +162,7 @@ public class ModelController {
     }
 
     @GetMapping("/{modelId}/voices")
+    @ResponseCache(regions = CacheRegion.TIMBRE)
     @Operation(summary = "获取模型音色")
     @RequiresPermissions("sys:role:normal")
     public Result<List<VoiceDTO>> getVoiceList(@PathVariable String modelId,
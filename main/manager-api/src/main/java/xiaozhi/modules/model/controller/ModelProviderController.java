@@ -16,6 +16,8 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.AllArgsConstructor;
+import xiaozhi.common.annotation.ResponseCache;
+import xiaozhi.common.cache.CacheRegion;
 import xiaozhi.common.page.PageData;
 import xiaozhi.common.utils.Result;
 import xiaozhi.common.utils.ResultUtils;
@@ -67,6 +69,7 @@ public class ModelProviderController {
     }
 
     @GetMapping("/plugin/names")
+    @ResponseCache(regions = CacheRegion.MODEL_PROVIDER)
     @Tag(name = "获取插件名称列表")
     public Result<List<ModelProviderDTO>> getPluginNameList() {
         return ResultUtils.success(modelProviderService.getPluginList());
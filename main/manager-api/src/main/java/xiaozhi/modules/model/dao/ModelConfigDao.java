@@ -2,13 +2,16 @@ package xiaozhi.modules.model.dao;
 
 import java.util.List;
 
+import org.apache.ibatis.annotations.CacheNamespace;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import xiaozhi.common.cache.MybatisRedisCache;
 import xiaozhi.common.dao.BaseDao;
 import xiaozhi.modules.model.entity.ModelConfigEntity;
 
 @Mapper
+@CacheNamespace(implementation = MybatisRedisCache.class)
 public interface ModelConfigDao extends BaseDao<ModelConfigEntity> {
 
     /**
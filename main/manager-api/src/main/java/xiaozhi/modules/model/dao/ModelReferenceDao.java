@@ -0,0 +1,59 @@
+package xiaozhi.modules.model.dao;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import xiaozhi.common.dao.BaseDao;
+import xiaozhi.modules.model.entity.ModelReferenceEntity;
+import xiaozhi.modules.model.vo.ModelReferenceVO;
+
+/**
+ * 模型引用索引
+ */
+@Mapper
+public interface ModelReferenceDao extends BaseDao<ModelReferenceEntity> {
+    /**
+     * 批量写入
+     */
+    void insertBatch(@Param("list") List<ModelReferenceEntity> list);
+
+    /**
+     * 删除引用方的索引
+     *
+     * @param refType 被引用类型，为null时删除该引用方的全部索引
+     */
+    int deleteByOwner(@Param("ownerType") String ownerType, @Param("ownerId") String ownerId,
+            @Param("refType") String refType);
+
+    /**
+     * 删除指定用户全部智能体的索引，需在删除智能体之前调用
+     */
+    int deleteByAgentUserId(@Param("userId") Long userId);
+
+    /**
+     * 统计被引用次数
+     */
+    int countByRefIds(@Param("refType") String refType, @Param("refIds") Collection<String> refIds);
+
+    /**
+     * 查询引用方
+     */
+    List<ModelReferenceVO> selectByRef(@Param("refType") String refType, @Param("refId") String refId);
+
+    /**
+     * 按源表补上缺失的索引
+     *
+     * @return 补上的条数
+     */
+    int insertMissing();
+
+    /**
+     * 按源表删除多余的索引
+     *
+     * @return 删除的条数
+     */
+    int deleteStale();
+}
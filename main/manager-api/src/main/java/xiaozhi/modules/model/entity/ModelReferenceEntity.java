@@ -0,0 +1,66 @@
+package xiaozhi.modules.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 模型引用索引，记录哪些智能体、模型配置引用了某个模型或插件
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName(value = "ai_model_reference")
+public class ModelReferenceEntity {
+    /**
+     * 被引用的模型配置
+     */
+    public static final String REF_MODEL = "MODEL";
+    /**
+     * 被引用的插件
+     */
+    public static final String REF_PLUGIN = "PLUGIN";
+    /**
+     * 引用方为智能体
+     */
+    public static final String OWNER_AGENT = "AGENT";
+    /**
+     * 引用方为模型配置，如意图识别配置中的LLM
+     */
+    public static final String OWNER_MODEL_CONFIG = "MODEL_CONFIG";
+    /**
+     * 智能体插件的引用位置
+     */
+    public static final String SLOT_PLUGIN = "Plugin";
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    /**
+     * 被引用类型
+     */
+    private String refType;
+    /**
+     * 被引用ID
+     */
+    private String refId;
+    /**
+     * 引用方类型
+     */
+    private String ownerType;
+    /**
+     * 引用方ID
+     */
+    private String ownerId;
+    /**
+     * 引用位置
+     */
+    private String slot;
+
+    public ModelReferenceEntity(String refType, String refId, String ownerType, String ownerId, String slot) {
+        this(null, refType, refId, ownerType, ownerId, slot);
+    }
+}
@@ -1,6 +1,8 @@
 package xiaozhi.modules.model.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import xiaozhi.common.page.PageData;
 import xiaozhi.common.service.BaseService;
@@ -29,6 +31,14 @@ public interface ModelConfigService extends BaseService<ModelConfigEntity> {
      */
     String getModelNameById(String id);
 
+    /**
+     * 批量获取模型名称，优先读缓存，未命中的一次查询数据库
+     * 
+     * @param ids 模型ID，忽略空值
+     * @return 模型ID到模型名称的映射，不存在的模型不返回
+     */
+    Map<String, String> getModelNamesByIds(Collection<String> ids);
+
     /**
      * 根据ID获取模型配置
      * 
@@ -0,0 +1,79 @@
+package xiaozhi.modules.model.service;
+
+import java.util.Collection;
+import java.util.List;
+
+import xiaozhi.modules.agent.entity.AgentEntity;
+import xiaozhi.modules.model.entity.ModelConfigEntity;
+import xiaozhi.modules.model.vo.ModelReferenceVO;
+
+/**
+ * 模型引用索引
+ * <p>
+ * 与智能体、插件映射、意图识别配置的写入在同一事务内维护，引用检查只查本索引
+ */
+public interface ModelReferenceService {
+
+    /**
+     * 按智能体当前的模型配置重建其模型引用
+     */
+    void syncAgentModels(AgentEntity agent);
+
+    /**
+     * 按智能体当前的插件重建其插件引用
+     */
+    void syncAgentPlugins(String agentId, Collection<String> pluginIds);
+
+    /**
+     * 为新建的一批智能体写入模型和插件引用，多行语句分批插入，不清理旧引用
+     *
+     * @param agents    新建的智能体
+     * @param pluginIds 这批智能体共同启用的插件
+     */
+    void addAgents(Collection<AgentEntity> agents, Collection<String> pluginIds);
+
+    /**
+     * 按模型配置当前内容重建其引用，目前只有意图识别配置会引用LLM
+     */
+    void syncModelConfig(ModelConfigEntity modelConfig);
+
+    /**
+     * 删除智能体的全部引用
+     */
+    void deleteByAgentId(String agentId);
+
+    /**
+     * 删除智能体的插件引用
+     */
+    void deleteAgentPlugins(String agentId);
+
+    /**
+     * 删除用户全部智能体的引用，需在删除智能体之前调用
+     */
+    void deleteByAgentUserId(Long userId);
+
+    /**
+     * 删除模型配置的引用
+     */
+    void deleteByModelConfigId(String modelConfigId);
+
+    /**
+     * 查询引用方
+     *
+     * @param refType 被引用类型
+     * @param refId   被引用ID
+     */
+    List<ModelReferenceVO> getReferences(String refType, String refId);
+
+    /**
+     * 是否有任一ID被引用
+     */
+    boolean isReferenced(String refType, Collection<String> refIds);
+
+    /**
+     * 按源表校验并修复索引
+     *
+     * @return 修复的条数
+     */
+    int verify();
+}
@@ -1,5 +1,7 @@
 package xiaozhi.modules.model.service.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -7,6 +9,7 @@ import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
@@ -20,16 +23,17 @@ import xiaozhi.common.redis.RedisKeys;
 import xiaozhi.common.redis.RedisUtils;
 import xiaozhi.common.service.impl.BaseServiceImpl;
 import xiaozhi.common.utils.ConvertUtils;
-import xiaozhi.modules.agent.dao.AgentDao;
-import xiaozhi.modules.agent.entity.AgentEntity;
 import xiaozhi.modules.model.dao.ModelConfigDao;
 import xiaozhi.modules.model.dto.ModelBasicInfoDTO;
 import xiaozhi.modules.model.dto.ModelConfigBodyDTO;
 import xiaozhi.modules.model.dto.ModelConfigDTO;
 import xiaozhi.modules.model.dto.ModelProviderDTO;
 import xiaozhi.modules.model.entity.ModelConfigEntity;
+import xiaozhi.modules.model.entity.ModelReferenceEntity;
 import xiaozhi.modules.model.service.ModelConfigService;
 import xiaozhi.modules.model.service.ModelProviderService;
+import xiaozhi.modules.model.service.ModelReferenceService;
+import xiaozhi.modules.model.vo.ModelReferenceVO;
 
 @Service
 @AllArgsConstructor
@@ -39,7 +43,7 @@ public class ModelConfigServiceImpl extends BaseServiceImpl<ModelConfigDao, Mode
     private final ModelConfigDao modelConfigDao;
     private final ModelProviderService modelProviderService;
     private final RedisUtils redisUtils;
-    private final AgentDao agentDao;
+    private final ModelReferenceService modelReferenceService;
 
     @Override
     public List<ModelBasicInfoDTO> getModelCodeList(String modelType, String modelName) {
@@ -66,6 +70,7 @@ public class ModelConfigServiceImpl extends BaseServiceImpl<ModelConfigDao, Mode
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public ModelConfigDTO add(String modelType, String provideCode, ModelConfigBodyDTO modelConfigBodyDTO) {
         // 先验证有没有供应器
         if (StringUtils.isBlank(modelType) || StringUtils.isBlank(provideCode)) {
@@ -81,10 +86,12 @@ public class ModelConfigServiceImpl extends BaseServiceImpl<ModelConfigDao, Mode
         modelConfigEntity.setModelType(modelType);
         modelConfigEntity.setIsDefault(0);
         modelConfigDao.insert(modelConfigEntity);
+        modelReferenceService.syncModelConfig(modelConfigEntity);
         return ConvertUtils.sourceToTarget(modelConfigEntity, ModelConfigDTO.class);
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public ModelConfigDTO edit(String modelType, String provideCode, String id, ModelConfigBodyDTO modelConfigBodyDTO) {
         // 先验证有没有供应器
         if (StringUtils.isBlank(modelType) || StringUtils.isBlank(provideCode)) {
@@ -100,12 +107,14 @@ public class ModelConfigServiceImpl extends BaseServiceImpl<ModelConfigDao, Mode
         modelConfigEntity.setId(id);
         modelConfigEntity.setModelType(modelType);
         modelConfigDao.updateById(modelConfigEntity);
+        modelReferenceService.syncModelConfig(modelConfigEntity);
         // 清除缓存
         redisUtils.delete(RedisKeys.getModelConfigById(modelConfigEntity.getId()));
         return ConvertUtils.sourceToTarget(modelConfigEntity, ModelConfigDTO.class);
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void delete(String id) {
         // 查看是否是默认
         ModelConfigEntity modelConfig = modelConfigDao.selectById(id);
@@ -113,55 +122,30 @@ public class ModelConfigServiceImpl extends BaseServiceImpl<ModelConfigDao, Mode
             throw new RenException("该模型为默认模型，请先设置其他模型为默认模型");
         }
         // 验证是否有引用
-        checkAgentReference(id);
-        checkIntentConfigReference(id);
+        checkReference(id);
 
         modelConfigDao.deleteById(id);
+        modelReferenceService.deleteByModelConfigId(id);
     }
 
     /**
-     * 检查智能体配置是否有引用
+     * 检查智能体和意图识别配置是否有引用
      * 
      * @param modelId 模型ID
      */
-    private void checkAgentReference(String modelId) {
-        List<AgentEntity> agents = agentDao.selectList(
-                new QueryWrapper<AgentEntity>()
-                        .eq("vad_model_id", modelId)
-                        .or()
-                        .eq("asr_model_id", modelId)
-                        .or()
-                        .eq("llm_model_id", modelId)
-                        .or()
-                        .eq("tts_model_id", modelId)
-                        .or()
-                        .eq("mem_model_id", modelId)
-                        .or()
-                        .eq("intent_model_id", modelId));
-        if (!agents.isEmpty()) {
-            String agentNames = agents.stream()
-                    .map(AgentEntity::getAgentName)
-                    .collect(Collectors.joining("、"));
+    private void checkReference(String modelId) {
+        List<ModelReferenceVO> references = modelReferenceService.getReferences(ModelReferenceEntity.REF_MODEL,
+                modelId);
+        String agentNames = references.stream()
+                .filter(r -> ModelReferenceEntity.OWNER_AGENT.equals(r.getOwnerType()))
+                .map(ModelReferenceVO::getOwnerName)
+                .distinct()
+                .collect(Collectors.joining("、"));
+        if (StringUtils.isNotBlank(agentNames)) {
             throw new RenException(String.format("该模型配置已被智能体[%s]引用，无法删除", agentNames));
         }
-    }
-
-    /**
-     * 检查意图识别配置是否有引用
-     * 
-     * @param modelId 模型ID
-     */
-    private void checkIntentConfigReference(String modelId) {
-        ModelConfigEntity modelConfig = modelConfigDao.selectById(modelId);
-        if (modelConfig != null
-                && "LLM".equals(modelConfig.getModelType() == null ? null : modelConfig.getModelType().toUpperCase())) {
-            List<ModelConfigEntity> intentConfigs = modelConfigDao.selectList(
-                    new QueryWrapper<ModelConfigEntity>()
-                            .eq("model_type", "Intent")
-                            .like("config_json", "%" + modelId + "%"));
-            if (!intentConfigs.isEmpty()) {
-                throw new RenException("该LLM模型已被意图识别配置引用，无法删除");
-            }
+        if (references.stream().anyMatch(r -> ModelReferenceEntity.OWNER_MODEL_CONFIG.equals(r.getOwnerType()))) {
+            throw new RenException("该LLM模型已被意图识别配置引用，无法删除");
         }
     }
 
@@ -189,6 +173,40 @@ public class ModelConfigServiceImpl extends BaseServiceImpl<ModelConfigDao, Mode
         return null;
     }
 
+    @Override
+    public Map<String, String> getModelNamesByIds(Collection<String> ids) {
+        Map<String, String> names = new HashMap<>();
+        List<String> idList = ids.stream().filter(StringUtils::isNotBlank).distinct().toList();
+        if (idList.isEmpty()) {
+            return names;
+        }
+
+        List<Object> cachedNames = redisUtils.multiGet(idList.stream().map(RedisKeys::getModelNameById).toList());
+        List<String> missingIds = new ArrayList<>();
+        for (int i = 0; i < idList.size(); i++) {
+            Object cachedName = cachedNames == null ? null : cachedNames.get(i);
+            if (cachedName instanceof String name && StringUtils.isNotBlank(name)) {
+                names.put(idList.get(i), name);
+            } else {
+                missingIds.add(idList.get(i));
+            }
+        }
+        if (missingIds.isEmpty()) {
+            return names;
+        }
+
+        Map<String, Object> toCache = new HashMap<>();
+        for (ModelConfigEntity entity : modelConfigDao.selectBatchIds(missingIds)) {
+            String name = entity.getModelName();
+            names.put(entity.getId(), name);
+            if (StringUtils.isNotBlank(name)) {
+                toCache.put(RedisKeys.getModelNameById(entity.getId()), name);
+            }
+        }
+        redisUtils.multiSet(toCache, RedisUtils.DEFAULT_EXPIRE);
+        return names;
+    }
+
     @Override
     public ModelConfigEntity getModelById(String id, boolean isCache) {
         if (StringUtils.isBlank(id)) {
@@ -15,6 +15,8 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 
 import cn.hutool.json.JSONArray;
 import lombok.AllArgsConstructor;
+import xiaozhi.common.cache.CacheRegion;
+import xiaozhi.common.cache.ResponseCacheManager;
 import xiaozhi.common.constant.Constant;
 import xiaozhi.common.exception.RenException;
 import xiaozhi.common.page.PageData;
@@ -24,7 +26,9 @@ import xiaozhi.common.utils.ConvertUtils;
 import xiaozhi.modules.model.dao.ModelProviderDao;
 import xiaozhi.modules.model.dto.ModelProviderDTO;
 import xiaozhi.modules.model.entity.ModelProviderEntity;
+import xiaozhi.modules.model.entity.ModelReferenceEntity;
 import xiaozhi.modules.model.service.ModelProviderService;
+import xiaozhi.modules.model.service.ModelReferenceService;
 import xiaozhi.modules.security.user.SecurityUser;
 
 @Service
@@ -33,6 +37,8 @@ public class ModelProviderServiceImpl extends BaseServiceImpl<ModelProviderDao,
         implements ModelProviderService {
 
     private final ModelProviderDao modelProviderDao;
+    private final ModelReferenceService modelReferenceService;
+    private final ResponseCacheManager responseCacheManager;
 
     @Override
     public List<ModelProviderDTO> getPluginList() {
@@ -111,6 +117,7 @@ public class ModelProviderServiceImpl extends BaseServiceImpl<ModelProviderDao,
         if (modelProviderDao.insert(entity) == 0) {
             throw new RenException("新增数据失败");
         }
+        responseCacheManager.evict(CacheRegion.MODEL_PROVIDER);
 
         return ConvertUtils.sourceToTarget(modelProviderDTO, ModelProviderDTO.class);
     }
@@ -124,21 +131,35 @@ public class ModelProviderServiceImpl extends BaseServiceImpl<ModelProviderDao,
                 .updateById(ConvertUtils.sourceToTarget(modelProviderDTO, ModelProviderEntity.class)) == 0) {
             throw new RenException("修改数据失败");
         }
+        responseCacheManager.evict(CacheRegion.MODEL_PROVIDER);
         return ConvertUtils.sourceToTarget(modelProviderDTO, ModelProviderDTO.class);
     }
 
     @Override
     public void delete(String id) {
+        checkPluginReference(List.of(id));
         if (modelProviderDao.deleteById(id) == 0) {
             throw new RenException("删除数据失败");
         }
+        responseCacheManager.evict(CacheRegion.MODEL_PROVIDER);
     }
 
     @Override
     public void delete(List<String> ids) {
+        checkPluginReference(ids);
         if (modelProviderDao.deleteBatchIds(ids) == 0) {
             throw new RenException("删除数据失败");
         }
+        responseCacheManager.evict(CacheRegion.MODEL_PROVIDER);
+    }
+
+    /**
+     * 检查插件是否被智能体引用
+     */
+    private void checkPluginReference(List<String> ids) {
+        if (modelReferenceService.isReferenced(ModelReferenceEntity.REF_PLUGIN, ids)) {
+            throw new RenException("该插件已被智能体引用，无法删除");
+        }
     }
 
     @Override
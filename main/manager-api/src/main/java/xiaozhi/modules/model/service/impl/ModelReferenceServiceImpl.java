@@ -0,0 +1,154 @@
+package xiaozhi.modules.model.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.google.common.collect.Lists;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.modules.agent.entity.AgentEntity;
+import xiaozhi.modules.model.dao.ModelReferenceDao;
+import xiaozhi.modules.model.entity.ModelConfigEntity;
+import xiaozhi.modules.model.entity.ModelReferenceEntity;
+import xiaozhi.modules.model.service.ModelReferenceService;
+import xiaozhi.modules.model.vo.ModelReferenceVO;
+
+@Slf4j
+@Service
+@AllArgsConstructor
+public class ModelReferenceServiceImpl implements ModelReferenceService {
+    private static final String INTENT_MODEL_TYPE = "Intent";
+    private static final String INTENT_LLM_KEY = "llm";
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private final ModelReferenceDao modelReferenceDao;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void syncAgentModels(AgentEntity agent) {
+        List<ModelReferenceEntity> rows = new ArrayList<>();
+        addAgentModels(rows, agent);
+
+        modelReferenceDao.deleteByOwner(ModelReferenceEntity.OWNER_AGENT, agent.getId(),
+                ModelReferenceEntity.REF_MODEL);
+        insert(rows);
+    }
+
+    private void addAgentModels(List<ModelReferenceEntity> rows, AgentEntity agent) {
+        addAgentModel(rows, agent, "ASR", agent.getAsrModelId());
+        addAgentModel(rows, agent, "VAD", agent.getVadModelId());
+        addAgentModel(rows, agent, "LLM", agent.getLlmModelId());
+        addAgentModel(rows, agent, "VLLM", agent.getVllmModelId());
+        addAgentModel(rows, agent, "TTS", agent.getTtsModelId());
+        addAgentModel(rows, agent, "Memory", agent.getMemModelId());
+        addAgentModel(rows, agent, "Intent", agent.getIntentModelId());
+    }
+
+    private void addAgentModel(List<ModelReferenceEntity> rows, AgentEntity agent, String slot, String modelId) {
+        if (StringUtils.isNotBlank(modelId)) {
+            rows.add(new ModelReferenceEntity(ModelReferenceEntity.REF_MODEL, modelId,
+                    ModelReferenceEntity.OWNER_AGENT, agent.getId(), slot));
+        }
+    }
+
+    private void addAgentPlugins(List<ModelReferenceEntity> rows, String agentId, Collection<String> pluginIds) {
+        for (String pluginId : new LinkedHashSet<>(pluginIds)) {
+            if (StringUtils.isNotBlank(pluginId)) {
+                rows.add(new ModelReferenceEntity(ModelReferenceEntity.REF_PLUGIN, pluginId,
+                        ModelReferenceEntity.OWNER_AGENT, agentId, ModelReferenceEntity.SLOT_PLUGIN));
+            }
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void syncAgentPlugins(String agentId, Collection<String> pluginIds) {
+        List<ModelReferenceEntity> rows = new ArrayList<>();
+        addAgentPlugins(rows, agentId, pluginIds);
+
+        deleteAgentPlugins(agentId);
+        insert(rows);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void addAgents(Collection<AgentEntity> agents, Collection<String> pluginIds) {
+        List<ModelReferenceEntity> rows = new ArrayList<>();
+        for (AgentEntity agent : agents) {
+            addAgentModels(rows, agent);
+            addAgentPlugins(rows, agent.getId(), pluginIds);
+        }
+        Lists.partition(rows, INSERT_BATCH_SIZE).forEach(this::insert);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void syncModelConfig(ModelConfigEntity modelConfig) {
+        modelReferenceDao.deleteByOwner(ModelReferenceEntity.OWNER_MODEL_CONFIG, modelConfig.getId(), null);
+        if (!INTENT_MODEL_TYPE.equalsIgnoreCase(modelConfig.getModelType()) || modelConfig.getConfigJson() == null) {
+            return;
+        }
+        String llmModelId = modelConfig.getConfigJson().getStr(INTENT_LLM_KEY);
+        if (StringUtils.isNotBlank(llmModelId) && !"null".equals(llmModelId)) {
+            insert(List.of(new ModelReferenceEntity(ModelReferenceEntity.REF_MODEL, llmModelId,
+                    ModelReferenceEntity.OWNER_MODEL_CONFIG, modelConfig.getId(), "LLM")));
+        }
+    }
+
+    @Override
+    public void deleteByAgentId(String agentId) {
+        modelReferenceDao.deleteByOwner(ModelReferenceEntity.OWNER_AGENT, agentId, null);
+    }
+
+    @Override
+    public void deleteAgentPlugins(String agentId) {
+        modelReferenceDao.deleteByOwner(ModelReferenceEntity.OWNER_AGENT, agentId, ModelReferenceEntity.REF_PLUGIN);
+    }
+
+    @Override
+    public void deleteByAgentUserId(Long userId) {
+        modelReferenceDao.deleteByAgentUserId(userId);
+    }
+
+    @Override
+    public void deleteByModelConfigId(String modelConfigId) {
+        modelReferenceDao.deleteByOwner(ModelReferenceEntity.OWNER_MODEL_CONFIG, modelConfigId, null);
+    }
+
+    @Override
+    public List<ModelReferenceVO> getReferences(String refType, String refId) {
+        return modelReferenceDao.selectByRef(refType, refId);
+    }
+
+    @Override
+    public boolean isReferenced(String refType, Collection<String> refIds) {
+        if (refIds == null || refIds.isEmpty()) {
+            return false;
+        }
+        return modelReferenceDao.countByRefIds(refType, refIds) > 0;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int verify() {
+        int missing = modelReferenceDao.insertMissing();
+        int stale = modelReferenceDao.deleteStale();
+        if (missing > 0 || stale > 0) {
+            log.warn("模型引用索引与源表不一致，已补上{}条，删除{}条", missing, stale);
+        }
+        return missing + stale;
+    }
+
+    private void insert(List<ModelReferenceEntity> rows) {
+        if (!rows.isEmpty()) {
+            modelReferenceDao.insertBatch(rows);
+        }
+    }
+}
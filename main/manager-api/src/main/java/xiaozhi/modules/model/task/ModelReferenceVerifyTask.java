@@ -0,0 +1,27 @@
+package xiaozhi.modules.model.task;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.modules.model.service.ModelReferenceService;
+
+/**
+ * 每天按源表校验模型引用索引，修复漏写或直接改库造成的偏差
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ModelReferenceVerifyTask {
+    private final ModelReferenceService modelReferenceService;
+
+    @Scheduled(cron = "0 20 3 * * ?")
+    public void verify() {
+        try {
+            modelReferenceService.verify();
+        } catch (Exception e) {
+            log.error("校验模型引用索引失败", e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package xiaozhi.modules.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "模型引用方VO")
+public class ModelReferenceVO {
+
+    @Schema(description = "引用方类型：AGENT智能体，MODEL_CONFIG模型配置")
+    private String ownerType;
+
+    @Schema(description = "引用方ID")
+    private String ownerId;
+
+    @Schema(description = "引用方名称")
+    private String ownerName;
+
+    @Schema(description = "引用位置，如ASR、LLM、Plugin")
+    private String slot;
+}
@@ -0,0 +1,122 @@
+package xiaozhi.modules.security.captcha;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.wf.captcha.SpecCaptcha;
+import com.wf.captcha.base.Captcha;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 图形验证码池
+ * <p>
+ * 验证码图片渲染依赖AWT字体绘制，CPU开销较大。后台线程预先生成图片和答案放入有界队列，
+ * 队列满时阻塞等待，请求线程直接取用；池被取空时退回同步生成。每张图片只发放一次
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(CaptchaPoolProperties.class)
+public class CaptchaPool {
+    private final CaptchaPoolProperties properties;
+    private final BlockingQueue<CaptchaImage> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final Counter refillCounter;
+    private final Counter fallbackCounter;
+
+    private volatile boolean running;
+
+    public CaptchaPool(CaptchaPoolProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getPoolSize()));
+        this.refillCounter = Counter.builder("xiaozhi.captcha.pool.refill")
+                .description("后台生成的验证码数量")
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("xiaozhi.captcha.pool.fallback")
+                .description("池为空时同步生成的验证码数量")
+                .register(meterRegistry);
+        Gauge.builder("xiaozhi.captcha.pool.depth", queue, BlockingQueue::size)
+                .description("池中可用的验证码数量")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isPoolEnabled()) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < Math.max(1, properties.getRefillThreads()); i++) {
+            Thread worker = new Thread(this::refill, "captcha-refill-" + i);
+            worker.setDaemon(true);
+            worker.setPriority(Thread.MIN_PRIORITY);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * 取一张验证码，池为空时同步生成
+     */
+    public CaptchaImage take() {
+        CaptchaImage image = queue.poll();
+        if (image != null) {
+            return image;
+        }
+        fallbackCounter.increment();
+        return render();
+    }
+
+    private void refill() {
+        while (running) {
+            try {
+                queue.put(render());
+                refillCounter.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // 渲染异常时稍后重试，避免空转
+                log.error("生成验证码失败", e);
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private CaptchaImage render() {
+        SpecCaptcha captcha = new SpecCaptcha(150, 40);
+        captcha.setLen(5);
+        captcha.setCharType(Captcha.TYPE_DEFAULT);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        captcha.out(out);
+        return new CaptchaImage(out.toByteArray(), captcha.text());
+    }
+
+    /**
+     * 验证码图片(PNG)及答案
+     */
+    public record CaptchaImage(byte[] image, String answer) {
+    }
+}
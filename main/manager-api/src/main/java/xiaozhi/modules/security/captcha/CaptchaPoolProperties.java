@@ -0,0 +1,25 @@
+package xiaozhi.modules.security.captcha;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 图形验证码池配置项
+ */
+@Data
+@ConfigurationProperties(prefix = "renren.captcha")
+public class CaptchaPoolProperties {
+    /**
+     * 是否预生成验证码，关闭后每次请求同步生成
+     */
+    private boolean poolEnabled = true;
+    /**
+     * 池中保持的验证码数量
+     */
+    private int poolSize = 200;
+    /**
+     * 后台生成线程数
+     */
+    private int refillThreads = 1;
+}
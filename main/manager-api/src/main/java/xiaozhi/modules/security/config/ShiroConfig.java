@@ -4,6 +4,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.apache.shiro.cache.CacheManager;
 import org.apache.shiro.mgt.SecurityManager;
 import org.apache.shiro.session.mgt.SessionManager;
 import org.apache.shiro.spring.LifecycleBeanPostProcessor;
@@ -19,7 +20,7 @@ import jakarta.servlet.Filter;
 import xiaozhi.modules.security.oauth2.Oauth2Filter;
 import xiaozhi.modules.security.oauth2.Oauth2Realm;
 import xiaozhi.modules.security.secret.ServerSecretFilter;
-import xiaozhi.modules.sys.service.SysParamsService;
+import xiaozhi.modules.security.secret.ServerSecretRegistry;
 
 /**
  * Shiro的配置文件
@@ -28,6 +29,10 @@ import xiaozhi.modules.sys.service.SysParamsService;
  */
 @Configuration
 public class ShiroConfig {
+    /**
+     * 权限缓存过期时间，单位：秒
+     */
+    public static final long AUTHORIZATION_CACHE_EXPIRE = 10 * 60L;
 
     @Bean
     public DefaultWebSessionManager sessionManager() {
@@ -38,9 +43,19 @@ public class ShiroConfig {
         return sessionManager;
     }
 
+    /**
+     * 权限信息缓存，用户变更时由ShiroService主动清除
+     */
+    @Bean
+    public CacheManager shiroCacheManager() {
+        return new ShiroLocalCacheManager(10000, AUTHORIZATION_CACHE_EXPIRE);
+    }
+
     @Bean("securityManager")
-    public SecurityManager securityManager(Oauth2Realm oAuth2Realm, SessionManager sessionManager) {
+    public SecurityManager securityManager(Oauth2Realm oAuth2Realm, SessionManager sessionManager,
+            CacheManager shiroCacheManager) {
         DefaultWebSecurityManager securityManager = new DefaultWebSecurityManager();
+        securityManager.setCacheManager(shiroCacheManager);
         securityManager.setRealm(oAuth2Realm);
         securityManager.setSessionManager(sessionManager);
         securityManager.setRememberMeManager(null);
@@ -48,7 +63,8 @@ public class ShiroConfig {
     }
 
     @Bean("shiroFilter")
-    public ShiroFilterFactoryBean shirFilter(SecurityManager securityManager, SysParamsService sysParamsService) {
+    public ShiroFilterFactoryBean shirFilter(SecurityManager securityManager,
+            ServerSecretRegistry serverSecretRegistry) {
         ShiroFilterConfiguration config = new ShiroFilterConfiguration();
         config.setFilterOncePerRequest(true);
 
@@ -60,7 +76,7 @@ public class ShiroConfig {
         // oauth过滤
         filters.put("oauth2", new Oauth2Filter());
         // 服务密钥过滤
-        filters.put("server", new ServerSecretFilter(sysParamsService));
+        filters.put("server", new ServerSecretFilter(serverSecretRegistry));
         shiroFilter.setFilters(filters);
 
         // 添加Shiro的内置过滤器
@@ -90,6 +106,9 @@ public class ShiroConfig {
         filterMap.put("/agent/chat-history/report", "server");
         filterMap.put("/agent/saveMemory/**", "server");
         filterMap.put("/agent/play/**", "anon");
+        // 服务指标仅超级管理员可查看
+        filterMap.put("/actuator/metrics", "oauth2,perms[sys:role:superAdmin]");
+        filterMap.put("/actuator/metrics/**", "oauth2,perms[sys:role:superAdmin]");
         filterMap.put("/**", "oauth2");
         shiroFilter.setFilterChainDefinitionMap(filterMap);
 
@@ -0,0 +1,80 @@
+package xiaozhi.modules.security.config;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.shiro.cache.Cache;
+import org.apache.shiro.cache.CacheException;
+import org.apache.shiro.cache.CacheManager;
+
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * 基于Guava的Shiro本地缓存，条目有数量上限和过期时间
+ */
+public class ShiroLocalCacheManager implements CacheManager {
+    private final ConcurrentMap<String, Cache<?, ?>> caches = new ConcurrentHashMap<>();
+    private final long maximumSize;
+    private final long expireSeconds;
+
+    public ShiroLocalCacheManager(long maximumSize, long expireSeconds) {
+        this.maximumSize = maximumSize;
+        this.expireSeconds = expireSeconds;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> Cache<K, V> getCache(String name) throws CacheException {
+        return (Cache<K, V>) caches.computeIfAbsent(name, key -> new LocalCache<>());
+    }
+
+    private class LocalCache<K, V> implements Cache<K, V> {
+        private final com.google.common.cache.Cache<K, V> cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+                .build();
+
+        @Override
+        public V get(K key) {
+            return key == null ? null : cache.getIfPresent(key);
+        }
+
+        @Override
+        public V put(K key, V value) {
+            V previous = cache.getIfPresent(key);
+            cache.put(key, value);
+            return previous;
+        }
+
+        @Override
+        public V remove(K key) {
+            V previous = cache.getIfPresent(key);
+            cache.invalidate(key);
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            cache.invalidateAll();
+        }
+
+        @Override
+        public int size() {
+            return (int) cache.size();
+        }
+
+        @Override
+        public Set<K> keys() {
+            return Set.copyOf(cache.asMap().keySet());
+        }
+
+        @Override
+        public Collection<V> values() {
+            return List.copyOf(cache.asMap().values());
+        }
+    }
+}
@@ -17,6 +17,8 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
+import xiaozhi.common.annotation.ResponseCache;
+import xiaozhi.common.cache.CacheRegion;
 import xiaozhi.common.constant.Constant;
 import xiaozhi.common.exception.ErrorCode;
 import xiaozhi.common.exception.RenException;
@@ -27,7 +29,7 @@ import xiaozhi.common.validator.AssertUtils;
 import xiaozhi.common.validator.ValidatorUtils;
 import xiaozhi.modules.security.dto.LoginDTO;
 import xiaozhi.modules.security.dto.SmsVerificationDTO;
-import xiaozhi.modules.security.password.PasswordUtils;
+import xiaozhi.modules.security.password.PasswordHashService;
 import xiaozhi.modules.security.service.CaptchaService;
 import xiaozhi.modules.security.service.SysUserTokenService;
 import xiaozhi.modules.security.user.SecurityUser;
@@ -52,6 +54,7 @@ public class LoginController {
     private final CaptchaService captchaService;
     private final SysParamsService sysParamsService;
     private final SysDictDataService sysDictDataService;
+    private final PasswordHashService passwordHashService;
 
     @GetMapping("/captcha")
     @Operation(summary = "验证码")
@@ -95,9 +98,16 @@ public class LoginController {
             throw new RenException("请检测用户和密码是否输入错误");
         }
         // 判断密码是否正确，不一样则进入if
-        if (!PasswordUtils.matches(login.getPassword(), userDTO.getPassword())) {
+        if (!passwordHashService.matches(login.getUsername(), login.getPassword(), userDTO.getPassword())) {
             throw new RenException("请检测用户和密码是否输入错误");
         }
+        // 哈希强度低于当前配置时，借助本次明文密码重新哈希，繁忙时留到下次登录
+        if (passwordHashService.needsRehash(userDTO.getPassword())) {
+            String rehashed = passwordHashService.tryEncode(login.getUsername(), login.getPassword());
+            if (rehashed != null) {
+                sysUserService.updatePasswordHash(userDTO.getId(), rehashed);
+            }
+        }
         return sysUserTokenService.createToken(userDTO.getId());
     }
 
@@ -195,6 +205,8 @@ public class LoginController {
     }
 
     @GetMapping("/pub-config")
+    @ResponseCache(regions = { CacheRegion.SYS_PARAMS, CacheRegion.DICT, CacheRegion.SYS_USER }, ttl = 60,
+            maxAge = 60, shared = true)
     @Operation(summary = "公共配置")
     public Result<Map<String, Object>> pubConfig() {
         Map<String, Object> config = new HashMap<>();
@@ -6,27 +6,17 @@ import java.util.Set;
 import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
-import org.apache.shiro.authc.DisabledAccountException;
-import org.apache.shiro.authc.IncorrectCredentialsException;
-import org.apache.shiro.authc.LockedAccountException;
 import org.apache.shiro.authc.SimpleAuthenticationInfo;
 import org.apache.shiro.authz.AuthorizationInfo;
 import org.apache.shiro.authz.SimpleAuthorizationInfo;
 import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.subject.PrincipalCollection;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.Resource;
-import xiaozhi.common.exception.ErrorCode;
 import xiaozhi.common.user.UserDetail;
-import xiaozhi.common.utils.ConvertUtils;
-import xiaozhi.common.utils.MessageUtils;
-import xiaozhi.modules.security.entity.SysUserTokenEntity;
-import xiaozhi.modules.security.service.ShiroService;
-import xiaozhi.modules.sys.entity.SysUserEntity;
+import xiaozhi.modules.security.token.TokenStrategyManager;
 import xiaozhi.modules.sys.enums.SuperAdminEnum;
 
 /**
@@ -36,17 +26,35 @@ import xiaozhi.modules.sys.enums.SuperAdminEnum;
  */
 @Component
 public class Oauth2Realm extends AuthorizingRealm {
+    /**
+     * 权限缓存名称，缓存key为用户ID
+     */
+    public static final String AUTHORIZATION_CACHE_NAME = "oauth2:authorization";
+
     @Lazy
     @Resource
-    private ShiroService shiroService;
+    private TokenStrategyManager tokenStrategyManager;
 
-    private static final Logger logger = LoggerFactory.getLogger(Oauth2Realm.class);
+    public Oauth2Realm() {
+        // 认证结果由token策略自行缓存，这里只开启权限缓存
+        setAuthenticationCachingEnabled(false);
+        setAuthorizationCachingEnabled(true);
+        setAuthorizationCacheName(AUTHORIZATION_CACHE_NAME);
+    }
 
     @Override
     public boolean supports(AuthenticationToken token) {
         return token instanceof Oauth2Token;
     }
 
+    /**
+     * 按用户ID缓存权限，同一用户的多个token共享，便于用户变更时清除
+     */
+    @Override
+    protected Object getAuthorizationCacheKey(PrincipalCollection principals) {
+        return ((UserDetail) principals.getPrimaryPrincipal()).getId();
+    }
+
     /**
      * 授权(验证权限时调用)
      */
@@ -76,30 +84,8 @@ public class Oauth2Realm extends AuthorizingRealm {
     protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken token) throws AuthenticationException {
         String accessToken = (String) token.getPrincipal();
 
-        // 根据accessToken，查询用户信息
-        SysUserTokenEntity tokenEntity = shiroService.getByToken(accessToken);
-        // token失效
-        if (tokenEntity == null || tokenEntity.getExpireDate().getTime() < System.currentTimeMillis()) {
-            throw new IncorrectCredentialsException(MessageUtils.getMessage(ErrorCode.TOKEN_INVALID));
-        }
-
-        // 查询用户信息
-        SysUserEntity userEntity = shiroService.getUser(tokenEntity.getUserId());
-
-        // 转换成UserDetail对象
-        UserDetail userDetail = ConvertUtils.sourceToTarget(userEntity, UserDetail.class);
-
-        userDetail.setToken(accessToken);
-
-        // 账号锁定
-        if (userDetail.getStatus() == null) {
-            logger.error("账号状态异常，status 不能为空");
-            throw new DisabledAccountException(MessageUtils.getMessage(ErrorCode.ACCOUNT_DISABLE));
-        }
-
-        if (userDetail.getStatus() == 0) {
-            throw new LockedAccountException(MessageUtils.getMessage(ErrorCode.ACCOUNT_LOCK));
-        }
+        // 按token格式交给对应策略校验，得到登录用户
+        UserDetail userDetail = tokenStrategyManager.authenticate(accessToken);
 
         SimpleAuthenticationInfo info = new SimpleAuthenticationInfo(userDetail, accessToken, getName());
         return info;
@@ -54,7 +54,7 @@ import java.security.SecureRandom;
 public class BCrypt {
     // BCrypt parameters
 
-    private static final int GENSALT_DEFAULT_LOG2_ROUNDS = 10;
+    static final int GENSALT_DEFAULT_LOG2_ROUNDS = 10;
     private static final int BCRYPT_SALT_LEN = 16;
     // Blowfish parameters
     private static final int BLOWFISH_NUM_ROUNDS = 16;
@@ -78,4 +78,19 @@ public class BCryptPasswordEncoder implements PasswordEncoder {
 
         return BCrypt.checkpw(rawPassword.toString(), encodedPassword);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns true if the encoded password was hashed with a strength lower than
+     * the configured one.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || !BCRYPT_PATTERN.matcher(encodedPassword).matches()) {
+            return false;
+        }
+        int rounds = Integer.parseInt(encodedPassword.substring(encodedPassword.indexOf('$', 1) + 1,
+                encodedPassword.indexOf('$', 1) + 3));
+        int target = strength > 0 ? strength : BCrypt.GENSALT_DEFAULT_LOG2_ROUNDS;
+        return rounds < target;
+    }
+}
@@ -0,0 +1,37 @@
+package xiaozhi.modules.security.password;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 密码哈希配置项
+ */
+@Data
+@ConfigurationProperties(prefix = "renren.password")
+public class PasswordHashProperties {
+    /**
+     * BCrypt强度（log rounds），调高后旧密码在下次登录成功时自动按新强度重新哈希
+     */
+    private int strength = 10;
+    /**
+     * 哈希线程数，默认为CPU核数的一半，避免占满CPU影响设备接口
+     */
+    private int poolSize = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    /**
+     * 等待队列长度，队列满时直接拒绝
+     */
+    private int queueCapacity = 64;
+    /**
+     * 排队超时时间，单位：毫秒，超时未开始执行的请求被拒绝
+     */
+    private long queueTimeout = 2000;
+    /**
+     * 同一IP同时进行的哈希数上限
+     */
+    private int maxPerIp = 4;
+    /**
+     * 同一用户同时进行的哈希数上限
+     */
+    private int maxPerUser = 2;
+}
@@ -0,0 +1,203 @@
+package xiaozhi.modules.security.password;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.utils.HttpContextUtils;
+import xiaozhi.common.utils.IpUtils;
+
+/**
+ * 密码哈希服务
+ * <p>
+ * BCrypt计算放在独立的有界线程池中执行，请求线程只等待结果。队列满、排队超时、
+ * 同一IP或同一用户并发超过上限时直接拒绝，避免登录洪峰占满CPU拖慢OTA、配置等设备接口
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(PasswordHashProperties.class)
+public class PasswordHashService {
+    private static final String BUSY_MESSAGE = "登录请求过多，请稍后再试";
+
+    private final PasswordHashProperties properties;
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentHashMap<String, Integer> inFlight = new ConcurrentHashMap<>();
+    private final Counter rejectedCounter;
+
+    public PasswordHashService(PasswordHashProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.passwordEncoder = new BCryptPasswordEncoder(properties.getStrength());
+        this.executor = new ThreadPoolExecutor(properties.getPoolSize(), properties.getPoolSize(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                new ThreadFactoryBuilder().setNameFormat("password-hash-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.rejectedCounter = Counter.builder("xiaozhi.password.hash.rejected")
+                .description("密码哈希被拒绝次数")
+                .register(meterRegistry);
+        Gauge.builder("xiaozhi.password.hash.queue", executor, e -> e.getQueue().size())
+                .description("等待执行的密码哈希数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 校验密码
+     *
+     * @param username    用户名，用于单用户并发限制，可为空
+     * @param rawPassword 明文密码
+     * @param encoded     已哈希的密码
+     */
+    public boolean matches(String username, String rawPassword, String encoded) {
+        if (rawPassword == null) {
+            return false;
+        }
+        return execute(username, () -> passwordEncoder.matches(rawPassword, encoded));
+    }
+
+    /**
+     * 按当前配置的强度哈希密码
+     *
+     * @param username    用户名，用于单用户并发限制，可为空
+     * @param rawPassword 明文密码
+     */
+    public String encode(String username, String rawPassword) {
+        return execute(username, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * 哈希密码，线程池繁忙时返回null而不抛异常，用于可以稍后再做的重新哈希
+     */
+    public String tryEncode(String username, String rawPassword) {
+        try {
+            return encode(username, rawPassword);
+        } catch (RenException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 已哈希的密码强度是否低于当前配置，需要重新哈希
+     */
+    public boolean needsRehash(String encoded) {
+        return passwordEncoder.upgradeEncoding(encoded);
+    }
+
+    private <T> T execute(String username, Callable<T> task) {
+        String ipKey = null;
+        HttpServletRequest request = HttpContextUtils.getHttpServletRequest();
+        if (request != null) {
+            ipKey = "ip:" + IpUtils.getIpAddr(request);
+        }
+        String userKey = StringUtils.isNotBlank(username) ? "user:" + username : null;
+
+        if (!acquire(ipKey, properties.getMaxPerIp())) {
+            throw reject("同一IP并发超过上限，ip={}", ipKey);
+        }
+        try {
+            if (!acquire(userKey, properties.getMaxPerUser())) {
+                throw reject("同一用户并发超过上限，{}", userKey);
+            }
+            try {
+                return submit(task);
+            } finally {
+                release(userKey);
+            }
+        } finally {
+            release(ipKey);
+        }
+    }
+
+    private <T> T submit(Callable<T> task) {
+        long deadline = System.currentTimeMillis() + properties.getQueueTimeout();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                // 排队已超时的任务不再计算，调用方已返回
+                if (System.currentTimeMillis() > deadline) {
+                    return null;
+                }
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            throw reject("哈希队列已满，队列长度={}", executor.getQueue().size());
+        }
+
+        try {
+            T result = future.get(Math.max(0, deadline - System.currentTimeMillis()) + executionTimeout(),
+                    TimeUnit.MILLISECONDS);
+            if (result == null) {
+                throw reject("哈希排队超时，超时时间={}ms", properties.getQueueTimeout());
+            }
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw reject("哈希执行超时，强度={}", properties.getStrength());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RenException(BUSY_MESSAGE, e);
+        } catch (ExecutionException e) {
+            throw new RenException(BUSY_MESSAGE, e.getCause());
+        }
+    }
+
+    /**
+     * 单次哈希允许的执行时间，按强度估算并留足余量
+     */
+    private long executionTimeout() {
+        return Math.max(1000L, (1L << properties.getStrength()) / 2);
+    }
+
+    private boolean acquire(String key, int max) {
+        if (key == null) {
+            return true;
+        }
+        boolean[] acquired = new boolean[1];
+        inFlight.compute(key, (k, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= max) {
+                return count;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    private void release(String key) {
+        if (key == null) {
+            return;
+        }
+        inFlight.computeIfPresent(key, (k, count) -> count <= 1 ? null : count - 1);
+    }
+
+    private RenException reject(String message, Object arg) {
+        rejectedCounter.increment();
+        log.warn("拒绝密码哈希：" + message, arg);
+        return new RenException(BUSY_MESSAGE);
+    }
+}
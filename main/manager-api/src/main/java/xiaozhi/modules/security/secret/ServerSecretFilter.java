@@ -12,12 +12,10 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import xiaozhi.common.constant.Constant;
 import xiaozhi.common.exception.ErrorCode;
 import xiaozhi.common.utils.HttpContextUtils;
 import xiaozhi.common.utils.JsonUtils;
 import xiaozhi.common.utils.Result;
-import xiaozhi.modules.sys.service.SysParamsService;
 
 /**
  * Config API 过滤器
@@ -25,7 +23,7 @@ import xiaozhi.modules.sys.service.SysParamsService;
 @Slf4j
 @RequiredArgsConstructor
 public class ServerSecretFilter extends AuthenticatingFilter {
-    private final SysParamsService sysParamsService;
+    private final ServerSecretRegistry serverSecretRegistry;
 
     @Override
     protected ServerSecretToken createToken(ServletRequest request, ServletResponse response) {
@@ -59,9 +57,9 @@ public class ServerSecretFilter extends AuthenticatingFilter {
             return false;
         }
 
-        // 验证token是否匹配
-        String serverSecret = getServerSecret();
-        if (StringUtils.isBlank(serverSecret) || !serverSecret.equals(token)) {
+        // 验证token是否为当前有效的服务器密钥
+        if (!serverSecretRegistry.matches(token)) {
+            serverSecretRegistry.recordFailure(servletRequest.getRemoteAddr());
             // token无效，返回401
             this.sendUnauthorizedResponse((HttpServletResponse) servletResponse, "无效的服务器密钥");
             return false;
@@ -98,8 +96,4 @@ public class ServerSecretFilter extends AuthenticatingFilter {
         }
         return token;
     }
-
-    private String getServerSecret() {
-        return sysParamsService.getValue(Constant.SERVER_SECRET, true);
-    }
 }
@@ -0,0 +1,158 @@
+package xiaozhi.modules.security.secret;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.constant.Constant;
+import xiaozhi.common.utils.DateUtils;
+import xiaozhi.common.utils.JsonUtils;
+import xiaozhi.modules.sys.params.SysParamsRegistry;
+
+/**
+ * 服务器密钥集合
+ * <p>
+ * server.secret为主密钥，始终有效；server.secrets中的密钥按各自的生效、过期时间有效，用于不停机轮换：
+ * 先把新密钥加入server.secrets，逐台更新xiaozhi-server，再把新密钥设为server.secret、旧密钥放入server.secrets并设置过期时间。
+ * 密钥只保存SHA-256摘要，比对不提前退出，系统参数快照中相关参数变化时刷新
+ */
+@Slf4j
+@Component
+public class ServerSecretRegistry {
+    private static final String ACTIVE_FROM = "activeFrom";
+    private static final String EXPIRES_AT = "expiresAt";
+    private static final String SECRET = "secret";
+    private static final int FAILURE_LOG_INTERVAL = 100;
+
+    private final SysParamsRegistry sysParamsRegistry;
+    private final Counter failureCounter;
+
+    /**
+     * 每个远程地址在最近一段时间内的认证失败次数
+     */
+    private final Cache<String, AtomicLong> failures = CacheBuilder.newBuilder()
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .maximumSize(10000)
+            .build();
+
+    private volatile List<SecretEntry> secrets = List.of();
+
+    public ServerSecretRegistry(SysParamsRegistry sysParamsRegistry, MeterRegistry meterRegistry) {
+        this.sysParamsRegistry = sysParamsRegistry;
+        this.failureCounter = Counter.builder("xiaozhi.server.secret.failure")
+                .description("服务器密钥校验失败次数")
+                .register(meterRegistry);
+        // 按来源的失败次数见日志，指标只记录来源数量，避免地址作为标签导致指标数量失控
+        Gauge.builder("xiaozhi.server.secret.failure.sources", failures, Cache::size)
+                .description("近10分钟内服务器密钥校验失败的来源地址数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        sysParamsRegistry.subscribe((previous, current, changed) -> refresh(),
+                Constant.SERVER_SECRET, Constant.SERVER_SECRETS);
+        refresh();
+    }
+
+    /**
+     * 校验请求携带的密钥是否为当前有效的任一密钥
+     */
+    public boolean matches(String token) {
+        if (StringUtils.isBlank(token)) {
+            return false;
+        }
+        byte[] digest = digest(token);
+        long now = System.currentTimeMillis();
+        boolean matched = false;
+        for (SecretEntry entry : secrets) {
+            matched |= MessageDigest.isEqual(entry.digest(), digest) && entry.isActive(now);
+        }
+        return matched;
+    }
+
+    /**
+     * 记录一次认证失败
+     */
+    public void recordFailure(String remoteAddr) {
+        failureCounter.increment();
+        String key = StringUtils.defaultIfBlank(remoteAddr, "unknown");
+        long count = failures.asMap().computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+        if (count == 1 || count % FAILURE_LOG_INTERVAL == 0) {
+            log.warn("服务器密钥校验失败，来源={}，近期累计{}次", key, count);
+        }
+    }
+
+    public void refresh() {
+        List<SecretEntry> loaded = new ArrayList<>();
+        try {
+            String primary = sysParamsRegistry.getString(Constant.SERVER_SECRET);
+            if (isPresent(primary)) {
+                loaded.add(new SecretEntry(digest(primary), null, null));
+            }
+            String rotating = sysParamsRegistry.getString(Constant.SERVER_SECRETS);
+            if (isPresent(rotating)) {
+                for (Map<String, String> item : JsonUtils.parseObject(rotating,
+                        new TypeReference<List<Map<String, String>>>() {
+                        })) {
+                    if (isPresent(item.get(SECRET))) {
+                        loaded.add(new SecretEntry(digest(item.get(SECRET)),
+                                parseTime(item.get(ACTIVE_FROM)), parseTime(item.get(EXPIRES_AT))));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // 保留上一次加载的密钥，避免参数读取异常时所有服务端认证失败
+            log.error("加载服务器密钥失败，继续使用已加载的{}个密钥", secrets.size(), e);
+            return;
+        }
+        secrets = List.copyOf(loaded);
+    }
+
+    private boolean isPresent(String value) {
+        return StringUtils.isNotBlank(value) && !"null".equals(value);
+    }
+
+    private Long parseTime(String value) {
+        if (StringUtils.isBlank(value)) {
+            return null;
+        }
+        Date date = DateUtils.parse(value, DateUtils.DATE_TIME_PATTERN);
+        if (date == null) {
+            throw new IllegalArgumentException("时间格式应为yyyy-MM-dd HH:mm:ss：" + value);
+        }
+        return date.getTime();
+    }
+
+    private static byte[] digest(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record SecretEntry(byte[] digest, Long activeFrom, Long expiresAt) {
+        boolean isActive(long now) {
+            return (activeFrom == null || activeFrom <= now) && (expiresAt == null || now < expiresAt);
+        }
+    }
+}
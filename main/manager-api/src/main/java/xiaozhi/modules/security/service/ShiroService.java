@@ -1,5 +1,7 @@
 package xiaozhi.modules.security.service;
 
+import java.util.Collection;
+
 import xiaozhi.modules.security.entity.SysUserTokenEntity;
 import xiaozhi.modules.sys.entity.SysUserEntity;
 
@@ -19,4 +21,25 @@ public interface ShiroService {
      */
     SysUserEntity getUser(Long userId);
 
+    /**
+     * 清除用户当前token的认证缓存，登出、修改密码、重新签发token后调用
+     *
+     * @param userId 用户ID
+     */
+    void evictToken(Long userId);
+
+    /**
+     * 清除用户信息及权限缓存，用户状态、密码变更或删除后调用
+     *
+     * @param userId 用户ID
+     */
+    void evictUser(Long userId);
+
+    /**
+     * 批量清除用户信息及权限缓存，redis中的缓存一次删除
+     *
+     * @param userIds 用户ID
+     */
+    void evictUsers(Collection<Long> userIds);
+
 }
@@ -10,8 +10,6 @@ import org.springframework.stereotype.Service;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.wf.captcha.SpecCaptcha;
-import com.wf.captcha.base.Captcha;
 
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletResponse;
@@ -19,6 +17,7 @@ import xiaozhi.common.constant.Constant;
 import xiaozhi.common.exception.RenException;
 import xiaozhi.common.redis.RedisKeys;
 import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.modules.security.captcha.CaptchaPool;
 import xiaozhi.modules.security.service.CaptchaService;
 import xiaozhi.modules.sms.service.SmsService;
 import xiaozhi.modules.sys.service.SysParamsService;
@@ -34,6 +33,8 @@ public class CaptchaServiceImpl implements CaptchaService {
     private SmsService smsService;
     @Resource
     private SysParamsService sysParamsService;
+    @Resource
+    private CaptchaPool captchaPool;
     @Value("${renren.redis.open}")
     private boolean open;
     /**
@@ -44,19 +45,18 @@ public class CaptchaServiceImpl implements CaptchaService {
 
     @Override
     public void create(HttpServletResponse response, String uuid) throws IOException {
-        response.setContentType("image/gif");
+        // 从验证码池取一张，答案与本次uuid绑定
+        CaptchaPool.CaptchaImage captcha = captchaPool.take();
+
+        response.setContentType("image/png");
         response.setHeader("Pragma", "No-cache");
         response.setHeader("Cache-Control", "no-cache");
         response.setDateHeader("Expires", 0);
-
-        // 生成验证码
-        SpecCaptcha captcha = new SpecCaptcha(150, 40);
-        captcha.setLen(5);
-        captcha.setCharType(Captcha.TYPE_DEFAULT);
-        captcha.out(response.getOutputStream());
+        response.setContentLength(captcha.image().length);
+        response.getOutputStream().write(captcha.image());
 
         // 保存到缓存
-        setCache(uuid, captcha.text());
+        setCache(uuid, captcha.answer());
     }
 
     @Override
@@ -1,27 +1,218 @@
 package xiaozhi.modules.security.service.impl;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.shiro.cache.Cache;
+import org.apache.shiro.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.redis.RedisChangeLog;
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.modules.security.config.ShiroConfig;
 import xiaozhi.modules.security.dao.SysUserTokenDao;
 import xiaozhi.modules.security.entity.SysUserTokenEntity;
+import xiaozhi.modules.security.oauth2.Oauth2Realm;
 import xiaozhi.modules.security.service.ShiroService;
 import xiaozhi.modules.sys.dao.SysUserDao;
 import xiaozhi.modules.sys.entity.SysUserEntity;
 
-@AllArgsConstructor
+/**
+ * 认证信息缓存在redis中，稳定状态下请求认证不再查询数据库；
+ * redis未开启或不可用时直接查询数据库。权限缓存在各实例本地，清除时在redis中记录该用户的清除时间，
+ * 其他实例定时读取新的清除记录并清除本地缓存；记录只保留一个权限缓存有效期
+ */
+@Slf4j
 @Service
 public class ShiroServiceImpl implements ShiroService {
+    /**
+     * token缓存最长时间，单位：秒，不会超过token本身的剩余有效期
+     */
+    private static final long TOKEN_CACHE_EXPIRE = 30 * 60L;
+    /**
+     * 用户信息缓存时间，单位：秒
+     */
+    private static final long USER_CACHE_EXPIRE = 10 * 60L;
+
     private final SysUserDao sysUserDao;
     private final SysUserTokenDao sysUserTokenDao;
+    private final RedisUtils redisUtils;
+    private final CacheManager shiroCacheManager;
+    private final RedisChangeLog authorizationChanges;
+    /**
+     * 本实例已处理的各用户权限缓存清除时间，只保存有效期内的记录
+     */
+    private final Map<String, Long> authorizationEvictedAt = new ConcurrentHashMap<>();
+
+    public ShiroServiceImpl(SysUserDao sysUserDao, SysUserTokenDao sysUserTokenDao, RedisUtils redisUtils,
+            CacheManager shiroCacheManager) {
+        this.sysUserDao = sysUserDao;
+        this.sysUserTokenDao = sysUserTokenDao;
+        this.redisUtils = redisUtils;
+        this.shiroCacheManager = shiroCacheManager;
+        this.authorizationChanges = new RedisChangeLog(redisUtils, RedisKeys.getUserAuthorizationChangeKey(),
+                ShiroConfig.AUTHORIZATION_CACHE_EXPIRE);
+    }
 
     @Override
     public SysUserTokenEntity getByToken(String token) {
-        return sysUserTokenDao.getByToken(token);
+        String key = RedisKeys.getUserTokenKey(token);
+        Object cached = getCache(key);
+        if (cached instanceof SysUserTokenEntity tokenEntity) {
+            return tokenEntity;
+        }
+
+        SysUserTokenEntity tokenEntity = sysUserTokenDao.getByToken(token);
+        if (tokenEntity != null && tokenEntity.getExpireDate() != null) {
+            long remaining = (tokenEntity.getExpireDate().getTime() - System.currentTimeMillis()) / 1000;
+            if (remaining > 0) {
+                setCache(key, tokenEntity, Math.min(TOKEN_CACHE_EXPIRE, remaining));
+            }
+        }
+        return tokenEntity;
     }
 
     @Override
     public SysUserEntity getUser(Long userId) {
-        return sysUserDao.selectById(userId);
+        String key = RedisKeys.getUserPrincipalKey(userId);
+        Object cached = getCache(key);
+        if (cached instanceof SysUserEntity userEntity) {
+            return userEntity;
+        }
+
+        SysUserEntity userEntity = sysUserDao.selectById(userId);
+        if (userEntity != null) {
+            // 密码不进入缓存
+            userEntity.setPassword(null);
+            setCache(key, userEntity, USER_CACHE_EXPIRE);
+        }
+        return userEntity;
+    }
+
+    @Override
+    public void evictToken(Long userId) {
+        SysUserTokenEntity tokenEntity = sysUserTokenDao.getByUserId(userId);
+        if (tokenEntity == null) {
+            return;
+        }
+        String key = RedisKeys.getUserTokenKey(tokenEntity.getToken());
+        evictNowAndAfterCommit(() -> deleteCache(key));
+    }
+
+    @Override
+    public void evictUser(Long userId) {
+        String key = RedisKeys.getUserPrincipalKey(userId);
+        evictNowAndAfterCommit(() -> {
+            deleteCache(key);
+            evictAuthorization(List.of(userId));
+        });
+    }
+
+    @Override
+    public void evictUsers(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = userIds.stream().map(RedisKeys::getUserPrincipalKey).toList();
+        evictNowAndAfterCommit(() -> {
+            try {
+                redisUtils.delete(keys);
+            } catch (Exception e) {
+                log.warn("批量清除认证缓存失败，userIds={}", userIds, e);
+            }
+            evictAuthorization(userIds);
+        });
+    }
+
+    /**
+     * 清除本实例的权限缓存，并记录清除时间通知其他实例
+     */
+    private void evictAuthorization(Collection<Long> userIds) {
+        Cache<Object, Object> authorizationCache = shiroCacheManager.getCache(Oauth2Realm.AUTHORIZATION_CACHE_NAME);
+        for (Long userId : userIds) {
+            if (authorizationCache != null) {
+                authorizationCache.remove(userId);
+            }
+            try {
+                authorizationEvictedAt.put(String.valueOf(userId),
+                        authorizationChanges.record(String.valueOf(userId)));
+            } catch (Exception e) {
+                log.warn("记录权限缓存清除失败，其他实例的权限缓存将在过期后更新，userId={}", userId, e);
+            }
+        }
+    }
+
+    /**
+     * 定时从redis读取其他实例新的权限缓存清除记录，清除对应用户的本地权限缓存
+     */
+    @Scheduled(initialDelay = 5 * 1000L, fixedDelay = 5 * 1000L)
+    public void refreshAuthorizationVersions() {
+        Map<String, Long> changes;
+        try {
+            changes = authorizationChanges.poll();
+        } catch (Exception e) {
+            log.warn("同步权限缓存清除记录失败", e);
+            return;
+        }
+        if (changes == null) {
+            return;
+        }
+        Cache<Object, Object> authorizationCache = shiroCacheManager.getCache(Oauth2Realm.AUTHORIZATION_CACHE_NAME);
+        changes.forEach((userId, time) -> {
+            Long previous = authorizationEvictedAt.put(userId, time);
+            if (!time.equals(previous) && authorizationCache != null) {
+                authorizationCache.remove(Long.parseLong(userId));
+            }
+        });
+        // 超过有效期的记录不会再读到，本地也不再保留
+        long expired = System.currentTimeMillis() - ShiroConfig.AUTHORIZATION_CACHE_EXPIRE * 1000;
+        authorizationEvictedAt.values().removeIf(time -> time < expired);
+    }
+
+    /**
+     * 立即清除一次，事务提交后再清除一次，避免并发请求在提交前把旧数据重新写回缓存
+     */
+    private void evictNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private Object getCache(String key) {
+        try {
+            return redisUtils.get(key);
+        } catch (Exception e) {
+            log.warn("读取认证缓存失败，key={}", key, e);
+            return null;
+        }
+    }
+
+    private void setCache(String key, Object value, long expire) {
+        try {
+            redisUtils.set(key, value, expire);
+        } catch (Exception e) {
+            log.warn("写入认证缓存失败，key={}", key, e);
+        }
+    }
+
+    private void deleteCache(String key) {
+        try {
+            redisUtils.delete(key);
+        } catch (Exception e) {
+            log.warn("清除认证缓存失败，key={}", key, e);
+        }
     }
-}
\ No newline at end of file
+}
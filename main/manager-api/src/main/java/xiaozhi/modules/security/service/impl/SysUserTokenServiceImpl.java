@@ -4,7 +4,6 @@ import java.util.Date;
 
 import org.springframework.stereotype.Service;
 
-import cn.hutool.core.date.DateUtil;
 import lombok.AllArgsConstructor;
 import xiaozhi.common.exception.ErrorCode;
 import xiaozhi.common.exception.RenException;
@@ -14,8 +13,8 @@ import xiaozhi.common.utils.HttpContextUtils;
 import xiaozhi.common.utils.Result;
 import xiaozhi.modules.security.dao.SysUserTokenDao;
 import xiaozhi.modules.security.entity.SysUserTokenEntity;
-import xiaozhi.modules.security.oauth2.TokenGenerator;
 import xiaozhi.modules.security.service.SysUserTokenService;
+import xiaozhi.modules.security.token.TokenStrategyManager;
 import xiaozhi.modules.sys.dto.PasswordDTO;
 import xiaozhi.modules.sys.dto.SysUserDTO;
 import xiaozhi.modules.sys.service.SysUserService;
@@ -26,58 +25,12 @@ public class SysUserTokenServiceImpl extends BaseServiceImpl<SysUserTokenDao, Sy
         implements SysUserTokenService {
 
     private final SysUserService sysUserService;
-    /**
-     * 12小时后过期
-     */
-    private final static int EXPIRE = 3600 * 12;
+    private final TokenStrategyManager tokenStrategyManager;
 
     @Override
     public Result<TokenDTO> createToken(Long userId) {
-        // 用户token
-        String token;
-
-        // 当前时间
-        Date now = new Date();
-        // 过期时间
-        Date expireTime = new Date(now.getTime() + EXPIRE * 1000);
-
-        // 判断是否生成过token
-        SysUserTokenEntity tokenEntity = baseDao.getByUserId(userId);
-        if (tokenEntity == null) {
-            // 生成一个token
-            token = TokenGenerator.generateValue();
-
-            tokenEntity = new SysUserTokenEntity();
-            tokenEntity.setUserId(userId);
-            tokenEntity.setToken(token);
-            tokenEntity.setUpdateDate(now);
-            tokenEntity.setExpireDate(expireTime);
-
-            // 保存token
-            this.insert(tokenEntity);
-        } else {
-            // 判断token是否过期
-            if (tokenEntity.getExpireDate().getTime() < System.currentTimeMillis()) {
-                // token过期，重新生成token
-                token = TokenGenerator.generateValue();
-            } else {
-                token = tokenEntity.getToken();
-            }
-
-            tokenEntity.setToken(token);
-            tokenEntity.setUpdateDate(now);
-            tokenEntity.setExpireDate(expireTime);
-
-            // 更新token
-            this.updateById(tokenEntity);
-        }
-
-        String clientHash = HttpContextUtils.getClientCode();
-
-        TokenDTO tokenDTO = new TokenDTO();
-        tokenDTO.setToken(token);
-        tokenDTO.setExpire(EXPIRE);
-        tokenDTO.setClientHash(clientHash);
+        TokenDTO tokenDTO = tokenStrategyManager.createToken(userId);
+        tokenDTO.setClientHash(HttpContextUtils.getClientCode());
         return new Result<TokenDTO>().ok(tokenDTO);
     }
 
@@ -100,8 +53,7 @@ public class SysUserTokenServiceImpl extends BaseServiceImpl<SysUserTokenDao, Sy
 
     @Override
     public void logout(Long userId) {
-        Date expireDate = DateUtil.offsetMinute(new Date(), -1);
-        baseDao.logout(userId, expireDate);
+        tokenStrategyManager.revoke(userId);
     }
 
     @Override
@@ -110,7 +62,6 @@ public class SysUserTokenServiceImpl extends BaseServiceImpl<SysUserTokenDao, Sy
         sysUserService.changePassword(userId, passwordDTO);
 
         // 使 token 失效，后需要重新登录
-        Date expireDate = DateUtil.offsetMinute(new Date(), -1);
-        baseDao.logout(userId, expireDate);
+        tokenStrategyManager.revoke(userId);
     }
 }
\ No newline at end of file
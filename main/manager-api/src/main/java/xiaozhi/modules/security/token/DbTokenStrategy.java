@@ -0,0 +1,133 @@
+package xiaozhi.modules.security.token;
+
+import java.util.Date;
+
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.DisabledAccountException;
+import org.apache.shiro.authc.IncorrectCredentialsException;
+import org.apache.shiro.authc.LockedAccountException;
+import org.springframework.stereotype.Component;
+
+import cn.hutool.core.date.DateUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.exception.ErrorCode;
+import xiaozhi.common.page.TokenDTO;
+import xiaozhi.common.user.UserDetail;
+import xiaozhi.common.utils.ConvertUtils;
+import xiaozhi.common.utils.MessageUtils;
+import xiaozhi.modules.security.dao.SysUserTokenDao;
+import xiaozhi.modules.security.entity.SysUserTokenEntity;
+import xiaozhi.modules.security.oauth2.TokenGenerator;
+import xiaozhi.modules.security.service.ShiroService;
+import xiaozhi.modules.sys.entity.SysUserEntity;
+
+/**
+ * 随机token存入sys_user_token，校验时查询（带缓存）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DbTokenStrategy implements TokenStrategy {
+    public static final String TYPE = "db";
+
+    private final SysUserTokenDao sysUserTokenDao;
+    private final ShiroService shiroService;
+    private final TokenProperties properties;
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public boolean supports(String token) {
+        return token.indexOf('.') < 0;
+    }
+
+    @Override
+    public TokenDTO createToken(Long userId) {
+        // 用户token
+        String token;
+
+        // 当前时间
+        Date now = new Date();
+        // 过期时间
+        Date expireTime = new Date(now.getTime() + properties.getExpire() * 1000L);
+
+        // 判断是否生成过token
+        SysUserTokenEntity tokenEntity = sysUserTokenDao.getByUserId(userId);
+        if (tokenEntity == null) {
+            // 生成一个token
+            token = TokenGenerator.generateValue();
+
+            tokenEntity = new SysUserTokenEntity();
+            tokenEntity.setUserId(userId);
+            tokenEntity.setToken(token);
+            tokenEntity.setUpdateDate(now);
+            tokenEntity.setExpireDate(expireTime);
+
+            // 保存token
+            sysUserTokenDao.insert(tokenEntity);
+        } else {
+            // 判断token是否过期
+            if (tokenEntity.getExpireDate().getTime() < System.currentTimeMillis()) {
+                // token过期，重新生成token
+                token = TokenGenerator.generateValue();
+            } else {
+                token = tokenEntity.getToken();
+            }
+
+            tokenEntity.setToken(token);
+            tokenEntity.setUpdateDate(now);
+            tokenEntity.setExpireDate(expireTime);
+
+            // 更新token
+            sysUserTokenDao.updateById(tokenEntity);
+            shiroService.evictToken(userId);
+        }
+
+        TokenDTO tokenDTO = new TokenDTO();
+        tokenDTO.setToken(token);
+        tokenDTO.setExpire(properties.getExpire());
+        return tokenDTO;
+    }
+
+    @Override
+    public UserDetail authenticate(String token) throws AuthenticationException {
+        // 根据accessToken，查询用户信息
+        SysUserTokenEntity tokenEntity = shiroService.getByToken(token);
+        // token失效
+        if (tokenEntity == null || tokenEntity.getExpireDate().getTime() < System.currentTimeMillis()) {
+            throw new IncorrectCredentialsException(MessageUtils.getMessage(ErrorCode.TOKEN_INVALID));
+        }
+
+        // 查询用户信息
+        SysUserEntity userEntity = shiroService.getUser(tokenEntity.getUserId());
+        if (userEntity == null) {
+            throw new IncorrectCredentialsException(MessageUtils.getMessage(ErrorCode.TOKEN_INVALID));
+        }
+
+        // 转换成UserDetail对象
+        UserDetail userDetail = ConvertUtils.sourceToTarget(userEntity, UserDetail.class);
+        userDetail.setToken(token);
+
+        // 账号锁定
+        if (userDetail.getStatus() == null) {
+            log.error("账号状态异常，status 不能为空");
+            throw new DisabledAccountException(MessageUtils.getMessage(ErrorCode.ACCOUNT_DISABLE));
+        }
+
+        if (userDetail.getStatus() == 0) {
+            throw new LockedAccountException(MessageUtils.getMessage(ErrorCode.ACCOUNT_LOCK));
+        }
+        return userDetail;
+    }
+
+    @Override
+    public void revoke(Long userId) {
+        Date expireDate = DateUtil.offsetMinute(new Date(), -1);
+        sysUserTokenDao.logout(userId, expireDate);
+        shiroService.evictToken(userId);
+    }
+}
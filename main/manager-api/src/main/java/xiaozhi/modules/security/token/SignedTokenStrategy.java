@@ -0,0 +1,277 @@
+package xiaozhi.modules.security.token;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.IncorrectCredentialsException;
+import org.apache.shiro.authc.LockedAccountException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.exception.ErrorCode;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.page.TokenDTO;
+import xiaozhi.common.redis.RedisChangeLog;
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.common.user.UserDetail;
+import xiaozhi.common.utils.JsonUtils;
+import xiaozhi.common.utils.MessageUtils;
+import xiaozhi.modules.security.service.ShiroService;
+import xiaozhi.modules.sys.entity.SysUserEntity;
+
+/**
+ * HMAC-SHA256签名的自包含token，格式与JWT(HS256)一致
+ * <p>
+ * 载荷包含用户ID、签发/过期时间、账号状态和token版本（签发时间，毫秒），校验只用内存数据，不访问数据库和redis。
+ * 登出、改密、锁定时记录用户的吊销时间（保存在redis，各实例定时同步到内存），此前签发的token随即失效；
+ * 吊销记录只保留一个token有效期，之后旧token已自然过期。
+ * redis中另存起始时间，丢失时重新写入，此前签发的token全部作废；未能从redis同步过时拒绝所有token
+ */
+@Slf4j
+@Component
+public class SignedTokenStrategy implements TokenStrategy {
+    public static final String TYPE = "signed";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_LENGTH = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final TokenProperties properties;
+    private final ShiroService shiroService;
+    private final RedisUtils redisUtils;
+    private final RedisChangeLog revocations;
+
+    /**
+     * 用户最近一次吊销的时间（毫秒），只保存一个token有效期内吊销过的用户
+     */
+    private final Map<Long, Long> revokedAt = new ConcurrentHashMap<>();
+    private volatile long epoch;
+    private volatile boolean synced;
+
+    public SignedTokenStrategy(TokenProperties properties, ShiroService shiroService, RedisUtils redisUtils) {
+        this.properties = properties;
+        this.shiroService = shiroService;
+        this.redisUtils = redisUtils;
+        this.revocations = new RedisChangeLog(redisUtils, RedisKeys.getTokenRevocationKey(), properties.getExpire());
+    }
+
+    @PostConstruct
+    public void init() {
+        properties.getKeys().forEach((keyId, secret) -> {
+            if (secret == null || secret.getBytes(StandardCharsets.UTF_8).length < MIN_KEY_LENGTH) {
+                throw new IllegalStateException("签名token密钥 " + keyId + " 长度不能少于" + MIN_KEY_LENGTH + "字节");
+            }
+        });
+        if (TYPE.equals(properties.getType())
+                && !properties.getKeys().containsKey(properties.getActiveKeyId())) {
+            throw new IllegalStateException("renren.token.active-key-id 未配置或不在 renren.token.keys 中");
+        }
+        refreshVersions();
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public boolean supports(String token) {
+        return !properties.getKeys().isEmpty() && StringUtils.countMatches(token, '.') == 2;
+    }
+
+    @Override
+    public TokenDTO createToken(Long userId) {
+        String keyId = properties.getActiveKeyId();
+        String secret = properties.getKeys().get(keyId);
+        if (secret == null) {
+            throw new RenException("签名token密钥未配置");
+        }
+        SysUserEntity user = shiroService.getUser(userId);
+        if (user == null) {
+            throw new RenException(ErrorCode.ACCOUNT_DISABLE);
+        }
+
+        long now = System.currentTimeMillis() / 1000;
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("alg", "HS256");
+        header.put("typ", "JWT");
+        header.put("kid", keyId);
+
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", String.valueOf(userId));
+        claims.put("iat", now);
+        claims.put("exp", now + properties.getExpire());
+        claims.put("ver", System.currentTimeMillis());
+        claims.put("usr", user.getUsername());
+        claims.put("sa", user.getSuperAdmin());
+        claims.put("st", user.getStatus());
+
+        String signingInput = encodeJson(header) + "." + encodeJson(claims);
+        TokenDTO tokenDTO = new TokenDTO();
+        tokenDTO.setToken(signingInput + "." + ENCODER.encodeToString(sign(secret, signingInput)));
+        tokenDTO.setExpire(properties.getExpire());
+        return tokenDTO;
+    }
+
+    @Override
+    public UserDetail authenticate(String token) throws AuthenticationException {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            throw invalidToken();
+        }
+        Map<String, Object> header = decodeJson(parts[0]);
+        Map<String, Object> claims = decodeJson(parts[1]);
+        if (header == null || claims == null || !"HS256".equals(header.get("alg"))) {
+            throw invalidToken();
+        }
+
+        // 按kid选择密钥，轮换期间新旧密钥签发的token都能通过
+        String secret = properties.getKeys().get(String.valueOf(header.get("kid")));
+        if (secret == null) {
+            throw invalidToken();
+        }
+        byte[] expected = sign(secret, parts[0] + "." + parts[1]);
+        byte[] actual;
+        try {
+            actual = DECODER.decode(parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw invalidToken();
+        }
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw invalidToken();
+        }
+
+        // 不知道哪些token已吊销时一律拒绝
+        if (!synced) {
+            log.debug("尚未从redis同步token版本，拒绝签名token");
+            throw invalidToken();
+        }
+
+        UserDetail userDetail;
+        try {
+            long userId = Long.parseLong(String.valueOf(claims.get("sub")));
+            long iat = ((Number) claims.get("iat")).longValue();
+            long exp = ((Number) claims.get("exp")).longValue();
+            long version = ((Number) claims.get("ver")).longValue();
+            if (exp * 1000 < System.currentTimeMillis() || iat < epoch
+                    || version < revokedAt.getOrDefault(userId, 0L)) {
+                throw invalidToken();
+            }
+
+            userDetail = new UserDetail();
+            userDetail.setId(userId);
+            userDetail.setUsername((String) claims.get("usr"));
+            userDetail.setSuperAdmin(((Number) claims.get("sa")).intValue());
+            userDetail.setStatus(((Number) claims.get("st")).intValue());
+            userDetail.setToken(token);
+        } catch (ClassCastException | NullPointerException | NumberFormatException e) {
+            throw invalidToken();
+        }
+        if (userDetail.getStatus() == 0) {
+            throw new LockedAccountException(MessageUtils.getMessage(ErrorCode.ACCOUNT_LOCK));
+        }
+        return userDetail;
+    }
+
+    @Override
+    public void revoke(Long userId) {
+        if (properties.getKeys().isEmpty()) {
+            return;
+        }
+        long time = System.currentTimeMillis();
+        try {
+            time = revocations.record(String.valueOf(userId));
+        } catch (Exception e) {
+            log.warn("token吊销记录写入redis失败，仅在本实例生效，userId={}", userId, e);
+        }
+        revokedAt.merge(userId, time, Math::max);
+    }
+
+    /**
+     * 定时从redis同步其他实例的吊销记录；未配置签名密钥时不会校验签名token，不需要同步
+     */
+    @Scheduled(initialDelay = 10 * 1000L, fixedDelay = 10 * 1000L)
+    public void refreshVersions() {
+        if (properties.getKeys().isEmpty()) {
+            return;
+        }
+        Map<String, Long> changes;
+        try {
+            changes = revocations.poll();
+        } catch (Exception e) {
+            log.warn("同步token吊销记录失败", e);
+            return;
+        }
+        if (changes == null) {
+            // redis未开启，吊销只在本实例生效
+            synced = true;
+            return;
+        }
+        changes.forEach((userId, time) -> revokedAt.merge(Long.parseLong(userId), time, Math::max));
+        // 超过一个有效期的吊销记录不再有用
+        long expired = System.currentTimeMillis() - properties.getExpire() * 1000L;
+        revokedAt.values().removeIf(time -> time < expired);
+
+        String key = RedisKeys.getTokenEpochKey();
+        Object value;
+        try {
+            value = redisUtils.get(key);
+            if (value == null) {
+                // 首次启用或redis数据丢失，无法判断哪些token已吊销，此前签发的token全部作废
+                log.warn("token起始时间不存在，此前签发的签名token全部失效");
+                redisUtils.setIfAbsent(key, System.currentTimeMillis() / 1000);
+                value = redisUtils.get(key);
+            }
+        } catch (Exception e) {
+            log.warn("同步token起始时间失败", e);
+            return;
+        }
+        if (value != null) {
+            epoch = Math.max(epoch, Long.parseLong(String.valueOf(value)));
+            synced = true;
+        }
+    }
+
+    private IncorrectCredentialsException invalidToken() {
+        return new IncorrectCredentialsException(MessageUtils.getMessage(ErrorCode.TOKEN_INVALID));
+    }
+
+    private String encodeJson(Map<String, Object> value) {
+        return ENCODER.encodeToString(JsonUtils.toJsonString(value).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Map<String, Object> decodeJson(String part) {
+        try {
+            return JsonUtils.parseObject(new String(DECODER.decode(part), StandardCharsets.UTF_8),
+                    new TypeReference<Map<String, Object>>() {
+                    });
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(String secret, String signingInput) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            return mac.doFinal(signingInput.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package xiaozhi.modules.security.token;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 登录token配置项
+ */
+@Data
+@ConfigurationProperties(prefix = "renren.token")
+public class TokenProperties {
+    /**
+     * 新签发token的类型：db-随机token存入sys_user_token；signed-自包含的签名token
+     */
+    private String type = DbTokenStrategy.TYPE;
+    /**
+     * token有效期，单位：秒
+     */
+    private int expire = 3600 * 12;
+    /**
+     * 签名token当前使用的密钥ID
+     */
+    private String activeKeyId;
+    /**
+     * 签名密钥，key为密钥ID，value为不少于32字节的密钥。
+     * 轮换时先加入新密钥并切换activeKeyId，旧密钥保留至少一个token有效期后再删除
+     */
+    private Map<String, String> keys = new LinkedHashMap<>();
+}
@@ -0,0 +1,45 @@
+package xiaozhi.modules.security.token;
+
+import org.apache.shiro.authc.AuthenticationException;
+
+import xiaozhi.common.page.TokenDTO;
+import xiaozhi.common.user.UserDetail;
+
+/**
+ * 登录token的签发与校验策略
+ */
+public interface TokenStrategy {
+    /**
+     * 策略类型，对应renren.token.type
+     */
+    String type();
+
+    /**
+     * 是否能校验该token
+     */
+    boolean supports(String token);
+
+    /**
+     * 为用户签发token
+     *
+     * @param userId 用户ID
+     * @return token及有效期
+     */
+    TokenDTO createToken(Long userId);
+
+    /**
+     * 校验token并返回登录用户
+     *
+     * @param token 请求携带的token
+     * @return 登录用户
+     * @throws AuthenticationException token无效或账号不可用
+     */
+    UserDetail authenticate(String token) throws AuthenticationException;
+
+    /**
+     * 使用户已签发的token全部失效
+     *
+     * @param userId 用户ID
+     */
+    void revoke(Long userId);
+}
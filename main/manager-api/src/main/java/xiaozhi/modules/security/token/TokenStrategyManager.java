@@ -0,0 +1,59 @@
+package xiaozhi.modules.security.token;
+
+import java.util.List;
+
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.IncorrectCredentialsException;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import xiaozhi.common.exception.ErrorCode;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.page.TokenDTO;
+import xiaozhi.common.user.UserDetail;
+import xiaozhi.common.utils.MessageUtils;
+
+/**
+ * 按配置选择token策略签发，按token格式选择策略校验
+ * <p>
+ * 切换renren.token.type后，已签发的另一种token在过期前仍然可用
+ */
+@Component
+@RequiredArgsConstructor
+@EnableConfigurationProperties(TokenProperties.class)
+public class TokenStrategyManager {
+    private final List<TokenStrategy> strategies;
+    private final TokenProperties properties;
+
+    /**
+     * 按renren.token.type签发token
+     */
+    public TokenDTO createToken(Long userId) {
+        for (TokenStrategy strategy : strategies) {
+            if (strategy.type().equals(properties.getType())) {
+                return strategy.createToken(userId);
+            }
+        }
+        throw new RenException("不支持的token类型：" + properties.getType());
+    }
+
+    /**
+     * 校验token并返回登录用户
+     */
+    public UserDetail authenticate(String token) throws AuthenticationException {
+        for (TokenStrategy strategy : strategies) {
+            if (strategy.supports(token)) {
+                return strategy.authenticate(token);
+            }
+        }
+        throw new IncorrectCredentialsException(MessageUtils.getMessage(ErrorCode.TOKEN_INVALID));
+    }
+
+    /**
+     * 使用户在所有策略下签发的token失效
+     */
+    public void revoke(Long userId) {
+        strategies.forEach(strategy -> strategy.revoke(userId));
+    }
+}
@@ -0,0 +1,44 @@
+package xiaozhi.modules.sms.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 短信发送配置项
+ */
+@Data
+@ConfigurationProperties(prefix = "renren.sms")
+public class SmsProperties {
+    /**
+     * 服务商，按顺序尝试，前一个失败时切换到下一个
+     */
+    private List<String> providers = new ArrayList<>(List.of("aliyun"));
+    /**
+     * 发送线程数
+     */
+    private int workers = 2;
+    /**
+     * 每次领取的最大条数
+     */
+    private int batchSize = 20;
+    /**
+     * 最大尝试次数，超过后放弃
+     */
+    private int maxAttempts = 5;
+    /**
+     * 首次重试间隔，单位：毫秒，之后按2的幂次递增
+     */
+    private long retryBaseDelay = 2000;
+    /**
+     * 最大重试间隔，单位：毫秒
+     */
+    private long retryMaxDelay = 5 * 60 * 1000;
+    /**
+     * 同一手机号入队间隔，单位：秒
+     */
+    private int cooldown = 60;
+}
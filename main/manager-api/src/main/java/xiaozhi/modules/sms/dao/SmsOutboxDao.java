@@ -0,0 +1,58 @@
+package xiaozhi.modules.sms.dao;
+
+import java.util.Date;
+import java.util.List;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+
+import xiaozhi.modules.sms.entity.SmsOutboxEntity;
+
+/**
+ * {@link SmsOutboxEntity} 短信发送队列Dao对象
+ */
+@Mapper
+public interface SmsOutboxDao extends BaseMapper<SmsOutboxEntity> {
+    /**
+     * 领取到期的待发送短信，领取后状态置为发送中
+     *
+     * @param owner 领取批次标识，由实例标识和批次序号组成
+     * @param limit 最多领取条数
+     * @return 领取条数
+     */
+    int claimDue(@Param("owner") String owner, @Param("limit") int limit);
+
+    /**
+     * 查询某一批领取的、尚未处理完的短信
+     *
+     * @param owner 领取批次标识
+     */
+    List<SmsOutboxEntity> listClaimed(@Param("owner") String owner);
+
+    /**
+     * 将领取后长时间未完成的短信（实例宕机等）放回队列
+     *
+     * @param lockedBefore 领取时间早于该时间视为超时
+     * @return 影响行数
+     */
+    int releaseStale(@Param("lockedBefore") Date lockedBefore);
+
+    /**
+     * 合并同一手机号尚未发送的验证码短信，只保留最新的验证码。
+     * 合并视为重新入队，同时刷新入队时间，冷却时间从最近一次替换开始计算
+     *
+     * @param phone        手机号码
+     * @param templateType 短信类型
+     * @param params       新的模板参数
+     * @return 影响行数，0表示没有待发送的短信
+     */
+    int mergePending(@Param("phone") String phone, @Param("templateType") String templateType,
+            @Param("params") String params);
+
+    /**
+     * 指定时间之后该手机号入队的短信数量
+     */
+    int countSince(@Param("phone") String phone, @Param("since") Date since);
+}
@@ -0,0 +1,97 @@
+package xiaozhi.modules.sms.entity;
+
+import java.util.Date;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+
+import lombok.Data;
+
+/**
+ * 短信发送队列
+ */
+@Data
+@TableName(value = "sys_sms_outbox")
+public class SmsOutboxEntity {
+    public static final int STATUS_PENDING = 0;
+    public static final int STATUS_SENDING = 1;
+    public static final int STATUS_SENT = 2;
+    public static final int STATUS_FAILED = 3;
+
+    /**
+     * 验证码短信
+     */
+    public static final String TYPE_VERIFICATION_CODE = "verification_code";
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 手机号码
+     */
+    private String phone;
+
+    /**
+     * 短信类型
+     */
+    @TableField(value = "template_type")
+    private String templateType;
+
+    /**
+     * 模板参数JSON，发送结束后清空
+     */
+    private String params;
+
+    /**
+     * 状态：0待发送 1发送中 2已发送 3失败
+     */
+    private Integer status;
+
+    /**
+     * 已尝试次数
+     */
+    private Integer attempts;
+
+    /**
+     * 下次尝试时间
+     */
+    @TableField(value = "next_attempt_at")
+    private Date nextAttemptAt;
+
+    /**
+     * 发送成功的服务商
+     */
+    private String provider;
+
+    /**
+     * 服务商返回的请求ID
+     */
+    @TableField(value = "provider_msg_id")
+    private String providerMsgId;
+
+    /**
+     * 最后一次失败原因
+     */
+    @TableField(value = "last_error")
+    private String lastError;
+
+    /**
+     * 领取任务的实例
+     */
+    @TableField(value = "locked_by")
+    private String lockedBy;
+
+    /**
+     * 领取时间
+     */
+    @TableField(value = "locked_at")
+    private Date lockedAt;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "create_date")
+    private Date createDate;
+}
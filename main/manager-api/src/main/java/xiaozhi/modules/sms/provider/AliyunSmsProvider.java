@@ -0,0 +1,73 @@
+package xiaozhi.modules.sms.provider;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import com.aliyun.dysmsapi20170525.Client;
+import com.aliyun.dysmsapi20170525.models.SendSmsRequest;
+import com.aliyun.dysmsapi20170525.models.SendSmsResponse;
+import com.aliyun.teaopenapi.models.Config;
+import com.aliyun.teautil.models.RuntimeOptions;
+
+import lombok.AllArgsConstructor;
+import xiaozhi.common.constant.Constant;
+import xiaozhi.modules.sys.service.SysParamsService;
+
+/**
+ * 阿里云短信
+ */
+@Component
+@AllArgsConstructor
+public class AliyunSmsProvider implements SmsProvider {
+    private final SysParamsService sysParamsService;
+
+    @Override
+    public String name() {
+        return "aliyun";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        String accessKeyId = sysParamsService.getValue(Constant.SysMSMParam
+                .ALIYUN_SMS_ACCESS_KEY_ID.getValue(), true);
+        return StringUtils.isNotBlank(accessKeyId) && !"null".equals(accessKeyId);
+    }
+
+    @Override
+    public String sendVerificationCode(String phone, String code) throws Exception {
+        String signName = sysParamsService.getValue(Constant.SysMSMParam
+                .ALIYUN_SMS_SIGN_NAME.getValue(), true);
+        String templateCode = sysParamsService.getValue(Constant.SysMSMParam
+                .ALIYUN_SMS_SMS_CODE_TEMPLATE_CODE.getValue(), true);
+        SendSmsRequest sendSmsRequest = new SendSmsRequest()
+                .setSignName(signName)
+                .setTemplateCode(templateCode)
+                .setPhoneNumbers(phone)
+                .setTemplateParam(String.format("{\"code\":\"%s\"}", code));
+        SendSmsResponse response = createClient().sendSmsWithOptions(sendSmsRequest, new RuntimeOptions());
+        // 阿里云业务失败时不抛异常，需检查返回码
+        if (response.getBody() == null || !"OK".equalsIgnoreCase(response.getBody().getCode())) {
+            String message = response.getBody() == null ? "响应为空"
+                    : response.getBody().getCode() + " " + response.getBody().getMessage();
+            throw new IllegalStateException("阿里云短信发送失败：" + message);
+        }
+        return response.getBody().getRequestId();
+    }
+
+    /**
+     * 创建阿里云连接
+     * @return 返回连接对象
+     */
+    private Client createClient() throws Exception {
+        String accessKeyId = sysParamsService.getValue(Constant.SysMSMParam
+                .ALIYUN_SMS_ACCESS_KEY_ID.getValue(), true);
+        String accessKeySecret = sysParamsService.getValue(Constant.SysMSMParam
+                .ALIYUN_SMS_ACCESS_KEY_SECRET.getValue(), true);
+        Config config = new Config()
+                .setAccessKeyId(accessKeyId)
+                .setAccessKeySecret(accessKeySecret);
+        // 配置 Endpoint。中国站请使用dysmsapi.aliyuncs.com
+        config.endpoint = "dysmsapi.aliyuncs.com";
+        return new Client(config);
+    }
+}
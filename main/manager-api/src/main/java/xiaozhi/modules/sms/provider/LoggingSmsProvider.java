@@ -0,0 +1,31 @@
+package xiaozhi.modules.sms.provider;
+
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 只打印日志、不实际发送的短信服务商，用于测试和离线环境，renren.sms.providers中配置log启用
+ */
+@Slf4j
+@Component
+public class LoggingSmsProvider implements SmsProvider {
+    @Override
+    public String name() {
+        return "log";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public String sendVerificationCode(String phone, String code) {
+        String requestId = UUID.randomUUID().toString();
+        log.info("[模拟短信] 手机号：{}，验证码：{}，requestId：{}", phone, code, requestId);
+        return requestId;
+    }
+}
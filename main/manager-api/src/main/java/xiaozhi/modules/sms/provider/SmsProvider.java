@@ -0,0 +1,28 @@
+package xiaozhi.modules.sms.provider;
+
+/**
+ * 短信服务商
+ * <p>
+ * 实现类注册为Spring Bean即可，按renren.sms.providers配置的顺序依次尝试，前一个失败时切换到下一个
+ */
+public interface SmsProvider {
+    /**
+     * 服务商名称，对应renren.sms.providers中的配置
+     */
+    String name();
+
+    /**
+     * 是否已完成配置，未配置的服务商会被跳过
+     */
+    boolean isAvailable();
+
+    /**
+     * 发送验证码短信
+     *
+     * @param phone 手机号码
+     * @param code  验证码
+     * @return 服务商返回的请求ID
+     * @throws Exception 发送失败
+     */
+    String sendVerificationCode(String phone, String code) throws Exception;
+}
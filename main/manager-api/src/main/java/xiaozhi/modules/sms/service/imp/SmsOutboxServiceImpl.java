@@ -0,0 +1,65 @@
+package xiaozhi.modules.sms.service.imp;
+
+import java.util.Date;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.AllArgsConstructor;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.utils.JsonUtils;
+import xiaozhi.modules.sms.config.SmsProperties;
+import xiaozhi.modules.sms.dao.SmsOutboxDao;
+import xiaozhi.modules.sms.entity.SmsOutboxEntity;
+import xiaozhi.modules.sms.service.SmsService;
+import xiaozhi.modules.sms.task.SmsDispatchTask;
+
+/**
+ * 短信入队，由{@link SmsDispatchTask}异步发送
+ */
+@Service
+@AllArgsConstructor
+public class SmsOutboxServiceImpl implements SmsService {
+    private final SmsOutboxDao smsOutboxDao;
+    private final SmsProperties properties;
+    private final SmsDispatchTask smsDispatchTask;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void sendVerificationCodeSms(String phone, String VerificationCode) {
+        String params = JsonUtils.toJsonString(Map.of("code", VerificationCode));
+
+        // 冷却时间内入队或替换过验证码时拒绝，替换待发送的验证码同样受限
+        Date since = new Date(System.currentTimeMillis() - properties.getCooldown() * 1000L);
+        if (smsOutboxDao.countSince(phone, since) > 0) {
+            throw new RenException("发送太频繁，请" + properties.getCooldown() + "秒后再试");
+        }
+
+        // 同一手机号已有待发送（含等待重试）的验证码时只替换为最新验证码，不重复发送
+        if (smsOutboxDao.mergePending(phone, SmsOutboxEntity.TYPE_VERIFICATION_CODE, params) == 0) {
+            SmsOutboxEntity sms = new SmsOutboxEntity();
+            sms.setPhone(phone);
+            sms.setTemplateType(SmsOutboxEntity.TYPE_VERIFICATION_CODE);
+            sms.setParams(params);
+            sms.setStatus(SmsOutboxEntity.STATUS_PENDING);
+            sms.setAttempts(0);
+            sms.setNextAttemptAt(new Date());
+            smsOutboxDao.insert(sms);
+        }
+
+        // 事务提交后立即触发发送
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    smsDispatchTask.wakeUp();
+                }
+            });
+        } else {
+            smsDispatchTask.wakeUp();
+        }
+    }
+}
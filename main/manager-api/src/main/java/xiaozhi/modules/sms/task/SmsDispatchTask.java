@@ -0,0 +1,227 @@
+package xiaozhi.modules.sms.task;
+
+import java.net.InetAddress;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.common.utils.JsonUtils;
+import xiaozhi.modules.sms.config.SmsProperties;
+import xiaozhi.modules.sms.dao.SmsOutboxDao;
+import xiaozhi.modules.sms.entity.SmsOutboxEntity;
+import xiaozhi.modules.sms.provider.SmsProvider;
+
+/**
+ * 短信发送任务
+ * <p>
+ * 定时从sys_sms_outbox领取到期的短信交给发送线程，按配置顺序尝试服务商，全部失败时按指数退避重新入队，
+ * 超过最大尝试次数后放弃并退还当日发送次数。领取通过UPDATE ... LIMIT完成，多实例不会重复发送。
+ * 领取使用独立的线程，不占用公共定时任务线程池，短信服务商响应慢时不影响其他定时任务
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(SmsProperties.class)
+public class SmsDispatchTask {
+    /**
+     * 领取后超过该时间未完成视为实例异常，放回队列
+     */
+    private static final long STALE_MILLIS = 5 * 60 * 1000L;
+    private static final int ERROR_MAX_LENGTH = 500;
+
+    private final SmsOutboxDao smsOutboxDao;
+    private final SmsProperties properties;
+    private final Map<String, SmsProvider> providers;
+    private final RedisUtils redisUtils;
+    private final MeterRegistry meterRegistry;
+    private final String owner;
+    /**
+     * 每次领取的批次序号，与实例标识组成locked_by
+     */
+    private final AtomicLong claimSequence = new AtomicLong();
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService poller;
+
+    public SmsDispatchTask(SmsOutboxDao smsOutboxDao, SmsProperties properties, List<SmsProvider> providers,
+            RedisUtils redisUtils, MeterRegistry meterRegistry) {
+        this.smsOutboxDao = smsOutboxDao;
+        this.properties = properties;
+        this.providers = providers.stream().collect(Collectors.toMap(SmsProvider::name, Function.identity()));
+        this.redisUtils = redisUtils;
+        this.meterRegistry = meterRegistry;
+        this.owner = resolveOwner();
+        this.workers = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(),
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("sms-sender-%d").setDaemon(true).build());
+        this.poller = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("sms-poller").setDaemon(true).build());
+    }
+
+    @PostConstruct
+    public void start() {
+        poller.scheduleWithFixedDelay(this::poll, 5 * 1000L, 1000L, TimeUnit.MILLISECONDS);
+        poller.scheduleWithFixedDelay(this::releaseStale, 60 * 1000L, 60 * 1000L, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+        workers.shutdown();
+    }
+
+    /**
+     * 入队后立即触发一次领取，不必等到下一次定时
+     */
+    public void wakeUp() {
+        poller.execute(this::poll);
+    }
+
+    public synchronized void poll() {
+        // 上一批还没发完时不再领取，避免领取后长时间积压在本实例
+        if (!workers.getQueue().isEmpty()) {
+            return;
+        }
+        try {
+            // 每批使用独立的领取标识，只列出本批领取的短信，上一批仍在发送的短信不会被再次提交
+            String claim = owner + ":" + Long.toString(claimSequence.incrementAndGet(), 36);
+            if (smsOutboxDao.claimDue(claim, properties.getBatchSize()) == 0) {
+                return;
+            }
+            for (SmsOutboxEntity sms : smsOutboxDao.listClaimed(claim)) {
+                workers.execute(() -> dispatch(sms));
+            }
+        } catch (Exception e) {
+            log.error("领取待发送短信失败", e);
+        }
+    }
+
+    public void releaseStale() {
+        try {
+            int count = smsOutboxDao.releaseStale(new Date(System.currentTimeMillis() - STALE_MILLIS));
+            if (count > 0) {
+                log.warn("{}条短信领取后超时未完成，已放回队列", count);
+            }
+        } catch (Exception e) {
+            // 异常会终止scheduleWithFixedDelay的后续执行
+            log.error("回收超时短信失败", e);
+        }
+    }
+
+    private void dispatch(SmsOutboxEntity sms) {
+        Map<String, String> params = StringUtils.isBlank(sms.getParams()) ? Map.of()
+                : JsonUtils.parseObject(sms.getParams(), new TypeReference<Map<String, String>>() {
+                });
+        int attempts = sms.getAttempts() + 1;
+        String lastError = null;
+
+        for (String name : properties.getProviders()) {
+            SmsProvider provider = providers.get(name);
+            if (provider == null || !provider.isAvailable()) {
+                continue;
+            }
+            try {
+                String msgId = provider.sendVerificationCode(sms.getPhone(), params.get("code"));
+                SmsOutboxEntity update = finished(sms.getId(), attempts, SmsOutboxEntity.STATUS_SENT);
+                update.setProvider(name);
+                update.setProviderMsgId(msgId);
+                smsOutboxDao.updateById(update);
+                meterRegistry.counter("xiaozhi.sms.sent", "provider", name).increment();
+                return;
+            } catch (Exception e) {
+                lastError = name + ": " + e.getMessage();
+                meterRegistry.counter("xiaozhi.sms.provider.error", "provider", name).increment();
+                log.warn("短信服务商{}发送失败，id={}", name, sms.getId(), e);
+            }
+        }
+        if (lastError == null) {
+            lastError = "没有可用的短信服务商";
+        }
+
+        if (attempts >= properties.getMaxAttempts()) {
+            SmsOutboxEntity update = finished(sms.getId(), attempts, SmsOutboxEntity.STATUS_FAILED);
+            update.setLastError(StringUtils.abbreviate(lastError, ERROR_MAX_LENGTH));
+            smsOutboxDao.updateById(update);
+            meterRegistry.counter("xiaozhi.sms.failed").increment();
+            log.error("短信发送失败，已放弃，id={}，尝试{}次：{}", sms.getId(), attempts, lastError);
+            refundTodayCount(sms.getPhone());
+            return;
+        }
+
+        SmsOutboxEntity update = new SmsOutboxEntity();
+        update.setId(sms.getId());
+        update.setStatus(SmsOutboxEntity.STATUS_PENDING);
+        update.setAttempts(attempts);
+        update.setNextAttemptAt(new Date(System.currentTimeMillis() + backoff(attempts)));
+        update.setLastError(StringUtils.abbreviate(lastError, ERROR_MAX_LENGTH));
+        smsOutboxDao.update(update, new UpdateWrapper<SmsOutboxEntity>()
+                .eq("id", sms.getId())
+                .set("locked_by", null)
+                .set("locked_at", null));
+        meterRegistry.counter("xiaozhi.sms.retry").increment();
+    }
+
+    /**
+     * 发送结束（成功或放弃），清空模板参数，不在库中长期保留验证码
+     */
+    private SmsOutboxEntity finished(Long id, int attempts, int status) {
+        SmsOutboxEntity update = new SmsOutboxEntity();
+        update.setId(id);
+        update.setStatus(status);
+        update.setAttempts(attempts);
+        update.setParams("");
+        return update;
+    }
+
+    /**
+     * 指数退避，带抖动，避免服务商恢复时集中重试
+     */
+    private long backoff(int attempts) {
+        long delay = properties.getRetryBaseDelay() << Math.min(attempts - 1, 20);
+        delay = Math.min(delay, properties.getRetryMaxDelay());
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    /**
+     * 发送失败时退还本条短信占用的1次当日发送次数
+     */
+    private void refundTodayCount(String phone) {
+        try {
+            redisUtils.decrementIfPositive(RedisKeys.getSMSTodayCountKey(phone));
+        } catch (Exception e) {
+            log.warn("退还短信发送次数失败，phone={}", phone, e);
+        }
+    }
+
+    private static String resolveOwner() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return StringUtils.abbreviate(host, 40) + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
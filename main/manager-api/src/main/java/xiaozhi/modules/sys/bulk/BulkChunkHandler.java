@@ -0,0 +1,17 @@
+package xiaozhi.modules.sys.bulk;
+
+import java.util.List;
+
+/**
+ * 批量操作的分块处理逻辑，在独立事务中执行
+ */
+@FunctionalInterface
+public interface BulkChunkHandler {
+    /**
+     * 处理一个分块
+     *
+     * @param ids    本分块的数据ID
+     * @param result 记录无法处理的ID及原因，以及需要清除的缓存key；抛出异常时整个分块回滚并记为失败
+     */
+    void handle(List<String> ids, BulkChunkResult result);
+}
@@ -0,0 +1,35 @@
+package xiaozhi.modules.sys.bulk;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 批量操作单个分块的执行结果：逐条的失败原因，以及需要在提交后统一清除的缓存key
+ */
+public class BulkChunkResult {
+    private final Map<String, String> failures = new LinkedHashMap<>();
+    private final Set<String> cacheKeys = new HashSet<>();
+
+    public void fail(String id, String reason) {
+        failures.putIfAbsent(id, reason);
+    }
+
+    public void fail(Collection<String> ids, String reason) {
+        ids.forEach(id -> fail(id, reason));
+    }
+
+    public void evict(String key) {
+        cacheKeys.add(key);
+    }
+
+    public Map<String, String> getFailures() {
+        return failures;
+    }
+
+    public Set<String> getCacheKeys() {
+        return cacheKeys;
+    }
+}
@@ -0,0 +1,214 @@
+package xiaozhi.modules.sys.bulk;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.common.utils.ConvertUtils;
+import xiaozhi.modules.security.user.SecurityUser;
+import xiaozhi.modules.sys.vo.BulkJobVO;
+
+/**
+ * 批量操作任务执行器
+ * <p>
+ * 数据ID按固定大小分块，每个分块在独立事务中执行，单个分块失败只回滚该分块，其余分块继续执行。
+ * 每个分块提交后一次性清除其涉及的缓存key，并把进度写入redis，任意实例都可查询
+ */
+@Slf4j
+@Component
+public class BulkJobRunner {
+    /**
+     * 每个分块的条数
+     */
+    public static final int CHUNK_SIZE = 200;
+    /**
+     * 单个任务最多处理的条数
+     */
+    public static final int MAX_SIZE = 10000;
+    /**
+     * 任务进度保留时间，单位：秒
+     */
+    private static final long JOB_EXPIRE = RedisUtils.DEFAULT_EXPIRE;
+    private static final int MAX_FAILURES = 500;
+
+    private final TransactionTemplate transactionTemplate;
+    private final RedisUtils redisUtils;
+    private final Executor executor;
+    /**
+     * 本实例提交的任务，redis不可用时仍可查询
+     */
+    private final Cache<String, BulkJobVO> localJobs = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(JOB_EXPIRE, TimeUnit.SECONDS)
+            .build();
+
+    public BulkJobRunner(TransactionTemplate transactionTemplate, RedisUtils redisUtils,
+            @Qualifier("taskExecutor") Executor executor) {
+        this.transactionTemplate = transactionTemplate;
+        this.redisUtils = redisUtils;
+        this.executor = executor;
+    }
+
+    /**
+     * 提交批量操作任务，立即返回任务ID
+     *
+     * @param operation 操作类型
+     * @param ids       数据ID，重复的ID只处理一次
+     * @param handler   分块处理逻辑
+     */
+    public String submit(String operation, Collection<String> ids, BulkChunkHandler handler) {
+        return submit(operation, ids, handler, null);
+    }
+
+    /**
+     * 提交批量操作任务，立即返回任务ID
+     *
+     * @param operation 操作类型
+     * @param ids       数据ID，重复的ID只处理一次
+     * @param handler   分块处理逻辑
+     * @param onFinish  全部分块执行完后调用，部分失败时也会调用，可为空
+     */
+    public String submit(String operation, Collection<String> ids, BulkChunkHandler handler, Runnable onFinish) {
+        List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinctIds.removeIf(StringUtils::isBlank);
+        if (distinctIds.isEmpty()) {
+            throw new RenException("请选择要操作的数据");
+        }
+        if (distinctIds.size() > MAX_SIZE) {
+            throw new RenException("单次最多操作" + MAX_SIZE + "条数据");
+        }
+
+        BulkJobVO job = new BulkJobVO();
+        job.setJobId(UUID.randomUUID().toString().replace("-", ""));
+        job.setOperation(operation);
+        job.setStatus(BulkJobVO.STATUS_RUNNING);
+        job.setTotal(distinctIds.size());
+        job.setCreator(SecurityUser.getUserId());
+        job.setCreateDate(new Date());
+        save(job);
+
+        executor.execute(() -> run(job, distinctIds, handler, onFinish));
+        return job.getJobId();
+    }
+
+    public BulkJobVO get(String jobId) {
+        BulkJobVO job = localJobs.getIfPresent(jobId);
+        if (job != null) {
+            return job;
+        }
+        try {
+            Object cached = redisUtils.get(RedisKeys.getBulkJobKey(jobId));
+            if (cached instanceof BulkJobVO remote) {
+                return remote;
+            }
+        } catch (Exception e) {
+            log.warn("读取批量操作任务进度失败，jobId={}", jobId, e);
+        }
+        throw new RenException("任务不存在或已过期");
+    }
+
+    void run(BulkJobVO job, List<String> ids, BulkChunkHandler handler, Runnable onFinish) {
+        try {
+            for (List<String> chunk : Lists.partition(ids, CHUNK_SIZE)) {
+                BulkChunkResult result = executeChunk(job, chunk, handler);
+                evict(result);
+                progress(job, chunk.size(), result);
+                save(job);
+            }
+            if (job.getFailed() == 0) {
+                job.setStatus(BulkJobVO.STATUS_SUCCESS);
+            } else {
+                job.setStatus(job.getSucceeded() > 0 ? BulkJobVO.STATUS_PARTIAL : BulkJobVO.STATUS_FAILED);
+            }
+        } catch (Exception e) {
+            log.error("批量操作任务执行失败，jobId={}，operation={}", job.getJobId(), job.getOperation(), e);
+            job.setStatus(BulkJobVO.STATUS_FAILED);
+        }
+        if (onFinish != null) {
+            try {
+                onFinish.run();
+            } catch (Exception e) {
+                log.warn("批量操作任务收尾失败，jobId={}，operation={}", job.getJobId(), job.getOperation(), e);
+            }
+        }
+        job.setFinishDate(new Date());
+        save(job);
+        log.info("批量操作任务完成，jobId={}，operation={}，成功{}条，失败{}条", job.getJobId(), job.getOperation(),
+                job.getSucceeded(), job.getFailed());
+    }
+
+    private BulkChunkResult executeChunk(BulkJobVO job, List<String> chunk, BulkChunkHandler handler) {
+        BulkChunkResult result = new BulkChunkResult();
+        try {
+            transactionTemplate.executeWithoutResult(status -> handler.handle(chunk, result));
+            return result;
+        } catch (Exception e) {
+            log.warn("批量操作分块执行失败，已回滚，jobId={}，operation={}", job.getJobId(), job.getOperation(), e);
+            BulkChunkResult failed = new BulkChunkResult();
+            failed.fail(chunk, reason(e));
+            return failed;
+        }
+    }
+
+    private void evict(BulkChunkResult result) {
+        if (result.getCacheKeys().isEmpty()) {
+            return;
+        }
+        try {
+            redisUtils.delete(result.getCacheKeys());
+        } catch (Exception e) {
+            log.warn("批量操作清除缓存失败，keys={}", result.getCacheKeys(), e);
+        }
+    }
+
+    private static void progress(BulkJobVO job, int size, BulkChunkResult result) {
+        int failed = result.getFailures().size();
+        job.setProcessed(job.getProcessed() + size);
+        job.setSucceeded(job.getSucceeded() + size - failed);
+        job.setFailed(job.getFailed() + failed);
+        result.getFailures().forEach((id, reason) -> {
+            if (job.getFailures().size() < MAX_FAILURES) {
+                job.getFailures().add(new BulkJobVO.Failure(id, reason));
+            }
+        });
+    }
+
+    private static String reason(Exception e) {
+        if (e instanceof RenException renException && StringUtils.isNotBlank(renException.getMsg())) {
+            return renException.getMsg();
+        }
+        return StringUtils.defaultIfBlank(e.getMessage(), e.getClass().getSimpleName());
+    }
+
+    /**
+     * 保存进度快照，执行线程继续修改任务对象不影响查询方
+     */
+    private void save(BulkJobVO job) {
+        BulkJobVO snapshot = ConvertUtils.sourceToTarget(job, BulkJobVO.class);
+        snapshot.setFailures(new ArrayList<>(job.getFailures()));
+        localJobs.put(job.getJobId(), snapshot);
+        try {
+            redisUtils.set(RedisKeys.getBulkJobKey(job.getJobId()), snapshot, JOB_EXPIRE);
+        } catch (Exception e) {
+            log.warn("保存批量操作任务进度失败，jobId={}", job.getJobId(), e);
+        }
+    }
+}
@@ -25,8 +25,10 @@ import xiaozhi.modules.device.dto.DevicePageUserDTO;
 import xiaozhi.modules.device.service.DeviceService;
 import xiaozhi.modules.device.vo.UserShowDeviceListVO;
 import xiaozhi.modules.sys.dto.AdminPageUserDTO;
+import xiaozhi.modules.sys.service.DeletionJobService;
 import xiaozhi.modules.sys.service.SysUserService;
 import xiaozhi.modules.sys.vo.AdminPageUserVO;
+import xiaozhi.modules.sys.vo.DeletionJobVO;
 
 /**
  * 管理员控制层
@@ -43,6 +45,8 @@ public class AdminController {
 
     private final DeviceService deviceService;
 
+    private final DeletionJobService deletionJobService;
+
     @GetMapping("/users")
     @Operation(summary = "分页查找用户")
     @RequiresPermissions("sys:role:superAdmin")
@@ -50,6 +54,7 @@ public class AdminController {
             @Parameter(name = "mobile", description = "用户手机号码", required = false),
             @Parameter(name = Constant.PAGE, description = "当前页码，从1开始", required = true),
             @Parameter(name = Constant.LIMIT, description = "每页显示记录数", required = true),
+            @Parameter(name = Constant.CURSOR, description = "游标分页：首页传空值，之后传上一页返回的nextCursor；不传则按页码分页", required = false),
     })
     public Result<PageData<AdminPageUserVO>> pageUser(
             @Parameter(hidden = true) @RequestParam Map<String, Object> params) {
@@ -57,6 +62,7 @@ public class AdminController {
         dto.setMobile((String) params.get("mobile"));
         dto.setLimit((String) params.get(Constant.LIMIT));
         dto.setPage((String) params.get(Constant.PAGE));
+        dto.setCursor((String) params.get(Constant.CURSOR));
         ValidatorUtils.validateEntity(dto);
         PageData<AdminPageUserVO> page = sysUserService.page(dto);
         return new Result<PageData<AdminPageUserVO>>().ok(page);
@@ -74,9 +80,32 @@ public class AdminController {
     @DeleteMapping("/users/{id}")
     @Operation(summary = "用户删除")
     @RequiresPermissions("sys:role:superAdmin")
-    public Result<Void> delete(@PathVariable Long id) {
-        sysUserService.deleteById(id);
-        return new Result<>();
+    public Result<Long> delete(@PathVariable Long id) {
+        // 返回删除任务ID，可通过/admin/deletion-jobs/{jobId}查询清理进度
+        return new Result<Long>().ok(deletionJobService.deleteUser(id));
+    }
+
+    @GetMapping("/deletion-jobs")
+    @Operation(summary = "分页查询删除任务")
+    @RequiresPermissions("sys:role:superAdmin")
+    @Parameters({
+            @Parameter(name = "status", description = "状态：0待处理 1处理中 2已完成 3失败", required = false),
+            @Parameter(name = "targetType", description = "删除对象类型：AGENT智能体，USER用户", required = false),
+            @Parameter(name = "targetId", description = "删除对象ID", required = false),
+            @Parameter(name = Constant.PAGE, description = "当前页码，从1开始", required = true),
+            @Parameter(name = Constant.LIMIT, description = "每页显示记录数", required = true),
+            @Parameter(name = Constant.CURSOR, description = "游标分页：首页传空值，之后传上一页返回的nextCursor；不传则按页码分页", required = false),
+    })
+    public Result<PageData<DeletionJobVO>> pageDeletionJob(
+            @Parameter(hidden = true) @RequestParam Map<String, Object> params) {
+        return new Result<PageData<DeletionJobVO>>().ok(deletionJobService.page(params));
+    }
+
+    @GetMapping("/deletion-jobs/{jobId}")
+    @Operation(summary = "查询删除任务进度")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<DeletionJobVO> getDeletionJob(@PathVariable Long jobId) {
+        return new Result<DeletionJobVO>().ok(deletionJobService.getJob(jobId));
     }
 
     @PutMapping("/users/changeStatus/{status}")
@@ -95,6 +124,7 @@ public class AdminController {
             @Parameter(name = "keywords", description = "设备关键词", required = false),
             @Parameter(name = Constant.PAGE, description = "当前页码，从1开始", required = true),
             @Parameter(name = Constant.LIMIT, description = "每页显示记录数", required = true),
+            @Parameter(name = Constant.CURSOR, description = "游标分页：首页传空值，之后传上一页返回的nextCursor；不传则按页码分页", required = false),
     })
     public Result<PageData<UserShowDeviceListVO>> pageDevice(
             @Parameter(hidden = true) @RequestParam Map<String, Object> params) {
@@ -102,6 +132,7 @@ public class AdminController {
         dto.setKeywords((String) params.get("keywords"));
         dto.setLimit((String) params.get(Constant.LIMIT));
         dto.setPage((String) params.get(Constant.PAGE));
+        dto.setCursor((String) params.get(Constant.CURSOR));
         ValidatorUtils.validateEntity(dto);
         PageData<UserShowDeviceListVO> page = deviceService.page(dto);
         return new Result<PageData<UserShowDeviceListVO>>().ok(page);
@@ -0,0 +1,72 @@
+package xiaozhi.modules.sys.controller;
+
+import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import xiaozhi.common.utils.Result;
+import xiaozhi.modules.sys.dto.BulkOperationDTO;
+import xiaozhi.modules.sys.service.BulkOperationService;
+import xiaozhi.modules.sys.vo.BulkJobVO;
+
+/**
+ * 批量管理操作，提交后返回任务ID，按任务ID查询进度
+ */
+@AllArgsConstructor
+@RestController
+@RequestMapping("/admin/bulk")
+@Tag(name = "批量管理操作")
+public class BulkOperationController {
+    private final BulkOperationService bulkOperationService;
+
+    @PutMapping("/users/status")
+    @Operation(summary = "批量修改用户状态")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<String> changeUserStatus(@Valid @RequestBody BulkOperationDTO dto) {
+        return new Result<String>().ok(bulkOperationService.changeUserStatus(dto.getIds(), dto.getStatus()));
+    }
+
+    @PostMapping("/dict/data/delete")
+    @Operation(summary = "批量删除字典数据")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<String> deleteDictData(@Valid @RequestBody BulkOperationDTO dto) {
+        return new Result<String>().ok(bulkOperationService.deleteDictData(dto.getIds()));
+    }
+
+    @PostMapping("/devices/unbind")
+    @Operation(summary = "批量解绑设备")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<String> unbindDevices(@Valid @RequestBody BulkOperationDTO dto) {
+        return new Result<String>().ok(bulkOperationService.unbindDevices(dto.getIds()));
+    }
+
+    @PutMapping("/devices/agent")
+    @Operation(summary = "批量换绑设备到指定智能体")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<String> rebindDevices(@Valid @RequestBody BulkOperationDTO dto) {
+        return new Result<String>().ok(bulkOperationService.rebindDevices(dto.getIds(), dto.getAgentId()));
+    }
+
+    @PutMapping("/devices/board")
+    @Operation(summary = "批量修改设备固件类型")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<String> changeDeviceBoard(@Valid @RequestBody BulkOperationDTO dto) {
+        return new Result<String>().ok(bulkOperationService.changeDeviceBoard(dto.getIds(), dto.getBoard()));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    @Operation(summary = "查询批量操作进度")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<BulkJobVO> getJob(@PathVariable String jobId) {
+        return new Result<BulkJobVO>().ok(bulkOperationService.getJob(jobId));
+    }
+}
@@ -0,0 +1,74 @@
+package xiaozhi.modules.sys.controller;
+
+import java.util.List;
+
+import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.springframework.beans.BeanUtils;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import xiaozhi.common.annotation.LogOperation;
+import xiaozhi.common.ratelimit.RateLimitRule;
+import xiaozhi.common.ratelimit.RateLimiter;
+import xiaozhi.common.utils.Result;
+import xiaozhi.modules.sys.vo.RateLimitRuleVO;
+
+/**
+ * 限流管理
+ */
+@RestController
+@RequestMapping("admin/rate-limit")
+@Tag(name = "限流管理")
+@AllArgsConstructor
+public class RateLimitController {
+    private final RateLimiter rateLimiter;
+
+    @GetMapping
+    @Operation(summary = "限流规则及统计")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<List<RateLimitRuleVO>> list() {
+        List<RateLimitRuleVO> list = rateLimiter.getRules().stream().map(rule -> {
+            RateLimitRuleVO vo = new RateLimitRuleVO();
+            BeanUtils.copyProperties(rule, vo);
+            vo.setAllowed((long) rateLimiter.count(rule.getName(), "allowed"));
+            vo.setRejected((long) rateLimiter.count(rule.getName(), "rejected"));
+            vo.setLocalKeys(rateLimiter.localKeyCount(rule.getName()));
+            return vo;
+        }).toList();
+        return new Result<List<RateLimitRuleVO>>().ok(list);
+    }
+
+    @PutMapping
+    @Operation(summary = "调整限流规则，只能修改容量、补充速率和启用状态")
+    @LogOperation("调整限流规则")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<RateLimitRule> update(@RequestBody RateLimitRule rule) {
+        return new Result<RateLimitRule>().ok(rateLimiter.updateRule(rule));
+    }
+
+    @DeleteMapping("{name}")
+    @Operation(summary = "恢复为配置文件中的规则")
+    @LogOperation("恢复限流规则")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<Void> reset(@PathVariable("name") String name) {
+        rateLimiter.resetRule(name);
+        return new Result<>();
+    }
+
+    @DeleteMapping("{name}/{key}")
+    @Operation(summary = "清空指定key的计数")
+    @LogOperation("清空限流计数")
+    @RequiresPermissions("sys:role:superAdmin")
+    public Result<Void> resetKey(@PathVariable("name") String name, @PathVariable("key") String key) {
+        rateLimiter.resetKey(name, key);
+        return new Result<>();
+    }
+}
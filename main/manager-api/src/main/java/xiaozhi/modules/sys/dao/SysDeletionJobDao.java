@@ -0,0 +1,62 @@
+package xiaozhi.modules.sys.dao;
+
+import java.util.Date;
+import java.util.List;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+
+import xiaozhi.modules.sys.entity.SysDeletionJobEntity;
+
+/**
+ * {@link SysDeletionJobEntity} 删除任务Dao对象
+ */
+@Mapper
+public interface SysDeletionJobDao extends BaseMapper<SysDeletionJobEntity> {
+    /**
+     * 领取到期的待处理任务，领取后状态置为处理中
+     *
+     * @param owner 领取实例标识
+     * @param limit 最多领取条数
+     * @return 领取条数
+     */
+    int claimDue(@Param("owner") String owner, @Param("limit") int limit);
+
+    /**
+     * 查询本实例已领取、尚未处理完的任务
+     *
+     * @param owner 领取实例标识
+     */
+    List<SysDeletionJobEntity> listClaimed(@Param("owner") String owner);
+
+    /**
+     * 将领取后长时间没有进度的任务（实例宕机等）放回队列，从已保存的进度继续
+     *
+     * @param lockedBefore 最后一次进度早于该时间视为超时
+     * @return 影响行数
+     */
+    int releaseStale(@Param("lockedBefore") Date lockedBefore);
+
+    /**
+     * 按关联列删除一批数据
+     *
+     * @param table  表名，只能传入代码中的常量
+     * @param column 关联列，只能传入代码中的常量
+     * @param value  关联值
+     * @param limit  本批最多删除行数
+     * @return 删除行数
+     */
+    int purgeBatch(@Param("table") String table, @Param("column") String column, @Param("value") Object value,
+            @Param("limit") int limit);
+
+    /**
+     * 物理删除已标记删除的数据行
+     *
+     * @param table 表名，只能传入代码中的常量
+     * @param id    主键
+     * @return 删除行数
+     */
+    int purgeDeleted(@Param("table") String table, @Param("id") Object id);
+}
@@ -1,7 +1,9 @@
 package xiaozhi.modules.sys.dao;
 
+import org.apache.ibatis.annotations.CacheNamespace;
 import org.apache.ibatis.annotations.Mapper;
 
+import xiaozhi.common.cache.MybatisRedisCache;
 import xiaozhi.common.dao.BaseDao;
 import xiaozhi.modules.sys.entity.SysDictTypeEntity;
 
@@ -9,6 +11,7 @@ import xiaozhi.modules.sys.entity.SysDictTypeEntity;
  * 字典类型
  */
 @Mapper
+@CacheNamespace(implementation = MybatisRedisCache.class)
 public interface SysDictTypeDao extends BaseDao<SysDictTypeEntity> {
 
 }
@@ -24,4 +24,7 @@ public class AdminPageUserDTO {
     @Schema(description = "显示列数")
     @Min(value = 0, message = "{sort.number}")
     private String limit;
+
+    @Schema(description = "游标，首页为空字符串，为null时按页码分页")
+    private String cursor;
 }
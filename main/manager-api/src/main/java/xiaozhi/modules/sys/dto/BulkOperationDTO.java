@@ -0,0 +1,30 @@
+package xiaozhi.modules.sys.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+/**
+ * 批量操作参数
+ */
+@Data
+@Schema(description = "批量操作参数")
+public class BulkOperationDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "数据ID列表")
+    @NotEmpty(message = "请选择要操作的数据")
+    private List<String> ids;
+
+    @Schema(description = "用户状态：0停用，1正常，修改用户状态时必填")
+    private Integer status;
+
+    @Schema(description = "目标智能体ID，设备换绑时必填")
+    private String agentId;
+
+    @Schema(description = "设备硬件型号（固件类型），修改固件类型时必填")
+    private String board;
+}
@@ -0,0 +1,129 @@
+package xiaozhi.modules.sys.entity;
+
+import java.util.Date;
+import java.util.List;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+
+import lombok.Data;
+
+/**
+ * 删除任务，智能体、用户标记删除后由后台分批清理关联数据
+ */
+@Data
+@TableName(value = "sys_deletion_job")
+public class SysDeletionJobEntity {
+    public static final int STATUS_PENDING = 0;
+    public static final int STATUS_RUNNING = 1;
+    public static final int STATUS_DONE = 2;
+    public static final int STATUS_FAILED = 3;
+
+    public static final String TARGET_AGENT = "AGENT";
+    public static final String TARGET_USER = "USER";
+
+    /**
+     * 智能体的清理步骤，按顺序执行：先删设备阻止新的上报，最后物理删除智能体
+     */
+    public static final List<String> AGENT_STEPS = List.of("ai_device", "ai_agent_plugin_mapping",
+            "ai_agent_voice_print", "ai_agent_chat_history", "ai_agent_chat_session", "chat_history_index",
+            "ai_agent");
+    /**
+     * 用户的清理步骤，用户下的智能体各自有删除任务
+     */
+    public static final List<String> USER_STEPS = List.of("ai_device", "sys_user");
+
+    public static List<String> steps(String targetType) {
+        return TARGET_USER.equals(targetType) ? USER_STEPS : AGENT_STEPS;
+    }
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 删除对象类型：AGENT智能体，USER用户
+     */
+    @TableField(value = "target_type")
+    private String targetType;
+
+    /**
+     * 删除对象ID
+     */
+    @TableField(value = "target_id")
+    private String targetId;
+
+    /**
+     * 状态：0待处理 1处理中 2已完成 3失败
+     */
+    private Integer status;
+
+    /**
+     * 当前清理的表
+     */
+    private String step;
+
+    /**
+     * 当前表已清理到的ID，按ID分批清理的表使用
+     */
+    @TableField(value = "cursor_id")
+    private Long cursorId;
+
+    /**
+     * 各表已删除行数JSON
+     */
+    private String counts;
+
+    /**
+     * 失败次数
+     */
+    private Integer attempts;
+
+    /**
+     * 下次处理时间
+     */
+    @TableField(value = "next_attempt_at")
+    private Date nextAttemptAt;
+
+    /**
+     * 最后一次失败原因
+     */
+    @TableField(value = "last_error")
+    private String lastError;
+
+    /**
+     * 领取任务的实例
+     */
+    @TableField(value = "locked_by")
+    private String lockedBy;
+
+    /**
+     * 领取时间，处理过程中随进度刷新
+     */
+    @TableField(value = "locked_at")
+    private Date lockedAt;
+
+    /**
+     * 创建者
+     */
+    private Long creator;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "create_date")
+    private Date createDate;
+
+    /**
+     * 更新时间
+     */
+    @TableField(value = "update_date")
+    private Date updateDate;
+
+    /**
+     * 完成时间
+     */
+    @TableField(value = "finish_date")
+    private Date finishDate;
+}
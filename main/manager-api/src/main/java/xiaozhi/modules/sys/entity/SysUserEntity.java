@@ -4,6 +4,7 @@ import java.util.Date;
 
 import com.baomidou.mybatisplus.annotation.FieldFill;
 import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableLogic;
 import com.baomidou.mybatisplus.annotation.TableName;
 
 import lombok.Data;
@@ -17,6 +18,11 @@ import xiaozhi.common.entity.BaseEntity;
 @EqualsAndHashCode(callSuper = false)
 @TableName("sys_user")
 public class SysUserEntity extends BaseEntity {
+    /**
+     * 标记删除后用户名改写为该前缀加用户ID，释放唯一索引；新用户的用户名不允许以该前缀开头
+     */
+    public static final String DELETED_USERNAME_PREFIX = "#deleted#";
+
     /**
      * 用户名
      */
@@ -43,5 +49,10 @@ public class SysUserEntity extends BaseEntity {
      */
     @TableField(fill = FieldFill.INSERT_UPDATE)
     private Date updateDate;
+    /**
+     * 删除标记 0：正常 1：已删除，待后台清理
+     */
+    @TableLogic
+    private Integer deleted;
 
 }
\ No newline at end of file
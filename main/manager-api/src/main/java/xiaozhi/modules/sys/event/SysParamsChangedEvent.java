@@ -0,0 +1,30 @@
+package xiaozhi.modules.sys.event;
+
+import java.util.Collection;
+import java.util.Set;
+
+import lombok.Getter;
+
+/**
+ * 系统参数变更事件，在参数新增、修改、删除后发布，事务提交后再处理
+ */
+@Getter
+public class SysParamsChangedEvent {
+    /**
+     * 变更的参数编码
+     */
+    private final Set<String> paramCodes;
+
+    public SysParamsChangedEvent(Collection<String> paramCodes) {
+        this.paramCodes = Set.copyOf(paramCodes);
+    }
+
+    public boolean contains(String... codes) {
+        for (String code : codes) {
+            if (paramCodes.contains(code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,205 @@
+package xiaozhi.modules.sys.params;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+
+import xiaozhi.common.exception.ErrorCode;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.utils.JsonUtils;
+
+/**
+ * 不可变的系统参数值
+ * <p>
+ * 构造时按原始字符串预先解析出数字、布尔、分号分隔列表等视图，读取时不再解析；
+ * JSON按目标类型解析一次后缓存，返回的对象为共享实例，调用方不得修改
+ */
+public final class SysParamValue {
+    private final String paramCode;
+    private final String paramValue;
+    private final String valueType;
+    private final BigDecimal number;
+    private final Boolean bool;
+    private final List<String> list;
+    private final Map<Class<?>, Object> jsonViews = new ConcurrentHashMap<>();
+
+    private SysParamValue(String paramCode, String paramValue, String valueType) {
+        this.paramCode = paramCode;
+        this.paramValue = paramValue;
+        this.valueType = StringUtils.lowerCase(valueType);
+        this.number = parseNumber(paramValue);
+        this.bool = parseBoolean(paramValue);
+        this.list = parseList(paramValue);
+    }
+
+    /**
+     * 创建参数值，不做类型校验，解析失败的视图为null
+     */
+    public static SysParamValue of(String paramCode, String paramValue, String valueType) {
+        return new SysParamValue(paramCode, paramValue, valueType);
+    }
+
+    /**
+     * 校验参数值是否符合声明的类型
+     *
+     * @throws RenException 参数类型或取值不合法
+     */
+    public static void validate(String paramValue, String valueType) {
+        if (StringUtils.isBlank(valueType)) {
+            throw new RenException(ErrorCode.PARAM_TYPE_NULL);
+        }
+
+        switch (valueType.toLowerCase()) {
+            case "string":
+                break;
+            case "array":
+                break;
+            case "number":
+                if (parseNumber(paramValue) == null) {
+                    throw new RenException(ErrorCode.PARAM_NUMBER_INVALID);
+                }
+                break;
+            case "boolean":
+                if (parseBoolean(paramValue) == null) {
+                    throw new RenException(ErrorCode.PARAM_BOOLEAN_INVALID);
+                }
+                break;
+            case "json":
+                try {
+                    // 首先检查是否以 { 开头，以 } 结尾
+                    String trimmedValue = StringUtils.trimToEmpty(paramValue);
+                    if (!trimmedValue.startsWith("{") || !trimmedValue.endsWith("}")) {
+                        throw new RenException(ErrorCode.PARAM_JSON_INVALID);
+                    }
+                    // 然后尝试解析JSON
+                    JsonUtils.parseObject(paramValue, Object.class);
+                } catch (Exception e) {
+                    throw new RenException(ErrorCode.PARAM_JSON_INVALID);
+                }
+                break;
+            default:
+                throw new RenException(ErrorCode.PARAM_TYPE_INVALID);
+        }
+    }
+
+    public String getParamCode() {
+        return paramCode;
+    }
+
+    /**
+     * 原始字符串值
+     */
+    public String getValue() {
+        return paramValue;
+    }
+
+    public String getValueType() {
+        return valueType;
+    }
+
+    /**
+     * 数值视图，不是数字时为null
+     */
+    public BigDecimal asNumber() {
+        return number;
+    }
+
+    public Integer asInteger() {
+        return number == null ? null : number.intValue();
+    }
+
+    public Long asLong() {
+        return number == null ? null : number.longValue();
+    }
+
+    /**
+     * 布尔视图，不是true/false时为null
+     */
+    public Boolean asBoolean() {
+        return bool;
+    }
+
+    /**
+     * 按分号分隔的列表视图，已去掉空白项
+     */
+    public List<String> asList() {
+        return list;
+    }
+
+    /**
+     * 转换为指定类型，基础类型直接取预解析的视图，其他类型按JSON解析并缓存
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T as(Class<T> clazz) {
+        if (clazz == String.class) {
+            return (T) paramValue;
+        }
+        if (clazz == Boolean.class) {
+            return (T) bool;
+        }
+        if (clazz == Integer.class) {
+            return (T) asInteger();
+        }
+        if (clazz == Long.class) {
+            return (T) asLong();
+        }
+        if (clazz == BigDecimal.class) {
+            return (T) number;
+        }
+        if (StringUtils.isBlank(paramValue)) {
+            return null;
+        }
+        return (T) jsonViews.computeIfAbsent(clazz, c -> JsonUtils.parseObject(paramValue, c));
+    }
+
+    private static BigDecimal parseNumber(String value) {
+        if (StringUtils.isBlank(value)) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Boolean parseBoolean(String value) {
+        if ("true".equalsIgnoreCase(value)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    private static List<String> parseList(String value) {
+        if (StringUtils.isBlank(value)) {
+            return List.of();
+        }
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(";")) {
+            if (StringUtils.isNotBlank(item)) {
+                items.add(item.trim());
+            }
+        }
+        return List.copyOf(items);
+    }
+
+    /**
+     * 参数编码、值、类型都相同视为未变更
+     */
+    boolean sameAs(SysParamValue other) {
+        return other != null && StringUtils.equals(paramValue, other.paramValue)
+                && StringUtils.equals(valueType, other.valueType);
+    }
+
+    @Override
+    public String toString() {
+        return paramCode + "=" + paramValue;
+    }
+}
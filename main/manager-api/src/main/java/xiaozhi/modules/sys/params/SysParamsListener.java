@@ -0,0 +1,16 @@
+package xiaozhi.modules.sys.params;
+
+import java.util.Set;
+
+/**
+ * 系统参数变更监听，新快照生效后在刷新线程上回调
+ */
+@FunctionalInterface
+public interface SysParamsListener {
+    /**
+     * @param previous     变更前的快照
+     * @param current      变更后的快照
+     * @param changedCodes 本监听关注且发生变化的参数编码
+     */
+    void onChanged(SysParamsSnapshot previous, SysParamsSnapshot current, Set<String> changedCodes);
+}
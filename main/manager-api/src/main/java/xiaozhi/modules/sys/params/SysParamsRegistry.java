@@ -0,0 +1,184 @@
+package xiaozhi.modules.sys.params;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.modules.sys.dao.SysParamsDao;
+import xiaozhi.modules.sys.entity.SysParamsEntity;
+import xiaozhi.modules.sys.event.SysParamsChangedEvent;
+import xiaozhi.modules.sys.redis.SysParamsRedis;
+
+/**
+ * 系统参数注册表
+ * <p>
+ * 全部参数加载为不可变快照，读取只是一次字段访问；本实例修改参数后在事务提交时重新加载并递增redis中的版本号，
+ * 其他实例每5秒检查版本号，变化时重新加载。另有每5分钟一次的全量重新加载，兜底直接修改数据库或redis不可用的情况。
+ * 只有取值真正变化的参数才会通知监听者
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SysParamsRegistry {
+    private final SysParamsDao sysParamsDao;
+    private final SysParamsRedis sysParamsRedis;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private volatile SysParamsSnapshot snapshot;
+    /**
+     * 本实例已同步到的redis版本号
+     */
+    private volatile Long syncedVersion;
+
+    /**
+     * 当前快照，首次访问时加载
+     */
+    public SysParamsSnapshot current() {
+        SysParamsSnapshot current = snapshot;
+        return current != null ? current : load();
+    }
+
+    private synchronized SysParamsSnapshot load() {
+        if (snapshot == null) {
+            reload();
+        }
+        return snapshot;
+    }
+
+    /**
+     * 参数不存在时返回null
+     */
+    public SysParamValue get(String paramCode) {
+        return current().get(paramCode);
+    }
+
+    public String getString(String paramCode) {
+        SysParamValue value = get(paramCode);
+        return value == null ? null : value.getValue();
+    }
+
+    public boolean getBoolean(String paramCode, boolean defaultValue) {
+        SysParamValue value = get(paramCode);
+        return value == null || value.asBoolean() == null ? defaultValue : value.asBoolean();
+    }
+
+    public int getInteger(String paramCode, int defaultValue) {
+        SysParamValue value = get(paramCode);
+        return value == null || value.asInteger() == null ? defaultValue : value.asInteger();
+    }
+
+    public List<String> getList(String paramCode) {
+        SysParamValue value = get(paramCode);
+        return value == null ? List.of() : value.asList();
+    }
+
+    /**
+     * 订阅参数变更
+     *
+     * @param listener   监听者
+     * @param paramCodes 关注的参数编码，为空表示全部
+     */
+    public void subscribe(SysParamsListener listener, String... paramCodes) {
+        subscriptions.add(new Subscription(Set.of(paramCodes), listener));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onParamsChanged(SysParamsChangedEvent event) {
+        reload();
+        try {
+            Long version = sysParamsRedis.incrementVersion();
+            if (version != null) {
+                syncedVersion = version;
+            }
+        } catch (Exception e) {
+            log.warn("递增系统参数版本失败，其他实例将在全量重新加载时同步", e);
+        }
+    }
+
+    /**
+     * 检查redis中的版本号，其他实例修改过参数时重新加载
+     */
+    @Scheduled(initialDelay = 5 * 1000L, fixedDelay = 5 * 1000L)
+    public void refreshVersion() {
+        Long version;
+        try {
+            version = sysParamsRedis.getVersion();
+        } catch (Exception e) {
+            log.warn("读取系统参数版本失败", e);
+            return;
+        }
+        if (version == null || version.equals(syncedVersion)) {
+            return;
+        }
+        // 先记录版本再加载，加载期间的新变更会在下次检查时再次触发
+        syncedVersion = version;
+        reload();
+    }
+
+    /**
+     * 从数据库重新加载全部参数，有变化时替换快照并通知监听者
+     */
+    @Scheduled(initialDelay = 5 * 60 * 1000L, fixedDelay = 5 * 60 * 1000L)
+    public synchronized void reload() {
+        Map<String, SysParamValue> params = new HashMap<>();
+        try {
+            for (SysParamsEntity entity : sysParamsDao.selectList(null)) {
+                params.put(entity.getParamCode(),
+                        SysParamValue.of(entity.getParamCode(), entity.getParamValue(), entity.getValueType()));
+            }
+        } catch (Exception e) {
+            if (snapshot == null) {
+                throw e;
+            }
+            // 保留上一次的快照，数据库短暂不可用时参数读取不受影响
+            log.error("加载系统参数失败，继续使用版本{}的快照", snapshot.getVersion(), e);
+            return;
+        }
+
+        SysParamsSnapshot previous = snapshot;
+        SysParamsSnapshot base = previous == null ? SysParamsSnapshot.EMPTY : previous;
+        SysParamsSnapshot next = new SysParamsSnapshot(params, base.getVersion() + 1);
+        Set<String> changed = next.diff(base);
+        if (previous != null && changed.isEmpty()) {
+            return;
+        }
+        snapshot = next;
+        if (previous == null) {
+            log.info("系统参数已加载，共{}个", params.size());
+            return;
+        }
+
+        log.info("系统参数已更新，版本{}，变更：{}", next.getVersion(), changed);
+        for (Subscription subscription : subscriptions) {
+            Set<String> matched = subscription.match(changed);
+            if (matched.isEmpty()) {
+                continue;
+            }
+            try {
+                subscription.listener().onChanged(previous, next, matched);
+            } catch (Exception e) {
+                log.error("系统参数变更监听处理失败，参数：{}", matched, e);
+            }
+        }
+    }
+
+    private record Subscription(Set<String> paramCodes, SysParamsListener listener) {
+        Set<String> match(Set<String> changed) {
+            if (paramCodes.isEmpty()) {
+                return changed;
+            }
+            Set<String> matched = new HashSet<>(changed);
+            matched.retainAll(paramCodes);
+            return matched;
+        }
+    }
+}
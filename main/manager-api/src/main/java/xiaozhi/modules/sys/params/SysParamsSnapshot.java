@@ -0,0 +1,63 @@
+package xiaozhi.modules.sys.params;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 系统参数快照，创建后不再修改，更新时整体替换
+ */
+public final class SysParamsSnapshot {
+    static final SysParamsSnapshot EMPTY = new SysParamsSnapshot(Map.of(), 0);
+
+    private final Map<String, SysParamValue> params;
+    private final long version;
+
+    SysParamsSnapshot(Map<String, SysParamValue> params, long version) {
+        this.params = Map.copyOf(params);
+        this.version = version;
+    }
+
+    /**
+     * 参数不存在时返回null
+     */
+    public SysParamValue get(String paramCode) {
+        return params.get(paramCode);
+    }
+
+    public boolean contains(String paramCode) {
+        return params.containsKey(paramCode);
+    }
+
+    /**
+     * 全部参数，只读
+     */
+    public Map<String, SysParamValue> asMap() {
+        return params;
+    }
+
+    /**
+     * 快照版本号，每次替换递增
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 与另一快照相比新增、删除或取值变化的参数编码
+     */
+    Set<String> diff(SysParamsSnapshot previous) {
+        Set<String> changed = new HashSet<>();
+        params.forEach((code, value) -> {
+            if (!value.sameAs(previous.get(code))) {
+                changed.add(code);
+            }
+        });
+        for (String code : previous.params.keySet()) {
+            if (!params.containsKey(code)) {
+                changed.add(code);
+            }
+        }
+        return changed;
+    }
+}
@@ -8,28 +8,27 @@ import xiaozhi.common.redis.RedisUtils;
 
 /**
  * 参数管理
+ * <p>
+ * 参数值以数据库为准，redis只保存变更版本号，其他实例发现版本变化后从数据库重新加载
  */
 @AllArgsConstructor
 @Component
 public class SysParamsRedis {
     private final RedisUtils redisUtils;
 
-    public void delete(Object[] paramCodes) {
-        String key = RedisKeys.getSysParamsKey();
-        redisUtils.hDel(key, paramCodes);
+    /**
+     * 参数变更后递增版本号，redis未开启时返回null
+     */
+    public Long incrementVersion() {
+        return redisUtils.increment(RedisKeys.getSysParamsVersionKey());
     }
 
-    public void set(String paramCode, String paramValue) {
-        if (paramValue == null) {
-            return;
-        }
-        String key = RedisKeys.getSysParamsKey();
-        redisUtils.hSet(key, paramCode, paramValue);
-    }
-
-    public String get(String paramCode) {
-        String key = RedisKeys.getSysParamsKey();
-        return (String) redisUtils.hGet(key, paramCode);
+    /**
+     * 当前版本号，从未变更或redis未开启时返回null
+     */
+    public Long getVersion() {
+        Object version = redisUtils.get(RedisKeys.getSysParamsVersionKey());
+        return version == null ? null : Long.parseLong(String.valueOf(version));
     }
 
 }
@@ -0,0 +1,63 @@
+package xiaozhi.modules.sys.service;
+
+import java.util.List;
+
+import xiaozhi.modules.sys.vo.BulkJobVO;
+
+/**
+ * 批量管理操作
+ * <p>
+ * 每个方法只校验参数并提交任务，返回任务ID，通过{@link #getJob(String)}查询进度和失败明细
+ */
+public interface BulkOperationService {
+    /**
+     * 批量修改用户状态
+     *
+     * @param userIds 用户ID
+     * @param status  用户状态
+     * @return 任务ID
+     */
+    String changeUserStatus(List<String> userIds, Integer status);
+
+    /**
+     * 批量删除字典数据
+     *
+     * @param ids 字典数据ID
+     * @return 任务ID
+     */
+    String deleteDictData(List<String> ids);
+
+    /**
+     * 批量解绑（删除）设备
+     *
+     * @param deviceIds 设备ID
+     * @return 任务ID
+     */
+    String unbindDevices(List<String> deviceIds);
+
+    /**
+     * 批量把设备换绑到指定智能体，设备归属随之变为该智能体的所有者
+     *
+     * @param deviceIds 设备ID
+     * @param agentId   目标智能体ID
+     * @return 任务ID
+     */
+    String rebindDevices(List<String> deviceIds, String agentId);
+
+    /**
+     * 批量修改设备硬件型号，OTA按该型号匹配固件
+     *
+     * @param deviceIds 设备ID
+     * @param board     硬件型号
+     * @return 任务ID
+     */
+    String changeDeviceBoard(List<String> deviceIds, String board);
+
+    /**
+     * 查询任务进度
+     *
+     * @param jobId 任务ID
+     * @return 任务进度
+     */
+    BulkJobVO getJob(String jobId);
+}
@@ -0,0 +1,43 @@
+package xiaozhi.modules.sys.service;
+
+import java.util.Map;
+
+import xiaozhi.common.page.PageData;
+import xiaozhi.modules.sys.vo.DeletionJobVO;
+
+/**
+ * 删除任务
+ * <p>
+ * 删除智能体、用户时只在短事务内标记删除并创建任务，关联数据由后台分批清理，通过{@link #getJob(Long)}查询进度
+ */
+public interface DeletionJobService {
+    /**
+     * 标记删除智能体并创建清理任务，已标记删除的返回原任务
+     *
+     * @param agentId 智能体ID
+     * @return 任务ID
+     */
+    Long deleteAgent(String agentId);
+
+    /**
+     * 标记删除用户及其智能体，并为用户和每个智能体创建清理任务
+     *
+     * @param userId 用户ID
+     * @return 用户的任务ID
+     */
+    Long deleteUser(Long userId);
+
+    /**
+     * 查询任务进度，非超级管理员只能查询自己提交的任务
+     *
+     * @param jobId 任务ID
+     */
+    DeletionJobVO getJob(Long jobId);
+
+    /**
+     * 分页查询任务
+     *
+     * @param params 分页参数，支持status、targetType、targetId筛选
+     */
+    PageData<DeletionJobVO> page(Map<String, Object> params);
+}
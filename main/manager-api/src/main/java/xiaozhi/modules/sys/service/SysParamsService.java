@@ -29,7 +29,7 @@ public interface SysParamsService extends BaseService<SysParamsEntity> {
      * 根据参数编码，获取参数的value值
      *
      * @param paramCode 参数编码
-     * @param fromCache 是否从缓存中获取
+     * @param fromCache 是否从内存中的参数快照获取，否则直接查询数据库
      */
     String getValue(String paramCode, Boolean fromCache);
 
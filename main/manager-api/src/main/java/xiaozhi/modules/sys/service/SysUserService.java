@@ -20,7 +20,7 @@ public interface SysUserService extends BaseService<SysUserEntity> {
     void save(SysUserDTO dto);
 
     /**
-     * 删除指定用户，且有关联的数据设备和智能体
+     * 删除指定用户，且有关联的数据设备和智能体，关联数据由后台删除任务清理
      * 
      * @param ids
      */
@@ -42,6 +42,14 @@ public interface SysUserService extends BaseService<SysUserEntity> {
      */
     void changePasswordDirectly(Long userId, String password);
 
+    /**
+     * 登录成功后按新的哈希强度更新密码，不影响已登录的token
+     * 
+     * @param userId          用户id
+     * @param encodedPassword 重新哈希后的密码
+     */
+    void updatePasswordHash(Long userId, String encodedPassword);
+
     /**
      * 重置密码
      * 
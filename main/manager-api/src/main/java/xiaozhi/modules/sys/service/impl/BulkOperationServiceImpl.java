@@ -0,0 +1,181 @@
+package xiaozhi.modules.sys.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+
+import lombok.AllArgsConstructor;
+import xiaozhi.common.cache.CacheRegion;
+import xiaozhi.common.cache.ResponseCacheManager;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.modules.agent.dao.AgentDao;
+import xiaozhi.modules.agent.entity.AgentEntity;
+import xiaozhi.modules.device.dao.DeviceDao;
+import xiaozhi.modules.device.entity.DeviceEntity;
+import xiaozhi.modules.security.service.ShiroService;
+import xiaozhi.modules.security.token.TokenStrategyManager;
+import xiaozhi.modules.sys.bulk.BulkChunkResult;
+import xiaozhi.modules.sys.bulk.BulkJobRunner;
+import xiaozhi.modules.sys.dao.SysDictDataDao;
+import xiaozhi.modules.sys.dao.SysUserDao;
+import xiaozhi.modules.sys.entity.SysDictDataEntity;
+import xiaozhi.modules.sys.entity.SysUserEntity;
+import xiaozhi.modules.sys.service.BulkOperationService;
+import xiaozhi.modules.sys.vo.BulkJobVO;
+
+/**
+ * 批量管理操作，每个分块内用一条IN语句完成查询和修改
+ */
+@Service
+@AllArgsConstructor
+public class BulkOperationServiceImpl implements BulkOperationService {
+    private final BulkJobRunner bulkJobRunner;
+    private final SysUserDao sysUserDao;
+    private final SysDictDataDao sysDictDataDao;
+    private final DeviceDao deviceDao;
+    private final AgentDao agentDao;
+    private final TokenStrategyManager tokenStrategyManager;
+    private final ShiroService shiroService;
+    private final ResponseCacheManager responseCacheManager;
+
+    @Override
+    public String changeUserStatus(List<String> userIds, Integer status) {
+        if (status == null || (status != 0 && status != 1)) {
+            throw new RenException("用户状态不正确");
+        }
+        return bulkJobRunner.submit("USER_STATUS", userIds, (ids, result) -> {
+            List<Long> idList = parseIds(ids, result);
+            Set<Long> existing = idList.isEmpty() ? Set.of()
+                    : sysUserDao.selectList(new QueryWrapper<SysUserEntity>().select("id").in("id", idList))
+                            .stream().map(SysUserEntity::getId).collect(Collectors.toSet());
+            idList.stream().filter(id -> !existing.contains(id))
+                    .forEach(id -> result.fail(String.valueOf(id), "用户不存在"));
+            if (existing.isEmpty()) {
+                return;
+            }
+
+            sysUserDao.update(null, new UpdateWrapper<SysUserEntity>().set("status", status).in("id", existing));
+            // 锁定账号时吊销已签发的token，签名token不会再查询账号状态
+            if (status == 0) {
+                existing.forEach(tokenStrategyManager::revoke);
+            }
+            shiroService.evictUsers(existing);
+        });
+    }
+
+    @Override
+    public String deleteDictData(List<String> ids) {
+        return bulkJobRunner.submit("DICT_DATA_DELETE", ids, (chunk, result) -> {
+            List<Long> idList = parseIds(chunk, result);
+            List<SysDictDataEntity> entities = idList.isEmpty() ? List.of() : sysDictDataDao.selectBatchIds(idList);
+            Set<Long> existing = entities.stream().map(SysDictDataEntity::getId).collect(Collectors.toSet());
+            idList.stream().filter(id -> !existing.contains(id))
+                    .forEach(id -> result.fail(String.valueOf(id), "字典数据不存在"));
+            if (existing.isEmpty()) {
+                return;
+            }
+
+            sysDictDataDao.deleteBatchIds(existing);
+            entities.stream().map(SysDictDataEntity::getDictTypeId).distinct()
+                    .map(sysDictDataDao::getTypeByTypeId).filter(Objects::nonNull)
+                    .forEach(dictType -> result.evict(RedisKeys.getDictDataByTypeKey(dictType)));
+            responseCacheManager.evict(CacheRegion.DICT);
+        });
+    }
+
+    @Override
+    public String unbindDevices(List<String> deviceIds) {
+        return bulkJobRunner.submit("DEVICE_UNBIND", deviceIds, (ids, result) -> {
+            List<DeviceEntity> devices = selectDevices(ids, result);
+            if (devices.isEmpty()) {
+                return;
+            }
+
+            deviceDao.deleteBatchIds(devices.stream().map(DeviceEntity::getId).toList());
+            devices.forEach(device -> evictAgentDeviceStats(result, device.getAgentId()));
+        });
+    }
+
+    @Override
+    public String rebindDevices(List<String> deviceIds, String agentId) {
+        AgentEntity agent = StringUtils.isBlank(agentId) ? null : agentDao.selectById(agentId);
+        if (agent == null) {
+            throw new RenException("智能体不存在");
+        }
+        return bulkJobRunner.submit("DEVICE_REBIND", deviceIds, (ids, result) -> {
+            List<DeviceEntity> devices = selectDevices(ids, result);
+            if (devices.isEmpty()) {
+                return;
+            }
+
+            deviceDao.update(null, new UpdateWrapper<DeviceEntity>()
+                    .set("agent_id", agent.getId())
+                    .set("user_id", agent.getUserId())
+                    .in("id", devices.stream().map(DeviceEntity::getId).toList()));
+            devices.forEach(device -> evictAgentDeviceStats(result, device.getAgentId()));
+            evictAgentDeviceStats(result, agent.getId());
+        });
+    }
+
+    @Override
+    public String changeDeviceBoard(List<String> deviceIds, String board) {
+        if (StringUtils.isBlank(board) || board.length() > 50) {
+            throw new RenException("设备硬件型号不正确");
+        }
+        return bulkJobRunner.submit("DEVICE_BOARD", deviceIds, (ids, result) -> {
+            List<DeviceEntity> devices = selectDevices(ids, result);
+            if (devices.isEmpty()) {
+                return;
+            }
+
+            deviceDao.update(null, new UpdateWrapper<DeviceEntity>()
+                    .set("board", board)
+                    .in("id", devices.stream().map(DeviceEntity::getId).toList()));
+        });
+    }
+
+    @Override
+    public BulkJobVO getJob(String jobId) {
+        return bulkJobRunner.get(jobId);
+    }
+
+    /**
+     * 查询分块内存在的设备，不存在的记为失败
+     */
+    private List<DeviceEntity> selectDevices(List<String> ids, BulkChunkResult result) {
+        List<DeviceEntity> devices = deviceDao.selectList(
+                new QueryWrapper<DeviceEntity>().select("id", "agent_id").in("id", ids));
+        Set<String> existing = devices.stream().map(DeviceEntity::getId).collect(Collectors.toSet());
+        ids.stream().filter(id -> !existing.contains(id)).forEach(id -> result.fail(id, "设备不存在"));
+        return devices;
+    }
+
+    private static void evictAgentDeviceStats(BulkChunkResult result, String agentId) {
+        if (StringUtils.isBlank(agentId)) {
+            return;
+        }
+        result.evict(RedisKeys.getAgentDeviceCountById(agentId));
+        result.evict(RedisKeys.getAgentDeviceLastConnectedAtById(agentId));
+    }
+
+    private static List<Long> parseIds(List<String> ids, BulkChunkResult result) {
+        List<Long> idList = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            try {
+                idList.add(Long.parseLong(id.trim()));
+            } catch (NumberFormatException e) {
+                result.fail(id, "ID格式不正确");
+            }
+        }
+        return idList;
+    }
+}
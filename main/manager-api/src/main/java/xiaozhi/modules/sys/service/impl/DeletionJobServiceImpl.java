@@ -0,0 +1,169 @@
+package xiaozhi.modules.sys.service.impl;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+
+import lombok.AllArgsConstructor;
+import xiaozhi.common.cache.CacheRegion;
+import xiaozhi.common.cache.ResponseCacheManager;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.page.KeysetSort;
+import xiaozhi.common.page.PageData;
+import xiaozhi.common.page.Paginator;
+import xiaozhi.common.utils.ConvertUtils;
+import xiaozhi.modules.agent.dao.AgentDao;
+import xiaozhi.modules.agent.entity.AgentEntity;
+import xiaozhi.modules.agent.service.AgentService;
+import xiaozhi.modules.security.service.ShiroService;
+import xiaozhi.modules.security.token.TokenStrategyManager;
+import xiaozhi.modules.security.user.SecurityUser;
+import xiaozhi.modules.sys.dao.SysDeletionJobDao;
+import xiaozhi.modules.sys.dao.SysUserDao;
+import xiaozhi.modules.sys.entity.SysDeletionJobEntity;
+import xiaozhi.modules.sys.entity.SysUserEntity;
+import xiaozhi.modules.sys.enums.SuperAdminEnum;
+import xiaozhi.modules.sys.service.DeletionJobService;
+import xiaozhi.modules.sys.task.DeletionJobTask;
+import xiaozhi.modules.sys.vo.DeletionJobVO;
+
+/**
+ * 删除任务
+ */
+@Service
+@AllArgsConstructor
+public class DeletionJobServiceImpl implements DeletionJobService {
+    private final SysDeletionJobDao sysDeletionJobDao;
+    private final SysUserDao sysUserDao;
+    private final AgentDao agentDao;
+    private final AgentService agentService;
+    private final TokenStrategyManager tokenStrategyManager;
+    private final ShiroService shiroService;
+    private final DeletionJobTask deletionJobTask;
+    private final Paginator paginator;
+    private final ResponseCacheManager responseCacheManager;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Long deleteAgent(String agentId) {
+        // 标记删除后智能体立即从所有查询中消失，引用索引同步删除
+        if (!agentService.deleteById(agentId)) {
+            return existingJob(SysDeletionJobEntity.TARGET_AGENT, agentId, "智能体不存在");
+        }
+        Long jobId = createJob(SysDeletionJobEntity.TARGET_AGENT, agentId);
+        wakeUpAfterCommit();
+        return jobId;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Long deleteUser(Long userId) {
+        // 标记删除时同时改写用户名，释放uk_username，不必等后台清理完成即可重新注册同名用户
+        int deleted = sysUserDao.update(null, new UpdateWrapper<SysUserEntity>()
+                .set("deleted", 1)
+                .set("username", SysUserEntity.DELETED_USERNAME_PREFIX + userId)
+                .eq("id", userId));
+        if (deleted == 0) {
+            return existingJob(SysDeletionJobEntity.TARGET_USER, String.valueOf(userId), "用户不存在");
+        }
+
+        List<AgentEntity> agents = agentDao.selectList(
+                new QueryWrapper<AgentEntity>().select("id").eq("user_id", userId));
+        agentService.deleteAgentByUserId(userId);
+        agents.forEach(agent -> createJob(SysDeletionJobEntity.TARGET_AGENT, agent.getId()));
+        Long jobId = createJob(SysDeletionJobEntity.TARGET_USER, String.valueOf(userId));
+
+        // 吊销token并清除认证缓存
+        tokenStrategyManager.revoke(userId);
+        shiroService.evictUser(userId);
+        responseCacheManager.evict(CacheRegion.SYS_USER);
+        wakeUpAfterCommit();
+        return jobId;
+    }
+
+    @Override
+    public DeletionJobVO getJob(Long jobId) {
+        SysDeletionJobEntity job = sysDeletionJobDao.selectById(jobId);
+        if (job == null || !isVisible(job)) {
+            throw new RenException("任务不存在");
+        }
+        return toVO(job);
+    }
+
+    @Override
+    public PageData<DeletionJobVO> page(Map<String, Object> params) {
+        String status = (String) params.get("status");
+        String targetType = (String) params.get("targetType");
+        String targetId = (String) params.get("targetId");
+        return paginator.page("deletionJob", sysDeletionJobDao,
+                () -> new QueryWrapper<SysDeletionJobEntity>()
+                        .eq(StringUtils.isNotBlank(status), "status", status)
+                        .eq(StringUtils.isNotBlank(targetType), "target_type", targetType)
+                        .eq(StringUtils.isNotBlank(targetId), "target_id", targetId),
+                params, KeysetSort.of("id", SysDeletionJobEntity::getId, false))
+                .map(DeletionJobServiceImpl::toVO);
+    }
+
+    private Long createJob(String targetType, String targetId) {
+        SysDeletionJobEntity job = new SysDeletionJobEntity();
+        job.setTargetType(targetType);
+        job.setTargetId(targetId);
+        job.setStatus(SysDeletionJobEntity.STATUS_PENDING);
+        job.setStep(SysDeletionJobEntity.steps(targetType).getFirst());
+        job.setCursorId(0L);
+        job.setAttempts(0);
+        job.setNextAttemptAt(new Date());
+        job.setCreator(SecurityUser.getUserId());
+        sysDeletionJobDao.insert(job);
+        return job.getId();
+    }
+
+    /**
+     * 重复删除时返回已有的任务，对象不存在且没有任务时报错
+     */
+    private Long existingJob(String targetType, String targetId, String notFound) {
+        SysDeletionJobEntity job = sysDeletionJobDao.selectOne(new QueryWrapper<SysDeletionJobEntity>()
+                .eq("target_type", targetType)
+                .eq("target_id", targetId)
+                .orderByDesc("id")
+                .last("LIMIT 1"));
+        if (job == null) {
+            throw new RenException(notFound);
+        }
+        return job.getId();
+    }
+
+    private void wakeUpAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deletionJobTask.wakeUp();
+                }
+            });
+        } else {
+            deletionJobTask.wakeUp();
+        }
+    }
+
+    private static boolean isVisible(SysDeletionJobEntity job) {
+        Integer superAdmin = SecurityUser.getUser().getSuperAdmin();
+        return (superAdmin != null && superAdmin == SuperAdminEnum.YES.value())
+                || (job.getCreator() != null && job.getCreator().equals(SecurityUser.getUserId()));
+    }
+
+    private static DeletionJobVO toVO(SysDeletionJobEntity job) {
+        DeletionJobVO vo = ConvertUtils.sourceToTarget(job, DeletionJobVO.class);
+        vo.setCounts(DeletionJobTask.parseCounts(job.getCounts()));
+        return vo;
+    }
+}
@@ -1,5 +1,6 @@
 package xiaozhi.modules.sys.service.impl;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -16,6 +17,8 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 
 import lombok.AllArgsConstructor;
+import xiaozhi.common.cache.CacheRegion;
+import xiaozhi.common.cache.ResponseCacheManager;
 import xiaozhi.common.exception.RenException;
 import xiaozhi.common.page.PageData;
 import xiaozhi.common.redis.RedisKeys;
@@ -40,6 +43,7 @@ public class SysDictDataServiceImpl extends BaseServiceImpl<SysDictDataDao, SysD
         implements SysDictDataService {
     private final SysUserDao sysUserDao;
     private final RedisUtils redisUtils;
+    private final ResponseCacheManager responseCacheManager;
 
     @Override
     public PageData<SysDictDataVO> page(Map<String, Object> params) {
@@ -84,6 +88,7 @@ public class SysDictDataServiceImpl extends BaseServiceImpl<SysDictDataDao, SysD
         // 删除Redis缓存
         String dictType = baseDao.getTypeByTypeId(dto.getDictTypeId());
         redisUtils.delete(RedisKeys.getDictDataByTypeKey(dictType));
+        responseCacheManager.evict(CacheRegion.DICT);
     }
 
     @Override
@@ -98,19 +103,26 @@ public class SysDictDataServiceImpl extends BaseServiceImpl<SysDictDataDao, SysD
         // 删除Redis缓存
         String dictType = baseDao.getTypeByTypeId(dto.getDictTypeId());
         redisUtils.delete(RedisKeys.getDictDataByTypeKey(dictType));
+        responseCacheManager.evict(CacheRegion.DICT);
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void delete(Long[] ids) {
-        for (Long id : ids) {
-            SysDictDataEntity entity = baseDao.selectById(id);
-            // 删除Redis缓存
-            String dictType = baseDao.getTypeByTypeId(entity.getDictTypeId());
-            redisUtils.delete(RedisKeys.getDictDataByTypeKey(dictType));
-            // 删除
-            deleteById(id);
+        if (ids == null || ids.length == 0) {
+            return;
         }
+        List<SysDictDataEntity> entities = baseDao.selectBatchIds(Arrays.asList(ids));
+        if (entities.isEmpty()) {
+            return;
+        }
+        baseDao.deleteBatchIds(entities.stream().map(SysDictDataEntity::getId).toList());
+        // 删除Redis缓存，涉及的字典类型一次删除
+        List<String> keys = entities.stream().map(SysDictDataEntity::getDictTypeId).distinct()
+                .map(baseDao::getTypeByTypeId).filter(Objects::nonNull)
+                .map(RedisKeys::getDictDataByTypeKey).toList();
+        redisUtils.delete(keys);
+        responseCacheManager.evict(CacheRegion.DICT);
     }
 
     @Override
@@ -119,6 +131,7 @@ public class SysDictDataServiceImpl extends BaseServiceImpl<SysDictDataDao, SysD
         LambdaQueryWrapper<SysDictDataEntity> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(SysDictDataEntity::getDictTypeId, dictTypeId);
         baseDao.delete(wrapper);
+        responseCacheManager.evict(CacheRegion.DICT);
     }
 
     /**
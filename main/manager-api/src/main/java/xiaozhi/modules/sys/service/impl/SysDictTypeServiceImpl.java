@@ -17,6 +17,8 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 
 import lombok.AllArgsConstructor;
+import xiaozhi.common.cache.CacheRegion;
+import xiaozhi.common.cache.ResponseCacheManager;
 import xiaozhi.common.exception.RenException;
 import xiaozhi.common.page.PageData;
 import xiaozhi.common.service.impl.BaseServiceImpl;
@@ -39,6 +41,7 @@ public class SysDictTypeServiceImpl extends BaseServiceImpl<SysDictTypeDao, SysD
         implements SysDictTypeService {
     private final SysUserDao sysUserDao;
     private final SysDictDataService sysDictDataService;
+    private final ResponseCacheManager responseCacheManager;
 
     @Override
     public PageData<SysDictTypeVO> page(Map<String, Object> params) {
@@ -81,6 +84,7 @@ public class SysDictTypeServiceImpl extends BaseServiceImpl<SysDictTypeDao, SysD
         SysDictTypeEntity entity = ConvertUtils.sourceToTarget(dto, SysDictTypeEntity.class);
 
         insert(entity);
+        responseCacheManager.evict(CacheRegion.DICT);
     }
 
     @Override
@@ -92,6 +96,7 @@ public class SysDictTypeServiceImpl extends BaseServiceImpl<SysDictTypeDao, SysD
         SysDictTypeEntity entity = ConvertUtils.sourceToTarget(dto, SysDictTypeEntity.class);
 
         updateById(entity);
+        responseCacheManager.evict(CacheRegion.DICT);
     }
 
     @Override
@@ -7,24 +7,29 @@ import java.util.Map;
 import java.util.UUID;
 
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 
+import jakarta.annotation.PostConstruct;
 import lombok.AllArgsConstructor;
+import xiaozhi.common.cache.CacheRegion;
+import xiaozhi.common.cache.ResponseCacheManager;
 import xiaozhi.common.constant.Constant;
 import xiaozhi.common.exception.ErrorCode;
 import xiaozhi.common.exception.RenException;
 import xiaozhi.common.page.PageData;
 import xiaozhi.common.service.impl.BaseServiceImpl;
 import xiaozhi.common.utils.ConvertUtils;
-import xiaozhi.common.utils.JsonUtils;
 import xiaozhi.modules.sys.dao.SysParamsDao;
 import xiaozhi.modules.sys.dto.SysParamsDTO;
 import xiaozhi.modules.sys.entity.SysParamsEntity;
-import xiaozhi.modules.sys.redis.SysParamsRedis;
+import xiaozhi.modules.sys.event.SysParamsChangedEvent;
+import xiaozhi.modules.sys.params.SysParamValue;
+import xiaozhi.modules.sys.params.SysParamsRegistry;
 import xiaozhi.modules.sys.service.SysParamsService;
 
 /**
@@ -33,7 +38,16 @@ import xiaozhi.modules.sys.service.SysParamsService;
 @AllArgsConstructor
 @Service
 public class SysParamsServiceImpl extends BaseServiceImpl<SysParamsDao, SysParamsEntity> implements SysParamsService {
-    private final SysParamsRedis sysParamsRedis;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SysParamsRegistry sysParamsRegistry;
+    private final ResponseCacheManager responseCacheManager;
+
+    @PostConstruct
+    public void init() {
+        // 注册表重新加载时数据已提交，直接失效依赖参数的响应缓存
+        sysParamsRegistry.subscribe(
+                (previous, current, changed) -> responseCacheManager.evictNow(CacheRegion.SYS_PARAMS));
+    }
 
     @Override
     public PageData<SysParamsDTO> page(Map<String, Object> params) {
@@ -78,7 +92,7 @@ public class SysParamsServiceImpl extends BaseServiceImpl<SysParamsDao, SysParam
         SysParamsEntity entity = ConvertUtils.sourceToTarget(dto, SysParamsEntity.class);
         insert(entity);
 
-        sysParamsRedis.set(entity.getParamCode(), entity.getParamValue());
+        eventPublisher.publishEvent(new SysParamsChangedEvent(List.of(entity.getParamCode())));
     }
 
     @Override
@@ -89,7 +103,7 @@ public class SysParamsServiceImpl extends BaseServiceImpl<SysParamsDao, SysParam
         SysParamsEntity entity = ConvertUtils.sourceToTarget(dto, SysParamsEntity.class);
         updateById(entity);
 
-        sysParamsRedis.set(entity.getParamCode(), entity.getParamValue());
+        eventPublisher.publishEvent(new SysParamsChangedEvent(List.of(entity.getParamCode())));
     }
 
     /**
@@ -104,83 +118,32 @@ public class SysParamsServiceImpl extends BaseServiceImpl<SysParamsDao, SysParam
             throw new RenException(ErrorCode.PARAM_VALUE_NULL);
         }
 
-        if (StringUtils.isBlank(dto.getValueType())) {
-            throw new RenException(ErrorCode.PARAM_TYPE_NULL);
-        }
-
-        String valueType = dto.getValueType().toLowerCase();
-        String paramValue = dto.getParamValue();
-
-        switch (valueType) {
-            case "string":
-                break;
-            case "array":
-                break;
-            case "number":
-                try {
-                    Double.parseDouble(paramValue);
-                } catch (NumberFormatException e) {
-                    throw new RenException(ErrorCode.PARAM_NUMBER_INVALID);
-                }
-                break;
-            case "boolean":
-                if (!"true".equalsIgnoreCase(paramValue) && !"false".equalsIgnoreCase(paramValue)) {
-                    throw new RenException(ErrorCode.PARAM_BOOLEAN_INVALID);
-                }
-                break;
-            case "json":
-                try {
-                    // 首先检查是否以 { 开头，以 } 结尾
-                    String trimmedValue = paramValue.trim();
-                    if (!trimmedValue.startsWith("{") || !trimmedValue.endsWith("}")) {
-                        throw new RenException(ErrorCode.PARAM_JSON_INVALID);
-                    }
-                    // 然后尝试解析JSON
-                    JsonUtils.parseObject(paramValue, Object.class);
-                } catch (Exception e) {
-                    throw new RenException(ErrorCode.PARAM_JSON_INVALID);
-                }
-                break;
-            default:
-                throw new RenException(ErrorCode.PARAM_TYPE_INVALID);
-        }
+        SysParamValue.validate(dto.getParamValue(), dto.getValueType());
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void delete(String[] ids) {
-        // 删除Redis数据
         List<String> paramCodeList = baseDao.getParamCodeList(ids);
-        String[] paramCodes = paramCodeList.toArray(new String[paramCodeList.size()]);
-        if (paramCodes.length > 0) {
-            sysParamsRedis.delete(paramCodes);
-        }
 
         // 删除
         deleteBatchIds(Arrays.asList(ids));
+        eventPublisher.publishEvent(new SysParamsChangedEvent(paramCodeList));
     }
 
     @Override
     public String getValue(String paramCode, Boolean fromCache) {
-        String paramValue = null;
         if (fromCache) {
-            paramValue = sysParamsRedis.get(paramCode);
-            if (paramValue == null) {
-                paramValue = baseDao.getValueByCode(paramCode);
-
-                sysParamsRedis.set(paramCode, paramValue);
-            }
-        } else {
-            paramValue = baseDao.getValueByCode(paramCode);
+            return sysParamsRegistry.getString(paramCode);
         }
-        return paramValue;
+        return baseDao.getValueByCode(paramCode);
     }
 
     @Override
     public <T> T getValueObject(String paramCode, Class<T> clazz) {
-        String paramValue = getValue(paramCode, true);
-        if (StringUtils.isNotBlank(paramValue)) {
-            return JsonUtils.parseObject(paramValue, clazz);
+        SysParamValue value = sysParamsRegistry.get(paramCode);
+        if (value != null && StringUtils.isNotBlank(value.getValue())) {
+            return value.as(clazz);
         }
 
         try {
@@ -193,8 +156,12 @@ public class SysParamsServiceImpl extends BaseServiceImpl<SysParamsDao, SysParam
     @Override
     @Transactional(rollbackFor = Exception.class)
     public int updateValueByCode(String paramCode, String paramValue) {
+        SysParamValue current = sysParamsRegistry.get(paramCode);
+        if (current != null) {
+            SysParamValue.validate(paramValue, current.getValueType());
+        }
         int count = baseDao.updateValueByCode(paramCode, paramValue);
-        sysParamsRedis.set(paramCode, paramValue);
+        eventPublisher.publishEvent(new SysParamsChangedEvent(List.of(paramCode)));
         return count;
     }
 
@@ -1,5 +1,6 @@
 package xiaozhi.modules.sys.service.impl;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -12,24 +13,29 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 
 import lombok.AllArgsConstructor;
+import xiaozhi.common.cache.CacheRegion;
+import xiaozhi.common.cache.ResponseCacheManager;
 import xiaozhi.common.constant.Constant;
 import xiaozhi.common.exception.ErrorCode;
 import xiaozhi.common.exception.RenException;
+import xiaozhi.common.page.KeysetSort;
 import xiaozhi.common.page.PageData;
 import xiaozhi.common.service.impl.BaseServiceImpl;
 import xiaozhi.common.utils.ConvertUtils;
-import xiaozhi.modules.agent.service.AgentService;
 import xiaozhi.modules.device.service.DeviceService;
-import xiaozhi.modules.security.password.PasswordUtils;
+import xiaozhi.modules.security.password.PasswordHashService;
+import xiaozhi.modules.security.service.ShiroService;
+import xiaozhi.modules.security.token.TokenStrategyManager;
 import xiaozhi.modules.sys.dao.SysUserDao;
 import xiaozhi.modules.sys.dto.AdminPageUserDTO;
 import xiaozhi.modules.sys.dto.PasswordDTO;
 import xiaozhi.modules.sys.dto.SysUserDTO;
 import xiaozhi.modules.sys.entity.SysUserEntity;
 import xiaozhi.modules.sys.enums.SuperAdminEnum;
+import xiaozhi.modules.sys.service.DeletionJobService;
 import xiaozhi.modules.sys.service.SysParamsService;
 import xiaozhi.modules.sys.service.SysUserService;
 import xiaozhi.modules.sys.vo.AdminPageUserVO;
@@ -44,10 +50,18 @@ public class SysUserServiceImpl extends BaseServiceImpl<SysUserDao, SysUserEntit
 
     private final DeviceService deviceService;
 
-    private final AgentService agentService;
+    private final DeletionJobService deletionJobService;
 
     private final SysParamsService sysParamsService;
 
+    private final ShiroService shiroService;
+
+    private final TokenStrategyManager tokenStrategyManager;
+
+    private final PasswordHashService passwordHashService;
+
+    private final ResponseCacheManager responseCacheManager;
+
     @Override
     public SysUserDTO getByUsername(String username) {
         QueryWrapper<SysUserEntity> queryWrapper = new QueryWrapper<>();
@@ -72,13 +86,18 @@ public class SysUserServiceImpl extends BaseServiceImpl<SysUserDao, SysUserEntit
     public void save(SysUserDTO dto) {
         SysUserEntity entity = ConvertUtils.sourceToTarget(dto, SysUserEntity.class);
 
+        // 已删除用户占用的用户名格式
+        if (StringUtils.startsWith(entity.getUsername(), SysUserEntity.DELETED_USERNAME_PREFIX)) {
+            throw new RenException("用户名格式不正确");
+        }
+
         // 密码强度
         if (!isStrongPassword(entity.getPassword())) {
             throw new RenException(ErrorCode.PASSWORD_WEAK_ERROR);
         }
 
         // 密码加密
-        String password = PasswordUtils.encode(entity.getPassword());
+        String password = passwordHashService.encode(entity.getUsername(), entity.getPassword());
         entity.setPassword(password);
 
         // 保存用户
@@ -91,17 +110,14 @@ public class SysUserServiceImpl extends BaseServiceImpl<SysUserDao, SysUserEntit
         entity.setStatus(1);
 
         insert(entity);
+        // 公共配置中的是否允许注册取决于有没有用户
+        responseCacheManager.evict(CacheRegion.SYS_USER);
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public void deleteById(Long id) {
-        // 删除用户
-        baseDao.deleteById(id);
-        // 删除设备
-        deviceService.deleteByUserId(id);
-        // 删除智能体
-        agentService.deleteAgentByUserId(id);
+        // 用户和智能体标记删除，设备等关联数据由后台任务分批清理
+        deletionJobService.deleteUser(id);
     }
 
     @Override
@@ -114,7 +130,8 @@ public class SysUserServiceImpl extends BaseServiceImpl<SysUserDao, SysUserEntit
         }
 
         // 判断旧密码是否正确
-        if (!PasswordUtils.matches(passwordDTO.getPassword(), sysUserEntity.getPassword())) {
+        if (!passwordHashService.matches(sysUserEntity.getUsername(), passwordDTO.getPassword(),
+                sysUserEntity.getPassword())) {
             throw new RenException("旧密码输入错误");
         }
 
@@ -124,10 +141,12 @@ public class SysUserServiceImpl extends BaseServiceImpl<SysUserDao, SysUserEntit
         }
 
         // 密码加密
-        String password = PasswordUtils.encode(passwordDTO.getNewPassword());
+        String password = passwordHashService.encode(sysUserEntity.getUsername(),
+                passwordDTO.getNewPassword());
         sysUserEntity.setPassword(password);
 
         updateById(sysUserEntity);
+        shiroService.evictUser(userId);
     }
 
     @Override
@@ -139,8 +158,21 @@ public class SysUserServiceImpl extends BaseServiceImpl<SysUserDao, SysUserEntit
         }
         SysUserEntity sysUserEntity = new SysUserEntity();
         sysUserEntity.setId(userId);
-        sysUserEntity.setPassword(PasswordUtils.encode(password));
+        sysUserEntity.setPassword(passwordHashService.encode(null, password));
+        updateById(sysUserEntity);
+        // 管理员重置密码后，原有登录全部失效
+        tokenStrategyManager.revoke(userId);
+        shiroService.evictUser(userId);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void updatePasswordHash(Long userId, String encodedPassword) {
+        SysUserEntity sysUserEntity = new SysUserEntity();
+        sysUserEntity.setId(userId);
+        sysUserEntity.setPassword(encodedPassword);
         updateById(sysUserEntity);
+        shiroService.evictUser(userId);
     }
 
     @Override
@@ -161,12 +193,15 @@ public class SysUserServiceImpl extends BaseServiceImpl<SysUserDao, SysUserEntit
         Map<String, Object> params = new HashMap<String, Object>();
         params.put(Constant.PAGE, dto.getPage());
         params.put(Constant.LIMIT, dto.getLimit());
-        IPage<SysUserEntity> page = baseDao.selectPage(
-                getPage(params, "id", true),
-                new QueryWrapper<SysUserEntity>().like(StringUtils.isNotBlank(dto.getMobile()), "username",
-                        dto.getMobile()));
+        if (dto.getCursor() != null) {
+            params.put(Constant.CURSOR, dto.getCursor());
+        }
+        PageData<SysUserEntity> page = paginator.page("user", baseDao,
+                () -> new QueryWrapper<SysUserEntity>().like(StringUtils.isNotBlank(dto.getMobile()), "username",
+                        dto.getMobile()),
+                params, KeysetSort.of("id", SysUserEntity::getId, true));
         // 循环处理page获取回来的数据，返回需要的字段
-        List<AdminPageUserVO> list = page.getRecords().stream().map(user -> {
+        return page.map(user -> {
             AdminPageUserVO adminPageUserVO = new AdminPageUserVO();
             adminPageUserVO.setUserid(user.getId().toString());
             adminPageUserVO.setMobile(user.getUsername());
@@ -175,8 +210,7 @@ public class SysUserServiceImpl extends BaseServiceImpl<SysUserDao, SysUserEntit
             adminPageUserVO.setStatus(user.getStatus());
             adminPageUserVO.setCreateDate(user.getCreateDate());
             return adminPageUserVO;
-        }).toList();
-        return new PageData<>(list, page.getTotal());
+        });
     }
 
     private boolean isStrongPassword(String password) {
@@ -206,12 +240,16 @@ public class SysUserServiceImpl extends BaseServiceImpl<SysUserDao, SysUserEntit
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void changeStatus(Integer status, String[] userIds) {
-        for (String userId : userIds) {
-            SysUserEntity entity = new SysUserEntity();
-            entity.setId(Long.parseLong(userId));
-            entity.setStatus(status);
-            updateById(entity);
+        if (userIds == null || userIds.length == 0) {
+            return;
+        }
+        List<Long> ids = Arrays.stream(userIds).map(Long::parseLong).distinct().toList();
+        baseDao.update(null, new UpdateWrapper<SysUserEntity>().set("status", status).in("id", ids));
+        // 锁定账号时吊销已签发的token，签名token不会再查询账号状态
+        if (status != null && status == 0) {
+            ids.forEach(tokenStrategyManager::revoke);
         }
+        shiroService.evictUsers(ids);
     }
 
     @Override
@@ -0,0 +1,336 @@
+package xiaozhi.modules.sys.task;
+
+import java.net.InetAddress;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import xiaozhi.common.utils.JsonUtils;
+import xiaozhi.modules.agent.dao.AiAgentChatAudioDao;
+import xiaozhi.modules.agent.dao.AiAgentChatHistoryDao;
+import xiaozhi.modules.agent.entity.AgentChatHistoryEntity;
+import xiaozhi.modules.agent.service.AgentChatHistorySearchService;
+import xiaozhi.modules.agent.service.AgentPluginMappingService;
+import xiaozhi.modules.sys.dao.SysDeletionJobDao;
+import xiaozhi.modules.sys.entity.SysDeletionJobEntity;
+
+/**
+ * 删除任务
+ * <p>
+ * 智能体、用户先标记删除，再由本任务按步骤分批清理关联表，每批一条短语句或一个短事务，批间稍作停顿，
+ * 不长时间持有锁。每批完成后把当前步骤、游标和各表删除行数写回任务，实例重启后从保存的进度继续。
+ * 领取通过UPDATE ... LIMIT完成，多实例不会重复处理
+ */
+@Slf4j
+@Component
+public class DeletionJobTask {
+    /**
+     * 每批删除的行数
+     */
+    static final int BATCH_SIZE = 500;
+    /**
+     * 两批之间的停顿，给线上请求让出数据库
+     */
+    private static final long BATCH_PAUSE_MILLIS = 20L;
+    /**
+     * 超过该时间没有进度视为实例异常，放回队列
+     */
+    private static final long STALE_MILLIS = 5 * 60 * 1000L;
+    private static final int MAX_ATTEMPTS = 10;
+    private static final long RETRY_DELAY_MILLIS = 60 * 1000L;
+    private static final int ERROR_MAX_LENGTH = 500;
+
+    private final SysDeletionJobDao sysDeletionJobDao;
+    private final AiAgentChatHistoryDao aiAgentChatHistoryDao;
+    private final AiAgentChatAudioDao aiAgentChatAudioDao;
+    private final AgentPluginMappingService agentPluginMappingService;
+    private final AgentChatHistorySearchService agentChatHistorySearchService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String owner;
+    /**
+     * 单线程处理，最多再排队一次唤醒，处理中重复唤醒直接丢弃
+     */
+    private final ThreadPoolExecutor poller;
+
+    public DeletionJobTask(SysDeletionJobDao sysDeletionJobDao, AiAgentChatHistoryDao aiAgentChatHistoryDao,
+            AiAgentChatAudioDao aiAgentChatAudioDao, AgentPluginMappingService agentPluginMappingService,
+            AgentChatHistorySearchService agentChatHistorySearchService, TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry) {
+        this.sysDeletionJobDao = sysDeletionJobDao;
+        this.aiAgentChatHistoryDao = aiAgentChatHistoryDao;
+        this.aiAgentChatAudioDao = aiAgentChatAudioDao;
+        this.agentPluginMappingService = agentPluginMappingService;
+        this.agentChatHistorySearchService = agentChatHistorySearchService;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.owner = resolveOwner();
+        this.poller = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                new ThreadFactoryBuilder().setNameFormat("deletion-job").setDaemon(true).build(),
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+
+    /**
+     * 创建任务后立即触发一次处理，不必等到下一次定时
+     */
+    public void wakeUp() {
+        poller.execute(this::drain);
+    }
+
+    @Scheduled(initialDelay = 10 * 1000L, fixedDelay = 10 * 1000L)
+    public void poll() {
+        wakeUp();
+    }
+
+    @Scheduled(initialDelay = 60 * 1000L, fixedDelay = 60 * 1000L)
+    public void releaseStale() {
+        int count = sysDeletionJobDao.releaseStale(new Date(System.currentTimeMillis() - STALE_MILLIS));
+        if (count > 0) {
+            log.warn("{}个删除任务超时没有进度，已放回队列", count);
+        }
+    }
+
+    /**
+     * 逐个领取并处理到期任务，直到没有可领取的任务
+     */
+    void drain() {
+        try {
+            while (!Thread.currentThread().isInterrupted() && sysDeletionJobDao.claimDue(owner, 1) > 0) {
+                for (SysDeletionJobEntity job : sysDeletionJobDao.listClaimed(owner)) {
+                    process(job);
+                }
+            }
+        } catch (Exception e) {
+            log.error("领取删除任务失败", e);
+        }
+    }
+
+    void process(SysDeletionJobEntity job) {
+        Map<String, Long> counts = parseCounts(job.getCounts());
+        List<String> steps = SysDeletionJobEntity.steps(job.getTargetType());
+        int index = Math.max(steps.indexOf(job.getStep()), 0);
+        long cursorId = job.getCursorId() == null ? 0L : job.getCursorId();
+
+        try {
+            while (index < steps.size()) {
+                String step = steps.get(index);
+                BatchResult batch = purgeBatch(job, step, cursorId);
+                batch.deleted().forEach((table, rows) -> {
+                    counts.merge(table, rows, Long::sum);
+                    meterRegistry.counter("xiaozhi.deletion.rows", "table", table).increment(rows);
+                });
+                cursorId = batch.cursorId();
+                if (batch.done()) {
+                    index++;
+                    cursorId = 0L;
+                }
+
+                boolean finished = index >= steps.size();
+                if (!saveProgress(job.getId(), finished ? step : steps.get(index), cursorId, counts, finished)) {
+                    log.warn("删除任务已被其他实例接管，停止处理，id={}", job.getId());
+                    return;
+                }
+                if (!finished && !batch.done() && !pause()) {
+                    release(job.getId());
+                    return;
+                }
+            }
+            log.info("删除任务完成，id={}，{}={}，删除行数：{}", job.getId(), job.getTargetType(), job.getTargetId(),
+                    counts);
+        } catch (Exception e) {
+            failed(job, e);
+        }
+    }
+
+    /**
+     * 执行一批清理
+     *
+     * @param job      任务
+     * @param step     当前步骤
+     * @param cursorId 当前步骤已清理到的ID
+     */
+    private BatchResult purgeBatch(SysDeletionJobEntity job, String step, long cursorId) {
+        String targetId = job.getTargetId();
+        boolean user = SysDeletionJobEntity.TARGET_USER.equals(job.getTargetType());
+        switch (step) {
+            case "ai_device":
+                return BatchResult.ofDeleted(step, sysDeletionJobDao.purgeBatch(step,
+                        user ? "user_id" : "agent_id", user ? Long.valueOf(targetId) : targetId, BATCH_SIZE));
+            case "ai_agent_voice_print", "ai_agent_chat_session":
+                return BatchResult.ofDeleted(step, sysDeletionJobDao.purgeBatch(step, "agent_id", targetId,
+                        BATCH_SIZE));
+            case "ai_agent_plugin_mapping":
+                // 每个智能体只有几条插件映射，走原有逻辑以同步清除二级缓存和插件引用
+                return BatchResult.done(Map.of(step, (long) agentPluginMappingService.deleteByAgentId(targetId)));
+            case "ai_agent_chat_history":
+                return purgeChatHistory(targetId, cursorId);
+            case "chat_history_index":
+                agentChatHistorySearchService.deleteByAgentId(targetId);
+                return BatchResult.done(Map.of());
+            case "ai_agent":
+                return BatchResult.done(Map.of(step, (long) sysDeletionJobDao.purgeDeleted(step, targetId)));
+            case "sys_user":
+                return BatchResult.done(Map.of(step,
+                        (long) sysDeletionJobDao.purgeDeleted(step, Long.valueOf(targetId))));
+            default:
+                throw new IllegalStateException("未知的删除步骤：" + step);
+        }
+    }
+
+    /**
+     * 按ID分批删除聊天记录及其音频，同一批的记录和音频在一个事务中删除
+     */
+    private BatchResult purgeChatHistory(String agentId, long cursorId) {
+        List<AgentChatHistoryEntity> batch = aiAgentChatHistoryDao.listForPurge(agentId, cursorId, BATCH_SIZE);
+        if (batch.isEmpty()) {
+            return BatchResult.done(Map.of());
+        }
+
+        List<Long> historyIds = batch.stream().map(AgentChatHistoryEntity::getId).toList();
+        List<String> audioIds = batch.stream().map(AgentChatHistoryEntity::getAudioId)
+                .filter(StringUtils::isNotBlank).distinct().toList();
+        int audioRows = Objects.requireNonNullElse(transactionTemplate.execute(status -> {
+            int rows = audioIds.isEmpty() ? 0 : aiAgentChatAudioDao.deleteBatchIds(audioIds);
+            aiAgentChatHistoryDao.deleteBatchIds(historyIds);
+            return rows;
+        }), 0);
+
+        return new BatchResult(batch.size() < BATCH_SIZE, historyIds.getLast(), Map.of(
+                "ai_agent_chat_history", (long) historyIds.size(),
+                "ai_agent_chat_audio", (long) audioRows));
+    }
+
+    /**
+     * 保存进度并刷新领取时间，任务已不属于本实例时返回false
+     */
+    private boolean saveProgress(Long id, String step, long cursorId, Map<String, Long> counts, boolean finished) {
+        UpdateWrapper<SysDeletionJobEntity> wrapper = new UpdateWrapper<SysDeletionJobEntity>()
+                .eq("id", id)
+                .eq("status", SysDeletionJobEntity.STATUS_RUNNING)
+                .eq("locked_by", owner)
+                .set("step", step)
+                .set("cursor_id", cursorId)
+                .set("counts", JsonUtils.toJsonString(counts))
+                .set("locked_at", new Date());
+        if (finished) {
+            wrapper.set("status", SysDeletionJobEntity.STATUS_DONE)
+                    .set("locked_by", null)
+                    .set("locked_at", null)
+                    .set("last_error", null)
+                    .set("finish_date", new Date());
+        }
+        return sysDeletionJobDao.update(null, wrapper) > 0;
+    }
+
+    /**
+     * 失败后按尝试次数延后重试，进度保留，超过最大尝试次数后放弃，需人工处理
+     */
+    private void failed(SysDeletionJobEntity job, Exception e) {
+        int attempts = job.getAttempts() + 1;
+        boolean giveUp = attempts >= MAX_ATTEMPTS;
+        String error = StringUtils.abbreviate(
+                StringUtils.defaultIfBlank(e.getMessage(), e.getClass().getSimpleName()), ERROR_MAX_LENGTH);
+
+        UpdateWrapper<SysDeletionJobEntity> wrapper = new UpdateWrapper<SysDeletionJobEntity>()
+                .eq("id", job.getId())
+                .eq("locked_by", owner)
+                .set("status", giveUp ? SysDeletionJobEntity.STATUS_FAILED : SysDeletionJobEntity.STATUS_PENDING)
+                .set("attempts", attempts)
+                .set("next_attempt_at", new Date(System.currentTimeMillis() + RETRY_DELAY_MILLIS * attempts))
+                .set("last_error", error)
+                .set("locked_by", null)
+                .set("locked_at", null);
+        if (giveUp) {
+            wrapper.set("finish_date", new Date());
+        }
+        sysDeletionJobDao.update(null, wrapper);
+        meterRegistry.counter("xiaozhi.deletion.failed").increment();
+        if (giveUp) {
+            log.error("删除任务失败，已放弃，id={}，{}={}，尝试{}次", job.getId(), job.getTargetType(),
+                    job.getTargetId(), attempts, e);
+        } else {
+            log.warn("删除任务执行失败，稍后重试，id={}，{}={}，第{}次", job.getId(), job.getTargetType(),
+                    job.getTargetId(), attempts, e);
+        }
+    }
+
+    /**
+     * 实例停止时放回队列，其他实例从已保存的进度继续
+     */
+    private void release(Long id) {
+        sysDeletionJobDao.update(null, new UpdateWrapper<SysDeletionJobEntity>()
+                .eq("id", id)
+                .eq("locked_by", owner)
+                .set("status", SysDeletionJobEntity.STATUS_PENDING)
+                .set("locked_by", null)
+                .set("locked_at", null));
+    }
+
+    private static boolean pause() {
+        try {
+            Thread.sleep(BATCH_PAUSE_MILLIS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public static Map<String, Long> parseCounts(String counts) {
+        if (StringUtils.isBlank(counts)) {
+            return new LinkedHashMap<>();
+        }
+        return JsonUtils.parseObject(counts, new TypeReference<LinkedHashMap<String, Long>>() {
+        });
+    }
+
+    private static String resolveOwner() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return StringUtils.abbreviate(host, 50) + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * 一批清理的结果
+     *
+     * @param done     当前步骤是否已清理完
+     * @param cursorId 当前步骤已清理到的ID
+     * @param deleted  各表本批删除行数
+     */
+    private record BatchResult(boolean done, long cursorId, Map<String, Long> deleted) {
+        static BatchResult done(Map<String, Long> deleted) {
+            return new BatchResult(true, 0L, deleted);
+        }
+
+        static BatchResult ofDeleted(String table, int rows) {
+            return new BatchResult(rows < BATCH_SIZE, 0L, Map.of(table, (long) rows));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package xiaozhi.modules.sys.vo;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量操作任务进度
+ */
+@Data
+@Schema(description = "批量操作任务进度")
+public class BulkJobVO implements Serializable {
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_SUCCESS = "SUCCESS";
+    public static final String STATUS_PARTIAL = "PARTIAL";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Schema(description = "任务ID")
+    private String jobId;
+
+    @Schema(description = "操作类型")
+    private String operation;
+
+    @Schema(description = "状态：RUNNING执行中，SUCCESS全部成功，PARTIAL部分失败，FAILED全部失败")
+    private String status;
+
+    @Schema(description = "总条数")
+    private int total;
+
+    @Schema(description = "已处理条数")
+    private int processed;
+
+    @Schema(description = "成功条数")
+    private int succeeded;
+
+    @Schema(description = "失败条数")
+    private int failed;
+
+    @Schema(description = "失败明细，最多保留前500条")
+    private List<Failure> failures = new ArrayList<>();
+
+    @Schema(description = "提交人")
+    private Long creator;
+
+    @Schema(description = "提交时间")
+    private Date createDate;
+
+    @Schema(description = "完成时间")
+    private Date finishDate;
+
+    @Data
+    @NoArgsConstructor
+    @Schema(description = "失败明细")
+    public static class Failure implements Serializable {
+        @Schema(description = "数据ID")
+        private String id;
+
+        @Schema(description = "失败原因")
+        private String reason;
+
+        public Failure(String id, String reason) {
+            this.id = id;
+            this.reason = reason;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package xiaozhi.modules.sys.vo;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Map;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 删除任务进度
+ */
+@Data
+@Schema(description = "删除任务进度")
+public class DeletionJobVO implements Serializable {
+    @Schema(description = "任务ID")
+    private Long id;
+
+    @Schema(description = "删除对象类型：AGENT智能体，USER用户")
+    private String targetType;
+
+    @Schema(description = "删除对象ID")
+    private String targetId;
+
+    @Schema(description = "状态：0待处理 1处理中 2已完成 3失败")
+    private Integer status;
+
+    @Schema(description = "当前清理的表")
+    private String step;
+
+    @Schema(description = "各表已删除行数")
+    private Map<String, Long> counts;
+
+    @Schema(description = "失败次数")
+    private Integer attempts;
+
+    @Schema(description = "最后一次失败原因")
+    private String lastError;
+
+    @Schema(description = "提交人")
+    private Long creator;
+
+    @Schema(description = "提交时间")
+    private Date createDate;
+
+    @Schema(description = "最后更新时间")
+    private Date updateDate;
+
+    @Schema(description = "完成时间")
+    private Date finishDate;
+}
@@ -0,0 +1,23 @@
+package xiaozhi.modules.sys.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import xiaozhi.common.ratelimit.RateLimitRule;
+
+/**
+ * 限流规则及本实例的统计
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Schema(description = "限流规则VO")
+public class RateLimitRuleVO extends RateLimitRule {
+    @Schema(description = "本实例放行次数")
+    private long allowed;
+
+    @Schema(description = "本实例拒绝次数")
+    private long rejected;
+
+    @Schema(description = "本实例正在计数的key数量")
+    private long localKeys;
+}
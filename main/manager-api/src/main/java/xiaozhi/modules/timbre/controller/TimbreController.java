@@ -17,6 +17,8 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Parameters;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.AllArgsConstructor;
+import xiaozhi.common.annotation.ResponseCache;
+import xiaozhi.common.cache.CacheRegion;
 import xiaozhi.common.constant.Constant;
 import xiaozhi.common.page.PageData;
 import xiaozhi.common.utils.Result;
@@ -40,6 +42,7 @@ public class TimbreController {
     private final TimbreService timbreService;
 
     @GetMapping
+    @ResponseCache(regions = CacheRegion.TIMBRE)
     @Operation(summary = "分页查找")
     @RequiresPermissions("sys:role:superAdmin")
     @Parameters({
@@ -1,9 +1,11 @@
 package xiaozhi.modules.timbre.dao;
 
+import org.apache.ibatis.annotations.CacheNamespace;
 import org.apache.ibatis.annotations.Mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 
+import xiaozhi.common.cache.MybatisRedisCache;
 import xiaozhi.modules.timbre.entity.TimbreEntity;
 
 /**
@@ -13,5 +15,6 @@ import xiaozhi.modules.timbre.entity.TimbreEntity;
  * @since 2025-3-21
  */
 @Mapper
+@CacheNamespace(implementation = MybatisRedisCache.class)
 public interface TimbreDao extends BaseMapper<TimbreEntity> {
 }
\ No newline at end of file
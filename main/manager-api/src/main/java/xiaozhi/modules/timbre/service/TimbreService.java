@@ -1,6 +1,8 @@
 package xiaozhi.modules.timbre.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import xiaozhi.common.page.PageData;
 import xiaozhi.common.service.BaseService;
@@ -64,4 +66,12 @@ public interface TimbreService extends BaseService<TimbreEntity> {
      * @return 音色名称
      */
     String getTimbreNameById(String id);
+
+    /**
+     * 批量获取音色名称，优先读缓存，未命中的一次查询数据库
+     * 
+     * @param ids 音色ID，忽略空值
+     * @return 音色ID到音色名称的映射，不存在的音色不返回
+     */
+    Map<String, String> getTimbreNamesByIds(Collection<String> ids);
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package xiaozhi.modules.timbre.service.impl;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -14,6 +16,8 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 
 import cn.hutool.core.collection.CollectionUtil;
 import lombok.AllArgsConstructor;
+import xiaozhi.common.cache.CacheRegion;
+import xiaozhi.common.cache.ResponseCacheManager;
 import xiaozhi.common.constant.Constant;
 import xiaozhi.common.page.PageData;
 import xiaozhi.common.redis.RedisKeys;
@@ -40,6 +44,7 @@ public class TimbreServiceImpl extends BaseServiceImpl<TimbreDao, TimbreEntity>
 
     private final TimbreDao timbreDao;
     private final RedisUtils redisUtils;
+    private final ResponseCacheManager responseCacheManager;
 
     @Override
     public PageData<TimbreDetailsVO> page(TimbrePageDTO dto) {
@@ -94,6 +99,7 @@ public class TimbreServiceImpl extends BaseServiceImpl<TimbreDao, TimbreEntity>
         isTtsModelId(dto.getTtsModelId());
         TimbreEntity timbreEntity = ConvertUtils.sourceToTarget(dto, TimbreEntity.class);
         baseDao.insert(timbreEntity);
+        responseCacheManager.evict(CacheRegion.TIMBRE);
     }
 
     @Override
@@ -105,12 +111,14 @@ public class TimbreServiceImpl extends BaseServiceImpl<TimbreDao, TimbreEntity>
         baseDao.updateById(timbreEntity);
         // 删除缓存
         redisUtils.delete(RedisKeys.getTimbreDetailsKey(timbreId));
+        responseCacheManager.evict(CacheRegion.TIMBRE);
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void delete(String[] ids) {
         baseDao.deleteBatchIds(Arrays.asList(ids));
+        responseCacheManager.evict(CacheRegion.TIMBRE);
     }
 
     @Override
@@ -158,4 +166,38 @@ public class TimbreServiceImpl extends BaseServiceImpl<TimbreDao, TimbreEntity>
 
         return null;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Map<String, String> getTimbreNamesByIds(Collection<String> ids) {
+        Map<String, String> names = new HashMap<>();
+        List<String> idList = ids.stream().filter(StringUtils::isNotBlank).distinct().toList();
+        if (idList.isEmpty()) {
+            return names;
+        }
+
+        List<Object> cachedNames = redisUtils.multiGet(idList.stream().map(RedisKeys::getTimbreNameById).toList());
+        List<String> missingIds = new ArrayList<>();
+        for (int i = 0; i < idList.size(); i++) {
+            Object cachedName = cachedNames == null ? null : cachedNames.get(i);
+            if (cachedName instanceof String name && StringUtils.isNotBlank(name)) {
+                names.put(idList.get(i), name);
+            } else {
+                missingIds.add(idList.get(i));
+            }
+        }
+        if (missingIds.isEmpty()) {
+            return names;
+        }
+
+        Map<String, Object> toCache = new HashMap<>();
+        for (TimbreEntity entity : timbreDao.selectBatchIds(missingIds)) {
+            String name = entity.getName();
+            names.put(entity.getId(), name);
+            if (StringUtils.isNotBlank(name)) {
+                toCache.put(RedisKeys.getTimbreNameById(entity.getId()), name);
+            }
+        }
+        redisUtils.multiSet(toCache, RedisUtils.DEFAULT_EXPIRE);
+        return names;
+    }
+}
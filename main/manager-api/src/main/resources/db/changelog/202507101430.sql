@@ -0,0 +1,34 @@
+-- 智能体会话汇总表，按(agent_id, session_id)增量维护，避免会话列表对聊天记录全量GROUP BY
+DROP TABLE IF EXISTS ai_agent_chat_session;
+CREATE TABLE ai_agent_chat_session
+(
+    agent_id      VARCHAR(32) NOT NULL COMMENT '智能体id',
+    session_id    VARCHAR(50) NOT NULL COMMENT '会话ID',
+    mac_address   VARCHAR(50) COMMENT 'MAC地址',
+    first_chat_at DATETIME(3) NOT NULL COMMENT '会话第一条消息时间',
+    last_chat_at  DATETIME(3) NOT NULL COMMENT '会话最后一条消息时间',
+    chat_count    INT         NOT NULL DEFAULT 0 COMMENT '聊天条数',
+    last_content  VARCHAR(255) COMMENT '最后一条消息摘要',
+    updated_at    DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) NOT NULL ON UPDATE CURRENT_TIMESTAMP(3) COMMENT '更新时间',
+    PRIMARY KEY (agent_id, session_id),
+    INDEX idx_ai_agent_chat_session_agent_last (agent_id, last_chat_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT '智能体会话汇总表';
+
+-- 一次性回填历史会话
+INSERT INTO ai_agent_chat_session (agent_id, session_id, mac_address, first_chat_at, last_chat_at, chat_count, last_content)
+SELECT h.agent_id,
+       h.session_id,
+       MAX(h.mac_address),
+       MIN(h.created_at),
+       MAX(h.created_at),
+       COUNT(*),
+       (SELECT LEFT(h2.content, 255)
+        FROM ai_agent_chat_history h2
+        WHERE h2.agent_id = h.agent_id
+          AND h2.session_id = h.session_id
+        ORDER BY h2.created_at DESC, h2.id DESC
+        LIMIT 1)
+FROM ai_agent_chat_history h
+WHERE h.agent_id IS NOT NULL
+  AND h.session_id IS NOT NULL
+GROUP BY h.agent_id, h.session_id;
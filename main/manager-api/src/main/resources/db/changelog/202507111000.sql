@@ -0,0 +1,3 @@
+-- 聊天记录导出按(created_at, id)做键集分页，补充按智能体、设备的有序索引
+ALTER TABLE ai_agent_chat_history ADD INDEX idx_ai_agent_chat_history_agent_created_id (agent_id, created_at, id);
+ALTER TABLE ai_agent_chat_history ADD INDEX idx_ai_agent_chat_history_mac_created_id (mac_address, created_at, id);
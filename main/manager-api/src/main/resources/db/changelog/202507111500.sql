@@ -0,0 +1,3 @@
+-- 聊天上报幂等键，重试上报时由唯一索引兜底去重，历史数据为NULL不受影响
+ALTER TABLE ai_agent_chat_history ADD COLUMN report_key VARCHAR(64) NULL COMMENT '上报幂等键' AFTER audio_id;
+ALTER TABLE ai_agent_chat_history ADD UNIQUE INDEX uk_ai_agent_chat_history_report_key (report_key);
@@ -0,0 +1,4 @@
+-- 添加轮换服务器密钥参数
+delete from `sys_params` where id = 115;
+INSERT INTO `sys_params` (id, param_code, param_value, value_type, param_type, remark)
+VALUES (115, 'server.secrets', '[]', 'array', 1, '轮换中的服务器密钥，格式：[{"secret":"","activeFrom":"yyyy-MM-dd HH:mm:ss","expiresAt":"yyyy-MM-dd HH:mm:ss"}]，server.secret始终有效');
@@ -0,0 +1,22 @@
+-- 短信发送队列，请求线程只入队，后台按队列异步发送并重试
+DROP TABLE IF EXISTS sys_sms_outbox;
+CREATE TABLE sys_sms_outbox
+(
+    id              BIGINT AUTO_INCREMENT NOT NULL COMMENT '主键',
+    phone           VARCHAR(32)  NOT NULL COMMENT '手机号码',
+    template_type   VARCHAR(32)  NOT NULL COMMENT '短信类型',
+    params          VARCHAR(500) COMMENT '模板参数JSON，发送结束后清空',
+    status          TINYINT      NOT NULL DEFAULT 0 COMMENT '状态：0待发送 1发送中 2已发送 3失败',
+    attempts        INT          NOT NULL DEFAULT 0 COMMENT '已尝试次数',
+    next_attempt_at DATETIME(3)  NOT NULL COMMENT '下次尝试时间',
+    provider        VARCHAR(32) COMMENT '发送成功的服务商',
+    provider_msg_id VARCHAR(100) COMMENT '服务商返回的请求ID',
+    last_error      VARCHAR(500) COMMENT '最后一次失败原因',
+    locked_by       VARCHAR(64) COMMENT '领取任务的实例',
+    locked_at       DATETIME(3) COMMENT '领取时间',
+    create_date     DATETIME(3)  NOT NULL DEFAULT CURRENT_TIMESTAMP(3) COMMENT '创建时间',
+    update_date     DATETIME(3)  NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3) COMMENT '更新时间',
+    PRIMARY KEY (id),
+    INDEX idx_sys_sms_outbox_status_next (status, next_attempt_at),
+    INDEX idx_sys_sms_outbox_phone_create (phone, create_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT '短信发送队列';
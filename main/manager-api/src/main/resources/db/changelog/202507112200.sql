@@ -0,0 +1,2 @@
+-- 智能体列表按agent_id批量统计设备数量和最后连接时间
+ALTER TABLE ai_device ADD INDEX idx_ai_device_agent_last_connected (agent_id, last_connected_at);
@@ -0,0 +1,36 @@
+-- 模型、插件的反向引用索引，删除或停用前按(ref_type, ref_id)直接查出引用方
+DROP TABLE IF EXISTS ai_model_reference;
+CREATE TABLE ai_model_reference
+(
+    id         BIGINT AUTO_INCREMENT NOT NULL COMMENT '主键',
+    ref_type   VARCHAR(32) NOT NULL COMMENT '被引用类型：MODEL模型配置，PLUGIN插件',
+    ref_id     VARCHAR(64) NOT NULL COMMENT '被引用ID',
+    owner_type VARCHAR(32) NOT NULL COMMENT '引用方类型：AGENT智能体，MODEL_CONFIG模型配置',
+    owner_id   VARCHAR(64) NOT NULL COMMENT '引用方ID',
+    slot       VARCHAR(32) NOT NULL COMMENT '引用位置，如ASR、LLM、Plugin',
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_ai_model_reference_owner (owner_type, owner_id, slot, ref_type, ref_id),
+    INDEX idx_ai_model_reference_ref (ref_type, ref_id)
+) COMMENT '模型引用索引';
+
+-- 按现有数据回填
+INSERT INTO ai_model_reference (ref_type, ref_id, owner_type, owner_id, slot)
+SELECT 'MODEL', asr_model_id, 'AGENT', id, 'ASR' FROM ai_agent WHERE asr_model_id IS NOT NULL AND asr_model_id != ''
+UNION ALL
+SELECT 'MODEL', vad_model_id, 'AGENT', id, 'VAD' FROM ai_agent WHERE vad_model_id IS NOT NULL AND vad_model_id != ''
+UNION ALL
+SELECT 'MODEL', llm_model_id, 'AGENT', id, 'LLM' FROM ai_agent WHERE llm_model_id IS NOT NULL AND llm_model_id != ''
+UNION ALL
+SELECT 'MODEL', vllm_model_id, 'AGENT', id, 'VLLM' FROM ai_agent WHERE vllm_model_id IS NOT NULL AND vllm_model_id != ''
+UNION ALL
+SELECT 'MODEL', tts_model_id, 'AGENT', id, 'TTS' FROM ai_agent WHERE tts_model_id IS NOT NULL AND tts_model_id != ''
+UNION ALL
+SELECT 'MODEL', mem_model_id, 'AGENT', id, 'Memory' FROM ai_agent WHERE mem_model_id IS NOT NULL AND mem_model_id != ''
+UNION ALL
+SELECT 'MODEL', intent_model_id, 'AGENT', id, 'Intent' FROM ai_agent WHERE intent_model_id IS NOT NULL AND intent_model_id != ''
+UNION ALL
+SELECT DISTINCT 'PLUGIN', plugin_id, 'AGENT', agent_id, 'Plugin' FROM ai_agent_plugin_mapping
+UNION ALL
+SELECT 'MODEL', JSON_UNQUOTE(JSON_EXTRACT(config_json, '$.llm')), 'MODEL_CONFIG', id, 'LLM'
+FROM ai_model_config
+WHERE model_type = 'Intent' AND JSON_UNQUOTE(JSON_EXTRACT(config_json, '$.llm')) NOT IN ('', 'null');
@@ -0,0 +1,3 @@
+-- 管理端大列表游标分页，按(排序列, id)定位下一页
+ALTER TABLE ai_ota ADD INDEX idx_ai_ota_update_date_id (update_date, id);
+ALTER TABLE ai_agent ADD INDEX idx_ai_agent_name_id (agent_name, id);
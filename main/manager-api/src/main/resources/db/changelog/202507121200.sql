@@ -0,0 +1,29 @@
+-- 智能体、用户删除改为先标记删除，再由后台任务分批清理关联数据
+ALTER TABLE ai_agent ADD COLUMN deleted TINYINT NOT NULL DEFAULT 0 COMMENT '删除标记：0正常 1已删除，待后台清理';
+ALTER TABLE sys_user ADD COLUMN deleted TINYINT NOT NULL DEFAULT 0 COMMENT '删除标记：0正常 1已删除，待后台清理';
+ALTER TABLE ai_device ADD INDEX idx_ai_device_user_id (user_id);
+ALTER TABLE ai_agent_voice_print ADD INDEX idx_ai_agent_voice_print_agent_id (agent_id);
+
+DROP TABLE IF EXISTS sys_deletion_job;
+CREATE TABLE sys_deletion_job
+(
+    id              BIGINT AUTO_INCREMENT NOT NULL COMMENT '主键',
+    target_type     VARCHAR(32)   NOT NULL COMMENT '删除对象类型：AGENT智能体，USER用户',
+    target_id       VARCHAR(64)   NOT NULL COMMENT '删除对象ID',
+    status          TINYINT       NOT NULL DEFAULT 0 COMMENT '状态：0待处理 1处理中 2已完成 3失败',
+    step            VARCHAR(64)   NOT NULL COMMENT '当前清理的表',
+    cursor_id       BIGINT        NOT NULL DEFAULT 0 COMMENT '当前表已清理到的ID，按ID分批清理的表使用',
+    counts          VARCHAR(1000) COMMENT '各表已删除行数JSON',
+    attempts        INT           NOT NULL DEFAULT 0 COMMENT '失败次数',
+    next_attempt_at DATETIME(3)   NOT NULL COMMENT '下次处理时间',
+    last_error      VARCHAR(500) COMMENT '最后一次失败原因',
+    locked_by       VARCHAR(64) COMMENT '领取任务的实例',
+    locked_at       DATETIME(3) COMMENT '领取时间，处理过程中随进度刷新',
+    creator         BIGINT COMMENT '创建者',
+    create_date     DATETIME(3)   NOT NULL DEFAULT CURRENT_TIMESTAMP(3) COMMENT '创建时间',
+    update_date     DATETIME(3)   NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3) COMMENT '更新时间',
+    finish_date     DATETIME(3) COMMENT '完成时间',
+    PRIMARY KEY (id),
+    INDEX idx_sys_deletion_job_status_next (status, next_attempt_at),
+    INDEX idx_sys_deletion_job_target (target_type, target_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT '删除任务';
@@ -0,0 +1,2 @@
+-- 智能体乐观锁版本号，每次修改加1，更新时携带读取时的版本号，不一致返回409
+ALTER TABLE ai_agent ADD COLUMN version INT NOT NULL DEFAULT 0 COMMENT '版本号，每次修改加1';
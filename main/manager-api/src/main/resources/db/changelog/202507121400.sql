@@ -0,0 +1,18 @@
+-- 会话汇总修复任务按created_at筛选最近有消息的会话，避免每次全表扫描聊天记录
+ALTER TABLE ai_agent_chat_history ADD INDEX idx_ai_agent_chat_history_created (created_at);
+
+-- 一次性回填时摘要直接截取了原始content，按上报时的规则重新提取：content为带content字段的JSON时取该字段
+UPDATE ai_agent_chat_session s
+    INNER JOIN ai_agent_chat_history h
+        ON h.id = (SELECT h2.id
+                   FROM ai_agent_chat_history h2
+                   WHERE h2.agent_id = s.agent_id
+                     AND h2.session_id = s.session_id
+                   ORDER BY h2.created_at DESC, h2.id DESC
+                   LIMIT 1)
+SET s.last_content = IF(CHAR_LENGTH(JSON_UNQUOTE(JSON_EXTRACT(h.content, '$.content'))) > 255,
+                        CONCAT(LEFT(JSON_UNQUOTE(JSON_EXTRACT(h.content, '$.content')), 252), '...'),
+                        JSON_UNQUOTE(JSON_EXTRACT(h.content, '$.content')))
+WHERE s.last_content LIKE '{%'
+  AND JSON_VALID(h.content)
+  AND JSON_TYPE(JSON_EXTRACT(h.content, '$.content')) = 'STRING';
@@ -0,0 +1,2 @@
+-- 全文索引追平时按写入时间回扫最近的聊天记录
+ALTER TABLE ai_agent_chat_history ADD INDEX idx_ai_agent_chat_history_updated (updated_at);
@@ -0,0 +1,2 @@
+-- 已标记删除的用户改写用户名，释放uk_username
+UPDATE sys_user SET username = CONCAT('#deleted#', id) WHERE deleted = 1;
@@ -0,0 +1,2 @@
+-- 导出总是按智能体过滤，按设备的有序索引用不到；按智能体的单列索引已被(agent_id, created_at, id)覆盖
+ALTER TABLE ai_agent_chat_history DROP INDEX idx_ai_agent_chat_history_mac_created_id, DROP INDEX idx_ai_agent_chat_history_agent_id;
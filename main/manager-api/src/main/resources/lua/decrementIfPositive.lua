@@ -0,0 +1,6 @@
+-- 计数减1且不小于0；key不存在时不创建，DECR保留原有过期时间
+local value = tonumber(redis.call('GET', KEYS[1]))
+if value == nil or value <= 0 then
+    return 0
+end
+return redis.call('DECR', KEYS[1])
@@ -0,0 +1,439 @@
+package xiaozhi.common.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.CachingExecutor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.modules.agent.dao.AgentPluginMappingMapper;
+import xiaozhi.modules.agent.dao.AgentTemplateDao;
+import xiaozhi.modules.model.dao.ModelConfigDao;
+import xiaozhi.modules.model.dao.ModelProviderDao;
+import xiaozhi.modules.sys.dao.SysDictTypeDao;
+import xiaozhi.modules.timbre.dao.TimbreDao;
+
+/**
+ * MyBatis二级缓存在读写交替、事务回滚和多实例下的正确性
+ * <p>
+ * 使用MyBatis自身的CachingExecutor驱动缓存，数据库和redis由内存实现代替
+ */
+@DisplayName("MyBatis二级缓存测试")
+public class MybatisRedisCacheTest {
+    private static final String NAMESPACE = "xiaozhi.test.RowDao";
+
+    private FakeDatabase database;
+    private FakeRedisUtils redis;
+
+    @BeforeEach
+    public void setUp() {
+        database = new FakeDatabase();
+        database.rows.put(1L, "one");
+        database.rows.put(2L, "two");
+        redis = new FakeRedisUtils();
+    }
+
+    @Test
+    @DisplayName("提交后的查询结果被缓存")
+    public void testHitAfterCommit() {
+        Node node = new Node(redis, true);
+
+        assertEquals("one", node.select(1L).getName());
+        node.commit();
+        assertEquals("one", node.select(1L).getName());
+        assertEquals("one", node.select(1L).getName());
+
+        assertEquals(1, database.queries.get());
+        assertEquals(2, node.count("localHit"));
+        assertEquals(1, node.count("miss"));
+        assertEquals(1, node.count("put"));
+    }
+
+    @Test
+    @DisplayName("未提交的查询结果不写入缓存")
+    public void testUncommittedReadNotShared() {
+        Node node = new Node(redis, true);
+        node.select(1L);
+
+        Node other = new Node(redis, true);
+        other.select(1L);
+
+        assertEquals(2, database.queries.get());
+        assertEquals(0, node.count("put"));
+    }
+
+    @Test
+    @DisplayName("写操作提交后清空整个命名空间")
+    public void testWriteClearsNamespace() {
+        Node node = new Node(redis, true);
+        node.select(1L);
+        node.select(2L);
+        node.commit();
+
+        node.update(1L, "uno");
+        node.commit();
+
+        assertEquals("uno", node.select(1L).getName());
+        assertEquals("two", node.select(2L).getName());
+        assertEquals(4, database.queries.get());
+        assertEquals(1, node.count("clear"));
+    }
+
+    @Test
+    @DisplayName("查询期间命名空间被清空时放弃写入旧数据")
+    public void testStalePutDroppedAfterConcurrentClear() {
+        Node reader = new Node(redis, true);
+        Node writer = new Node(redis, true);
+
+        assertEquals("one", reader.select(1L).getName());
+        writer.update(1L, "uno");
+        writer.commit();
+        reader.commit();
+
+        assertEquals(0, reader.count("put"));
+        assertEquals(1, reader.count("stale"));
+        assertEquals("uno", writer.select(1L).getName());
+        assertEquals("uno", reader.select(1L).getName());
+    }
+
+    @Test
+    @DisplayName("事务内写后读直接查询数据库")
+    public void testReadYourWriteBeforeCommit() {
+        Node node = new Node(redis, true);
+        node.select(1L);
+        node.commit();
+
+        node.update(1L, "uno");
+        assertEquals("uno", node.select(1L).getName());
+        node.commit();
+        assertEquals("uno", node.select(1L).getName());
+    }
+
+    @Test
+    @DisplayName("回滚的写操作不清空缓存")
+    public void testRollbackKeepsCache() {
+        Node node = new Node(redis, true);
+        node.select(1L);
+        node.commit();
+
+        node.update(1L, "uno");
+        database.rows.put(1L, "one");
+        node.rollback();
+
+        assertEquals("one", node.select(1L).getName());
+        assertEquals(1, database.queries.get());
+        assertEquals(0, node.count("clear"));
+    }
+
+    @Test
+    @DisplayName("每次命中返回新的对象")
+    public void testHitReturnsCopy() {
+        Node node = new Node(redis, true);
+        node.select(1L);
+        node.commit();
+
+        node.select(1L).setName("changed");
+        assertEquals("one", node.select(1L).getName());
+    }
+
+    @Test
+    @DisplayName("其他实例从redis命中，写操作在版本同步后失效本地缓存")
+    public void testAcrossNodes() {
+        Node first = new Node(redis, true);
+        Node second = new Node(redis, true);
+
+        first.select(1L);
+        first.commit();
+        assertEquals("one", second.select(1L).getName());
+        second.commit();
+        assertEquals(1, database.queries.get());
+        assertEquals(1, second.count("redisHit"));
+
+        first.update(1L, "uno");
+        first.commit();
+        second.manager.refreshVersions();
+
+        assertEquals("uno", second.select(1L).getName());
+        assertEquals(2, database.queries.get());
+    }
+
+    @Test
+    @DisplayName("redis不可用时仍可使用本地缓存")
+    public void testRedisUnavailable() {
+        redis.available = false;
+        Node node = new Node(redis, true);
+
+        node.select(1L);
+        node.commit();
+        assertEquals("one", node.select(1L).getName());
+        assertEquals(1, database.queries.get());
+
+        node.update(1L, "uno");
+        node.commit();
+        assertEquals("uno", node.select(1L).getName());
+    }
+
+    @Test
+    @DisplayName("关闭后每次都查询数据库")
+    public void testDisabled() {
+        Node node = new Node(redis, false);
+
+        node.select(1L);
+        node.commit();
+        node.select(1L);
+
+        assertEquals(2, database.queries.get());
+        assertEquals(0, node.count("put"));
+    }
+
+    @Test
+    @DisplayName("缓存实例按命名空间比较")
+    public void testIdentity() {
+        MybatisRedisCache cache = new MybatisRedisCache(NAMESPACE);
+        assertEquals(NAMESPACE, cache.getId());
+        assertEquals(cache, new MybatisRedisCache(NAMESPACE));
+    }
+
+    @Test
+    @DisplayName("未命中时返回null")
+    public void testMissReturnsNull() {
+        Node node = new Node(redis, true);
+        assertNull(node.manager.get(NAMESPACE, "absent"));
+        assertEquals(1, node.count("miss"));
+    }
+
+    @Test
+    @DisplayName("mapper的XML语句与注入的通用语句共用二级缓存")
+    public void testMapperBinding() throws Exception {
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        for (String resource : List.of("mapper/model/ModelConfigDao.xml", "mapper/model/ModelProviderDao.xml",
+                "mapper/sys/SysDictTypeDao.xml", "mapper/agent/AgentTemplateMapper.xml",
+                "mapper/agent/AgentPluginMappingMapper.xml")) {
+            try (InputStream inputStream = Resources.getResourceAsStream(resource)) {
+                new XMLMapperBuilder(inputStream, configuration, resource, configuration.getSqlFragments()).parse();
+            }
+        }
+        configuration.addMapper(TimbreDao.class);
+        assertTrue(configuration.getIncompleteStatements().isEmpty());
+
+        List<String> namespaces = List.of(ModelConfigDao.class.getName(), ModelProviderDao.class.getName(),
+                SysDictTypeDao.class.getName(), AgentTemplateDao.class.getName(),
+                AgentPluginMappingMapper.class.getName(), TimbreDao.class.getName());
+        for (String namespace : namespaces) {
+            for (String id : List.of("selectById", "selectList", "insert", "updateById", "deleteById")) {
+                MappedStatement ms = configuration.getMappedStatement(namespace + "." + id);
+                assertEquals(namespace, ms.getCache().getId(), ms.getId());
+                boolean select = ms.getSqlCommandType() == SqlCommandType.SELECT;
+                assertEquals(select, ms.isUseCache(), ms.getId());
+                assertEquals(!select, ms.isFlushCacheRequired(), ms.getId());
+            }
+        }
+        MappedStatement xmlSelect = configuration.getMappedStatement(ModelConfigDao.class.getName()
+                + ".getModelCodeList");
+        assertEquals(ModelConfigDao.class.getName(), xmlSelect.getCache().getId());
+        assertTrue(xmlSelect.isUseCache());
+        // 关联插件表的查询不缓存
+        assertFalse(configuration.getMappedStatement(AgentPluginMappingMapper.class.getName()
+                + ".selectPluginsByAgentId").isUseCache());
+    }
+
+    /**
+     * 一个应用实例：独立的本地缓存和会话，共用数据库和redis
+     */
+    private class Node {
+        private final MybatisCacheManager manager;
+        private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        private final CachingExecutor executor;
+        private final MappedStatement selectStatement;
+        private final MappedStatement updateStatement;
+
+        Node(RedisUtils redisUtils, boolean enabled) {
+            MybatisCacheProperties properties = new MybatisCacheProperties();
+            properties.setEnabled(enabled);
+            manager = new MybatisCacheManager(properties, redisUtils, meterRegistry);
+            MybatisRedisCache cache = new MybatisRedisCache(NAMESPACE, manager);
+
+            Configuration configuration = new Configuration();
+            ResultMap resultMap = new ResultMap.Builder(configuration, NAMESPACE + ".row", Row.class, new ArrayList<>())
+                    .build();
+            selectStatement = new MappedStatement.Builder(configuration, NAMESPACE + ".selectById",
+                    new StaticSqlSource(configuration, "SELECT id, name FROM row WHERE id = ?"), SqlCommandType.SELECT)
+                    .resultMaps(List.of(resultMap)).cache(cache).useCache(true).flushCacheRequired(false).build();
+            updateStatement = new MappedStatement.Builder(configuration, NAMESPACE + ".updateById",
+                    new StaticSqlSource(configuration, "UPDATE row SET name = ? WHERE id = ?"), SqlCommandType.UPDATE)
+                    .cache(cache).flushCacheRequired(true).build();
+            executor = new CachingExecutor(database.executor());
+        }
+
+        Row select(Long id) {
+            try {
+                List<Row> rows = executor.query(selectStatement, id, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+                return rows.get(0);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void update(Long id, String name) {
+            try {
+                executor.update(updateStatement, new Row(id, name));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void commit() {
+            try {
+                executor.commit(true);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void rollback() {
+            try {
+                executor.rollback(true);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        long count(String result) {
+            return (long) meterRegistry.counter("xiaozhi.mybatis.cache", "namespace", NAMESPACE, "result", result)
+                    .count();
+        }
+    }
+
+    /**
+     * 内存数据库，记录实际执行的查询次数
+     */
+    private static class FakeDatabase {
+        private final Map<Long, String> rows = new ConcurrentHashMap<>();
+        private final AtomicInteger queries = new AtomicInteger();
+
+        @SuppressWarnings("unchecked")
+        Executor executor() {
+            try {
+                Executor executor = mock(Executor.class);
+                when(executor.createCacheKey(any(), any(), any(), any())).thenAnswer(invocation -> {
+                    MappedStatement ms = invocation.getArgument(0);
+                    CacheKey key = new CacheKey();
+                    key.update(ms.getId());
+                    key.update(invocation.getArgument(1));
+                    return key;
+                });
+                when(executor.query(any(MappedStatement.class), any(), any(RowBounds.class),
+                        any(), any(CacheKey.class), any(BoundSql.class)))
+                        .thenAnswer(invocation -> {
+                            queries.incrementAndGet();
+                            Long id = invocation.getArgument(1);
+                            List<Row> result = new ArrayList<>();
+                            result.add(new Row(id, rows.get(id)));
+                            return result;
+                        });
+                when(executor.update(any(MappedStatement.class), any())).thenAnswer(invocation -> {
+                    Row row = invocation.getArgument(1);
+                    rows.put(row.getId(), row.getName());
+                    return 1;
+                });
+                return executor;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * 内存redis，available为false时模拟redis连接异常
+     */
+    private static class FakeRedisUtils extends RedisUtils {
+        private final Map<String, Map<String, Object>> hashes = new ConcurrentHashMap<>();
+        private boolean available = true;
+
+        private Map<String, Object> hash(String key) {
+            if (!available) {
+                throw new IllegalStateException("redis unavailable");
+            }
+            return hashes.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+        }
+
+        @Override
+        public byte[] hGetBytes(String key, String field) {
+            return (byte[]) hash(key).get(field);
+        }
+
+        @Override
+        public void hSetBytes(String key, String field, byte[] value, long expire) {
+            hash(key).put(field, value);
+        }
+
+        @Override
+        public void hDel(String key, Object... fields) {
+            for (Object field : fields) {
+                hash(key).remove(field);
+            }
+        }
+
+        @Override
+        public void delete(String key) {
+            hash(key);
+            hashes.remove(key);
+        }
+
+        @Override
+        public Long hIncrement(String key, String field, long delta) {
+            return (Long) hash(key).merge(field, delta, (a, b) -> (Long) a + (Long) b);
+        }
+
+        @Override
+        public Object hGet(String key, String field) {
+            return hash(key).get(field);
+        }
+
+        @Override
+        public Map<String, Object> hGetAll(String key) {
+            return new HashMap<>(hash(key));
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Row {
+        private Long id;
+        private String name;
+    }
+}
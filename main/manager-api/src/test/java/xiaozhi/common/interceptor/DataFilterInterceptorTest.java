@@ -0,0 +1,101 @@
+package xiaozhi.common.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.baomidou.mybatisplus.core.exceptions.MybatisPlusException;
+
+/**
+ * 数据过滤：过滤条件追加到WHERE末尾，取值按占位位置绑定
+ */
+@DisplayName("数据过滤拦截器测试")
+public class DataFilterInterceptorTest {
+    private final Configuration configuration = new Configuration();
+    private final DataFilterInterceptor interceptor = new DataFilterInterceptor();
+
+    private BoundSql query(String sql, Object parameter, String... properties) {
+        List<ParameterMapping> mappings = Arrays.stream(properties)
+                .map(property -> new ParameterMapping.Builder(configuration, property, Object.class).build())
+                .toList();
+        MappedStatement ms = new MappedStatement.Builder(configuration, "test.select",
+                new StaticSqlSource(configuration, sql, mappings), SqlCommandType.SELECT).build();
+        BoundSql boundSql = new BoundSql(configuration, sql, mappings, parameter);
+        interceptor.beforeQuery(null, ms, parameter, RowBounds.DEFAULT, null, boundSql);
+        return boundSql;
+    }
+
+    private static List<String> properties(BoundSql boundSql) {
+        return boundSql.getParameterMappings().stream().map(ParameterMapping::getProperty).toList();
+    }
+
+    private static Map<String, Object> params(DataScope scope) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("name", "a?b");
+        params.put("scope", scope);
+        return params;
+    }
+
+    @Test
+    @DisplayName("过滤参数插入在WHERE中的占位之后、WHERE之后的占位之前")
+    public void testBindAtFilterPosition() {
+        DataScope scope = new DataScope("creator = ? OR dept_id IN (?)", 5L, 7L);
+        BoundSql boundSql = query("SELECT * FROM t WHERE name = ? AND remark <> '?' OR type IN (?, ?) "
+                + "ORDER BY id LIMIT ?", params(scope), "name", "type1", "type2", "limit");
+
+        assertEquals("SELECT * FROM t WHERE (name = ? AND remark <> '?' OR type IN (?, ?)) "
+                + "AND (creator = ? OR dept_id IN (?)) ORDER BY id LIMIT ?", boundSql.getSql());
+        assertEquals(List.of("name", "type1", "type2", "__dataScope_0", "__dataScope_1", "limit"),
+                properties(boundSql));
+        assertEquals(5L, boundSql.getAdditionalParameter("__dataScope_0"));
+        assertEquals(7L, boundSql.getAdditionalParameter("__dataScope_1"));
+        assertEquals(Long.class, boundSql.getParameterMappings().get(3).getJavaType());
+    }
+
+    @Test
+    @DisplayName("没有WHERE时过滤条件成为WHERE，参数在后续占位之前")
+    public void testBindWithoutWhere() {
+        BoundSql boundSql = query("SELECT * FROM t ORDER BY id LIMIT ?", new DataScope("creator = ?", 5L),
+                "limit");
+
+        assertEquals("SELECT * FROM t WHERE (creator = ?) ORDER BY id LIMIT ?", boundSql.getSql());
+        assertEquals(List.of("__dataScope_0", "limit"), properties(boundSql));
+    }
+
+    @Test
+    @DisplayName("同一SQL不同取值复用改写结果，参数映射不影响原列表")
+    public void testReuseRewrite() {
+        String sql = "SELECT * FROM t WHERE name = ?";
+        BoundSql first = query(sql, params(new DataScope("creator = ?", 1L)), "name");
+        BoundSql second = query(sql, params(new DataScope("creator = ?", 2L)), "name");
+
+        assertSame(first.getSql(), second.getSql());
+        assertEquals(1L, first.getAdditionalParameter("__dataScope_0"));
+        assertEquals(2L, second.getAdditionalParameter("__dataScope_0"));
+        assertEquals(List.of("name", "__dataScope_0"), properties(second));
+    }
+
+    @Test
+    @DisplayName("没有过滤条件时不改写，占位与参数数量不一致时报错")
+    public void testNoFilterAndMismatch() {
+        String sql = "SELECT * FROM t WHERE name = ?";
+        assertEquals(sql, query(sql, params(new DataScope(null)), "name").getSql());
+        assertThrows(MybatisPlusException.class,
+                () -> query(sql, params(new DataScope("creator = ? AND dept_id = ?", 1L)), "name"));
+    }
+}
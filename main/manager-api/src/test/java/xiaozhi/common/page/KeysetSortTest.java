@@ -0,0 +1,107 @@
+package xiaozhi.common.page;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.OrderItem;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 游标分页排序键生成的“位于游标之后”条件，重点是排序列为NULL时的四种情况
+ */
+@DisplayName("游标分页排序键测试")
+public class KeysetSortTest {
+    private static final Pattern PARAM = Pattern.compile("#\\{ew\\.paramNameValuePairs\\.(\\w+)}");
+
+    private static final KeysetSort<Row> NAME_ASC = KeysetSort.of("name", Row::getName, "id", Row::getId, true);
+    private static final KeysetSort<Row> NAME_DESC = KeysetSort.of("name", Row::getName, "id", Row::getId, false);
+
+    /**
+     * 生成条件并代入参数值，便于直接比较
+     */
+    private static String condition(KeysetSort<Row> sort, Object... values) {
+        QueryWrapper<Row> wrapper = new QueryWrapper<>();
+        wrapper.eq("agent_id", "a1");
+        sort.apply(wrapper, values);
+        Map<String, Object> params = wrapper.getParamNameValuePairs();
+        Matcher matcher = PARAM.matcher(wrapper.getSqlSegment());
+        StringBuilder sql = new StringBuilder();
+        while (matcher.find()) {
+            Object value = params.get(matcher.group(1));
+            matcher.appendReplacement(sql, Matcher.quoteReplacement(
+                    value instanceof String ? "'" + value + "'" : String.valueOf(value)));
+        }
+        matcher.appendTail(sql);
+        return sql.toString();
+    }
+
+    private static List<String> describe(List<OrderItem> orders) {
+        return orders.stream().map(order -> order.getColumn() + (order.isAsc() ? " asc" : " desc")).toList();
+    }
+
+    @Test
+    @DisplayName("唯一列排序只比较该列")
+    public void testUniqueColumn() {
+        KeysetSort<Row> asc = KeysetSort.of("id", Row::getId, true);
+        KeysetSort<Row> desc = KeysetSort.of("id", Row::getId, false);
+        assertEquals("(agent_id = 'a1' AND id > 5)", condition(asc, 5L));
+        assertEquals("(agent_id = 'a1' AND id < 5)", condition(desc, 5L));
+        assertEquals(1, asc.size());
+        assertArrayEquals(new Object[] { 3L }, asc.values(new Row(3L, "x")));
+    }
+
+    @Test
+    @DisplayName("升序，游标值非NULL：更大的值，或相同值中更大的ID；NULL排在前面已翻过")
+    public void testAscAfterValue() {
+        assertEquals("(agent_id = 'a1' AND (name > 'b' OR (name = 'b' AND id > 5)))", condition(NAME_ASC, "b", 5L));
+    }
+
+    @Test
+    @DisplayName("升序，游标值为NULL：剩余的NULL行，以及全部非NULL行")
+    public void testAscAfterNull() {
+        assertEquals("(agent_id = 'a1' AND ((name IS NULL AND id > 5) OR name IS NOT NULL))",
+                condition(NAME_ASC, null, 5L));
+    }
+
+    @Test
+    @DisplayName("降序，游标值非NULL：更小的值、相同值中更小的ID，以及排在最后的NULL行")
+    public void testDescAfterValue() {
+        assertEquals("(agent_id = 'a1' AND (name < 'b' OR (name = 'b' AND id < 5) OR name IS NULL))",
+                condition(NAME_DESC, "b", 5L));
+    }
+
+    @Test
+    @DisplayName("降序，游标值为NULL：只剩NULL行中更小的ID")
+    public void testDescAfterNull() {
+        assertEquals("(agent_id = 'a1' AND (name IS NULL AND id < 5))", condition(NAME_DESC, null, 5L));
+    }
+
+    @Test
+    @DisplayName("排序、排序键和描述包含唯一列")
+    public void testOrdersAndValues() {
+        assertEquals(List.of("name asc", "id asc"), describe(NAME_ASC.orders()));
+        assertEquals(List.of("name desc", "id desc"), describe(NAME_DESC.orders()));
+        assertEquals(2, NAME_ASC.size());
+        assertArrayEquals(new Object[] { null, 3L }, NAME_ASC.values(new Row(3L, null)));
+        assertEquals("name asc,id", NAME_ASC.describe());
+        assertEquals("name desc,id", NAME_DESC.describe());
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Row {
+        private Long id;
+        private String name;
+    }
+}
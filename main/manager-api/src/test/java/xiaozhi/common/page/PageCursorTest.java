@@ -0,0 +1,105 @@
+package xiaozhi.common.page;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.context.support.ResourceBundleMessageSource;
+
+import xiaozhi.common.exception.ErrorCode;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.utils.SpringContextUtils;
+
+/**
+ * 游标编码、解码，以及篡改、格式错误的游标
+ */
+@DisplayName("分页游标测试")
+public class PageCursorTest {
+    private static final String FINGERPRINT = "0123456789abcdef0123456789abcdef";
+
+    @BeforeAll
+    public static void setUpMessageSource() {
+        // 异常消息按错误码从国际化资源读取，单元测试中没有Spring上下文
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("i18n/messages");
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean("messageSource", ResourceBundleMessageSource.class, () -> messageSource);
+        context.refresh();
+        new SpringContextUtils().setApplicationContext(context);
+    }
+
+    private static String encodeRaw(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertInvalid(String cursor, String fingerprint, int size) {
+        RenException e = assertThrows(RenException.class, () -> PageCursor.decode(cursor, fingerprint, size));
+        assertEquals(ErrorCode.PAGE_CURSOR_INVALID, e.getCode());
+    }
+
+    @Test
+    @DisplayName("各类型的排序键编码后原样还原")
+    public void testRoundTrip() {
+        Object[] values = { null, new Date(1720000000123L), 42L, 7, "a:b|c 中文" };
+        String cursor = PageCursor.encode(FINGERPRINT, values);
+        assertArrayEquals(values, PageCursor.decode(cursor, FINGERPRINT, values.length));
+    }
+
+    @Test
+    @DisplayName("游标只包含url安全字符")
+    public void testUrlSafe() {
+        String cursor = PageCursor.encode(FINGERPRINT, new Object[] { "??>>~~", 1L });
+        assertEquals(cursor, cursor.replaceAll("[^A-Za-z0-9_-]", ""));
+    }
+
+    @Test
+    @DisplayName("查询条件或排序方式变化后游标失效")
+    public void testFingerprintMismatch() {
+        String cursor = PageCursor.encode(FINGERPRINT, new Object[] { 1L });
+        assertInvalid(cursor, "ffffffffffffffffffffffffffffffff", 1);
+    }
+
+    @Test
+    @DisplayName("排序键个数不符时游标无效")
+    public void testSizeMismatch() {
+        String cursor = PageCursor.encode(FINGERPRINT, new Object[] { "a", 1L });
+        assertInvalid(cursor, FINGERPRINT, 1);
+        assertInvalid(cursor, FINGERPRINT, 3);
+    }
+
+    @Test
+    @DisplayName("改写排序键后无法通过类型校验")
+    public void testTamperedValues() {
+        assertInvalid(encodeRaw("[\"" + FINGERPRINT + "\",\"l:1 OR 1=1\"]"), FINGERPRINT, 1);
+        assertInvalid(encodeRaw("[\"" + FINGERPRINT + "\",\"i:99999999999\"]"), FINGERPRINT, 1);
+        assertInvalid(encodeRaw("[\"" + FINGERPRINT + "\",\"d:yesterday\"]"), FINGERPRINT, 1);
+        assertInvalid(encodeRaw("[\"" + FINGERPRINT + "\",\"x:1\"]"), FINGERPRINT, 1);
+        assertInvalid(encodeRaw("[\"" + FINGERPRINT + "\",\"1\"]"), FINGERPRINT, 1);
+        assertInvalid(encodeRaw("[\"" + FINGERPRINT + "\",null]"), FINGERPRINT, 1);
+    }
+
+    @Test
+    @DisplayName("空字符串和NULL排序键互不混淆")
+    public void testEmptyStringAndNull() {
+        Object[] values = { "", null };
+        String cursor = PageCursor.encode(FINGERPRINT, values);
+        assertArrayEquals(values, PageCursor.decode(cursor, FINGERPRINT, values.length));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "!!!", "bm90IGpzb24", "e30", "WzEsMl0", "W10" })
+    @DisplayName("格式错误的游标无效")
+    public void testMalformed(String cursor) {
+        assertInvalid(cursor, FINGERPRINT, 1);
+    }
+}
@@ -0,0 +1,344 @@
+package xiaozhi.common.page;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.context.support.ResourceBundleMessageSource;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.metadata.OrderItem;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import xiaozhi.common.constant.Constant;
+import xiaozhi.common.exception.ErrorCode;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.common.utils.SpringContextUtils;
+
+/**
+ * 游标分页逐页翻完整个列表，排序列含NULL和重复值时不重复、不遗漏
+ * <p>
+ * 数据库由内存表代替，按MySQL的规则执行生成的条件：NULL参与比较结果为未知，升序时NULL在最前
+ */
+@DisplayName("分页测试")
+public class PaginatorTest {
+    private static final Pattern PARAM = Pattern.compile("#\\{ew\\.paramNameValuePairs\\.(\\w+)}");
+    private static final String LIST = "test";
+
+    private final List<Row> table = new ArrayList<>();
+    private final Map<String, Object> redis = new HashMap<>();
+    private final PageProperties properties = new PageProperties();
+    private BaseMapper<Row> mapper;
+    private Paginator paginator;
+
+    @BeforeAll
+    public static void setUpMessageSource() {
+        // 异常消息按错误码从国际化资源读取，单元测试中没有Spring上下文
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("i18n/messages");
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean("messageSource", ResourceBundleMessageSource.class, () -> messageSource);
+        context.refresh();
+        new SpringContextUtils().setApplicationContext(context);
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        String[] names = { null, "b", "a", null, "b", "c", null, "a", "b", "c", null };
+        for (int i = 0; i < names.length; i++) {
+            table.add(new Row((long) i + 1, names[i]));
+        }
+
+        mapper = mock(BaseMapper.class);
+        when(mapper.selectPage(any(), any())).thenAnswer(invocation -> {
+            Page<Row> page = invocation.getArgument(0);
+            List<Row> rows = select(invocation.getArgument(1));
+            rows.sort(comparator(page.orders()));
+            page.setTotal(rows.size());
+            page.setRecords(rows.stream().skip(page.offset()).limit(page.getSize()).toList());
+            return page;
+        });
+        when(mapper.selectCount(any())).thenAnswer(invocation -> (long) select(invocation.getArgument(0)).size());
+
+        RedisUtils redisUtils = mock(RedisUtils.class);
+        when(redisUtils.get(anyString())).thenAnswer(invocation -> redis.get(invocation.getArgument(0)));
+        doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(redisUtils).set(anyString(), any(), anyLong());
+        properties.setTotalCacheTtl(0);
+        paginator = new Paginator(properties, redisUtils);
+    }
+
+    private static Supplier<QueryWrapper<Row>> filter(long minId) {
+        return () -> new QueryWrapper<Row>().gt("id", minId);
+    }
+
+    /**
+     * 从第一页开始按游标翻到最后一页
+     */
+    private List<Row> walk(KeysetSort<Row> sort, long limit) {
+        List<Row> result = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        do {
+            Map<String, Object> params = new HashMap<>();
+            params.put(Constant.LIMIT, limit);
+            params.put(Constant.CURSOR, cursor);
+            PageData<Row> data = paginator.page(LIST, mapper, filter(0), params, sort);
+            assertEquals(table.size(), data.getTotal());
+            result.addAll(data.getList());
+            cursor = data.getNextCursor();
+            assertTrue(++pages <= table.size(), "翻页没有结束");
+        } while (cursor != null);
+        return result;
+    }
+
+    private List<Row> sorted(KeysetSort<Row> sort) {
+        List<Row> expected = new ArrayList<>(table);
+        expected.sort(comparator(sort.orders()));
+        return expected;
+    }
+
+    @Test
+    @DisplayName("升序翻页：NULL在最前，每页大小不同结果都一致")
+    public void testWalkAsc() {
+        KeysetSort<Row> sort = KeysetSort.of("name", Row::getName, "id", Row::getId, true);
+        for (long limit = 1; limit <= table.size() + 1; limit++) {
+            assertEquals(sorted(sort), walk(sort, limit), "limit=" + limit);
+        }
+    }
+
+    @Test
+    @DisplayName("降序翻页：NULL在最后，每页大小不同结果都一致")
+    public void testWalkDesc() {
+        KeysetSort<Row> sort = KeysetSort.of("name", Row::getName, "id", Row::getId, false);
+        for (long limit = 1; limit <= table.size() + 1; limit++) {
+            assertEquals(sorted(sort), walk(sort, limit), "limit=" + limit);
+        }
+    }
+
+    @Test
+    @DisplayName("按唯一列翻页")
+    public void testWalkById() {
+        KeysetSort<Row> sort = KeysetSort.of("id", Row::getId, false);
+        assertEquals(sorted(sort), walk(sort, 3));
+    }
+
+    @Test
+    @DisplayName("最后一页没有下一页游标")
+    public void testLastPage() {
+        Map<String, Object> params = new HashMap<>();
+        params.put(Constant.LIMIT, table.size());
+        params.put(Constant.CURSOR, "");
+        PageData<Row> data = paginator.page(LIST, mapper, filter(0), params, KeysetSort.of("id", Row::getId, true));
+        assertEquals(table.size(), data.getList().size());
+        assertNull(data.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("游标不能用于其他查询条件或排序方式")
+    public void testCursorBoundToQuery() {
+        KeysetSort<Row> sort = KeysetSort.of("name", Row::getName, "id", Row::getId, true);
+        Map<String, Object> params = new HashMap<>();
+        params.put(Constant.LIMIT, 2);
+        params.put(Constant.CURSOR, "");
+        String cursor = paginator.page(LIST, mapper, filter(0), params, sort).getNextCursor();
+        assertNotNull(cursor);
+
+        params.put(Constant.CURSOR, cursor);
+        assertInvalid(() -> paginator.page(LIST, mapper, filter(1), params, sort));
+        assertInvalid(() -> paginator.page(LIST, mapper, filter(0), params,
+                KeysetSort.of("name", Row::getName, "id", Row::getId, false)));
+        assertInvalid(() -> paginator.page("other", mapper, filter(0), params, sort));
+
+        params.put(Constant.CURSOR, cursor.substring(0, cursor.length() - 2));
+        assertInvalid(() -> paginator.page(LIST, mapper, filter(0), params, sort));
+    }
+
+    @Test
+    @DisplayName("总记录数取自缓存时标记为近似值")
+    public void testCachedTotal() {
+        properties.setTotalCacheTtl(30);
+        Map<String, Object> params = new HashMap<>();
+        params.put(Constant.PAGE, 2);
+        params.put(Constant.LIMIT, 4);
+        KeysetSort<Row> sort = KeysetSort.of("id", Row::getId, true);
+
+        PageData<Row> first = paginator.page(LIST, mapper, filter(0), params, sort);
+        assertFalse(first.isApproximate());
+        assertEquals(List.of(5L, 6L, 7L, 8L), first.getList().stream().map(Row::getId).toList());
+
+        table.remove(0);
+        PageData<Row> second = paginator.page(LIST, mapper, filter(0), params, sort);
+        assertTrue(second.isApproximate());
+        assertEquals(11, second.getTotal());
+    }
+
+    private static void assertInvalid(Runnable query) {
+        RenException e = assertThrows(RenException.class, query::run);
+        assertEquals(ErrorCode.PAGE_CURSOR_INVALID, e.getCode());
+    }
+
+    private List<Row> select(QueryWrapper<Row> wrapper) {
+        String sql = wrapper.getSqlSegment();
+        List<Row> rows = new ArrayList<>();
+        for (Row row : table) {
+            if (sql == null || sql.isBlank()
+                    || Boolean.TRUE.equals(new Condition(sql, wrapper.getParamNameValuePairs(), row).parse())) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 与MySQL一致：NULL视为最小值
+     */
+    @SuppressWarnings("unchecked")
+    private static Comparator<Row> comparator(List<OrderItem> orders) {
+        Comparator<Row> comparator = (a, b) -> 0;
+        for (OrderItem order : orders) {
+            Comparator<Row> column = Comparator.comparing(row -> (Comparable<Object>) column(row, order.getColumn()),
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+            comparator = comparator.thenComparing(order.isAsc() ? column : column.reversed());
+        }
+        return comparator;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V column(Row row, String column) {
+        return (V) switch (column) {
+            case "id" -> row.getId();
+            case "name" -> row.getName();
+            default -> throw new IllegalArgumentException(column);
+        };
+    }
+
+    /**
+     * 按三值逻辑执行生成的条件，只支持KeysetSort和测试查询条件用到的语法
+     */
+    private static class Condition {
+        private final List<String> tokens = new ArrayList<>();
+        private final Map<String, Object> params;
+        private final Row row;
+        private int position;
+
+        Condition(String sql, Map<String, Object> params, Row row) {
+            Matcher matcher = Pattern.compile("\\(|\\)|[<>=]+|#\\{[^}]+}|\\w+").matcher(sql);
+            while (matcher.find()) {
+                tokens.add(matcher.group());
+            }
+            this.params = params;
+            this.row = row;
+        }
+
+        Boolean parse() {
+            Boolean result = or();
+            if (position != tokens.size()) {
+                throw new IllegalStateException("无法解析：" + tokens);
+            }
+            return result;
+        }
+
+        private Boolean or() {
+            Boolean result = and();
+            while (accept("OR")) {
+                Boolean right = and();
+                result = Boolean.TRUE.equals(result) || Boolean.TRUE.equals(right) ? Boolean.TRUE
+                        : result == null || right == null ? null : Boolean.FALSE;
+            }
+            return result;
+        }
+
+        private Boolean and() {
+            Boolean result = factor();
+            while (accept("AND")) {
+                Boolean right = factor();
+                result = Boolean.FALSE.equals(result) || Boolean.FALSE.equals(right) ? Boolean.FALSE
+                        : result == null || right == null ? null : Boolean.TRUE;
+            }
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Boolean factor() {
+            if (accept("(")) {
+                Boolean result = or();
+                expect(")");
+                return result;
+            }
+            Object left = column(row, tokens.get(position++));
+            if (accept("IS")) {
+                boolean not = accept("NOT");
+                expect("NULL");
+                return (left == null) != not;
+            }
+            String operator = tokens.get(position++);
+            Matcher matcher = PARAM.matcher(tokens.get(position++));
+            if (!matcher.matches()) {
+                throw new IllegalStateException("无法解析：" + tokens);
+            }
+            Object right = params.get(matcher.group(1));
+            if (left == null || right == null) {
+                return null;
+            }
+            int compare = left instanceof Long id ? Long.compare(id, ((Number) right).longValue())
+                    : ((Comparable<Object>) left).compareTo(right);
+            return switch (operator) {
+                case "=" -> compare == 0;
+                case ">" -> compare > 0;
+                case "<" -> compare < 0;
+                default -> throw new IllegalStateException("不支持的运算符：" + operator);
+            };
+        }
+
+        private boolean accept(String token) {
+            if (position < tokens.size() && Objects.equals(tokens.get(position), token)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!accept(token)) {
+                throw new IllegalStateException("缺少" + token + "：" + tokens);
+            }
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Row {
+        private Long id;
+        private String name;
+    }
+}
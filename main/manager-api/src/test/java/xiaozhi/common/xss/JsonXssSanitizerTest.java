@@ -0,0 +1,107 @@
+package xiaozhi.common.xss;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON请求体XSS过滤：边读边过滤，白名单按字段路径匹配
+ */
+@DisplayName("JSON请求体XSS过滤测试")
+public class JsonXssSanitizerTest {
+    private static final String SCRIPT = "<script>alert(1)</script>你好";
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static String sanitizeToString(String json, String... allowedPaths) throws IOException {
+        InputStream in = JsonXssSanitizer.sanitize(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), Set.of(allowedPaths));
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private JsonNode sanitize(String json, String... allowedPaths) throws IOException {
+        return objectMapper.readTree(sanitizeToString(json, allowedPaths));
+    }
+
+    @Test
+    @DisplayName("字符串值被过滤，字段名、数字和结构不变")
+    public void testSanitizeValues() throws IOException {
+        String json = sanitizeToString("{\"name\":\"" + SCRIPT + "\",\"count\":12345678901234567890,"
+                + "\"ratio\":0.10,\"tags\":[\"" + SCRIPT + "\",null,true],\"nested\":{\"name\":\"正常\"}}");
+        JsonNode node = objectMapper.readTree(json);
+
+        assertFalse(node.get("name").asText().contains("<script>"));
+        assertTrue(node.get("name").asText().contains("你好"));
+        assertFalse(node.get("tags").get(0).asText().contains("<script>"));
+        // 数字按原文复制，不经过浮点转换
+        assertTrue(json.contains("\"count\":12345678901234567890,\"ratio\":0.10,"));
+        assertTrue(node.get("tags").get(1).isNull());
+        assertTrue(node.get("tags").get(2).asBoolean());
+        assertEquals("正常", node.get("nested").get("name").asText());
+    }
+
+    @Test
+    @DisplayName("白名单路径的值及其嵌套内容原样保留，其他层级的同名字段仍被过滤")
+    public void testAllowlistMatchesPath() throws IOException {
+        JsonNode node = sanitize("{\"systemPrompt\":\"" + SCRIPT + "\","
+                + "\"configJson\":{\"headers\":[\"" + SCRIPT + "\"],\"body\":{\"html\":\"" + SCRIPT + "\"}},"
+                + "\"plugins\":[{\"systemPrompt\":\"" + SCRIPT + "\",\"config\":{\"html\":\"" + SCRIPT + "\"}}],"
+                + "\"other\":{\"systemPrompt\":\"" + SCRIPT + "\"}}",
+                "systemPrompt", "configJson", "plugins.config.html");
+
+        assertEquals(SCRIPT, node.get("systemPrompt").asText());
+        assertEquals(SCRIPT, node.get("configJson").get("headers").get(0).asText());
+        assertEquals(SCRIPT, node.get("configJson").get("body").get("html").asText());
+        // 数组层级不计入路径
+        assertEquals(SCRIPT, node.get("plugins").get(0).get("config").get("html").asText());
+        assertFalse(node.get("plugins").get(0).get("systemPrompt").asText().contains("<script>"));
+        assertFalse(node.get("other").get("systemPrompt").asText().contains("<script>"));
+    }
+
+    @Test
+    @DisplayName("大请求体分批读取，结果与原内容一致")
+    public void testStreamsLargeBody() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 10000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"text\":\"第").append(i)
+                    .append("条\"}");
+        }
+        json.append("]");
+
+        InputStream in = JsonXssSanitizer.sanitize(
+                new ByteArrayInputStream(json.toString().getBytes(StandardCharsets.UTF_8)), Set.of());
+        // 逐字节读取和批量读取混用
+        int first = in.read();
+        byte[] rest = in.readAllBytes();
+        byte[] all = new byte[rest.length + 1];
+        all[0] = (byte) first;
+        System.arraycopy(rest, 0, all, 1, rest.length);
+
+        assertEquals(objectMapper.readTree(json.toString()), objectMapper.readTree(all));
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    @DisplayName("空请求体读到空内容，不合法的JSON读取时报错")
+    public void testEmptyAndInvalid() throws IOException {
+        InputStream empty = JsonXssSanitizer.sanitize(new ByteArrayInputStream(new byte[0]), Set.of());
+        assertEquals(-1, empty.read());
+
+        InputStream invalid = JsonXssSanitizer.sanitize(
+                new ByteArrayInputStream("{\"name\":".getBytes(StandardCharsets.UTF_8)), Set.of());
+        assertThrows(JsonParseException.class, invalid::readAllBytes);
+    }
+}
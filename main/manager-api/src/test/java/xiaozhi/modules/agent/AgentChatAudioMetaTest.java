@@ -0,0 +1,86 @@
+package xiaozhi.modules.agent;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.modules.agent.Enums.AgentChatAudioFormat;
+import xiaozhi.modules.agent.dao.AiAgentChatAudioDao;
+import xiaozhi.modules.agent.dto.AgentChatAudioMetaDTO;
+import xiaozhi.modules.agent.service.impl.AgentChatAudioServiceImpl;
+
+/**
+ * 音频播放的长度和文件头一次查询取出并按音频ID缓存，多次Range请求不重复读取BLOB
+ */
+@DisplayName("聊天音频元数据测试")
+public class AgentChatAudioMetaTest {
+    private AiAgentChatAudioDao audioDao;
+    private AgentChatAudioServiceImpl service;
+
+    @BeforeEach
+    public void setUp() {
+        audioDao = mock(AiAgentChatAudioDao.class);
+        service = new AgentChatAudioServiceImpl(new FakeRedisUtils());
+        ReflectionTestUtils.setField(service, "baseMapper", audioDao);
+    }
+
+    @Test
+    @DisplayName("长度和格式只查询一次")
+    public void testMetaQueriedOnce() {
+        AgentChatAudioMetaDTO row = new AgentChatAudioMetaDTO();
+        row.setLength(1024L);
+        row.setHeader("RIFF\0\0\0\0WAVE".getBytes(StandardCharsets.ISO_8859_1));
+        when(audioDao.getAudioMeta("a1", AgentChatAudioFormat.HEADER_LENGTH)).thenReturn(row);
+
+        for (int i = 0; i < 3; i++) {
+            AgentChatAudioMetaDTO meta = service.getAudioMeta("a1");
+            assertEquals(1024L, meta.getLength());
+            assertArrayEquals(row.getHeader(), meta.getHeader());
+            assertEquals(AgentChatAudioFormat.WAV, AgentChatAudioFormat.detect(meta.getHeader()));
+        }
+        verify(audioDao, times(1)).getAudioMeta(anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("音频不存在时不缓存")
+    public void testMissingAudioNotCached() {
+        assertNull(service.getAudioMeta("missing"));
+        assertNull(service.getAudioMeta("missing"));
+        verify(audioDao, times(2)).getAudioMeta(anyString(), anyInt());
+    }
+
+    /**
+     * 内存redis，按redis的序列化方式存取，确认缓存的对象能够还原
+     */
+    private static class FakeRedisUtils extends RedisUtils {
+        private final RedisSerializer<Object> serializer = RedisSerializer.json();
+        private final Map<String, byte[]> values = new HashMap<>();
+
+        @Override
+        public void set(String key, Object value, long expire) {
+            values.put(key, serializer.serialize(value));
+        }
+
+        @Override
+        public Object get(String key) {
+            return serializer.deserialize(values.get(key));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package xiaozhi.modules.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+
+import xiaozhi.modules.agent.dao.AiAgentChatHistoryDao;
+import xiaozhi.modules.agent.dto.AgentChatHistoryExportDTO;
+import xiaozhi.modules.agent.entity.AgentChatHistoryEntity;
+import xiaozhi.modules.agent.service.AgentChatAudioService;
+import xiaozhi.modules.agent.service.AgentChatHistoryExportService;
+import xiaozhi.modules.agent.service.impl.AgentChatHistoryExportServiceImpl;
+
+/**
+ * 聊天记录导出：按(created_at, id)键集分批读取，音频按实际格式命名
+ */
+@DisplayName("聊天记录导出测试")
+public class AgentChatHistoryExportTest {
+    private static final long BASE_TIME = 1_700_000_000_000L;
+
+    private final List<AgentChatHistoryEntity> rows = new ArrayList<>();
+    private AiAgentChatHistoryDao dao;
+    private AgentChatAudioService audioService;
+    private AgentChatHistoryExportServiceImpl service;
+
+    @BeforeEach
+    public void setUp() {
+        dao = mock(AiAgentChatHistoryDao.class);
+        audioService = mock(AgentChatAudioService.class);
+        service = new AgentChatHistoryExportServiceImpl(dao, audioService);
+        when(dao.listExportAfter(any(), anyInt())).thenAnswer(keyset(false));
+        when(dao.listAudioAfter(any(), anyInt())).thenAnswer(keyset(true));
+    }
+
+    /**
+     * 模拟按(created_at, id)升序的键集分页查询
+     */
+    private Answer<List<AgentChatHistoryEntity>> keyset(boolean audioOnly) {
+        return invocation -> {
+            AgentChatHistoryExportDTO query = invocation.getArgument(0);
+            int size = invocation.getArgument(1);
+            return rows.stream()
+                    .filter(row -> !audioOnly || row.getAudioId() != null)
+                    .filter(row -> query.getAfterTime() == null
+                            || row.getCreatedAt().after(query.getAfterTime())
+                            || (row.getCreatedAt().equals(query.getAfterTime()) && row.getId() > query.getAfterId()))
+                    .limit(size)
+                    .toList();
+        };
+    }
+
+    private void addRows(int count) {
+        for (int i = 1; i <= count; i++) {
+            AgentChatHistoryEntity row = new AgentChatHistoryEntity();
+            row.setId((long) i);
+            row.setMacAddress("aa:bb");
+            row.setAgentId("agent1");
+            row.setSessionId("s" + (i % 2));
+            row.setChatType((byte) 1);
+            row.setContent("第" + i + "条");
+            // 每两条共用同一时间，检验同一时间内按ID继续
+            row.setCreatedAt(new Date(BASE_TIME + (i + 1) / 2 * 1000L));
+            rows.add(row);
+        }
+    }
+
+    private static AgentChatHistoryExportDTO query(Integer limit) {
+        AgentChatHistoryExportDTO query = new AgentChatHistoryExportDTO();
+        query.setAgentId("agent1");
+        query.setLimit(limit);
+        return query;
+    }
+
+    @Test
+    @DisplayName("NDJSON分多批读取，不漏不重，每批一次查询")
+    public void testNdjsonPaging() throws IOException {
+        addRows(2500);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.exportText(query(null), AgentChatHistoryExportService.FORMAT_NDJSON, false, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2500, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertTrue(lines[i].startsWith("{\"id\":" + (i + 1) + ","), lines[i]);
+        }
+        verify(dao, times(3)).listExportAfter(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("CSV带BOM和表头，gzip压缩，limit跨批截断")
+    public void testCsvWithLimit() throws IOException {
+        addRows(1500);
+        rows.get(0).setContent("含,逗号\"引号");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.exportText(query(1200), AgentChatHistoryExportService.FORMAT_CSV, true, out);
+
+        String csv = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        String[] lines = csv.split("\r\n");
+        assertEquals("\uFEFFid,macAddress,agentId,sessionId,chatType,content,audioId,createdAt,timestamp", lines[0]);
+        assertEquals(1201, lines.length);
+        assertTrue(lines[1].startsWith("1,aa:bb,agent1,s1,1,\"含,逗号\"\"引号\",,"));
+        assertTrue(lines[1200].startsWith("1200,"));
+    }
+
+    @Test
+    @DisplayName("音频按文件头识别扩展名，缺失的音频跳过")
+    public void testAudioExtensions() throws IOException {
+        addRows(4);
+        rows.get(0).setAudioId("wav");
+        rows.get(1).setAudioId("ogg");
+        rows.get(2).setAudioId("missing");
+        rows.get(3).setAudioId("raw");
+        Map<String, byte[]> audios = Map.of(
+                "wav", "RIFF\0\0\0\0WAVEfmt ".getBytes(StandardCharsets.ISO_8859_1),
+                "ogg", "OggS\0\2\0\0\0\0\0\0".getBytes(StandardCharsets.ISO_8859_1),
+                "raw", new byte[] { 1, 2, 3 });
+        when(audioService.getAudio(anyString())).thenAnswer(invocation -> audios.get(invocation.getArgument(0)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.exportAudio(query(null), out);
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+                byte[] content = zip.readAllBytes();
+                assertTrue(Arrays.equals(audios.get(entry.getName().endsWith(".wav") ? "wav"
+                        : entry.getName().endsWith(".ogg") ? "ogg" : "raw"), content));
+            }
+        }
+        assertEquals(3, names.size());
+        assertTrue(names.get(0).startsWith("s1/") && names.get(0).endsWith("_1.wav"), names.get(0));
+        assertTrue(names.get(1).startsWith("s0/") && names.get(1).endsWith("_2.ogg"), names.get(1));
+        assertTrue(names.get(2).endsWith("_4.bin"), names.get(2));
+    }
+}
@@ -0,0 +1,135 @@
+package xiaozhi.modules.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.modules.agent.dao.AiAgentChatHistoryDao;
+import xiaozhi.modules.agent.dto.AgentChatHistorySearchDTO;
+import xiaozhi.modules.agent.entity.AgentChatHistoryEntity;
+import xiaozhi.modules.agent.search.ChatHistoryIndex;
+import xiaozhi.modules.agent.search.ChatHistorySearchProperties;
+import xiaozhi.modules.agent.service.impl.AgentChatHistorySearchServiceImpl;
+
+/**
+ * 聊天记录全文索引：回扫晚提交的记录，删除智能体在事务提交后生效并同步到其他实例
+ */
+@DisplayName("聊天记录全文检索测试")
+public class AgentChatHistorySearchTest {
+    @TempDir
+    Path indexPath;
+
+    private AiAgentChatHistoryDao dao;
+    private RedisUtils redisUtils;
+    private ChatHistoryIndex index;
+    private AgentChatHistorySearchServiceImpl service;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        ChatHistorySearchProperties properties = new ChatHistorySearchProperties();
+        properties.setIndexPath(indexPath.toString());
+        index = new ChatHistoryIndex(properties);
+        index.open();
+        dao = mock(AiAgentChatHistoryDao.class);
+        redisUtils = mock(RedisUtils.class);
+        when(dao.listForIndexAfterId(anyLong(), anyInt())).thenReturn(List.of());
+        when(dao.listIdsUpdatedSince(anyInt(), anyLong(), anyLong(), anyInt())).thenReturn(List.of());
+        when(redisUtils.hGetAll(anyString())).thenReturn(Map.of());
+        service = new AgentChatHistorySearchServiceImpl(index, properties, dao, redisUtils);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("较小ID晚于已追平的更大ID提交时由回扫补上")
+    public void testRescanRecoversLateCommit() {
+        when(dao.listForIndexAfterId(0L, 1000)).thenReturn(List.of(history(2L, "agent1", "明天天气")));
+        service.catchUp();
+        assertEquals(2L, index.getLastIndexedId());
+        assertEquals(0, count("今天天气"));
+
+        when(dao.listIdsUpdatedSince(anyInt(), eq(0L), eq(2L), anyInt())).thenReturn(List.of(1L, 2L));
+        when(dao.listForIndexByIds(List.of(1L))).thenReturn(List.of(history(1L, "agent1", "今天天气")));
+        service.catchUp();
+
+        assertEquals(1, count("今天天气"));
+        assertEquals(2, count("天气"));
+    }
+
+    @Test
+    @DisplayName("事务提交后才删除索引并登记删除记录")
+    public void testDeleteAfterCommit() throws Exception {
+        index.upsert(history(1L, "agent1", "今天天气"));
+        index.commit(1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.deleteByAgentId("agent1");
+            assertEquals(1, count("天气"));
+            verify(redisUtils, never()).hSet(anyString(), anyString(), any(), anyLong());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(0, count("天气"));
+        verify(redisUtils).hSet(eq(RedisKeys.getChatSearchDeletedAgentsKey()), eq("agent1"), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("追平时删除其他实例登记的已删除智能体的索引")
+    public void testSyncDeletionsFromOtherInstances() throws Exception {
+        index.upsert(history(1L, "agent1", "今天天气"));
+        index.upsert(history(2L, "agent2", "明天天气"));
+        index.commit(2L);
+        when(redisUtils.hGetAll(RedisKeys.getChatSearchDeletedAgentsKey()))
+                .thenReturn(Map.of("agent1", System.currentTimeMillis()));
+
+        service.catchUp();
+
+        assertEquals(1, count("天气"));
+        assertEquals(0, count("今天天气"));
+    }
+
+    private int count(String keyword) {
+        AgentChatHistorySearchDTO dto = new AgentChatHistorySearchDTO();
+        dto.setKeyword(keyword);
+        return service.search(dto).getTotal();
+    }
+
+    private static AgentChatHistoryEntity history(Long id, String agentId, String content) {
+        return AgentChatHistoryEntity.builder()
+                .id(id)
+                .agentId(agentId)
+                .sessionId("s1")
+                .chatType((byte) 1)
+                .content(content)
+                .createdAt(new Date())
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package xiaozhi.modules.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.context.support.ResourceBundleMessageSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import xiaozhi.common.exception.ErrorCode;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.common.utils.SpringContextUtils;
+import xiaozhi.modules.agent.dto.AgentChatHistoryReportDTO;
+import xiaozhi.modules.agent.service.AgentChatAudioService;
+import xiaozhi.modules.agent.service.AgentChatHistorySearchService;
+import xiaozhi.modules.agent.service.AgentChatHistoryService;
+import xiaozhi.modules.agent.service.AgentChatSessionService;
+import xiaozhi.modules.agent.service.AgentService;
+import xiaozhi.modules.agent.service.biz.impl.AgentChatHistoryBizServiceImpl;
+import xiaozhi.modules.device.service.DeviceService;
+
+/**
+ * 聊天上报去重：首次上报提交后才返回其结果，处理中时返回可重试的错误
+ */
+@DisplayName("聊天上报去重测试")
+public class AgentChatReportDedupTest {
+    private RedisUtils redisUtils;
+    private AgentService agentService;
+    private AgentChatHistoryBizServiceImpl service;
+
+    @BeforeAll
+    public static void setUpMessageSource() {
+        // 异常消息按错误码从国际化资源读取，单元测试中没有Spring上下文
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("i18n/messages");
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean("messageSource", ResourceBundleMessageSource.class, () -> messageSource);
+        context.refresh();
+        new SpringContextUtils().setApplicationContext(context);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        redisUtils = mock(RedisUtils.class);
+        agentService = mock(AgentService.class);
+        service = new AgentChatHistoryBizServiceImpl(agentService, mock(AgentChatHistoryService.class),
+                mock(AgentChatAudioService.class), mock(AgentChatSessionService.class),
+                mock(AgentChatHistorySearchService.class), redisUtils, mock(DeviceService.class),
+                new SimpleMeterRegistry());
+        when(redisUtils.setIfAbsent(anyString(), any(), anyLong())).thenReturn(false);
+    }
+
+    private static AgentChatHistoryReportDTO report() {
+        AgentChatHistoryReportDTO report = new AgentChatHistoryReportDTO();
+        report.setMacAddress("aa:bb:cc:dd:ee:ff");
+        report.setSessionId("s1");
+        report.setChatType((byte) 1);
+        report.setContent("你好");
+        report.setIdempotencyKey("k1");
+        return report;
+    }
+
+    @Test
+    @DisplayName("首次上报仍在处理中时返回可重试的错误，不当作已成功")
+    public void testPendingIsRetryable() {
+        when(redisUtils.get(anyString())).thenReturn("PENDING");
+
+        RenException e = assertThrows(RenException.class, () -> service.report(report()));
+        assertEquals(ErrorCode.CHAT_REPORT_PROCESSING, e.getCode());
+        verify(agentService, never()).getDefaultAgentByMacAddress(anyString());
+    }
+
+    @Test
+    @DisplayName("首次上报已提交时返回其结果，不重复写入")
+    public void testCommittedResultReturned() {
+        when(redisUtils.get(anyString())).thenReturn(Boolean.FALSE);
+
+        assertEquals(Boolean.FALSE, service.report(report()));
+        verify(agentService, never()).getDefaultAgentByMacAddress(anyString());
+    }
+}
@@ -0,0 +1,95 @@
+package xiaozhi.modules.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.page.Paginator;
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.modules.agent.dao.AiAgentChatSessionDao;
+import xiaozhi.modules.agent.entity.AgentChatSessionEntity;
+import xiaozhi.modules.agent.service.AgentChatSessionService;
+import xiaozhi.modules.agent.service.impl.AgentChatSessionServiceImpl;
+import xiaozhi.modules.agent.task.AgentChatSessionRepairTask;
+
+/**
+ * 会话汇总重算时摘要与上报路径使用相同的提取规则，多实例时只由取得租约的实例修复
+ */
+@DisplayName("会话汇总修复测试")
+public class AgentChatSessionRepairTest {
+
+    @Test
+    @DisplayName("重算写入的摘要只保留聊天文本")
+    @SuppressWarnings("unchecked")
+    public void testRepairExtractsSnippet() {
+        AiAgentChatSessionDao dao = mock(AiAgentChatSessionDao.class);
+        AgentChatSessionServiceImpl service = new AgentChatSessionServiceImpl(mock(Paginator.class));
+        ReflectionTestUtils.setField(service, "baseMapper", dao);
+
+        when(dao.selectRebuildActiveSince(any())).thenReturn(List.of(
+                session("{\"speaker\": \"未知说话人\", \"content\": \"现在几点了。\"}"),
+                session("普通文本"),
+                session("长".repeat(300))));
+        when(dao.upsertRebuilt(any())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        assertEquals(3, service.repairActiveSince(new Date()));
+
+        ArgumentCaptor<List<AgentChatSessionEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(dao).upsertRebuilt(saved.capture());
+        List<String> snippets = saved.getValue().stream().map(AgentChatSessionEntity::getLastContent).toList();
+        assertEquals("现在几点了。", snippets.get(0));
+        assertEquals("普通文本", snippets.get(1));
+        assertEquals(255, snippets.get(2).length());
+    }
+
+    @Test
+    @DisplayName("取得租约或redis未开启时修复，租约被占用或redis异常时跳过")
+    public void testRepairLease() {
+        assertRepaired(true, true);
+        assertRepaired(null, true);
+        assertRepaired(false, false);
+        assertRepaired(new RenException("redis error"), false);
+    }
+
+    /**
+     * @param lease 获取租约的结果，异常表示redis出错
+     */
+    private static void assertRepaired(Object lease, boolean repaired) {
+        AgentChatSessionService service = mock(AgentChatSessionService.class);
+        RedisUtils redisUtils = mock(RedisUtils.class);
+        if (lease instanceof Exception e) {
+            when(redisUtils.setIfAbsent(eq(RedisKeys.getChatSessionRepairLeaseKey()), any(), anyLong())).thenThrow(e);
+        } else {
+            when(redisUtils.setIfAbsent(eq(RedisKeys.getChatSessionRepairLeaseKey()), any(), anyLong()))
+                    .thenReturn((Boolean) lease);
+        }
+
+        new AgentChatSessionRepairTask(service, redisUtils).repair();
+
+        verify(service, repaired ? times(1) : never()).repairActiveSince(any());
+    }
+
+    private static AgentChatSessionEntity session(String content) {
+        AgentChatSessionEntity entity = new AgentChatSessionEntity();
+        entity.setAgentId("agent1");
+        entity.setSessionId("session-" + content.hashCode());
+        entity.setLastContent(content);
+        return entity;
+    }
+}
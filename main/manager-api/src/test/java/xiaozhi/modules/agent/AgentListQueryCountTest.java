@@ -0,0 +1,165 @@
+package xiaozhi.modules.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.modules.agent.dao.AgentDao;
+import xiaozhi.modules.agent.dto.AgentDTO;
+import xiaozhi.modules.agent.entity.AgentEntity;
+import xiaozhi.modules.agent.service.impl.AgentServiceImpl;
+import xiaozhi.modules.device.dao.DeviceDao;
+import xiaozhi.modules.device.service.impl.DeviceServiceImpl;
+import xiaozhi.modules.device.vo.AgentDeviceStatsVO;
+import xiaozhi.modules.model.dao.ModelConfigDao;
+import xiaozhi.modules.model.entity.ModelConfigEntity;
+import xiaozhi.modules.model.service.impl.ModelConfigServiceImpl;
+import xiaozhi.modules.timbre.dao.TimbreDao;
+import xiaozhi.modules.timbre.entity.TimbreEntity;
+import xiaozhi.modules.timbre.service.impl.TimbreServiceImpl;
+
+/**
+ * 智能体列表的数据库和Redis访问次数不随智能体数量增长
+ */
+@DisplayName("智能体列表查询次数测试")
+public class AgentListQueryCountTest {
+
+    @Test
+    @DisplayName("缓存未命中时查询次数固定")
+    public void testConstantQueryCountWithColdCache() {
+        int one = countQueries(1, false);
+        int many = countQueries(50, false);
+        assertEquals(one, many, "查询次数应与智能体数量无关");
+        assertTrue(many <= 11, "冷缓存下查询次数应不超过11次，实际" + many);
+    }
+
+    @Test
+    @DisplayName("缓存命中时查询次数固定")
+    public void testConstantQueryCountWithWarmCache() {
+        int one = countQueries(1, true);
+        int many = countQueries(50, true);
+        assertEquals(one, many, "查询次数应与智能体数量无关");
+        assertTrue(many <= 4, "热缓存下查询次数应不超过4次，实际" + many);
+    }
+
+    @Test
+    @DisplayName("批量组装的结果正确")
+    public void testAssembledValues() {
+        Fixture fixture = new Fixture(3, false);
+        List<AgentDTO> agents = fixture.service.getUserAgents(1L);
+
+        assertEquals(3, agents.size());
+        AgentDTO agent = agents.get(1);
+        assertEquals("agent-1", agent.getId());
+        assertEquals("name-tts-1", agent.getTtsModelName());
+        assertEquals("name-llm-1", agent.getLlmModelName());
+        assertEquals(null, agent.getVllmModelName());
+        assertEquals("voice-1", agent.getTtsVoiceName());
+        assertEquals(2, agent.getDeviceCount());
+        // 没有设备的智能体数量为0
+        assertEquals(0, agents.get(0).getDeviceCount());
+    }
+
+    private int countQueries(int agentCount, boolean warmCache) {
+        Fixture fixture = new Fixture(agentCount, warmCache);
+        List<AgentDTO> agents = fixture.service.getUserAgents(1L);
+        assertEquals(agentCount, agents.size());
+        return mockingDetails(fixture.agentDao).getInvocations().size()
+                + mockingDetails(fixture.modelConfigDao).getInvocations().size()
+                + mockingDetails(fixture.timbreDao).getInvocations().size()
+                + mockingDetails(fixture.deviceDao).getInvocations().size()
+                + mockingDetails(fixture.redisUtils).getInvocations().size();
+    }
+
+    private static class Fixture {
+        final AgentDao agentDao = mock(AgentDao.class);
+        final ModelConfigDao modelConfigDao = mock(ModelConfigDao.class);
+        final TimbreDao timbreDao = mock(TimbreDao.class);
+        final DeviceDao deviceDao = mock(DeviceDao.class);
+        final RedisUtils redisUtils = mock(RedisUtils.class);
+        final AgentServiceImpl service;
+
+        Fixture(int agentCount, boolean warmCache) {
+            List<AgentEntity> agents = new ArrayList<>();
+            for (int i = 0; i < agentCount; i++) {
+                AgentEntity agent = new AgentEntity();
+                agent.setId("agent-" + i);
+                agent.setAgentName("智能体" + i);
+                agent.setTtsModelId("tts-" + i);
+                agent.setLlmModelId("llm-" + i);
+                agent.setTtsVoiceId("voice-" + i);
+                agents.add(agent);
+            }
+            when(agentDao.selectList(any())).thenReturn(agents);
+
+            when(redisUtils.multiGet(anyCollection())).thenAnswer(invocation -> {
+                Collection<String> keys = invocation.getArgument(0);
+                if (!warmCache) {
+                    return Arrays.asList(new Object[keys.size()]);
+                }
+                List<Object> values = new ArrayList<>();
+                for (String key : keys) {
+                    if (key.contains("device:count")) {
+                        values.add(1);
+                    } else if (key.contains("lastConnected")) {
+                        values.add(new Date());
+                    } else {
+                        values.add("cached");
+                    }
+                }
+                return values;
+            });
+            when(modelConfigDao.selectBatchIds(anyCollection())).thenAnswer(invocation -> {
+                List<ModelConfigEntity> entities = new ArrayList<>();
+                for (Object id : (Collection<?>) invocation.getArgument(0)) {
+                    ModelConfigEntity entity = new ModelConfigEntity();
+                    entity.setId((String) id);
+                    entity.setModelName("name-" + id);
+                    entities.add(entity);
+                }
+                return entities;
+            });
+            when(timbreDao.selectBatchIds(anyCollection())).thenAnswer(invocation -> {
+                List<TimbreEntity> entities = new ArrayList<>();
+                for (Object id : (Collection<?>) invocation.getArgument(0)) {
+                    TimbreEntity entity = new TimbreEntity();
+                    entity.setId((String) id);
+                    entity.setName((String) id);
+                    entities.add(entity);
+                }
+                return entities;
+            });
+            when(deviceDao.selectAgentDeviceStats(anyCollection())).thenAnswer(invocation -> {
+                List<AgentDeviceStatsVO> stats = new ArrayList<>();
+                for (String agentId : invocation.<Collection<String>>getArgument(0)) {
+                    // 第一个智能体没有设备
+                    if (!"agent-0".equals(agentId)) {
+                        stats.add(new AgentDeviceStatsVO(agentId, 2, new Date()));
+                    }
+                }
+                return stats;
+            });
+
+            ModelConfigServiceImpl modelConfigService = new ModelConfigServiceImpl(modelConfigDao, null, redisUtils,
+                    null);
+            TimbreServiceImpl timbreService = new TimbreServiceImpl(timbreDao, redisUtils, null);
+            DeviceServiceImpl deviceService = new DeviceServiceImpl(deviceDao, null, null, redisUtils, null);
+            service = new AgentServiceImpl(agentDao, timbreService, modelConfigService, redisUtils, deviceService,
+                    null, null, null, null);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package xiaozhi.modules.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.modules.agent.dao.AgentDao;
+import xiaozhi.modules.agent.dao.AgentVoicePrintDao;
+import xiaozhi.modules.agent.dto.AgentProvisionDTO;
+import xiaozhi.modules.agent.entity.AgentEntity;
+import xiaozhi.modules.agent.entity.AgentPluginMapping;
+import xiaozhi.modules.agent.service.AgentPluginMappingService;
+import xiaozhi.modules.agent.service.AgentService;
+import xiaozhi.modules.agent.service.AgentTemplateService;
+import xiaozhi.modules.agent.service.impl.AgentProvisionServiceImpl;
+import xiaozhi.modules.agent.vo.AgentProvisionVO;
+import xiaozhi.modules.device.dao.DeviceDao;
+import xiaozhi.modules.device.entity.DeviceEntity;
+import xiaozhi.modules.model.service.ModelReferenceService;
+import xiaozhi.modules.sys.dao.SysUserDao;
+import xiaozhi.modules.sys.entity.SysUserEntity;
+
+/**
+ * 批量开通智能体：一次校验全部目标，校验通过后批量写入
+ */
+@DisplayName("批量开通智能体测试")
+public class AgentProvisionTest {
+    private AgentService agentService;
+    private AgentDao agentDao;
+    private AgentPluginMappingService agentPluginMappingService;
+    private AgentVoicePrintDao agentVoicePrintDao;
+    private ModelReferenceService modelReferenceService;
+    private SysUserDao sysUserDao;
+    private DeviceDao deviceDao;
+    private AgentProvisionServiceImpl service;
+
+    @BeforeEach
+    public void setUp() {
+        agentService = mock(AgentService.class);
+        agentDao = mock(AgentDao.class);
+        agentPluginMappingService = mock(AgentPluginMappingService.class);
+        agentVoicePrintDao = mock(AgentVoicePrintDao.class);
+        modelReferenceService = mock(ModelReferenceService.class);
+        sysUserDao = mock(SysUserDao.class);
+        deviceDao = mock(DeviceDao.class);
+        service = new AgentProvisionServiceImpl(agentService, agentDao, mock(AgentTemplateService.class),
+                agentPluginMappingService, agentVoicePrintDao, modelReferenceService, sysUserDao, deviceDao,
+                mock(RedisUtils.class), new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+        AgentEntity source = new AgentEntity();
+        source.setId("source");
+        source.setUserId(1L);
+        source.setAgentName("客服助手");
+        source.setLlmModelId("LLM_A");
+        source.setSystemPrompt("你是客服");
+        source.setSummaryMemory("用户喜欢猫");
+        source.setVersion(7);
+        source.setDeleted(0);
+        when(agentDao.selectById("source")).thenReturn(source);
+
+        AgentPluginMapping plugin = new AgentPluginMapping();
+        plugin.setId(99L);
+        plugin.setAgentId("source");
+        plugin.setPluginId("SYSTEM_PLUGIN_WEATHER");
+        plugin.setParamInfo("{\"city\":\"北京\"}");
+        when(agentPluginMappingService.list(any(Wrapper.class))).thenReturn(List.of(plugin));
+        when(agentVoicePrintDao.selectCount(any())).thenReturn(0L);
+    }
+
+    @Test
+    @DisplayName("仅校验时返回全部目标的错误且不写入")
+    public void testDryRunReportsAllErrors() {
+        when(sysUserDao.selectList(any())).thenReturn(List.of(user(2L, 1), user(3L, 0)));
+        when(deviceDao.selectList(any())).thenReturn(List.of(device("dev1", 2L)));
+
+        AgentProvisionVO result = service.provision(request(true,
+                target(2L, null), target(3L, null), target(4L, null), target(null, "dev1"),
+                target(null, "dev1"), target(null, "missing"), target(null, null)));
+
+        assertTrue(result.isDryRun());
+        assertEquals(7, result.getTotal());
+        assertTrue(result.getAgentIds().isEmpty());
+        assertEquals(List.of("1:用户已停用", "2:用户不存在", "4:设备重复", "5:设备不存在", "6:请填写用户或设备"),
+                result.getErrors().stream().map(e -> e.getIndex() + ":" + e.getReason()).sorted().toList());
+        verify(agentService, never()).insertBatch(anyCollection(), anyInt());
+    }
+
+    @Test
+    @DisplayName("有校验错误时即使不是仅校验也不写入")
+    public void testErrorsBlockProvision() {
+        when(sysUserDao.selectList(any())).thenReturn(List.of(user(2L, 1)));
+
+        AgentProvisionVO result = service.provision(request(false, target(2L, null), target(5L, null)));
+
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getAgentIds().isEmpty());
+        verify(agentService, never()).insertBatch(anyCollection(), anyInt());
+        verify(modelReferenceService, never()).addAgents(anyCollection(), anyCollection());
+    }
+
+    @Test
+    @DisplayName("复制智能体批量写入智能体、插件和引用，并绑定设备")
+    @SuppressWarnings("unchecked")
+    public void testCloneInsertsInBatch() {
+        when(sysUserDao.selectList(any())).thenReturn(List.of(user(2L, 1), user(3L, 1)));
+        when(deviceDao.selectList(any())).thenReturn(List.of(device("dev1", 3L)));
+
+        AgentProvisionVO result = service.provision(request(false, target(2L, null), target(null, "dev1"),
+                target(2L, null)));
+
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(3, result.getAgentIds().size());
+        assertEquals(3, result.getAgentIds().stream().distinct().count());
+
+        ArgumentCaptor<Collection<AgentEntity>> agents = ArgumentCaptor.forClass(Collection.class);
+        verify(agentService).insertBatch(agents.capture(), anyInt());
+        List<AgentEntity> inserted = new ArrayList<>(agents.getValue());
+        assertEquals(List.of(2L, 3L, 2L), inserted.stream().map(AgentEntity::getUserId).toList());
+        assertEquals(3, inserted.stream().map(AgentEntity::getAgentCode).distinct().count());
+        for (AgentEntity agent : inserted) {
+            assertNotEquals("source", agent.getId());
+            assertEquals("客服助手", agent.getAgentName());
+            assertEquals("LLM_A", agent.getLlmModelId());
+            assertEquals("你是客服", agent.getSystemPrompt());
+            assertNull(agent.getSummaryMemory());
+            assertNull(agent.getVersion());
+            assertNull(agent.getDeleted());
+        }
+
+        ArgumentCaptor<Collection<AgentPluginMapping>> mappings = ArgumentCaptor.forClass(Collection.class);
+        verify(agentPluginMappingService).saveBatch(mappings.capture(), anyInt());
+        assertEquals(result.getAgentIds(), mappings.getValue().stream().map(AgentPluginMapping::getAgentId).toList());
+        assertTrue(mappings.getValue().stream().allMatch(m -> m.getId() == null
+                && "{\"city\":\"北京\"}".equals(m.getParamInfo())));
+
+        verify(modelReferenceService, times(1)).addAgents(anyCollection(), any());
+        verify(deviceDao, times(1)).update(any(), any());
+        verify(agentDao, times(1)).selectById("source");
+        verify(agentPluginMappingService, times(1)).list(any(Wrapper.class));
+    }
+
+    private static AgentProvisionDTO request(boolean dryRun, AgentProvisionDTO.Target... targets) {
+        AgentProvisionDTO dto = new AgentProvisionDTO();
+        dto.setSourceAgentId("source");
+        dto.setDryRun(dryRun);
+        dto.setTargets(List.of(targets));
+        return dto;
+    }
+
+    private static AgentProvisionDTO.Target target(Long userId, String deviceId) {
+        AgentProvisionDTO.Target target = new AgentProvisionDTO.Target();
+        target.setUserId(userId);
+        target.setDeviceId(deviceId);
+        return target;
+    }
+
+    private static SysUserEntity user(Long id, int status) {
+        SysUserEntity user = new SysUserEntity();
+        user.setId(id);
+        user.setStatus(status);
+        return user;
+    }
+
+    private static DeviceEntity device(String id, Long userId) {
+        DeviceEntity device = new DeviceEntity();
+        device.setId(id);
+        device.setUserId(userId);
+        device.setAgentId("old");
+        return device;
+    }
+}
@@ -0,0 +1,162 @@
+package xiaozhi.modules.agent;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+
+import xiaozhi.common.exception.ConflictException;
+import xiaozhi.common.utils.SpringContextUtils;
+import xiaozhi.modules.agent.dao.AgentDao;
+import xiaozhi.modules.agent.dto.AgentUpdateDTO;
+import xiaozhi.modules.agent.entity.AgentEntity;
+import xiaozhi.modules.agent.service.AgentChatHistoryService;
+import xiaozhi.modules.agent.service.impl.AgentServiceImpl;
+import xiaozhi.modules.model.service.ModelReferenceService;
+
+/**
+ * 智能体按字段更新和版本号冲突检测
+ */
+@DisplayName("智能体更新测试")
+public class AgentUpdatePatchTest {
+    private AgentDao agentDao;
+    private AgentChatHistoryService agentChatHistoryService;
+    private AgentServiceImpl service;
+    private final List<UpdateWrapper<AgentEntity>> updates = new ArrayList<>();
+    private int affectedRows = 1;
+
+    @BeforeAll
+    public static void setUpMessageSource() {
+        // 异常消息按错误码从国际化资源读取，单元测试中没有Spring上下文
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("i18n/messages");
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean("messageSource", ResourceBundleMessageSource.class, () -> messageSource);
+        context.refresh();
+        new SpringContextUtils().setApplicationContext(context);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        agentDao = mock(AgentDao.class);
+        agentChatHistoryService = mock(AgentChatHistoryService.class);
+        service = new AgentServiceImpl(agentDao, null, null, null, null, null, agentChatHistoryService, null,
+                mock(ModelReferenceService.class));
+        ReflectionTestUtils.setField(service, "baseDao", agentDao);
+
+        AgentEntity agent = new AgentEntity();
+        agent.setId("a1");
+        agent.setAgentName("客服");
+        agent.setSystemPrompt("prompt");
+        agent.setMemModelId("Memory_mem0ai");
+        agent.setSummaryMemory("memory");
+        agent.setChatHistoryConf(2);
+        agent.setVersion(3);
+        when(agentDao.selectById("a1")).thenReturn(agent);
+        doAnswer(invocation -> {
+            updates.add(invocation.getArgument(1));
+            return affectedRows;
+        }).when(agentDao).update(isNull(), any());
+    }
+
+    private String lastSqlSet() {
+        return updates.getLast().getSqlSet();
+    }
+
+    @Test
+    @DisplayName("只写入有变化的字段并按版本号条件更新")
+    public void testPatchChangedColumns() {
+        AgentUpdateDTO dto = new AgentUpdateDTO();
+        dto.setAgentName("助手");
+        dto.setSystemPrompt("prompt");
+        dto.setVersion(3);
+
+        service.updateAgentById("a1", dto);
+
+        String sqlSet = lastSqlSet();
+        assertTrue(sqlSet.contains("agent_name="));
+        assertFalse(sqlSet.contains("system_prompt"));
+        assertFalse(sqlSet.contains("summary_memory"));
+        assertTrue(sqlSet.contains("version = version + 1"));
+        assertTrue(updates.getLast().getCustomSqlSegment().contains("version ="));
+        assertTrue(updates.getLast().getParamNameValuePairs().containsValue(3));
+        verify(agentChatHistoryService, never()).deleteByAgentId(anyString(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("没有变化时不更新")
+    public void testNoChange() {
+        AgentUpdateDTO dto = new AgentUpdateDTO();
+        dto.setAgentName("客服");
+
+        service.updateAgentById("a1", dto);
+
+        assertTrue(updates.isEmpty());
+    }
+
+    @Test
+    @DisplayName("版本号不一致返回冲突")
+    public void testStaleVersion() {
+        AgentUpdateDTO dto = new AgentUpdateDTO();
+        dto.setAgentName("助手");
+        dto.setVersion(2);
+
+        assertThrows(ConflictException.class, () -> service.updateAgentById("a1", dto));
+        assertTrue(updates.isEmpty());
+    }
+
+    @Test
+    @DisplayName("读取后被他人修改返回冲突")
+    public void testConcurrentUpdate() {
+        affectedRows = 0;
+        AgentUpdateDTO dto = new AgentUpdateDTO();
+        dto.setAgentName("助手");
+
+        assertThrows(ConflictException.class, () -> service.updateAgentById("a1", dto));
+    }
+
+    @Test
+    @DisplayName("关闭记忆时清空记忆和聊天记录，仅在切换时清理")
+    public void testMemoryTurnedOff() {
+        AgentUpdateDTO dto = new AgentUpdateDTO();
+        dto.setMemModelId("Memory_nomem");
+
+        service.updateAgentById("a1", dto);
+
+        assertTrue(lastSqlSet().contains("summary_memory="));
+        verify(agentChatHistoryService).deleteByAgentId("a1", true, true);
+    }
+
+    @Test
+    @DisplayName("保存记忆只写记忆字段")
+    public void testSaveMemory() {
+        service.updateSummaryMemory("a1", "new memory");
+
+        String sqlSet = lastSqlSet();
+        assertTrue(sqlSet.contains("summary_memory="));
+        assertFalse(sqlSet.contains("agent_name"));
+        assertTrue(sqlSet.contains("version = version + 1"));
+        verify(agentDao, never()).selectById(any());
+    }
+}
@@ -0,0 +1,132 @@
+package xiaozhi.modules.device;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.modules.agent.dao.AgentDao;
+import xiaozhi.modules.agent.entity.AgentEntity;
+import xiaozhi.modules.device.dao.DeviceDao;
+import xiaozhi.modules.device.entity.DeviceEntity;
+import xiaozhi.modules.device.service.DeviceService;
+import xiaozhi.modules.device.service.impl.DeviceImportServiceImpl;
+import xiaozhi.modules.sys.bulk.BulkJobRunner;
+import xiaozhi.modules.sys.vo.BulkJobVO;
+
+/**
+ * 设备批量导入：逐行校验、分块批量插入、重复上传幂等
+ */
+@DisplayName("设备批量导入测试")
+public class DeviceImportTest {
+    private DeviceService deviceService;
+    private DeviceDao deviceDao;
+    private AgentDao agentDao;
+    private DeviceImportServiceImpl service;
+    private final List<DeviceEntity> existing = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        deviceService = mock(DeviceService.class);
+        deviceDao = mock(DeviceDao.class);
+        agentDao = mock(AgentDao.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        // 同步执行，提交返回时任务已完成
+        BulkJobRunner runner = new BulkJobRunner(transactionTemplate, mock(RedisUtils.class), Runnable::run);
+        service = new DeviceImportServiceImpl(runner, deviceService, deviceDao, agentDao);
+
+        AgentEntity agent = new AgentEntity();
+        agent.setId("agent1");
+        agent.setUserId(7L);
+        when(agentDao.selectList(any())).thenReturn(List.of(agent));
+        when(deviceDao.selectList(any())).thenReturn(existing);
+        // 插入的设备在下次查询时已存在
+        doAnswer(invocation -> {
+            existing.addAll(invocation.getArgument(0));
+            return true;
+        }).when(deviceService).insertBatch(anyCollection());
+    }
+
+    private static Map<String, String> failures(BulkJobVO job) {
+        return job.getFailures().stream()
+                .collect(Collectors.toMap(BulkJobVO.Failure::getId, BulkJobVO.Failure::getReason));
+    }
+
+    @Test
+    @DisplayName("逐行校验并按行号报告失败，合法行批量插入")
+    @SuppressWarnings("unchecked")
+    public void testImport() {
+        String csv = "\uFEFFmac,board,version,agent\n"
+                + "AA-BB-CC-DD-EE-01,esp32-s3,1.0.0,agent1\n"
+                + "aa:bb:cc:dd:ee:02,,,agent1\n"
+                + "not-a-mac,esp32,1.0.0,agent1\n"
+                + "aa:bb:cc:dd:ee:01,esp32,1.0.0,agent1\n"
+                + "aa:bb:cc:dd:ee:03,esp32,1.0.0,\n"
+                + "aa:bb:cc:dd:ee:04,esp32,1.0.0,missing\n";
+
+        BulkJobVO job = service.getJob(service.importDevices(csv));
+
+        assertEquals(BulkJobVO.STATUS_PARTIAL, job.getStatus());
+        assertEquals(6, job.getTotal());
+        assertEquals(2, job.getSucceeded());
+        assertEquals(Map.of("4", "MAC地址格式不正确", "5", "MAC地址与第2行重复", "6", "智能体ID不能为空",
+                "7", "智能体不存在"), failures(job));
+
+        ArgumentCaptor<Collection<DeviceEntity>> inserted = ArgumentCaptor.forClass(Collection.class);
+        verify(deviceService).insertBatch(inserted.capture());
+        List<DeviceEntity> devices = new ArrayList<>(inserted.getValue());
+        assertEquals(List.of("aa:bb:cc:dd:ee:01", "aa:bb:cc:dd:ee:02"),
+                devices.stream().map(DeviceEntity::getId).toList());
+        assertEquals("esp32-s3", devices.get(0).getBoard());
+        assertEquals(7L, devices.get(0).getUserId());
+        verify(deviceService).getAgentDeviceStats(any());
+    }
+
+    @Test
+    @DisplayName("重复上传时已导入的设备跳过，绑定其他智能体的设备报错")
+    public void testIdempotentReupload() {
+        String csv = "aa:bb:cc:dd:ee:01,esp32,1.0.0,agent1\n";
+        service.importDevices(csv);
+
+        BulkJobVO job = service.getJob(service.importDevices(csv));
+        assertEquals(BulkJobVO.STATUS_SUCCESS, job.getStatus());
+        verify(deviceService).insertBatch(anyCollection());
+
+        existing.get(0).setAgentId("agent2");
+        job = service.getJob(service.importDevices(csv));
+        assertEquals(Map.of("1", "设备已存在且绑定了其他智能体"), failures(job));
+    }
+
+    @Test
+    @DisplayName("没有数据行时拒绝提交")
+    public void testEmpty() {
+        assertThrows(RenException.class, () -> service.importDevices("mac,board,version,agent\n"));
+        verify(deviceService, never()).insertBatch(anyCollection());
+    }
+}
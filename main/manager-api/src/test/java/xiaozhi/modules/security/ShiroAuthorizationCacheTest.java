@@ -0,0 +1,135 @@
+package xiaozhi.modules.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.shiro.cache.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.modules.security.config.ShiroConfig;
+import xiaozhi.modules.security.config.ShiroLocalCacheManager;
+import xiaozhi.modules.security.dao.SysUserTokenDao;
+import xiaozhi.modules.security.oauth2.Oauth2Realm;
+import xiaozhi.modules.security.service.impl.ShiroServiceImpl;
+import xiaozhi.modules.sys.dao.SysUserDao;
+
+/**
+ * 权限缓存：一个实例清除后，其他实例读取清除记录时清除本地缓存，清除记录只保留一个缓存有效期
+ */
+@DisplayName("权限缓存跨实例清除测试")
+public class ShiroAuthorizationCacheTest {
+    private final Map<Object, Long> changes = new HashMap<>();
+    private ShiroServiceImpl instanceA;
+    private ShiroServiceImpl instanceB;
+    private Cache<Object, Object> cacheA;
+    private Cache<Object, Object> cacheB;
+
+    @BeforeEach
+    public void setUp() {
+        RedisUtils redisUtils = new FakeRedisUtils();
+
+        ShiroLocalCacheManager managerA = new ShiroLocalCacheManager(100, 600);
+        ShiroLocalCacheManager managerB = new ShiroLocalCacheManager(100, 600);
+        instanceA = new ShiroServiceImpl(mock(SysUserDao.class), mock(SysUserTokenDao.class), redisUtils, managerA);
+        instanceB = new ShiroServiceImpl(mock(SysUserDao.class), mock(SysUserTokenDao.class), redisUtils, managerB);
+        cacheA = managerA.getCache(Oauth2Realm.AUTHORIZATION_CACHE_NAME);
+        cacheB = managerB.getCache(Oauth2Realm.AUTHORIZATION_CACHE_NAME);
+    }
+
+    @Test
+    @DisplayName("本实例立即清除，其他实例同步后清除，未变更的用户保留")
+    public void testEvictionReachesOtherInstances() {
+        instanceB.refreshAuthorizationVersions();
+        cacheA.put(1L, "a1");
+        cacheB.put(1L, "b1");
+        cacheB.put(2L, "b2");
+
+        instanceA.evictUser(1L);
+        assertNull(cacheA.get(1L));
+        assertNotNull(cacheB.get(1L));
+
+        instanceB.refreshAuthorizationVersions();
+        assertNull(cacheB.get(1L));
+        assertEquals("b2", cacheB.get(2L));
+
+        // 版本未再变化时不重复清除
+        cacheB.put(1L, "b1");
+        instanceB.refreshAuthorizationVersions();
+        assertEquals("b1", cacheB.get(1L));
+    }
+
+    @Test
+    @DisplayName("批量清除同样通知其他实例")
+    public void testBatchEviction() {
+        instanceB.refreshAuthorizationVersions();
+        cacheB.put(1L, "b1");
+        cacheB.put(2L, "b2");
+        cacheB.put(3L, "b3");
+
+        instanceA.evictUsers(List.of(1L, 2L));
+        instanceB.refreshAuthorizationVersions();
+
+        assertNull(cacheB.get(1L));
+        assertNull(cacheB.get(2L));
+        assertEquals("b3", cacheB.get(3L));
+    }
+
+    @Test
+    @DisplayName("超过权限缓存有效期的清除记录被删除")
+    public void testChangesExpire() {
+        changes.put("9", System.currentTimeMillis() - ShiroConfig.AUTHORIZATION_CACHE_EXPIRE * 1000 - 1);
+
+        instanceA.evictUser(1L);
+
+        assertTrue(changes.containsKey("1"));
+        assertFalse(changes.containsKey("9"));
+    }
+
+    /**
+     * 内存redis，只实现清除记录用到的有序集合命令
+     */
+    private class FakeRedisUtils extends RedisUtils {
+        @Override
+        public void delete(String key) {
+        }
+
+        @Override
+        public void delete(Collection<String> keys) {
+        }
+
+        @Override
+        public void zAdd(String key, Object member, double score, long expire) {
+            changes.put(member, (long) score);
+        }
+
+        @Override
+        public void zRemoveRangeByScore(String key, double min, double max) {
+            changes.values().removeIf(score -> score >= min && score <= max);
+        }
+
+        @Override
+        public Set<TypedTuple<Object>> zRangeByScoreWithScores(String key, double min, double max) {
+            return changes.entrySet().stream()
+                    .filter(entry -> entry.getValue() >= min && entry.getValue() <= max)
+                    .map(entry -> (TypedTuple<Object>) new DefaultTypedTuple<>(entry.getKey(),
+                            entry.getValue().doubleValue()))
+                    .collect(Collectors.toSet());
+        }
+    }
+}
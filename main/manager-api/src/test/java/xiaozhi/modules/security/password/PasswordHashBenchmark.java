@@ -0,0 +1,133 @@
+package xiaozhi.modules.security.password;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * 密码哈希基准测试
+ * <p>
+ * 对比项目内BCrypt、hutool BCrypt与JDK PBKDF2在不同强度下单次校验的耗时，
+ * 以及经PasswordHashService线程池执行时的开销，用于选择renren.password.strength和线程数。
+ * 运行：mvn test-compile 后以test classpath执行本类main方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PasswordHashBenchmark {
+    private static final String PASSWORD = "Xiaozhi@2025";
+
+    @Param({ "10", "12" })
+    private int strength;
+
+    private String bcryptHash;
+    private String hutoolHash;
+    private byte[] pbkdf2Salt;
+    private byte[] pbkdf2Hash;
+    private int pbkdf2Iterations;
+    private PasswordHashService hashService;
+
+    @Setup(Level.Trial)
+    public void setup() throws GeneralSecurityException {
+        bcryptHash = new BCryptPasswordEncoder(strength).encode(PASSWORD);
+        hutoolHash = cn.hutool.crypto.digest.BCrypt.hashpw(PASSWORD,
+                cn.hutool.crypto.digest.BCrypt.gensalt(strength));
+
+        // 与BCrypt强度同步放大迭代次数，强度10约对应OWASP建议的PBKDF2-SHA256迭代量级
+        pbkdf2Iterations = 300_000 << (strength - 10);
+        pbkdf2Salt = new byte[16];
+        new SecureRandom().nextBytes(pbkdf2Salt);
+        pbkdf2Hash = pbkdf2(PASSWORD, pbkdf2Salt, pbkdf2Iterations);
+
+        PasswordHashProperties properties = new PasswordHashProperties();
+        properties.setStrength(strength);
+        properties.setQueueTimeout(60_000);
+        properties.setMaxPerIp(Integer.MAX_VALUE);
+        properties.setMaxPerUser(Integer.MAX_VALUE);
+        hashService = new PasswordHashService(properties, new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        hashService.shutdown();
+    }
+
+    @Benchmark
+    public boolean bcryptInRepo() {
+        return BCrypt.checkpw(PASSWORD, bcryptHash);
+    }
+
+    @Benchmark
+    public boolean bcryptHutool() {
+        return cn.hutool.crypto.digest.BCrypt.checkpw(PASSWORD, hutoolHash);
+    }
+
+    @Benchmark
+    public boolean pbkdf2Sha256() throws GeneralSecurityException {
+        return MessageDigest.isEqual(pbkdf2Hash, pbkdf2(PASSWORD, pbkdf2Salt, pbkdf2Iterations));
+    }
+
+    /**
+     * 模拟并发登录，经有界线程池执行，线程池外的请求在队列中等待
+     */
+    @Benchmark
+    @Threads(8)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public boolean bcryptViaExecutor() {
+        return hashService.matches(null, PASSWORD, bcryptHash);
+    }
+
+    /**
+     * 对照组：并发登录直接在调用线程计算
+     */
+    @Benchmark
+    @Threads(8)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public boolean bcryptOnCallerThreads() {
+        return BCrypt.checkpw(PASSWORD, bcryptHash);
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, 256);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PasswordHashBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
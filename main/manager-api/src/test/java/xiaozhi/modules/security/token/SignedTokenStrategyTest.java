@@ -0,0 +1,211 @@
+package xiaozhi.modules.security.token;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.apache.shiro.authc.IncorrectCredentialsException;
+import org.apache.shiro.authc.LockedAccountException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.common.utils.SpringContextUtils;
+import xiaozhi.modules.security.service.ShiroService;
+import xiaozhi.modules.sys.entity.SysUserEntity;
+
+/**
+ * 签名token：账号状态取自载荷，吊销记录未同步或丢失时拒绝，吊销记录只保留一个有效期
+ */
+@DisplayName("签名token测试")
+public class SignedTokenStrategyTest {
+    private FakeRedisUtils redisUtils;
+    private ShiroService shiroService;
+    private TokenProperties properties;
+    private SignedTokenStrategy strategy;
+
+    @BeforeAll
+    public static void setUpMessageSource() {
+        // 异常消息按错误码从国际化资源读取，单元测试中没有Spring上下文
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("i18n/messages");
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean("messageSource", ResourceBundleMessageSource.class, () -> messageSource);
+        context.refresh();
+        new SpringContextUtils().setApplicationContext(context);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        properties = new TokenProperties();
+        properties.setType(SignedTokenStrategy.TYPE);
+        properties.setActiveKeyId("k1");
+        properties.getKeys().put("k1", "0123456789abcdef0123456789abcdef");
+        redisUtils = new FakeRedisUtils();
+        shiroService = mock(ShiroService.class);
+        strategy = new SignedTokenStrategy(properties, shiroService, redisUtils);
+    }
+
+    private String issue(SignedTokenStrategy issuer, long userId, int status) {
+        SysUserEntity user = new SysUserEntity();
+        user.setId(userId);
+        user.setUsername("user" + userId);
+        user.setSuperAdmin(0);
+        user.setStatus(status);
+        when(shiroService.getUser(userId)).thenReturn(user);
+        return issuer.createToken(userId).getToken();
+    }
+
+    @Test
+    @DisplayName("账号状态取自载荷，停用账号的token被拒绝")
+    public void testStatusFromClaims() {
+        strategy.init();
+        assertEquals(1, strategy.authenticate(issue(strategy, 1L, 1)).getStatus());
+        assertThrows(LockedAccountException.class, () -> strategy.authenticate(issue(strategy, 2L, 0)));
+    }
+
+    @Test
+    @DisplayName("未能从redis同步吊销记录时拒绝")
+    public void testRejectBeforeSync() {
+        redisUtils.available = false;
+        strategy.init();
+        assertThrows(IncorrectCredentialsException.class, () -> strategy.authenticate(issue(strategy, 1L, 1)));
+    }
+
+    @Test
+    @DisplayName("起始时间丢失后，此前签发的token失效")
+    public void testRejectTokensIssuedBeforeLoss() {
+        strategy.init();
+        assertNotNull(redisUtils.values.get(RedisKeys.getTokenEpochKey()));
+        String token = issue(strategy, 1L, 1);
+        strategy.authenticate(token);
+
+        // redis数据丢失，重新写入的起始时间晚于token的签发时间
+        redisUtils.values.clear();
+        redisUtils.zsets.clear();
+        redisUtils.values.put(RedisKeys.getTokenEpochKey(), System.currentTimeMillis() / 1000 + 1);
+        strategy.refreshVersions();
+
+        assertThrows(IncorrectCredentialsException.class, () -> strategy.authenticate(token));
+    }
+
+    @Test
+    @DisplayName("吊销前签发的token失效，之后签发的可用")
+    public void testRevoke() throws InterruptedException {
+        strategy.init();
+        String token = issue(strategy, 1L, 1);
+        Thread.sleep(2);
+        strategy.revoke(1L);
+        assertThrows(IncorrectCredentialsException.class, () -> strategy.authenticate(token));
+        assertEquals(1L, strategy.authenticate(issue(strategy, 1L, 1)).getId());
+    }
+
+    @Test
+    @DisplayName("其他实例同步后吊销生效")
+    public void testRevocationReachesOtherInstances() throws InterruptedException {
+        SignedTokenStrategy other = new SignedTokenStrategy(properties, shiroService, redisUtils);
+        strategy.init();
+        other.init();
+        String token = issue(other, 1L, 1);
+        other.authenticate(token);
+
+        Thread.sleep(2);
+        strategy.revoke(1L);
+        other.refreshVersions();
+
+        assertThrows(IncorrectCredentialsException.class, () -> other.authenticate(token));
+    }
+
+    @Test
+    @DisplayName("超过一个有效期的吊销记录被删除")
+    public void testRevocationsExpire() {
+        strategy.init();
+        long expired = System.currentTimeMillis() - properties.getExpire() * 1000L - 1;
+        redisUtils.zsets.computeIfAbsent(RedisKeys.getTokenRevocationKey(), k -> new HashMap<>()).put("9", expired);
+
+        strategy.revoke(1L);
+
+        Map<Object, Long> revocations = redisUtils.zsets.get(RedisKeys.getTokenRevocationKey());
+        assertTrue(revocations.containsKey("1"));
+        assertFalse(revocations.containsKey("9"));
+    }
+
+    @Test
+    @DisplayName("未配置签名密钥时不同步也不记录吊销")
+    public void testSkipWithoutKeys() {
+        properties.setType(DbTokenStrategy.TYPE);
+        properties.getKeys().clear();
+        strategy.init();
+        strategy.refreshVersions();
+        strategy.revoke(1L);
+        assertEquals(0, redisUtils.calls.get());
+    }
+
+    /**
+     * 内存redis，只实现吊销记录用到的命令；available为false时模拟redis连接异常
+     */
+    private static class FakeRedisUtils extends RedisUtils {
+        private final Map<String, Object> values = new HashMap<>();
+        private final Map<String, Map<Object, Long>> zsets = new HashMap<>();
+        private final AtomicInteger calls = new AtomicInteger();
+        private boolean available = true;
+
+        private void check() {
+            calls.incrementAndGet();
+            if (!available) {
+                throw new IllegalStateException("redis unavailable");
+            }
+        }
+
+        @Override
+        public Object get(String key) {
+            check();
+            return values.get(key);
+        }
+
+        @Override
+        public Boolean setIfAbsent(String key, Object value) {
+            check();
+            return values.putIfAbsent(key, value) == null;
+        }
+
+        @Override
+        public void zAdd(String key, Object member, double score, long expire) {
+            check();
+            zsets.computeIfAbsent(key, k -> new HashMap<>()).put(member, (long) score);
+        }
+
+        @Override
+        public void zRemoveRangeByScore(String key, double min, double max) {
+            check();
+            zsets.getOrDefault(key, new HashMap<>()).values().removeIf(score -> score >= min && score <= max);
+        }
+
+        @Override
+        public Set<TypedTuple<Object>> zRangeByScoreWithScores(String key, double min, double max) {
+            check();
+            return zsets.getOrDefault(key, Map.of()).entrySet().stream()
+                    .filter(entry -> entry.getValue() >= min && entry.getValue() <= max)
+                    .map(entry -> (TypedTuple<Object>) new DefaultTypedTuple<>(entry.getKey(),
+                            entry.getValue().doubleValue()))
+                    .collect(Collectors.toSet());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package xiaozhi.modules.sms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.redis.RedisKeys;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.modules.sms.config.SmsProperties;
+import xiaozhi.modules.sms.dao.SmsOutboxDao;
+import xiaozhi.modules.sms.entity.SmsOutboxEntity;
+import xiaozhi.modules.sms.provider.SmsProvider;
+import xiaozhi.modules.sms.service.imp.SmsOutboxServiceImpl;
+import xiaozhi.modules.sms.task.SmsDispatchTask;
+
+/**
+ * 短信发送：放弃发送时只退还1次当日发送次数，冷却时间内不替换待发送的验证码
+ */
+@DisplayName("短信发送测试")
+public class SmsDispatchTest {
+    private static final String PHONE = "13800000000";
+
+    private SmsOutboxDao smsOutboxDao;
+    private SmsProvider provider;
+    private RedisUtils redisUtils;
+    private SmsProperties properties;
+    private SmsDispatchTask task;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        smsOutboxDao = mock(SmsOutboxDao.class);
+        provider = mock(SmsProvider.class);
+        redisUtils = mock(RedisUtils.class);
+        when(provider.name()).thenReturn("aliyun");
+        when(provider.isAvailable()).thenReturn(true);
+        properties = new SmsProperties();
+        properties.setMaxAttempts(3);
+        task = new SmsDispatchTask(smsOutboxDao, properties, List.of(provider), redisUtils,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        task.shutdown();
+    }
+
+    private void claim(int attempts) {
+        SmsOutboxEntity sms = new SmsOutboxEntity();
+        sms.setId(1L);
+        sms.setPhone(PHONE);
+        sms.setParams("{\"code\":\"123456\"}");
+        sms.setAttempts(attempts);
+        when(smsOutboxDao.claimDue(anyString(), anyInt())).thenReturn(1);
+        when(smsOutboxDao.listClaimed(anyString())).thenReturn(List.of(sms));
+    }
+
+    @Test
+    @DisplayName("超过最大尝试次数时当日发送次数减1，不删除计数")
+    public void testRefundDecrementsByOne() throws Exception {
+        when(provider.sendVerificationCode(PHONE, "123456")).thenThrow(new IllegalStateException("gateway down"));
+        claim(2);
+
+        task.poll();
+
+        verify(redisUtils, timeout(2000)).decrementIfPositive(RedisKeys.getSMSTodayCountKey(PHONE));
+        verify(redisUtils, never()).delete(anyString());
+    }
+
+    @Test
+    @DisplayName("未到最大尝试次数或发送成功时不退还发送次数")
+    public void testNoRefundBeforeGivingUp() throws Exception {
+        when(provider.sendVerificationCode(PHONE, "123456")).thenThrow(new IllegalStateException("gateway down"));
+        claim(0);
+
+        task.poll();
+
+        verify(smsOutboxDao, timeout(2000)).update(any(), any());
+        verify(redisUtils, never()).decrementIfPositive(anyString());
+        verify(redisUtils, never()).delete(anyString());
+    }
+
+    @Test
+    @DisplayName("每批领取使用独立标识，只列出本批领取的短信")
+    public void testEachClaimListsOwnBatch() {
+        when(smsOutboxDao.claimDue(anyString(), anyInt())).thenReturn(1);
+        when(smsOutboxDao.listClaimed(anyString())).thenReturn(List.of());
+
+        task.poll();
+        task.poll();
+
+        ArgumentCaptor<String> claimed = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> listed = ArgumentCaptor.forClass(String.class);
+        verify(smsOutboxDao, times(2)).claimDue(claimed.capture(), anyInt());
+        verify(smsOutboxDao, times(2)).listClaimed(listed.capture());
+        assertEquals(claimed.getAllValues(), listed.getAllValues());
+        assertNotEquals(claimed.getAllValues().get(0), claimed.getAllValues().get(1));
+        assertTrue(claimed.getAllValues().stream().allMatch(claim -> claim.length() <= 64));
+    }
+
+    @Test
+    @DisplayName("冷却时间内不替换待发送的验证码")
+    public void testMergeRespectsCooldown() {
+        SmsOutboxServiceImpl service = new SmsOutboxServiceImpl(smsOutboxDao, properties, task);
+        when(smsOutboxDao.countSince(eq(PHONE), any())).thenReturn(1);
+
+        assertThrows(RenException.class, () -> service.sendVerificationCodeSms(PHONE, "654321"));
+        verify(smsOutboxDao, never()).mergePending(anyString(), anyString(), anyString());
+        verify(smsOutboxDao, never()).insert(any(SmsOutboxEntity.class));
+    }
+}
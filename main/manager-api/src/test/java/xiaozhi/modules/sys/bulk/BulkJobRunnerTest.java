@@ -0,0 +1,131 @@
+package xiaozhi.modules.sys.bulk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import xiaozhi.common.exception.RenException;
+import xiaozhi.common.redis.RedisUtils;
+import xiaozhi.modules.sys.vo.BulkJobVO;
+
+/**
+ * 批量操作任务的分块、部分失败和缓存清除
+ */
+@DisplayName("批量操作任务测试")
+public class BulkJobRunnerTest {
+    private RedisUtils redisUtils;
+    private BulkJobRunner runner;
+    private final List<List<String>> chunks = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        redisUtils = mock(RedisUtils.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        // 同步执行，submit返回时任务已完成
+        runner = new BulkJobRunner(transactionTemplate, redisUtils, Runnable::run);
+    }
+
+    private static List<String> ids(int count) {
+        return IntStream.rangeClosed(1, count).mapToObj(String::valueOf).toList();
+    }
+
+    @Test
+    @DisplayName("按分块执行，重复ID只处理一次")
+    public void testChunked() {
+        List<String> ids = new ArrayList<>(ids(BulkJobRunner.CHUNK_SIZE * 2 + 10));
+        ids.add("1");
+
+        BulkJobVO job = runner.get(runner.submit("TEST", ids, (chunk, result) -> chunks.add(chunk)));
+
+        assertEquals(3, chunks.size());
+        assertEquals(BulkJobRunner.CHUNK_SIZE, chunks.get(0).size());
+        assertEquals(10, chunks.get(2).size());
+        assertEquals(BulkJobVO.STATUS_SUCCESS, job.getStatus());
+        assertEquals(BulkJobRunner.CHUNK_SIZE * 2 + 10, job.getTotal());
+        assertEquals(job.getTotal(), job.getProcessed());
+        assertEquals(job.getTotal(), job.getSucceeded());
+    }
+
+    @Test
+    @DisplayName("逐条失败和分块异常都计入失败明细，其余分块继续执行")
+    public void testPartialFailure() {
+        BulkJobVO job = runner.get(runner.submit("TEST", ids(BulkJobRunner.CHUNK_SIZE + 5), (chunk, result) -> {
+            if (chunk.size() < BulkJobRunner.CHUNK_SIZE) {
+                throw new RenException("分块失败");
+            }
+            result.fail("1", "不存在");
+        }));
+
+        assertEquals(BulkJobVO.STATUS_PARTIAL, job.getStatus());
+        assertEquals(6, job.getFailed());
+        assertEquals(BulkJobRunner.CHUNK_SIZE - 1, job.getSucceeded());
+        assertEquals("不存在", job.getFailures().get(0).getReason());
+        assertEquals("分块失败", job.getFailures().get(1).getReason());
+    }
+
+    @Test
+    @DisplayName("每个分块涉及的缓存key一次清除，失败回滚的分块不清除")
+    public void testEvictOncePerChunk() {
+        runner.submit("TEST", ids(BulkJobRunner.CHUNK_SIZE + 1), (chunk, result) -> {
+            chunk.forEach(id -> result.evict("key:" + (Integer.parseInt(id) % 3)));
+            if (chunk.size() == 1) {
+                throw new IllegalStateException("rollback");
+            }
+        });
+
+        verify(redisUtils, times(1)).delete(anyCollection());
+        verify(redisUtils, never()).delete(any(String.class));
+    }
+
+    @Test
+    @DisplayName("全部失败时任务状态为失败")
+    public void testAllFailed() {
+        BulkJobVO job = runner.get(runner.submit("TEST", ids(3), (chunk, result) -> result.fail(chunk, "不存在")));
+
+        assertEquals(BulkJobVO.STATUS_FAILED, job.getStatus());
+        assertEquals(3, job.getFailed());
+    }
+
+    @Test
+    @DisplayName("全部分块执行完后调用收尾，收尾异常不影响任务状态")
+    public void testOnFinish() {
+        List<Integer> finished = new ArrayList<>();
+        BulkJobVO job = runner.get(runner.submit("TEST", ids(BulkJobRunner.CHUNK_SIZE + 1),
+                (chunk, result) -> chunks.add(chunk), () -> {
+                    finished.add(chunks.size());
+                    throw new IllegalStateException("warm failed");
+                }));
+
+        assertEquals(List.of(2), finished);
+        assertEquals(BulkJobVO.STATUS_SUCCESS, job.getStatus());
+    }
+
+    @Test
+    @DisplayName("ID为空时拒绝提交")
+    public void testEmpty() {
+        assertThrows(RenException.class, () -> runner.submit("TEST", List.of(" "), (chunk, result) -> {
+        }));
+    }
+}
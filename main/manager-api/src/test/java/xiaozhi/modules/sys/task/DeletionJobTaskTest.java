@@ -0,0 +1,161 @@
+package xiaozhi.modules.sys.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import xiaozhi.modules.agent.dao.AiAgentChatAudioDao;
+import xiaozhi.modules.agent.dao.AiAgentChatHistoryDao;
+import xiaozhi.modules.agent.entity.AgentChatHistoryEntity;
+import xiaozhi.modules.agent.service.AgentChatHistorySearchService;
+import xiaozhi.modules.agent.service.AgentPluginMappingService;
+import xiaozhi.modules.sys.dao.SysDeletionJobDao;
+import xiaozhi.modules.sys.entity.SysDeletionJobEntity;
+
+/**
+ * 删除任务的分批清理、断点续删和失败重试
+ */
+@DisplayName("删除任务测试")
+public class DeletionJobTaskTest {
+    private SysDeletionJobDao sysDeletionJobDao;
+    private AiAgentChatHistoryDao aiAgentChatHistoryDao;
+    private AiAgentChatAudioDao aiAgentChatAudioDao;
+    private AgentChatHistorySearchService agentChatHistorySearchService;
+    private DeletionJobTask task;
+    private final List<UpdateWrapper<SysDeletionJobEntity>> updates = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        sysDeletionJobDao = mock(SysDeletionJobDao.class);
+        aiAgentChatHistoryDao = mock(AiAgentChatHistoryDao.class);
+        aiAgentChatAudioDao = mock(AiAgentChatAudioDao.class);
+        agentChatHistorySearchService = mock(AgentChatHistorySearchService.class);
+        AgentPluginMappingService agentPluginMappingService = mock(AgentPluginMappingService.class);
+        when(agentPluginMappingService.deleteByAgentId("a1")).thenReturn(2);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+        doAnswer(invocation -> {
+            updates.add(invocation.getArgument(1));
+            return 1;
+        }).when(sysDeletionJobDao).update(any(), any());
+
+        task = new DeletionJobTask(sysDeletionJobDao, aiAgentChatHistoryDao, aiAgentChatAudioDao,
+                agentPluginMappingService, agentChatHistorySearchService, transactionTemplate,
+                new SimpleMeterRegistry());
+    }
+
+    private static SysDeletionJobEntity job(String targetType, String targetId, String step, long cursorId) {
+        SysDeletionJobEntity job = new SysDeletionJobEntity();
+        job.setId(1L);
+        job.setTargetType(targetType);
+        job.setTargetId(targetId);
+        job.setStatus(SysDeletionJobEntity.STATUS_RUNNING);
+        job.setStep(step);
+        job.setCursorId(cursorId);
+        job.setAttempts(0);
+        return job;
+    }
+
+    private static AgentChatHistoryEntity history(long id, String audioId) {
+        AgentChatHistoryEntity entity = new AgentChatHistoryEntity();
+        entity.setId(id);
+        entity.setAudioId(audioId);
+        return entity;
+    }
+
+    private Map<String, Object> lastUpdate() {
+        return updates.getLast().getParamNameValuePairs();
+    }
+
+    private Map<String, Long> lastCounts() {
+        return DeletionJobTask.parseCounts(lastUpdate().values().stream()
+                .filter(value -> value instanceof String s && s.startsWith("{"))
+                .map(String::valueOf).findFirst().orElseThrow());
+    }
+
+    @Test
+    @DisplayName("智能体按步骤分批清理，最后物理删除智能体")
+    public void testAgentJob() {
+        when(sysDeletionJobDao.purgeBatch("ai_device", "agent_id", "a1", DeletionJobTask.BATCH_SIZE))
+                .thenReturn(DeletionJobTask.BATCH_SIZE, 3);
+        when(aiAgentChatHistoryDao.listForPurge("a1", 0L, DeletionJobTask.BATCH_SIZE))
+                .thenReturn(List.of(history(5L, "au1"), history(9L, null)));
+        when(aiAgentChatAudioDao.deleteBatchIds(List.of("au1"))).thenReturn(1);
+        when(sysDeletionJobDao.purgeDeleted("ai_agent", "a1")).thenReturn(1);
+
+        task.process(job(SysDeletionJobEntity.TARGET_AGENT, "a1", "ai_device", 0L));
+
+        verify(aiAgentChatHistoryDao).deleteBatchIds(List.of(5L, 9L));
+        verify(agentChatHistorySearchService).deleteByAgentId("a1");
+        verify(sysDeletionJobDao).purgeDeleted("ai_agent", "a1");
+        Map<String, Object> last = lastUpdate();
+        assertTrue(last.containsValue(SysDeletionJobEntity.STATUS_DONE));
+        assertEquals(Map.of("ai_device", 503L, "ai_agent_plugin_mapping", 2L, "ai_agent_voice_print", 0L,
+                "ai_agent_chat_history", 2L, "ai_agent_chat_audio", 1L, "ai_agent_chat_session", 0L,
+                "ai_agent", 1L), lastCounts());
+    }
+
+    @Test
+    @DisplayName("从保存的步骤和游标继续")
+    public void testResume() {
+        SysDeletionJobEntity job = job(SysDeletionJobEntity.TARGET_AGENT, "a1", "ai_agent_chat_history", 100L);
+        job.setCounts("{\"ai_device\":7}");
+
+        task.process(job);
+
+        verify(sysDeletionJobDao, never()).purgeBatch(eq("ai_device"), anyString(), any(), anyInt());
+        verify(aiAgentChatHistoryDao).listForPurge("a1", 100L, DeletionJobTask.BATCH_SIZE);
+        assertEquals(7L, lastCounts().get("ai_device"));
+    }
+
+    @Test
+    @DisplayName("任务被其他实例接管后停止")
+    public void testLeaseLost() {
+        when(sysDeletionJobDao.purgeBatch("ai_device", "user_id", 8L, DeletionJobTask.BATCH_SIZE))
+                .thenReturn(DeletionJobTask.BATCH_SIZE);
+        doAnswer(invocation -> 0).when(sysDeletionJobDao).update(any(), any());
+
+        task.process(job(SysDeletionJobEntity.TARGET_USER, "8", "ai_device", 0L));
+
+        verify(sysDeletionJobDao).purgeBatch("ai_device", "user_id", 8L, DeletionJobTask.BATCH_SIZE);
+        verify(sysDeletionJobDao, never()).purgeDeleted(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("失败后保留进度并延后重试")
+    public void testFailure() {
+        when(aiAgentChatHistoryDao.listForPurge(anyString(), anyLong(), anyInt()))
+                .thenThrow(new IllegalStateException("lock wait timeout"));
+
+        task.process(job(SysDeletionJobEntity.TARGET_AGENT, "a1", "ai_agent_chat_history", 0L));
+
+        Map<String, Object> last = lastUpdate();
+        assertTrue(last.containsValue(SysDeletionJobEntity.STATUS_PENDING));
+        assertTrue(last.containsValue("lock wait timeout"));
+        verify(sysDeletionJobDao, never()).purgeDeleted(anyString(), any());
+    }
+}